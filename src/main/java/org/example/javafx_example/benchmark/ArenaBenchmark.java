@@ -0,0 +1,147 @@
+package org.example.javafx_example.benchmark;
+
+import org.example.javafx_example.server.ArenaDefinition;
+import org.example.javafx_example.server.EntityStore;
+import org.example.javafx_example.server.EventQueue;
+import org.example.javafx_example.server.TargetGrid;
+
+import java.util.Locale;
+
+/**
+ * Бенчмарк стоимости тика на аренах с 2, 50 и 500 мишенями.
+ * Моделирует работу игрового цикла без сети: каждый тик выпускается несколько стрел,
+ * их исход вычисляется сразу (через сетку или полным перебором), наступившие события
+ * извлекаются из очереди, а позиции всех мишеней считаются для рассылки состояния.
+ * Стоимость проверки попаданий и расчета позиций мишеней печатается отдельно,
+ * итог - полная стоимость тика с сеткой.
+ *
+ * Запуск: java -cp target/classes org.example.javafx_example.benchmark.ArenaBenchmark [стрел_за_тик]
+ */
+public class ArenaBenchmark {
+    private static final int[] TARGET_COUNTS = {2, 50, 500};
+    private static final int TICKS = 20_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final double SHOOTER_X = 72.0;
+    private static final double ARROW_SPEED = 10.0;
+    
+    // Не даем JIT выбросить вычисления позиций
+    private static double sink;
+    
+    public static void main(String[] args) {
+        int arrowsPerTick = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        
+        System.out.println("Стрел за тик: " + arrowsPerTick + ", тиков в замере: " + TICKS);
+        System.out.println(String.format(Locale.ROOT, "%8s %12s %12s %12s %12s %12s",
+                "мишеней", "сетка", "перебор", "кандидатов", "позиции", "тик итого"));
+        
+        for (int targetCount : TARGET_COUNTS) {
+            ArenaDefinition arena = targetCount == 2
+                    ? ArenaDefinition.classic()
+                    : ArenaDefinition.gallery(targetCount, 42);
+            
+            Result grid = measure(arena, arrowsPerTick, Mode.GRID, false);
+            Result bruteForce = measure(arena, arrowsPerTick, Mode.BRUTE_FORCE, false);
+            Result positions = measure(arena, arrowsPerTick, Mode.NONE, true);
+            Result total = measure(arena, arrowsPerTick, Mode.GRID, true);
+            
+            if (grid.hits != bruteForce.hits) {
+                System.out.println("ВНИМАНИЕ: сетка и перебор дали разное число попаданий: "
+                        + grid.hits + " / " + bruteForce.hits);
+            }
+            
+            System.out.println(String.format(Locale.ROOT, "%8d %12.0f %12.0f %12.1f %12.0f %12.0f",
+                    targetCount, grid.nanosPerTick, bruteForce.nanosPerTick, grid.candidatesPerShot,
+                    positions.nanosPerTick, total.nanosPerTick));
+        }
+        System.out.println("Время в наносекундах на тик; кандидатов - мишеней, проверенных сеткой на один выстрел");
+    }
+    
+    private static Result measure(ArenaDefinition arena, int arrowsPerTick, Mode mode, boolean withPositions) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(arena, arrowsPerTick, mode, withPositions);
+        }
+        
+        Result best = null;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            Result result = run(arena, arrowsPerTick, mode, withPositions);
+            if (best == null || result.nanosPerTick < best.nanosPerTick) {
+                best = result;
+            }
+        }
+        return best;
+    }
+    
+    private static Result run(ArenaDefinition arena, int arrowsPerTick, Mode mode, boolean withPositions) {
+        EntityStore store = new EntityStore();
+        for (ArenaDefinition.TargetSpec target : arena.getTargets()) {
+            store.addTarget(target.getX(), target.getStartY(), target.getRadius(),
+                    target.getMinY(), target.getMaxY(), target.getSpeed(), target.getPoints());
+        }
+        TargetGrid grid = new TargetGrid(store, arena.getFieldHeight(), TargetGrid.DEFAULT_CELL_HEIGHT);
+        EventQueue events = new EventQueue(1024);
+        double fieldWidth = arena.getFieldWidth();
+        int targetCount = store.getTargetCount();
+        
+        long candidates = 0;
+        long shots = 0;
+        int hits = 0;
+        double positions = 0;
+        
+        long start = System.nanoTime();
+        for (long tick = 1; tick <= TICKS; tick++) {
+            // Выстрелы: стрелки стоят на разной высоте вдоль базы
+            for (int i = 0; i < arrowsPerTick; i++) {
+                double y = 40 + ((tick * 7 + i * 131) % 490);
+                int slot = store.spawnArrow(i, SHOOTER_X, y, ARROW_SPEED, tick);
+                if (mode == Mode.GRID) {
+                    grid.predictArrow(store, slot, fieldWidth);
+                    candidates += grid.candidateCount(y);
+                } else if (mode == Mode.BRUTE_FORCE) {
+                    TargetGrid.predictArrowBruteForce(store, slot, fieldWidth);
+                    candidates += targetCount;
+                } else {
+                    // Без проверки попаданий стрела просто улетает за поле
+                    store.setArrowResolution(slot, tick + 73, -1);
+                }
+                shots++;
+                events.schedule(store.getArrowResolveTick(slot), slot, store.getArrowId(slot));
+            }
+            
+            // Наступившие события
+            while (events.peekTick() <= tick) {
+                int slot = events.peekSlot();
+                events.pop();
+                if (store.getArrowHitTarget(slot) >= 0) {
+                    hits++;
+                }
+                store.releaseArrow(slot);
+            }
+            
+            // Позиции мишеней для состояния игры
+            if (withPositions) {
+                for (int target = 0; target < targetCount; target++) {
+                    positions += store.getTargetYAt(target, tick);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += positions;
+        
+        Result result = new Result();
+        result.nanosPerTick = (double) elapsed / TICKS;
+        result.candidatesPerShot = shots == 0 ? 0 : (double) candidates / shots;
+        result.hits = hits;
+        return result;
+    }
+    
+    private enum Mode {
+        NONE, GRID, BRUTE_FORCE
+    }
+    
+    private static class Result {
+        double nanosPerTick;
+        double candidatesPerShot;
+        int hits;
+    }
+} 
\ No newline at end of file
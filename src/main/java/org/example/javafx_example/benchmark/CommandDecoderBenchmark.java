@@ -0,0 +1,314 @@
+package org.example.javafx_example.benchmark;
+
+import org.example.javafx_example.protocol.ClientCommand;
+import org.example.javafx_example.server.ClientHandler;
+import org.example.javafx_example.server.GameRoom;
+import org.example.javafx_example.server.GameServer;
+import org.example.javafx_example.server.GameSnapshot;
+import org.example.javafx_example.server.Lobby;
+import org.example.javafx_example.server.ServerGame;
+import org.example.javafx_example.server.net.Connection;
+import org.example.javafx_example.server.net.LineDecoder;
+import org.example.javafx_example.server.net.StreamCompressor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Бенчмарк разбора команд клиента в одном потоке (пропускная способность на ядро).
+ * Сравнивает разбор по байтам (LineDecoder и настоящий ClientHandler.onMessage за соединением-заглушкой)
+ * с прежним путем: строка на каждую команду и цепочка startsWith/equals.
+ * Поток команд - в основном SHOOT с редкими READY, как во время игры. Игрок сидит один в комнате с идущей
+ * игрой, и обе стороны после разбора делают одно и то же: SHOOT доходит до handlePlayerShoot,
+ * READY - до setPlayerReady и checkAllPlayersReady. Когда игра кончается (стрелы израсходованы),
+ * следующий READY начинает новую, а перед каждым раундом бенчмарк дожидается, что игра идет.
+ * PAUSE в потоке нет: пауза останавливает игру, и выстрелы после нее отбрасывались бы сразу.
+ * Сервер создается без запуска транспорта, с базой в памяти, временным журналом побед и без записи матчей.
+ * Кроме времени печатает байты, выделенные потоком на одну команду.
+ *
+ * Запуск: java -cp target/classes org.example.javafx_example.benchmark.CommandDecoderBenchmark
+ */
+public class CommandDecoderBenchmark {
+    private static final int COMMANDS_PER_ROUND = 2_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 5;
+    // Размер одного чтения из сокета
+    private static final int READ_SIZE = 4096;
+    private static final String PLAYER = "bench";
+    
+    // Счетчики по опкодам прежнего пути, чтобы JIT не выбросил обработку
+    private static final long[] counters = new long[ClientCommand.COUNT];
+    private static Lobby lobby;
+    private static GameRoom room;
+    private static ClientHandler client;
+    
+    public static void main(String[] args) throws IOException {
+        Path journal = Files.createTempFile("bench-wins", ".journal");
+        System.setProperty("db.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        System.setProperty("server.winJournal", journal.toString());
+        System.setProperty("server.replayDir", "");
+        GameServer server = new GameServer();
+        lobby = new Lobby(server);
+        StubConnection connection = new StubConnection();
+        ClientHandler handler = new ClientHandler(connection, server, lobby);
+        connection.handler = handler;
+        client = handler;
+        send(handler, "NAME:" + PLAYER);
+        send(handler, "CREATE_ROOM:" + PLAYER);
+        room = lobby.getRoomOf(PLAYER);
+        if (room == null || connection.errors != 0) {
+            throw new IllegalStateException("Игрок не вошел в комнату");
+        }
+        
+        byte[] stream = buildStream();
+        int commandsInStream = countLines(stream);
+        
+        System.out.println("Команд в раунде: " + COMMANDS_PER_ROUND);
+        System.out.println(String.format(Locale.ROOT, "%-12s %14s %12s %14s",
+                "разбор", "команд/с", "нс/команду", "байт/команду"));
+        
+        Result bytes = measure(stream, commandsInStream, handler);
+        Result strings = measure(stream, commandsInStream, null);
+        print("байты", bytes);
+        print("строки", strings);
+        
+        if (connection.errors != 0) {
+            System.out.println("ВНИМАНИЕ: обработчик отвечал ошибками на команды (" + connection.errors + ")");
+        }
+        if (counters[ClientCommand.SHOOT] == 0) {
+            System.out.println("ВНИМАНИЕ: не разобрано ни одного SHOOT");
+        }
+        server.shutdown();
+        Files.deleteIfExists(journal);
+    }
+    
+    private static void send(ClientHandler handler, String message) {
+        byte[] line = message.getBytes(StandardCharsets.UTF_8);
+        handler.onMessage(line, 0, line.length);
+    }
+    
+    private static void print(String name, Result result) {
+        System.out.println(String.format(Locale.ROOT, "%-12s %14.0f %12.1f %14.2f",
+                name, 1e9 / result.nanosPerCommand, result.nanosPerCommand, result.bytesPerCommand));
+    }
+    
+    private static byte[] buildStream() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                sb.append("READY\n");
+            } else {
+                sb.append("SHOOT\n");
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int countLines(byte[] stream) {
+        int lines = 0;
+        for (byte b : stream) {
+            if (b == '\n') lines++;
+        }
+        return lines;
+    }
+    
+    /**
+     * handler - разбор по байтам этим обработчиком; null - прежний разбор строками
+     */
+    private static Result measure(byte[] stream, int commandsInStream, ClientHandler handler) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(stream, commandsInStream, handler);
+        }
+        Result best = null;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            Result result = run(stream, commandsInStream, handler);
+            if (best == null || result.nanosPerCommand < best.nanosPerCommand) {
+                best = result;
+            }
+        }
+        return best;
+    }
+    
+    private static Result run(byte[] stream, int commandsInStream, ClientHandler handler) {
+        // Данные приходят в direct-буфер, как в потоке селектора
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_SIZE);
+        LineDecoder decoder = new LineDecoder();
+        int rounds = COMMANDS_PER_ROUND / commandsInStream;
+        awaitRunningGame();
+        
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int offset = 0; offset < stream.length; offset += READ_SIZE) {
+                int count = Math.min(READ_SIZE, stream.length - offset);
+                readBuffer.clear();
+                readBuffer.put(stream, offset, count);
+                readBuffer.flip();
+                if (handler != null) {
+                    decoder.decode(readBuffer, handler);
+                } else {
+                    decodeStrings(readBuffer);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        
+        Result result = new Result();
+        long commands = (long) rounds * commandsInStream;
+        result.nanosPerCommand = (double) elapsed / commands;
+        result.bytesPerCommand = (double) allocated / commands;
+        return result;
+    }
+    
+    // Прежний путь: строка на каждую команду (как readLine) и цепочка сравнений;
+    // игровые команды, как и в ClientHandler, ищут комнату игрока
+    private static final StringBuilder pending = new StringBuilder();
+    
+    private static void decodeStrings(ByteBuffer in) {
+        byte[] chunk = new byte[in.remaining()];
+        in.get(chunk);
+        String text = new String(chunk, StandardCharsets.UTF_8);
+        int start = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', start)) >= 0) {
+            pending.append(text, start, newline);
+            String message = pending.toString();
+            pending.setLength(0);
+            dispatchString(message);
+            start = newline + 1;
+        }
+        pending.append(text, start, text.length());
+    }
+    
+    private static void dispatchString(String message) {
+        if (message.startsWith("NAME:")) {
+            counters[ClientCommand.NAME]++;
+        } else if (message.equals("LIST_ROOMS")) {
+            counters[ClientCommand.LIST_ROOMS]++;
+        } else if (message.startsWith("CREATE_ROOM")) {
+            counters[ClientCommand.CREATE_ROOM]++;
+        } else if (message.startsWith("JOIN_ROOM:")) {
+            counters[ClientCommand.JOIN_ROOM]++;
+        } else if (message.equals("LEAVE_ROOM")) {
+            counters[ClientCommand.LEAVE_ROOM]++;
+        } else if (message.equals("GET_LEADERBOARD")) {
+            counters[ClientCommand.GET_LEADERBOARD]++;
+        } else if (message.equals("READY")) {
+            roomCommand(ClientCommand.READY);
+        } else if (message.equals("PAUSE")) {
+            roomCommand(ClientCommand.PAUSE);
+        } else if (message.startsWith("SHOOT")) {
+            roomCommand(ClientCommand.SHOOT);
+        } else if (message.equals("STATE_RESYNC")) {
+            counters[ClientCommand.STATE_RESYNC]++;
+        } else if (message.equals("GAME_OVER_ACK")) {
+            counters[ClientCommand.GAME_OVER_ACK]++;
+        }
+    }
+    
+    // Та же работа после разбора, что у ClientHandler.onShoot и onReady
+    private static void roomCommand(int opcode) {
+        counters[opcode]++;
+        GameRoom room = lobby.getRoomOf(PLAYER);
+        if (room == null) return;
+        ServerGame game = room.getGame();
+        if (opcode == ClientCommand.SHOOT) {
+            game.handlePlayerShoot(PLAYER);
+            return;
+        }
+        GameSnapshot state = game.getSnapshot();
+        if (state.isPaused() && PLAYER.equals(state.getPauseRequestedBy())) {
+            game.resumeGame(PLAYER);
+        } else {
+            room.setPlayerReady(client, true);
+            room.checkAllPlayersReady();
+        }
+    }
+    
+    /**
+     * Ждет, пока в комнате идет игра: после конца прошлой игры ее начинает READY
+     */
+    private static void awaitRunningGame() {
+        ServerGame game = room.getGame();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!game.getSnapshot().isRunning()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Игра в комнате не началась");
+            }
+            send(client, "READY");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Соединение без сокета: сообщения отбрасываются, считаются только ответы ERROR
+     */
+    private static class StubConnection implements Connection {
+        private static final byte[] ERROR = "ERROR:".getBytes(StandardCharsets.UTF_8);
+        
+        ClientHandler handler;
+        volatile int errors;
+        
+        @Override
+        public void send(byte[] bytes) {
+            if (bytes.length >= ERROR.length && Arrays.equals(bytes, 0, ERROR.length, ERROR, 0, ERROR.length)) {
+                errors++;
+            }
+        }
+        
+        @Override
+        public boolean sendLatest(byte[] bytes, boolean full) {
+            return false;
+        }
+        
+        @Override
+        public boolean enableCompression(byte[] reply, int level) {
+            return false;
+        }
+        
+        @Override
+        public StreamCompressor getCompressor() {
+            return null;
+        }
+        
+        @Override
+        public int getQueuedBytes() {
+            return 0;
+        }
+        
+        @Override
+        public void close() {
+            handler.onClose();
+        }
+        
+        @Override
+        public String getRemoteAddress() {
+            return "benchmark";
+        }
+    }
+    
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+    
+    private static class Result {
+        double nanosPerCommand;
+        double bytesPerCommand;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,145 @@
+package org.example.javafx_example.benchmark;
+
+import org.example.javafx_example.server.RankIndex;
+import org.example.javafx_example.server.database.HibernateUtil;
+import org.example.javafx_example.server.database.UserEntity;
+import org.example.javafx_example.server.database.UserRepository;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Замер запросов таблицы лидеров на большой таблице. Работает с отдельной базой, игровую не трогает:
+ * при первом запуске заполняет ее игроками (победы распределены неравномерно, как в жизни:
+ * у большинства единицы, у немногих сотни), затем меряет страницы с индексом по победам и без него
+ * и место игрока в индексе мест в памяти.
+ *
+ * Запуск: java -Ddb.url=jdbc:h2:./benchdb -Ddb.showSql=false ... org.example.javafx_example.benchmark.LeaderboardBenchmark [игроков] [повторов]
+ */
+public class LeaderboardBenchmark {
+    private static final int PAGE = 100;
+    private static final int INSERT_BATCH = 10_000;
+    
+    public static void main(String[] args) {
+        if (System.getProperty("db.url") == null) {
+            System.err.println("Укажите отдельную базу: -Ddb.url=jdbc:h2:./benchdb");
+            return;
+        }
+        // H2 отдает готовый результат повторного запроса к неизменной таблице; замеру нужен настоящий запрос
+        System.setProperty("db.url", System.getProperty("db.url") + ";OPTIMIZE_REUSE_RESULTS=FALSE");
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        UserRepository repository = new UserRepository();
+        
+        long existing = repository.countUsers();
+        if (existing < users) {
+            long start = System.nanoTime();
+            seed((int) existing, users);
+            System.out.printf(Locale.ROOT, "Добавлено %d игроков за %.1f с%n", users - existing, seconds(start));
+        }
+        long count = repository.countUsers();
+        int middle = (int) (count / 2);
+        System.out.println("Игроков в таблице: " + count + ", страница " + PAGE + ", повторов " + runs);
+        
+        List<UserEntity> beforeMiddle = repository.getLeaderboardPage(middle - 1, 1);
+        UserEntity anchor = beforeMiddle.get(0);
+        
+        measure("первая страница (offset 0)", runs, () -> repository.getLeaderboardPage(0, PAGE));
+        measure("страница в середине (offset " + middle + ")", runs, () -> repository.getLeaderboardPage(middle, PAGE));
+        measure("та же страница по ключу (after)", runs,
+                () -> repository.getLeaderboardAfter(anchor.getWins(), anchor.getUsername(), PAGE));
+        checkSamePage(repository.getLeaderboardPage(middle, PAGE),
+                repository.getLeaderboardAfter(anchor.getWins(), anchor.getUsername(), PAGE));
+        
+        long loadStart = System.nanoTime();
+        RankIndex ranks = new RankIndex();
+        ranks.load(repository);
+        System.out.printf(Locale.ROOT, "Индекс мест: %d игроков загружено за %.1f с%n", ranks.size(), seconds(loadStart));
+        String last = repository.getLeaderboardPage((int) count - 1, 1).get(0).getUsername();
+        measure("место игрока в середине (индекс мест)", runs * 100,
+                () -> ranks.getRank(anchor.getUsername(), 5).getNeighbours());
+        measure("место последнего игрока (индекс мест)", runs * 100, () -> ranks.getRank(last, 5).getNeighbours());
+        measure("страница в середине (индекс мест)", runs * 100, () -> ranks.getPage(middle, PAGE));
+        checkSamePage(repository.getLeaderboardPage(middle, PAGE), ranks.getPage(middle, PAGE));
+        
+        execute("DROP INDEX IF EXISTS idx_users_wins");
+        try {
+            measure("первая страница без индекса", Math.min(runs, 5), () -> repository.getLeaderboardPage(0, PAGE));
+            measure("вся таблица без индекса и без страниц", 1, repository::getLeaderboard);
+        } finally {
+            execute("CREATE INDEX idx_users_wins ON users (wins DESC, username ASC)");
+        }
+        HibernateUtil.shutdown();
+    }
+    
+    /**
+     * Игроки benchNNNNNNN с победами по степенному закону
+     */
+    private static void seed(int from, int to) {
+        Random random = new Random(42);
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO users (username, wins) VALUES (?, ?)")) {
+                    for (int i = from; i < to; i++) {
+                        insert.setString(1, String.format("bench%07d", i));
+                        insert.setInt(2, (int) (1 / Math.pow(1 - random.nextDouble(), 0.7)));
+                        insert.addBatch();
+                        if ((i - from + 1) % INSERT_BATCH == 0) {
+                            insert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE");
+                }
+            });
+        }
+    }
+    
+    private static void measure(String name, int runs, Supplier<List<UserEntity>> query) {
+        // Первый прогон прогревает кэш страниц H2 и JIT
+        int rows = query.get().size();
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        System.out.printf(Locale.ROOT, "%-45s строк %7d  медиана %9.3f мс  худший %9.3f мс%n",
+                name, rows, millis[runs / 2], millis[runs - 1]);
+    }
+    
+    private static void checkSamePage(List<UserEntity> byOffset, List<UserEntity> byKey) {
+        boolean same = byOffset.size() == byKey.size();
+        for (int i = 0; same && i < byOffset.size(); i++) {
+            same = byOffset.get(i).getUsername().equals(byKey.get(i).getUsername());
+        }
+        System.out.println(same ? "Страницы совпадают" : "ОШИБКА: страницы различаются");
+    }
+    
+    private static void execute(String sql) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sql);
+                }
+            });
+        }
+    }
+    
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,156 @@
+package org.example.javafx_example.client;
+
+/**
+ * Полет одной стрелы по тикам сервера. Если сервер прислал полет при выстреле (точка, скорость, тик),
+ * позиция считается по нему и снимки не нужны. Иначе хранятся недавние позиции: позиция в момент
+ * отрисовки интерполируется между соседними снимками, а если новый снимок запаздывает, стрела
+ * ненадолго продолжает движение по последнему отрезку. Стрела появляется с тика выстрела
+ * и исчезает с тика попадания или промаха. Используется только из потока JavaFX.
+ */
+public class ArrowTrack {
+    private static final int CAPACITY = 16;
+    // Дольше этого стрела без новых снимков не экстраполируется
+    private static final double MAX_EXTRAPOLATION_TICKS = 6;
+    
+    private final String playerName;
+    private final long[] ticks = new long[CAPACITY];
+    private final double[] xs = new double[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private int start = 0;
+    private int count = 0;
+    
+    // Полет от сервера: стрела летит прямо с постоянной скоростью
+    private boolean flight = false;
+    private long spawnTick;
+    private double x0;
+    private double y0;
+    private double vx;
+    
+    // Конец полета: тик, после которого стрелу убирают, и вспышка попадания (targetNum > 0)
+    private double endTick = Double.POSITIVE_INFINITY;
+    private int hitTarget = 0;
+    private double hitX;
+    private double hitY;
+    
+    // Результат последнего sample()
+    private double x;
+    private double y;
+    
+    public ArrowTrack(String playerName) {
+        this.playerName = playerName;
+    }
+    
+    /**
+     * Задает полет стрелы: в тике spawnTick она в точке x, y и летит со скоростью vx пикселей за тик
+     */
+    public void setFlight(long spawnTick, double x, double y, double vx) {
+        this.flight = true;
+        this.spawnTick = spawnTick;
+        this.x0 = x;
+        this.y0 = y;
+        this.vx = vx;
+    }
+    
+    /**
+     * Стрела ведется по полету, снимки позиций ей не нужны
+     */
+    public boolean hasFlight() {
+        return flight;
+    }
+    
+    /**
+     * Добавляет позицию; снимки приходят по порядку тиков, опоздавший пропускается
+     */
+    public void add(long tick, double x, double y) {
+        if (count > 0 && tick <= ticks[index(count - 1)]) return;
+        if (count == CAPACITY) {
+            start = (start + 1) % CAPACITY;
+            count--;
+        }
+        int i = index(count);
+        ticks[i] = tick;
+        xs[i] = x;
+        ys[i] = y;
+        count++;
+    }
+    
+    /**
+     * Позиция в тике tick (результат в getX()/getY()); false, если стрелы в этот момент еще не видно
+     */
+    public boolean sample(double tick) {
+        if (flight) {
+            if (tick < spawnTick) return false;
+            x = x0 + vx * (Math.min(tick, endTick) - spawnTick);
+            y = y0;
+            return true;
+        }
+        if (count == 0 || tick < ticks[index(0)]) return false;
+        int last = index(count - 1);
+        if (tick >= ticks[last]) {
+            if (count == 1) {
+                x = xs[last];
+                y = ys[last];
+                return true;
+            }
+            int prev = index(count - 2);
+            double ahead = Math.min(tick - ticks[last], MAX_EXTRAPOLATION_TICKS);
+            double span = ticks[last] - ticks[prev];
+            x = xs[last] + (xs[last] - xs[prev]) * ahead / span;
+            y = ys[last] + (ys[last] - ys[prev]) * ahead / span;
+            return true;
+        }
+        for (int k = count - 2; k >= 0; k--) {
+            int a = index(k);
+            if (ticks[a] <= tick) {
+                int b = index(k + 1);
+                double t = (tick - ticks[a]) / (ticks[b] - ticks[a]);
+                x = xs[a] + (xs[b] - xs[a]) * t;
+                y = ys[a] + (ys[b] - ys[a]) * t;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Стрела закончила полет в тике tick; targetNum > 0 - попала в мишень в точке x, y
+     */
+    public void finish(double tick, int targetNum, double x, double y) {
+        endTick = tick;
+        hitTarget = targetNum;
+        hitX = x;
+        hitY = y;
+    }
+    
+    public boolean isFinishedAt(double tick) {
+        return tick >= endTick;
+    }
+    
+    private int index(int i) {
+        return (start + i) % CAPACITY;
+    }
+    
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public int getHitTarget() {
+        return hitTarget;
+    }
+    
+    public double getHitX() {
+        return hitX;
+    }
+    
+    public double getHitY() {
+        return hitY;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,291 @@
+package org.example.javafx_example.client;
+
+import org.example.javafx_example.protocol.BinaryProtocol;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Декодер двоичного протокола сервера (см. {@link BinaryProtocol}).
+ * Работает в потоке чтения: разбирает сообщение, переводит номера слотов в имена игроков
+ * и отдает готовое действие над контроллером, которое выполнится в потоке JavaFX.
+ * Датаграммы UDP-канала ({@link #readDatagram}) разбираются тем же декодером из своего потока:
+ * имена слотов и владельцы стрел у TCP и UDP общие, поэтому разбор идет под блокировкой декодера.
+ */
+public class BinaryMessageDecoder {
+    
+    /**
+     * Получатель разобранных сообщений
+     */
+    public interface Handler {
+        // Текстовое сообщение протокола (LEADERBOARD, GAME_OVER, ERROR и т.д.)
+        void onText(String message);
+        
+        // Игровое событие
+        void onGame(Consumer<ClientGameController> action);
+    }
+    
+    private final DataInputStream in;
+    // Имена игроков по слотам комнаты и владельцы стрел в полете
+    private final String[] slotNames = new String[256];
+    private final Map<Integer, String> arrowOwners = new HashMap<>();
+    
+    public BinaryMessageDecoder(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+    
+    /**
+     * Читает одно сообщение и передает его получателю. Возвращает false, если соединение закрыто.
+     */
+    public boolean readMessage(Handler handler) throws IOException {
+        int length;
+        try {
+            length = readVarint();
+        } catch (EOFException e) {
+            return false;
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        decode(ByteBuffer.wrap(body), handler, false);
+        return true;
+    }
+    
+    /**
+     * Разбирает сообщения BIN1 из датаграммы (после ее заголовка). Опорные кадры из датаграмм
+     * применяются, только если они новее состояния клиента: TCP мог уже доставить более свежее.
+     */
+    public void readDatagram(ByteBuffer datagram, Handler handler) {
+        readAll(datagram, handler, true);
+    }
+    
+    /**
+     * Разбирает сообщения BIN1, записанные подряд (запись матча, см. {@link ReplayReader}).
+     * Буфер должен быть в куче: строки читаются прямо из его массива.
+     */
+    public void readMessages(ByteBuffer messages, Handler handler) {
+        readAll(messages, handler, false);
+    }
+    
+    private void readAll(ByteBuffer messages, Handler handler, boolean datagram) {
+        while (messages.hasRemaining()) {
+            int length = readVarint(messages);
+            ByteBuffer message = messages.slice();
+            message.limit(length);
+            messages.position(messages.position() + length);
+            decode(message, handler, datagram);
+        }
+    }
+    
+    private synchronized void decode(ByteBuffer buf, Handler handler, boolean datagram) {
+        int opcode = buf.get() & 0xFF;
+        switch (opcode) {
+            case BinaryProtocol.OP_KEYFRAME:
+                handler.onGame(decodeKeyframe(buf, datagram));
+                break;
+            case BinaryProtocol.OP_DELTA:
+                handler.onGame(decodeDelta(buf));
+                break;
+            case BinaryProtocol.OP_ARROW: {
+                String name = slotName(buf.get() & 0xFF);
+                double y = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                int id = buf.getInt();
+                String arrowId = Integer.toString(id);
+                arrowOwners.put(id, name);
+                if (buf.remaining() >= 10) {
+                    // Полет стрелы есть только у нового сервера
+                    double x = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                    double vx = BinaryProtocol.dequantizeVelocity(buf.getInt());
+                    long tick = buf.getInt() & 0xFFFFFFFFL;
+                    handler.onGame(c -> c.onArrow(name, x, y, vx, arrowId, tick));
+                } else {
+                    handler.onGame(c -> c.onArrow(name, y, arrowId));
+                }
+                break;
+            }
+            case BinaryProtocol.OP_ARROW_POSITION: {
+                int id = buf.getInt();
+                double x = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                double y = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                // Тик позиции есть только у нового сервера
+                long tick = buf.remaining() >= 4 ? buf.getInt() & 0xFFFFFFFFL : -1;
+                String name = arrowOwners.get(id);
+                if (name != null) {
+                    String arrowId = Integer.toString(id);
+                    handler.onGame(c -> c.onArrowPosition(name, x, y, arrowId, tick));
+                }
+                break;
+            }
+            case BinaryProtocol.OP_HIT: {
+                String name = slotName(buf.get() & 0xFF);
+                int targetNum = buf.getShort() & 0xFFFF;
+                double x = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                double y = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+                int id = buf.getInt();
+                long tick = buf.remaining() >= 4 ? buf.getInt() & 0xFFFFFFFFL : -1;
+                arrowOwners.remove(id);
+                String arrowId = Integer.toString(id);
+                handler.onGame(c -> c.onHit(name, targetNum, x, y, arrowId, tick));
+                break;
+            }
+            case BinaryProtocol.OP_MISS: {
+                String name = slotName(buf.get() & 0xFF);
+                int id = buf.getInt();
+                long tick = buf.remaining() >= 4 ? buf.getInt() & 0xFFFFFFFFL : -1;
+                arrowOwners.remove(id);
+                String arrowId = Integer.toString(id);
+                handler.onGame(c -> c.onMiss(name, arrowId, tick));
+                break;
+            }
+            case BinaryProtocol.OP_TEXT:
+                handler.onText(new String(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining(),
+                        StandardCharsets.UTF_8));
+                break;
+            default:
+                // Неизвестный опкод от более нового сервера: длина известна, просто пропускаем
+                break;
+        }
+    }
+    
+    private Consumer<ClientGameController> decodeKeyframe(ByteBuffer buf, boolean datagram) {
+        long sequence = buf.getInt() & 0xFFFFFFFFL;
+        long tick = buf.getInt() & 0xFFFFFFFFL;
+        int flags = buf.get() & 0xFF;
+        int pauseSlot = buf.get() & 0xFF;
+        
+        int targetCount = buf.getShort() & 0xFFFF;
+        double[] ys = new double[targetCount];
+        double[] velocities = new double[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            ys[i] = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+            velocities[i] = BinaryProtocol.dequantizeVelocity(buf.getInt());
+        }
+        
+        Arrays.fill(slotNames, null);
+        int playerCount = buf.get() & 0xFF;
+        List<ClientGameController.PlayerInfo> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            int slot = buf.get() & 0xFF;
+            String name = readString(buf);
+            int score = buf.getShort() & 0xFFFF;
+            int shots = buf.get() & 0xFF;
+            slotNames[slot] = name;
+            players.add(new ClientGameController.PlayerInfo(name, score, shots));
+        }
+        
+        boolean running = (flags & BinaryProtocol.FLAG_RUNNING) != 0;
+        boolean paused = (flags & BinaryProtocol.FLAG_PAUSED) != 0;
+        String pauseBy = pauseSlot == BinaryProtocol.NO_SLOT ? null : slotNames[pauseSlot];
+        if (datagram) {
+            return c -> c.applyDatagramKeyframe(sequence, tick, running, paused, pauseBy, ys, velocities, players);
+        }
+        return c -> c.applyKeyframe(sequence, tick, running, paused, pauseBy, ys, velocities, players);
+    }
+    
+    private Consumer<ClientGameController> decodeDelta(ByteBuffer buf) {
+        long sequence = buf.getInt() & 0xFFFFFFFFL;
+        long tick = buf.getInt() & 0xFFFFFFFFL;
+        int mask = buf.get() & 0xFF;
+        int flags = (mask & BinaryProtocol.CHANGED_FLAGS) != 0 ? buf.get() & 0xFF : -1;
+        int pauseSlot = (mask & BinaryProtocol.CHANGED_PAUSE_BY) != 0 ? buf.get() & 0xFF : -1;
+        
+        int correctionCount = buf.getShort() & 0xFFFF;
+        int[] targets = new int[correctionCount];
+        double[] ys = new double[correctionCount];
+        double[] velocities = new double[correctionCount];
+        for (int i = 0; i < correctionCount; i++) {
+            targets[i] = buf.getShort() & 0xFFFF;
+            ys[i] = BinaryProtocol.dequantizePosition(buf.getShort() & 0xFFFF);
+            velocities[i] = BinaryProtocol.dequantizeVelocity(buf.getInt());
+        }
+        
+        int changedCount = buf.get() & 0xFF;
+        List<ClientGameController.PlayerInfo> changed = new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            int slot = buf.get() & 0xFF;
+            if ((slot & BinaryProtocol.NEW_PLAYER) != 0) {
+                slot &= ~BinaryProtocol.NEW_PLAYER;
+                slotNames[slot] = readString(buf);
+            }
+            int score = buf.getShort() & 0xFFFF;
+            int shots = buf.get() & 0xFF;
+            changed.add(new ClientGameController.PlayerInfo(slotName(slot), score, shots));
+        }
+        
+        int removedCount = buf.get() & 0xFF;
+        List<String> removed = new ArrayList<>(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            int slot = buf.get() & 0xFF;
+            removed.add(slotName(slot));
+            slotNames[slot] = null;
+        }
+        
+        String pauseBy = pauseSlot == BinaryProtocol.NO_SLOT || pauseSlot < 0 ? null : slotNames[pauseSlot];
+        return c -> {
+            if (!c.beginDelta(sequence, tick)) return;
+            if (flags >= 0) {
+                c.deltaFlags((flags & BinaryProtocol.FLAG_RUNNING) != 0, (flags & BinaryProtocol.FLAG_PAUSED) != 0);
+            }
+            if (pauseSlot >= 0) {
+                c.deltaPauseBy(pauseBy);
+            }
+            for (int i = 0; i < correctionCount; i++) {
+                c.deltaTarget(targets[i], ys[i], velocities[i]);
+            }
+            for (ClientGameController.PlayerInfo info : changed) {
+                c.deltaPlayer(info.getName(), info.getScore(), info.getShots());
+            }
+            for (String name : removed) {
+                c.deltaRemovePlayer(name);
+            }
+            c.endDelta();
+        };
+    }
+    
+    private String slotName(int slot) {
+        String name = slotNames[slot];
+        return name != null ? name : "#" + slot;
+    }
+    
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+    
+    private static int readVarint(ByteBuffer buf) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = buf.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+    
+    private static String readString(ByteBuffer buf) {
+        int length = readVarint(buf);
+        String value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return value;
+    }
+} 
\ No newline at end of file
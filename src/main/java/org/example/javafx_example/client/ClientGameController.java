@@ -1,23 +1,46 @@
 package org.example.javafx_example.client;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class ClientGameController {
-    private GameClient client;
+    // Правый край базы стрелков: отсюда вылетают стрелы
+    private static final double SHOOTER_BASE_WIDTH = 72.0;
+    
+    // Команды серверу; у просмотра записи матча они никуда не уходят
+    private final Consumer<String> commands;
     private ClientGameView gameView;
     private boolean isGameRunning = false;
     private boolean isPaused = false;
     private Map<String, PlayerInfo> players = new HashMap<>();
-    private double target1Y = 300.0;
-    private double target2Y = 300.0;
+    // База для дельт состояния: номер последнего примененного состояния, тик и поправки мишеней
+    private long stateSequence = -1;
+    private long stateTick = 0;
+    private double[] targetBaseYs = new double[0];
+    private double[] targetVelocities = new double[0];
+    private long[] targetBaseTicks = new long[0];
+    private boolean resyncRequested = false;
+    
+    // Отрисовка по шкале времени сервера: состояния приходят реже кадров экрана,
+    // мишени и стрелы рисуются между ними (см. SnapshotClock)
+    private final SnapshotClock clock = new SnapshotClock();
+    private TargetTrack[] targetTracks = new TargetTrack[0];
+    private double[] renderYs = new double[0];
+    private List<TargetInfo> arena = new ArrayList<>();
+    private final Map<String, ArrowTrack> arrows = new HashMap<>();
+    private final AnimationTimer renderTimer;
+    // null - окно только показывает игру (просмотр записи): кнопки отключены
     private String myPlayerName;
     private String pauseRequestedBy = null;
     private boolean ShownAlert = false;
@@ -28,9 +51,20 @@ public class ClientGameController {
     };
     
     public ClientGameController(GameClient client) {
-        this.client = client;
-        this.myPlayerName = client.getPlayerName();
+        this(client.getPlayerName(), client::sendMessage);
+    }
+    
+    public ClientGameController(String playerName, Consumer<String> commands) {
+        this.commands = commands;
+        this.myPlayerName = playerName;
         this.gameView = new ClientGameView(this);
+        this.renderTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                renderFrame(now);
+            }
+        };
+        renderTimer.start();
     }
     
     public Pane getView() {
@@ -55,33 +89,325 @@ public class ClientGameController {
     }
     
     public void updateGameState(String stateMessage) {
-        String[] parts = stateMessage.split(":");
+        // GAME_STATE:идет:пауза:y1:y2:кто_на_паузе:игроков:имя,счет,выстрелы;...:номер:тик:v1,...,vN:y3,...,yN
+        String[] parts = stateMessage.split(":", -1);
         if (parts.length < 7) return;
         
-        isGameRunning = Boolean.parseBoolean(parts[1]);
-        isPaused = Boolean.parseBoolean(parts[2]);
-        target1Y = Double.parseDouble(parts[3]);
-        target2Y = Double.parseDouble(parts[4]);
-        pauseRequestedBy = "null".equals(parts[5]) ? null : parts[5];
-        
         int playerCount = Integer.parseInt(parts[6]);
-        players.clear();
-        
+        List<PlayerInfo> playerList = new ArrayList<>();
         if (parts.length > 7) {
             String[] playerInfos = parts[7].split(";");
             for (int i = 0; i < playerCount && i < playerInfos.length; i++) {
                 String[] playerData = playerInfos[i].split(",");
                 if (playerData.length >= 3) {
-                    String name = playerData[0];
-                    int score = Integer.parseInt(playerData[1]);
-                    int shots = Integer.parseInt(playerData[2]);
-                    players.put(name, new PlayerInfo(name, score, shots));
+                    playerList.add(new PlayerInfo(playerData[0],
+                        Integer.parseInt(playerData[1]), Integer.parseInt(playerData[2])));
                 }
             }
         }
         
+        // Без хвоста (прежний сервер) мишеней две и номера кадра нет; с хвостом число мишеней - число скоростей
+        long sequence = -1;
+        long tick = 0;
+        double[] ys;
+        double[] velocities;
+        if (parts.length >= 12) {
+            sequence = Long.parseLong(parts[8]);
+            tick = Long.parseLong(parts[9]);
+            String[] velocityData = parts[10].isEmpty() ? new String[0] : parts[10].split(",");
+            String[] extraData = parts[11].isEmpty() ? new String[0] : parts[11].split(",");
+            ys = new double[velocityData.length];
+            velocities = new double[velocityData.length];
+            for (int i = 0; i < ys.length; i++) {
+                velocities[i] = Double.parseDouble(velocityData[i]);
+                ys[i] = i < 2 ? Double.parseDouble(parts[3 + i]) : Double.parseDouble(extraData[i - 2]);
+            }
+        } else {
+            ys = new double[] {Double.parseDouble(parts[3]), Double.parseDouble(parts[4])};
+            velocities = new double[2];
+        }
+        
+        applyKeyframe(sequence, tick, Boolean.parseBoolean(parts[1]), Boolean.parseBoolean(parts[2]),
+            "null".equals(parts[5]) ? null : parts[5], ys, velocities, playerList);
+    }
+    
+    /**
+     * Применяет дельту состояния: STATE_DELTA:номер:тик:изменение;изменение;...
+     */
+    public void applyStateDelta(String deltaMessage) {
+        String[] parts = deltaMessage.split(":", 4);
+        if (parts.length < 4) return;
+        
+        if (!beginDelta(Long.parseLong(parts[1]), Long.parseLong(parts[2]))) return;
+        
+        boolean running = isGameRunning;
+        boolean paused = isPaused;
+        for (String change : parts[3].split(";")) {
+            int eq = change.indexOf('=');
+            if (eq < 0) continue;
+            String key = change.substring(0, eq);
+            String value = change.substring(eq + 1);
+            
+            if (key.equals("run")) {
+                running = Boolean.parseBoolean(value);
+            } else if (key.equals("pause")) {
+                paused = Boolean.parseBoolean(value);
+            } else if (key.equals("by")) {
+                deltaPauseBy("null".equals(value) ? null : value);
+            } else if (key.equals("t")) {
+                // Поправка мишени: индекс,y,скорость
+                String[] targetData = value.split(",");
+                deltaTarget(Integer.parseInt(targetData[0]),
+                    Double.parseDouble(targetData[1]), Double.parseDouble(targetData[2]));
+            } else if (key.equals("p")) {
+                String[] playerData = value.split(",");
+                if (playerData.length >= 3) {
+                    deltaPlayer(playerData[0], Integer.parseInt(playerData[1]), Integer.parseInt(playerData[2]));
+                }
+            } else if (key.equals("x")) {
+                deltaRemovePlayer(value);
+            }
+        }
+        deltaFlags(running, paused);
+        endDelta();
+    }
+    
+    // Типизированное применение состояния: им пользуются и разбор текстовых сообщений, и двоичный декодер
+    
+    /**
+     * Опорный кадр: полное состояние, от которого клиент ведет мишени и применяет дельты.
+     * sequence < 0 - сервер не поддерживает дельты.
+     */
+    public void applyKeyframe(long sequence, long tick, boolean running, boolean paused, String pauseBy,
+                              double[] ys, double[] velocities, List<PlayerInfo> playerList) {
+        isGameRunning = running;
+        isPaused = paused;
+        pauseRequestedBy = pauseBy;
+        
+        targetBaseYs = ys.clone();
+        targetVelocities = velocities.clone();
+        targetBaseTicks = new long[ys.length];
+        Arrays.fill(targetBaseTicks, tick);
+        
+        players.clear();
+        for (PlayerInfo info : playerList) {
+            players.put(info.getName(), info);
+        }
+        
+        stateSequence = sequence;
+        stateTick = tick;
+        resyncRequested = false;
+        
+        // Опорный кадр начинает историю мишеней заново
+        if (targetTracks.length != ys.length) {
+            targetTracks = new TargetTrack[ys.length];
+            for (int i = 0; i < ys.length; i++) {
+                targetTracks[i] = new TargetTrack();
+            }
+            renderYs = new double[ys.length];
+        }
+        for (int i = 0; i < ys.length; i++) {
+            targetTracks[i].clear();
+            targetTracks[i].add(tick, ys[i], velocities[i]);
+        }
+        clock.onSample(tick, System.nanoTime());
+        
+        refreshView();
+    }
+    
+    /**
+     * Опорный кадр из UDP-датаграммы. Датаграммы могут опоздать относительно TCP,
+     * поэтому кадр не новее уже примененного состояния пропускается.
+     */
+    public void applyDatagramKeyframe(long sequence, long tick, boolean running, boolean paused, String pauseBy,
+                                      double[] ys, double[] velocities, List<PlayerInfo> playerList) {
+        if (sequence <= stateSequence) return;
+        applyKeyframe(sequence, tick, running, paused, pauseBy, ys, velocities, playerList);
+    }
+    
+    /**
+     * Начало дельты. Если номер не следует за последним примененным, просит у сервера
+     * полный кадр и возвращает false: такую дельту применять нельзя.
+     */
+    public boolean beginDelta(long sequence, long tick) {
+        if (stateSequence < 0 || sequence != stateSequence + 1) {
+            if (!resyncRequested) {
+                resyncRequested = true;
+                commands.accept("STATE_RESYNC");
+            }
+            return false;
+        }
+        stateSequence = sequence;
+        stateTick = tick;
+        clock.onSample(tick, System.nanoTime());
+        return true;
+    }
+    
+    public void deltaFlags(boolean running, boolean paused) {
+        isGameRunning = running;
+        isPaused = paused;
+    }
+    
+    public void deltaPauseBy(String pauseBy) {
+        pauseRequestedBy = pauseBy;
+    }
+    
+    public void deltaTarget(int target, double y, double velocity) {
+        if (target < targetBaseYs.length) {
+            targetBaseYs[target] = y;
+            targetVelocities[target] = velocity;
+            targetBaseTicks[target] = stateTick;
+            targetTracks[target].add(stateTick, y, velocity);
+        }
+    }
+    
+    public void deltaPlayer(String name, int score, int shots) {
+        players.put(name, new PlayerInfo(name, score, shots));
+    }
+    
+    public void deltaRemovePlayer(String name) {
+        players.remove(name);
+    }
+    
+    public void endDelta() {
+        // Мишени между поправками рисует renderFrame, здесь обновляются только игроки и статус
+        refreshView();
+    }
+    
+    /**
+     * Частоты сервера из SNAPSHOT_RATE: по ним выбирается задержка интерполяции
+     */
+    public void setSnapshotRate(int tickRate, int sendRate) {
+        clock.setRates(tickRate, sendRate);
+    }
+    
+    /**
+     * Кадр экрана: мишени и стрелы в тике отрисовки, запоздалые на задержку интерполяции.
+     * Попадания и промахи показываются, когда до их тика доходит отрисовка, а не в момент прихода.
+     */
+    private void renderFrame(long now) {
+        if (!clock.isSynced()) return;
+        double tick = clock.renderTick(now);
+        
+        for (int i = 0; i < targetTracks.length; i++) {
+            TargetInfo info = i < arena.size() ? arena.get(i) : null;
+            renderYs[i] = info == null
+                    ? targetTracks[i].positionAt(tick, 0, 0)
+                    : targetTracks[i].positionAt(tick, info.getMinY(), info.getMaxY());
+        }
+        gameView.setTargetPositions(renderYs);
+        
+        Iterator<Map.Entry<String, ArrowTrack>> it = arrows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ArrowTrack> entry = it.next();
+            ArrowTrack arrow = entry.getValue();
+            if (arrow.isFinishedAt(tick)) {
+                if (arrow.getHitTarget() > 0) {
+                    gameView.showHitEffect(arrow.getHitX(), arrow.getHitY(), arrow.getHitTarget());
+                }
+                gameView.removeArrow(entry.getKey());
+                it.remove();
+            } else if (arrow.sample(tick)) {
+                gameView.setArrowPosition(entry.getKey(), arrow.getX(), arrow.getY());
+            }
+        }
+    }
+    
+    /**
+     * Перемотка записи матча: стрелы и шкала времени начинаются заново со следующего опорного кадра
+     */
+    public void resetTimeline() {
+        arrows.clear();
+        gameView.clearArrows();
+        clock.reset();
+        stateSequence = -1;
+    }
+    
+    public void onArrow(String playerName, double y, String arrowId) {
+        onArrow(playerName, SHOOTER_BASE_WIDTH, y, 0, arrowId, -1);
+    }
+    
+    /**
+     * Выстрел: в тике tick стрела в точке x, y летит со скоростью vx. tick < 0 - старый сервер
+     * полет не прислал, стрела ведется по ARROW_POSITION
+     */
+    public void onArrow(String playerName, double x, double y, double vx, String arrowId, long tick) {
+        // Находим цвет для игрока
+        int playerIndex = -1;
+        List<String> playerNames = new ArrayList<>(players.keySet());
+        for (int i = 0; i < playerNames.size(); i++) {
+            if (playerNames.get(i).equals(playerName)) {
+                playerIndex = i;
+                break;
+            }
+        }
+        
+        if (playerIndex >= 0) {
+            Color playerColor = gameView.getPlayerColor(playerIndex);
+            gameView.createArrow(playerName, y, playerColor, arrowId);
+            // Стрела вылетает от базы стрелков; на экране появится, когда до этого тика дойдет отрисовка
+            ArrowTrack arrow = new ArrowTrack(playerName);
+            long now = System.nanoTime();
+            if (tick >= 0) {
+                clock.onSample(tick, now);
+                arrow.setFlight(tick, x, y, vx);
+            } else {
+                arrow.add((long) Math.floor(clock.serverTick(now)), x, y);
+            }
+            arrows.put(arrowId, arrow);
+        }
+    }
+    
+    /**
+     * Позиция стрелы в тике tick; tick < 0 - сервер тик не прислал, позиция считается текущей
+     */
+    public void onArrowPosition(String playerName, double x, double y, String arrowId, long tick) {
+        ArrowTrack arrow = arrows.get(arrowId);
+        if (arrow == null) return;
+        long now = System.nanoTime();
+        if (tick < 0) {
+            tick = (long) Math.floor(clock.serverTick(now));
+        } else {
+            clock.onSample(tick, now);
+        }
+        // Стрелу с полетом от сервера позиции не двигают
+        if (!arrow.hasFlight()) {
+            arrow.add(tick, x, y);
+        }
+    }
+    
+    /**
+     * Попадание в тике tick; tick < 0 - сервер тик не прислал, попадание считается текущим
+     */
+    public void onHit(String playerName, int targetNum, double x, double y, String arrowId, long tick) {
+        ArrowTrack arrow = arrows.get(arrowId);
+        if (arrow == null) {
+            gameView.showHitEffect(x, y, targetNum);
+            gameView.removeArrow(arrowId);
+            return;
+        }
+        double end = tick >= 0 ? tick : clock.serverTick(System.nanoTime());
+        if (!arrow.hasFlight()) {
+            arrow.add((long) Math.ceil(end), x, y);
+        }
+        arrow.finish(end, targetNum, x, y);
+    }
+    
+    /**
+     * Промах в тике tick; tick < 0 - сервер тик не прислал
+     */
+    public void onMiss(String playerName, String arrowId, long tick) {
+        ArrowTrack arrow = arrows.get(arrowId);
+        if (arrow == null) {
+            gameView.removeArrow(arrowId);
+            return;
+        }
+        arrow.finish(tick >= 0 ? tick : clock.serverTick(System.nanoTime()), 0, 0, 0);
+    }
+    
+    private void refreshView() {
         // Обновляем визуальное представление игры
-        gameView.updateView(target1Y, target2Y, new ArrayList<>(players.values()));
+        gameView.updateView(new ArrayList<>(players.values()));
         
         // Обновляем статус игры с информацией о счете
         PlayerInfo myInfo = players.get(myPlayerName);
@@ -104,15 +430,15 @@ public class ClientGameController {
         PlayerInfo myInfo = players.get(myPlayerName);
         if (myInfo == null || myInfo.getShots() <= 0) return;
         
-        client.sendMessage("SHOOT");
+        commands.accept("SHOOT");
     }
     
     public void toggleReady() {
         if (isPaused || !isGameRunning) {
-            client.sendMessage("READY");
+            commands.accept("READY");
             gameView.updateGameStatus("Ожидание других игроков...");
         } else {
-            client.sendMessage("PAUSE");
+            commands.accept("PAUSE");
             gameView.updateGameStatus("Запрошена пауза");
         }
     }
@@ -120,20 +446,27 @@ public class ClientGameController {
     public void showGameOver(String winner) {
         Platform.runLater(() -> {
             ShownAlert = true;
+            if (myPlayerName == null) {
+                isGameRunning = false;
+                isPaused = false;
+                gameView.updateGameStatus("Игра окончена. Победитель: " + winner);
+                return;
+            }
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Игра окончена");
             alert.setHeaderText("Победитель: " + winner);
             alert.setContentText("Для начала новой игры нажмите кнопку 'Готов'.");
             alert.showAndWait();
-
+            
             
             isGameRunning = false;
             isPaused = false;
             gameView.updateGameStatus("Игра окончена. Победитель: " + winner);
+            arrows.clear();
             gameView.clearArrows();
             
             // Отправляем подтверждение о получении сообщения о конце игры
-            client.sendMessage("GAME_OVER_ACK");
+            commands.accept("GAME_OVER_ACK");
         });
     }
     
@@ -145,6 +478,8 @@ public class ClientGameController {
             gameView.updateGameStatus("Ожидание готовности всех игроков...");
         } else if (message.startsWith("GAME_STATE:")) {
             updateGameState(message);
+        } else if (message.startsWith("STATE_DELTA:")) {
+            applyStateDelta(message);
         } else if (message.equals("GAME_STARTED")) {
             setGameStarted();
         } else if (message.equals("GAME_PAUSED")) {
@@ -157,56 +492,33 @@ public class ClientGameController {
         } else if (message.startsWith("ARROW:")) {
             // Создаем стрелу с ID
             String[] parts = message.split(":");
-            if (parts.length >= 4) {  // Проверяем, что есть ID стрелы
-                String playerName = parts[1];
-                double arrowY = Double.parseDouble(parts[2]);
-                String arrowId = parts[3];
-                
-                // Находим цвет для игрока
-                int playerIndex = -1;
-                List<String> playerNames = new ArrayList<>(players.keySet());
-                for (int i = 0; i < playerNames.size(); i++) {
-                    if (playerNames.get(i).equals(playerName)) {
-                        playerIndex = i;
-                        break;
-                    }
-                }
-                
-                if (playerIndex >= 0) {
-                    Color playerColor = gameView.getPlayerColor(playerIndex);
-                    gameView.createArrow(playerName, arrowY, playerColor, arrowId);
-                }
+            if (parts.length >= 7) {  // Новый сервер присылает полет стрелы: x, vx и тик выстрела
+                onArrow(parts[1], Double.parseDouble(parts[4]), Double.parseDouble(parts[2]),
+                    Double.parseDouble(parts[5]), parts[3], Long.parseLong(parts[6]));
+            } else if (parts.length >= 4) {  // Проверяем, что есть ID стрелы
+                onArrow(parts[1], Double.parseDouble(parts[2]), parts[3]);
             }
         } else if (message.startsWith("ARROW_POSITION:")) {
             // Обновляем позицию существующей стрелы по ID
             String[] parts = message.split(":");
             if (parts.length >= 5) {  // Учитываем ID стрелы
-                String playerName = parts[1];
-                double x = Double.parseDouble(parts[2]);
-                double y = Double.parseDouble(parts[3]);
-                String arrowId = parts[4];
-                
-                gameView.updateArrowPosition(playerName, x, y, arrowId);
+                long tick = parts.length >= 6 ? Long.parseLong(parts[5]) : -1;
+                onArrowPosition(parts[1], Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), parts[4], tick);
             }
         } else if (message.startsWith("HIT:")) {
             // Информация о попадании с ID стрелы
             String[] parts = message.split(":");
             if (parts.length >= 6) {  // Учитываем ID стрелы
-                String playerName = parts[1];
-                int targetNum = Integer.parseInt(parts[2]);
-                double x = Double.parseDouble(parts[3]);
-                double y = Double.parseDouble(parts[4]);
-                String arrowId = parts[5];
-                
-                gameView.showHitEffect(x, y, targetNum);
-                gameView.removeArrow(arrowId);
+                long tick = parts.length >= 7 ? Long.parseLong(parts[6]) : -1;
+                onHit(parts[1], Integer.parseInt(parts[2]),
+                    Double.parseDouble(parts[3]), Double.parseDouble(parts[4]), parts[5], tick);
             }
         } else if (message.startsWith("MISS:")) {
             // Информация о промахе с ID стрелы
             String[] parts = message.split(":");
             if (parts.length >= 3) {  // Учитываем ID стрелы
-                String arrowId = parts[2];
-                gameView.removeArrow(arrowId);
+                long tick = parts.length >= 4 ? Long.parseLong(parts[3]) : -1;
+                onMiss(parts[1], parts[2], tick);
             }
         } else if (message.startsWith("LEADERBOARD:")) {
             // Обработка таблицы лидеров
@@ -221,12 +533,35 @@ public class ClientGameController {
             pauseRequestedBy = null;
             setGameResumed();
             updateButtonStates();
+        } else if (message.startsWith("ARENA:")) {
+            // Раскладка мишеней комнаты: ARENA:имя:x,радиус,minY,maxY;...
+            String[] parts = message.split(":", 3);
+            if (parts.length >= 3) {
+                arena = parseArena(parts[2]);
+                gameView.setArena(arena);
+            }
+        } else if (message.startsWith("SNAPSHOT_RATE:")) {
+            // SNAPSHOT_RATE:тиков_в_секунду:состояний_в_секунду
+            String[] parts = message.split(":");
+            if (parts.length >= 3) {
+                setSnapshotRate(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            }
+        } else if (message.startsWith("ROOM_JOINED:")) {
+            // Сервер посадил нас в комнату: ROOM_JOINED:id:название
+            String[] parts = message.split(":", 3);
+            if (parts.length >= 3) {
+                gameView.updateGameStatus("Комната \"" + parts[2] + "\". Ожидание начала игры...");
+            }
         }
     }
     
     private void updateButtonStates() {
         boolean canToggleReady;
         
+        if (myPlayerName == null) {
+            gameView.updateButtonStates(false, false);
+            return;
+        }
         if (!isGameRunning) {
             // Если игра не запущена, все могут нажать "Готов"
             canToggleReady = true;
@@ -251,7 +586,7 @@ public class ClientGameController {
     
     // Метод для запроса таблицы лидеров
     public void requestLeaderboard() {
-        client.sendMessage("GET_LEADERBOARD");
+        commands.accept("GET_LEADERBOARD");
     }
     
     // Отображение таблицы лидеров
@@ -284,6 +619,25 @@ public class ClientGameController {
         return entries;
     }
     
+    // Парсинг раскладки мишеней
+    private List<TargetInfo> parseArena(String data) {
+        List<TargetInfo> targets = new ArrayList<>();
+        for (String targetInfo : data.split(";")) {
+            if (targetInfo.isEmpty()) continue;
+            
+            String[] parts = targetInfo.split(",");
+            if (parts.length >= 4) {
+                targets.add(new TargetInfo(
+                    Double.parseDouble(parts[0]),
+                    Double.parseDouble(parts[1]),
+                    Double.parseDouble(parts[2]),
+                    Double.parseDouble(parts[3])
+                ));
+            }
+        }
+        return targets;
+    }
+    
     // Класс для хранения информации о записи в таблице лидеров
     public static class LeaderboardEntry {
         private final String username;
@@ -303,6 +657,37 @@ public class ClientGameController {
         }
     }
     
+    // Положение и дорожка мишени на арене
+    public static class TargetInfo {
+        private final double x;
+        private final double radius;
+        private final double minY;
+        private final double maxY;
+        
+        public TargetInfo(double x, double radius, double minY, double maxY) {
+            this.x = x;
+            this.radius = radius;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+        
+        public double getX() {
+            return x;
+        }
+        
+        public double getRadius() {
+            return radius;
+        }
+        
+        public double getMinY() {
+            return minY;
+        }
+        
+        public double getMaxY() {
+            return maxY;
+        }
+    }
+    
     public static class PlayerInfo {
         private String name;
         private int score;
@@ -25,15 +25,14 @@ public class ClientGameView {
     private AnchorPane root;
     private Rectangle shooterBase;
     private VBox playersBox;
-    private Circle target1;
-    private Circle target2;
-    private Line track1;
-    private Line track2;
+    private List<Circle> targets = new ArrayList<>();
+    private List<Line> tracks = new ArrayList<>();
+    private List<ClientGameController.TargetInfo> arena = new ArrayList<>();
     private Label statusLabel;
     private ClientGameController controller;
     
-    // Для отслеживания стрел
-    private Map<String, Map<String, Group>> playerArrows = new HashMap<>();
+    // Стрелы на экране по id
+    private Map<String, Group> arrows = new HashMap<>();
     
     // Доступные цвета для игроков
     private Color[] playerColors = {
@@ -60,20 +59,6 @@ public class ClientGameView {
         shooterBase = new Rectangle(0, 0, 72, 600);
         shooterBase.setFill(Color.YELLOW);
         
-        // Линии движения мишеней
-        track1 = new Line(400, 100, 400, 500);
-        track1.setStroke(Color.GRAY);
-        
-        track2 = new Line(600, 100, 600, 500);
-        track2.setStroke(Color.GRAY);
-        
-        // Мишени
-        target1 = new Circle(400, 300, 30);
-        target1.setFill(Color.RED);
-        
-        target2 = new Circle(600, 300, 15);
-        target2.setFill(Color.RED);
-        
         // Информационная панель
         VBox infoPanel = new VBox(10);
         infoPanel.setLayoutX(650);
@@ -110,14 +95,54 @@ public class ClientGameView {
         controlsBox.getChildren().addAll(readyButton, shootButton, leaderboardButton);
         
         // Добавляем все элементы на панель
-        root.getChildren().addAll(shooterBase, track1, track2, target1, target2, infoPanel, controlsBox);
+        root.getChildren().addAll(shooterBase, infoPanel, controlsBox);
+        
+        // Пока сервер не прислал арену, показываем классическое поле
+        List<ClientGameController.TargetInfo> classic = new ArrayList<>();
+        classic.add(new ClientGameController.TargetInfo(400, 30, 100, 500));
+        classic.add(new ClientGameController.TargetInfo(600, 15, 100, 500));
+        setArena(classic);
     }
     
-    public void updateView(double target1Y, double target2Y, List<ClientGameController.PlayerInfo> playerInfos) {
-        // Обновляем позиции мишеней
-        target1.setCenterY(target1Y);
-        target2.setCenterY(target2Y);
+    /**
+     * Перестраивает мишени и их дорожки по раскладке арены
+     */
+    public void setArena(List<ClientGameController.TargetInfo> targetInfos) {
+        root.getChildren().removeAll(tracks);
+        root.getChildren().removeAll(targets);
+        tracks.clear();
+        targets.clear();
+        arena = new ArrayList<>(targetInfos);
         
+        for (ClientGameController.TargetInfo info : targetInfos) {
+            // Линия движения мишени
+            Line track = new Line(info.getX(), info.getMinY(), info.getX(), info.getMaxY());
+            track.setStroke(Color.GRAY);
+            tracks.add(track);
+            
+            // Мишень
+            Circle target = new Circle(info.getX(), (info.getMinY() + info.getMaxY()) / 2, info.getRadius());
+            target.setFill(Color.RED);
+            targets.add(target);
+        }
+        
+        // Дорожки и мишени лежат сразу над базой стрелков, под панелями и стрелами
+        root.getChildren().addAll(1, tracks);
+        root.getChildren().addAll(1 + tracks.size(), targets);
+    }
+    
+    /**
+     * Позиции мишеней в кадре отрисовки; NaN - позиция еще неизвестна
+     */
+    public void setTargetPositions(double[] targetYs) {
+        for (int i = 0; i < targetYs.length && i < targets.size(); i++) {
+            if (!Double.isNaN(targetYs[i])) {
+                targets.get(i).setCenterY(targetYs[i]);
+            }
+        }
+    }
+    
+    public void updateView(List<ClientGameController.PlayerInfo> playerInfos) {
         // Обновляем информацию об игроках
         playersBox.getChildren().clear();
         
@@ -181,32 +206,32 @@ public class ClientGameView {
         // Добавляем компоненты в группу
         arrow.getChildren().addAll(arrowLine, arrowHead);
         
-        // Устанавливаем начальную позицию стрелы
+        // Начальная позиция; стрела невидима, пока отрисовка не дойдет до тика выстрела
         arrow.setLayoutX(72);
         arrow.setLayoutY(startY);
+        arrow.setVisible(false);
         
         // Добавляем стрелу на сцену
         root.getChildren().add(arrow);
-        
-        // Сохраняем стрелу для игрока, используя ID стрелы
-        if (!playerArrows.containsKey(playerName)) {
-            playerArrows.put(playerName, new HashMap<>());
-        }
-        playerArrows.get(playerName).put(arrowId, arrow);
+        arrows.put(arrowId, arrow);
     }
     
-    public void updateArrowPosition(String playerName, double x, double y, String arrowId) {
-        if (playerArrows.containsKey(playerName) && playerArrows.get(playerName).containsKey(arrowId)) {
-            Group arrow = playerArrows.get(playerName).get(arrowId);
-            Platform.runLater(() -> {
-                arrow.setLayoutX(x);
-            });
+    /**
+     * Позиция стрелы в кадре отрисовки (вызывается из потока JavaFX)
+     */
+    public void setArrowPosition(String arrowId, double x, double y) {
+        Group arrow = arrows.get(arrowId);
+        if (arrow != null) {
+            arrow.setLayoutX(x);
+            arrow.setLayoutY(y);
+            arrow.setVisible(true);
         }
     }
     
     public void showHitEffect(double x, double y, int targetNum) {
         // Создаем эффект попадания (вспышка)
-        Circle hitEffect = new Circle(x, y, targetNum == 1 ? 35 : 20);
+        double radius = targetNum >= 1 && targetNum <= arena.size() ? arena.get(targetNum - 1).getRadius() : 15;
+        Circle hitEffect = new Circle(x, y, radius + 5);
         hitEffect.setFill(new Color(1, 1, 0, 0.7)); // Желтая вспышка с прозрачностью
         
         Platform.runLater(() -> {
@@ -225,12 +250,10 @@ public class ClientGameView {
     }
     
     public void clearArrows() {
-        for (Map<String, Group> playerArrowsMap : playerArrows.values()) {
-            for (Group arrow : new ArrayList<>(playerArrowsMap.values())) {
-                Platform.runLater(() -> root.getChildren().remove(arrow));
-            }
-            playerArrowsMap.clear();
+        for (Group arrow : new ArrayList<>(arrows.values())) {
+            Platform.runLater(() -> root.getChildren().remove(arrow));
         }
+        arrows.clear();
     }
     
     public void updateGameStatus(String status) {
@@ -247,17 +270,9 @@ public class ClientGameView {
     }
     
     public void removeArrow(String arrowId) {
-        // Проходим по всем игрокам и ищем стрелу с указанным ID
-        for (String playerName : playerArrows.keySet()) {
-            Map<String, Group> arrows = playerArrows.get(playerName);
-            if (arrows.containsKey(arrowId)) {
-                Group arrow = arrows.get(arrowId);
-                Platform.runLater(() -> {
-                    root.getChildren().remove(arrow);
-                });
-                arrows.remove(arrowId);
-                return;
-            }
+        Group arrow = arrows.remove(arrowId);
+        if (arrow != null) {
+            Platform.runLater(() -> root.getChildren().remove(arrow));
         }
     }
     
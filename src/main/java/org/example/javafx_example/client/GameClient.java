@@ -11,21 +11,37 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.io.BufferedReader;
+import org.example.javafx_example.protocol.BinaryProtocol;
+import org.example.javafx_example.protocol.StreamCompression;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.InflaterInputStream;
 
 public class GameClient extends Application {
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 5555;
+    // Состояние игры по UDP, если сервер его предлагает; -Dclient.udp=false оставляет все на TCP
+    private static final boolean UDP_ENABLED = Boolean.parseBoolean(System.getProperty("client.udp", "true"));
+    // Сжатие потока от сервера для медленного канала; -Dclient.compression=true
+    private static final boolean COMPRESSION_ENABLED = Boolean.parseBoolean(System.getProperty("client.compression", "false"));
     
     private Socket socket;
     private PrintWriter out;
-    private BufferedReader in;
+    private InputStream in;
     private String playerName;
     private ClientGameController gameController;
+    // Декодер двоичного протокола общий для TCP и UDP: имена слотов приходят по любому из них
+    private BinaryMessageDecoder binaryDecoder;
+    private BinaryMessageDecoder.Handler binaryHandler;
+    private volatile UdpStateChannel udpChannel;
     private Stage primaryStage;
     
     @Override
@@ -54,7 +70,13 @@ public class GameClient extends Application {
             
             try {
                 connectToServer();
-                sendMessage("NAME:" + playerName);
+                if (COMPRESSION_ENABLED) {
+                    // Старый сервер молча пропускает неизвестную команду: COMPRESSION: не придет, поток останется несжатым
+                    sendMessage("COMPRESS:" + StreamCompression.DEFLATE);
+                }
+                // Просим двоичный протокол. Нужен сервер с BIN1: старый не отделит расширение
+                // и зарегистрирует игрока под именем "имя:BIN1"
+                sendMessage("NAME:" + playerName + ":" + BinaryProtocol.VERSION);
             } catch (IOException ex) {
                 showAlert("Ошибка подключения", "Не удалось подключиться к серверу: " + ex.getMessage());
                 return;
@@ -69,8 +91,10 @@ public class GameClient extends Application {
     
     private void connectToServer() throws IOException {
         socket = new Socket(SERVER_HOST, SERVER_PORT);
-        out = new PrintWriter(socket.getOutputStream(), true);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        // Сервер пишет кадры в UTF-8, кодировка платформы тут не подходит
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+        // Читаем байты сами: после подтверждения имени поток может перейти на двоичный протокол
+        in = new BufferedInputStream(socket.getInputStream());
         
         // Запускаем поток для приема сообщений от сервера
         new Thread(this::listenForMessages).start();
@@ -79,20 +103,26 @@ public class GameClient extends Application {
     private void listenForMessages() {
         try {
             String message;
-            while ((message = in.readLine()) != null) {
-                final String finalMessage = message;
-                Platform.runLater(() -> {
-                    if (finalMessage.equals("NAME_ACCEPTED")) {
-                        // Закрываем окно входа и показываем игровое окно
-                        primaryStage.close();
-                        showGameWindow();
-                    } else if (finalMessage.startsWith("ERROR:")) {
-                        showAlert("Ошибка", finalMessage.substring(6));
-                    } else if (gameController != null) {
-                        // Передаем сообщение контроллеру только если он уже создан
-                        gameController.processMessage(finalMessage);
+            while ((message = readLine()) != null) {
+                if (message.startsWith("COMPRESSION:")) {
+                    if (message.equals("COMPRESSION:" + StreamCompression.DEFLATE)) {
+                        // Все после этой строки - поток zlib; непрочитанный остаток буфера уже его часть
+                        in = new BufferedInputStream(new InflaterInputStream(in));
                     }
-                });
+                    continue;
+                }
+                handleServerMessage(message);
+                if (message.startsWith("NAME_ACCEPTED")) {
+                    // Стрелы клиент ведет сам по выстрелу, позиции стрел ему не нужны; старый сервер команду пропустит
+                    sendMessage("LOCAL_ARROWS");
+                }
+                if (message.equals("NAME_ACCEPTED:" + BinaryProtocol.VERSION)) {
+                    if (UDP_ENABLED) {
+                        sendMessage("UDP_REQUEST");
+                    }
+                    listenForBinaryMessages();
+                    break;
+                }
             }
         } catch (IOException e) {
             Platform.runLater(() -> showAlert("Ошибка соединения", "Соединение с сервером потеряно"));
@@ -101,6 +131,91 @@ public class GameClient extends Application {
         }
     }
     
+    /**
+     * Двоичный протокол: игровые события сразу приходят разобранными, текстовые сообщения - как раньше
+     */
+    private void listenForBinaryMessages() throws IOException {
+        binaryDecoder = new BinaryMessageDecoder(in);
+        binaryHandler = new BinaryMessageDecoder.Handler() {
+            @Override
+            public void onText(String message) {
+                handleServerMessage(message);
+            }
+            
+            @Override
+            public void onGame(Consumer<ClientGameController> action) {
+                Platform.runLater(() -> {
+                    if (gameController != null) {
+                        action.accept(gameController);
+                    }
+                });
+            }
+        };
+        while (binaryDecoder.readMessage(binaryHandler)) {
+            // Сообщения передаются получателю по одному
+        }
+    }
+    
+    private void handleServerMessage(String message) {
+        // Согласование UDP-канала идет в потоке чтения и окну не передается
+        if (message.startsWith("UDP_")) {
+            handleUdpMessage(message);
+            return;
+        }
+        Platform.runLater(() -> {
+            if (message.startsWith("NAME_ACCEPTED")) {
+                // Закрываем окно входа и показываем игровое окно
+                primaryStage.close();
+                showGameWindow();
+            } else if (message.startsWith("ERROR:")) {
+                showAlert("Ошибка", message.substring(6));
+            } else if (gameController != null) {
+                // Передаем сообщение контроллеру только если он уже создан
+                gameController.processMessage(message);
+            }
+        });
+    }
+    
+    private void handleUdpMessage(String message) {
+        if (message.startsWith("UDP_TOKEN:")) {
+            // UDP_TOKEN:порт:токен
+            String[] parts = message.split(":");
+            try {
+                UdpStateChannel channel = new UdpStateChannel(SERVER_HOST, Integer.parseInt(parts[1]),
+                        Long.parseLong(parts[2]), binaryDecoder, binaryHandler);
+                udpChannel = channel;
+                channel.start();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("UDP-канал недоступен, состояние идет по TCP: " + e.getMessage());
+            }
+        } else if (message.equals("UDP_READY")) {
+            UdpStateChannel channel = udpChannel;
+            if (channel != null) {
+                channel.markReady();
+            }
+        }
+    }
+    
+    /**
+     * Текстовая строка протокола (UTF-8 до перевода строки) или null, если соединение закрыто
+     */
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+    
     private void showGameWindow() {
         try {
             Stage gameStage = new Stage();
@@ -130,6 +245,10 @@ public class GameClient extends Application {
     }
     
     private void closeConnection() {
+        UdpStateChannel channel = udpChannel;
+        if (channel != null) {
+            channel.close();
+        }
         try {
             if (in != null) in.close();
             if (out != null) out.close();
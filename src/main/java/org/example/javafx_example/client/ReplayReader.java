@@ -0,0 +1,196 @@
+package org.example.javafx_example.client;
+
+import org.example.javafx_example.protocol.ReplayFormat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Чтение записи матча ({@link ReplayFormat}). Файл целиком отображается в память, записи читаются
+ * по порядку без копирования заголовков; перемотка ищет по индексу ближайший опорный кадр не позже
+ * нужного тика. У незавершенной записи (сервер остановился посреди матча) индекса нет -
+ * он строится одним проходом по заголовкам записей.
+ */
+public class ReplayReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int tickRate;
+    private final int sendRate;
+    private final long startedAt;
+    // Конец записей: начало индекса или конец файла
+    private final int dataEnd;
+    private long[] keyframeTicks;
+    private int[] keyframeOffsets;
+    private long lastTick = 0;
+    
+    // Текущая запись
+    private int position = ReplayFormat.HEADER_SIZE;
+    private int kind;
+    private long tick;
+    private int payloadOffset;
+    private int payloadLength;
+    
+    public ReplayReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < ReplayFormat.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Не файл записи матча: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != ReplayFormat.MAGIC) {
+                throw new IOException("Не файл записи матча: " + file);
+            }
+            if ((data.getShort(4) & 0xFFFF) != ReplayFormat.VERSION) {
+                throw new IOException("Неподдерживаемая версия записи матча: " + (data.getShort(4) & 0xFFFF));
+            }
+            tickRate = data.getInt(8);
+            sendRate = data.getInt(12);
+            startedAt = data.getLong(16);
+            long indexOffset = data.getLong(ReplayFormat.INDEX_OFFSET_POSITION);
+            if (indexOffset >= ReplayFormat.HEADER_SIZE && indexOffset + 4 <= size) {
+                dataEnd = (int) indexOffset;
+                readIndex();
+            } else {
+                dataEnd = (int) size;
+                scanIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private void readIndex() {
+        int count = data.getInt(dataEnd);
+        keyframeTicks = new long[count];
+        keyframeOffsets = new int[count];
+        int entry = dataEnd + 4;
+        for (int i = 0; i < count; i++) {
+            keyframeTicks[i] = data.getInt(entry) & 0xFFFFFFFFL;
+            keyframeOffsets[i] = (int) data.getLong(entry + 4);
+            entry += ReplayFormat.INDEX_ENTRY_SIZE;
+        }
+        // Длительность - по записям после последнего опорного кадра
+        position = count > 0 ? keyframeOffsets[count - 1] : ReplayFormat.HEADER_SIZE;
+        while (next()) {
+            lastTick = Math.max(lastTick, tick);
+        }
+        rewind();
+    }
+    
+    private void scanIndex() {
+        keyframeTicks = new long[16];
+        keyframeOffsets = new int[16];
+        int count = 0;
+        while (true) {
+            int offset = position;
+            if (!next()) break;
+            lastTick = Math.max(lastTick, tick);
+            if (kind != ReplayFormat.KIND_KEYFRAME) continue;
+            if (count == keyframeTicks.length) {
+                keyframeTicks = Arrays.copyOf(keyframeTicks, count * 2);
+                keyframeOffsets = Arrays.copyOf(keyframeOffsets, count * 2);
+            }
+            keyframeTicks[count] = tick;
+            keyframeOffsets[count] = offset;
+            count++;
+        }
+        keyframeTicks = Arrays.copyOf(keyframeTicks, count);
+        keyframeOffsets = Arrays.copyOf(keyframeOffsets, count);
+        rewind();
+    }
+    
+    /**
+     * Переходит к следующей записи. Возвращает false в конце записей.
+     */
+    public boolean next() {
+        if (position + ReplayFormat.RECORD_HEADER_SIZE > dataEnd) return false;
+        int recordKind = data.get(position) & 0xFF;
+        int length = data.getInt(position + 5);
+        // Нулевой вид - еще не записанный хвост куска; обрезанная запись - сервер остановился посреди записи
+        if (recordKind == ReplayFormat.KIND_END || length < 0
+                || position + ReplayFormat.RECORD_HEADER_SIZE + length > dataEnd) return false;
+        kind = recordKind;
+        tick = data.getInt(position + 1) & 0xFFFFFFFFL;
+        payloadOffset = position + ReplayFormat.RECORD_HEADER_SIZE;
+        payloadLength = length;
+        position = payloadOffset + length;
+        return true;
+    }
+    
+    /**
+     * К первой записи (раскладка арены)
+     */
+    public void rewind() {
+        position = ReplayFormat.HEADER_SIZE;
+    }
+    
+    /**
+     * Переходит к последнему опорному кадру не позже tick (или к началу записи, если такого нет);
+     * следующим next() будет прочитан он. Возвращает тик, с которого пойдет воспроизведение.
+     */
+    public long seek(long tick) {
+        int i = Arrays.binarySearch(keyframeTicks, tick);
+        if (i < 0) {
+            i = -i - 2;
+        } else {
+            // Опорных кадров одного тика может быть несколько: берем первый
+            while (i > 0 && keyframeTicks[i - 1] == tick) i--;
+        }
+        if (i < 0) {
+            rewind();
+            return 0;
+        }
+        position = keyframeOffsets[i];
+        return keyframeTicks[i];
+    }
+    
+    public int getKind() {
+        return kind;
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Сообщения BIN1 текущей записи копией в куче (декодер читает строки из массива буфера)
+     */
+    public ByteBuffer getPayload() {
+        byte[] payload = new byte[payloadLength];
+        data.get(payloadOffset, payload);
+        return ByteBuffer.wrap(payload);
+    }
+    
+    public int getTickRate() {
+        return tickRate;
+    }
+    
+    public int getSendRate() {
+        return sendRate;
+    }
+    
+    public long getStartedAt() {
+        return startedAt;
+    }
+    
+    public long getLastTick() {
+        return lastTick;
+    }
+    
+    public int getKeyframeCount() {
+        return keyframeTicks.length;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,316 @@
+package org.example.javafx_example.client;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import org.example.javafx_example.protocol.ReplayFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Просмотр записи матча ({@link ReplayFormat}) в обычном игровом окне.
+ * Записи подаются тому же декодеру и контроллеру, что и поток сервера, в темпе тиков записи
+ * с выбранной скоростью. Перемотка начинает с ближайшего опорного кадра индекса и быстро
+ * догоняет нужный тик по следующим записям.
+ *
+ * Запуск: java ... org.example.javafx_example.client.ReplayViewer [файл.replay] [скорость]
+ * Клавиши: пробел - пауза, влево/вправо - на 10 секунд назад/вперед, вверх/вниз - быстрее/медленнее,
+ * Home - к началу.
+ */
+public class ReplayViewer extends Application {
+    private static final int SEEK_SECONDS = 10;
+    private static final double MIN_SPEED = 0.25;
+    private static final double MAX_SPEED = 16;
+    
+    private ReplayReader reader;
+    private ClientGameController controller;
+    private Stage stage;
+    private long tickNanos;
+    
+    // Управление воспроизведением из окна; поток воспроизведения ждет на этой блокировке
+    private final Object lock = new Object();
+    private boolean paused = false;
+    private double speed = 1;
+    private long seekTick = -1;
+    private boolean closed = false;
+    // Сколько раз менялись пауза или скорость: поток воспроизведения пересчитывает темп
+    private int pacingVersion = 0;
+    // Тик, до которого дошло воспроизведение
+    private volatile long currentTick = 0;
+    
+    @Override
+    public void start(Stage primaryStage) {
+        this.stage = primaryStage;
+        List<String> args = getParameters().getRaw();
+        File file = args.isEmpty() ? chooseFile(primaryStage) : new File(args.get(0));
+        if (file == null) {
+            Platform.exit();
+            return;
+        }
+        if (args.size() > 1) {
+            speed = clampSpeed(Double.parseDouble(args.get(1)));
+        }
+        try {
+            reader = new ReplayReader(file);
+        } catch (IOException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Не удалось открыть запись: " + e.getMessage());
+            alert.setHeaderText(null);
+            alert.showAndWait();
+            Platform.exit();
+            return;
+        }
+        tickNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, reader.getTickRate());
+        
+        // Окно только показывает игру: команд серверу нет
+        controller = new ClientGameController(null, command -> { });
+        applySpeed(speed);
+        Scene scene = new Scene(controller.getView(), 800, 600);
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, this::onKey);
+        primaryStage.setScene(scene);
+        primaryStage.setOnCloseRequest(e -> stop());
+        updateTitle();
+        primaryStage.show();
+        
+        Thread playback = new Thread(this::playbackLoop, "replay-playback");
+        playback.setDaemon(true);
+        playback.start();
+    }
+    
+    private File chooseFile(Stage owner) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Запись матча");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Записи матчей", "*" + ReplayFormat.EXTENSION));
+        File replays = new File("replays");
+        if (replays.isDirectory()) {
+            chooser.setInitialDirectory(replays);
+        }
+        return chooser.showOpenDialog(owner);
+    }
+    
+    private void onKey(KeyEvent event) {
+        long secondTicks = reader.getTickRate();
+        switch (event.getCode()) {
+            case SPACE:
+                synchronized (lock) {
+                    paused = !paused;
+                    pacingVersion++;
+                    lock.notifyAll();
+                }
+                break;
+            case LEFT:
+                seek(Math.max(0, currentTick - SEEK_SECONDS * secondTicks));
+                break;
+            case RIGHT:
+                seek(Math.min(reader.getLastTick(), currentTick + SEEK_SECONDS * secondTicks));
+                break;
+            case HOME:
+                seek(0);
+                break;
+            case UP:
+                changeSpeed(2);
+                break;
+            case DOWN:
+                changeSpeed(0.5);
+                break;
+            default:
+                return;
+        }
+        event.consume();
+        updateTitle();
+    }
+    
+    private void seek(long tick) {
+        synchronized (lock) {
+            seekTick = tick;
+            lock.notifyAll();
+        }
+    }
+    
+    private void changeSpeed(double factor) {
+        double newSpeed;
+        synchronized (lock) {
+            speed = clampSpeed(speed * factor);
+            newSpeed = speed;
+            pacingVersion++;
+            lock.notifyAll();
+        }
+        applySpeed(newSpeed);
+    }
+    
+    private static double clampSpeed(double value) {
+        return Math.max(MIN_SPEED, Math.min(MAX_SPEED, value));
+    }
+    
+    /**
+     * Шкала времени клиента считает тики записи идущими быстрее или медленнее, чтобы интерполяция шла в темпе показа
+     */
+    private void applySpeed(double value) {
+        controller.setSnapshotRate((int) Math.max(1, Math.round(reader.getTickRate() * value)),
+                (int) Math.max(1, Math.round(reader.getSendRate() * value)));
+    }
+    
+    private void updateTitle() {
+        double tickRate = Math.max(1, reader.getTickRate());
+        boolean isPaused;
+        double currentSpeed;
+        synchronized (lock) {
+            isPaused = paused;
+            currentSpeed = speed;
+        }
+        stage.setTitle(String.format(Locale.ROOT, "Меткий стрелок - запись %s / %s, x%s%s",
+                formatTime(currentTick / tickRate), formatTime(reader.getLastTick() / tickRate),
+                currentSpeed == Math.rint(currentSpeed) ? Long.toString((long) currentSpeed) : Double.toString(currentSpeed),
+                isPaused ? ", пауза" : ""));
+    }
+    
+    private static String formatTime(double seconds) {
+        long total = (long) seconds;
+        return String.format(Locale.ROOT, "%d:%02d", total / 60, total % 60);
+    }
+    
+    /**
+     * Поток воспроизведения: читает записи по порядку и отдает их декодеру, когда до их тика доходит время показа
+     */
+    private void playbackLoop() {
+        BinaryMessageDecoder decoder = new BinaryMessageDecoder(InputStream.nullInputStream());
+        BinaryMessageDecoder.Handler handler = new BinaryMessageDecoder.Handler() {
+            @Override
+            public void onText(String message) {
+                Platform.runLater(() -> controller.processMessage(message));
+            }
+            
+            @Override
+            public void onGame(Consumer<ClientGameController> action) {
+                Platform.runLater(() -> action.accept(controller));
+            }
+        };
+        
+        long baseTick = 0;
+        long baseNanos = System.nanoTime();
+        long lastSecond = -1;
+        try {
+            while (true) {
+                long seek;
+                synchronized (lock) {
+                    seek = seekTick;
+                    seekTick = -1;
+                }
+                if (seek >= 0) {
+                    // С опорного кадра не позже нужного тика: записи до этого тика подаются без ожидания
+                    reader.seek(seek);
+                    Platform.runLater(controller::resetTimeline);
+                    boolean more;
+                    while ((more = reader.next()) && reader.getTick() < seek) {
+                        decoder.readMessages(reader.getPayload(), handler);
+                    }
+                    currentTick = seek;
+                    baseTick = seek;
+                    baseNanos = System.nanoTime();
+                    Platform.runLater(this::updateTitle);
+                    if (!more) {
+                        if (!waitForSeek()) return;
+                        continue;
+                    }
+                } else if (!reader.next()) {
+                    // Запись кончилась: ждем перемотки или закрытия окна
+                    if (!waitForSeek()) return;
+                    continue;
+                }
+                
+                long tick = reader.getTick();
+                long[] pacing = waitForTick(tick, baseTick, baseNanos);
+                if (pacing == null) return;
+                if (pacing.length == 0) {
+                    // Перемотка во время ожидания: текущая запись не нужна
+                    continue;
+                }
+                baseTick = pacing[0];
+                baseNanos = pacing[1];
+                
+                decoder.readMessages(reader.getPayload(), handler);
+                currentTick = Math.max(currentTick, tick);
+                long second = tick / Math.max(1, reader.getTickRate());
+                if (second != lastSecond) {
+                    lastSecond = second;
+                    Platform.runLater(this::updateTitle);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка воспроизведения записи: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Ждет момента показа тика tick. Пауза и смена скорости пересчитывают темп от текущего места.
+     * Возвращает новую точку отсчета {тик, время}, пустой массив при перемотке и null при закрытии окна.
+     */
+    private long[] waitForTick(long tick, long baseTick, long baseNanos) throws InterruptedException {
+        synchronized (lock) {
+            int version = pacingVersion;
+            while (true) {
+                if (closed) return null;
+                if (seekTick >= 0) return new long[0];
+                if (version != pacingVersion) {
+                    // Темп сменился: отсчет заново от того места, до которого дошел показ
+                    version = pacingVersion;
+                    baseTick = currentTick;
+                    baseNanos = System.nanoTime();
+                }
+                if (paused) {
+                    lock.wait();
+                    continue;
+                }
+                long due = baseNanos + (long) ((tick - baseTick) * tickNanos / speed);
+                long waitNanos = due - System.nanoTime();
+                if (waitNanos <= 0) {
+                    return new long[] {baseTick, baseNanos};
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+            }
+        }
+    }
+    
+    /**
+     * Ждет перемотки; false - окно закрыто
+     */
+    private boolean waitForSeek() throws InterruptedException {
+        synchronized (lock) {
+            while (!closed && seekTick < 0) {
+                lock.wait();
+            }
+            return !closed;
+        }
+    }
+    
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // Файл только читался
+            }
+        }
+    }
+    
+    public static void main(String[] args) {
+        launch(args);
+    }
+} 
\ No newline at end of file
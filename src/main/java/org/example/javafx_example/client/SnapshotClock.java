@@ -0,0 +1,91 @@
+package org.example.javafx_example.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Шкала времени сервера на стороне клиента.
+ * Каждое состояние и позиция стрелы помечены тиком сервера; по моменту их прихода клиент оценивает,
+ * какое время на его часах соответствует тику 0 (берется самое раннее прибытие, опоздавшие пакеты
+ * на оценку почти не влияют). Рисуется момент на задержку интерполяции раньше оценки текущего тика:
+ * к этому моменту обычно уже есть снимки по обе стороны, и позиции интерполируются, а не прыгают.
+ * Используется только из потока JavaFX.
+ */
+public class SnapshotClock {
+    // Разрыв, после которого шкала строится заново (пауза, перезапуск игры, переход в другую комнату)
+    private static final long RESET_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    // Насколько быстро оценка сдвигается к более поздним прибытиям (рост задержки сети, дрейф часов)
+    private static final double OFFSET_ADAPT = 1.0 / 64;
+    // Запас задержки сверх двух интервалов рассылки на неравномерность доставки
+    private static final double JITTER_TICKS = 1.0;
+    
+    private double tickNanos = TimeUnit.SECONDS.toNanos(1) / 60.0;
+    private double delayTicks = 2 + JITTER_TICKS;
+    
+    private boolean synced = false;
+    // Время на часах клиента, соответствующее тику 0 сервера
+    private double offset;
+    private long latestTick;
+    private double lastRenderTick;
+    
+    /**
+     * Частоты из сообщения SNAPSHOT_RATE: тиков в секунду и состояний в секунду
+     */
+    public void setRates(int tickRate, int sendRate) {
+        if (tickRate <= 0 || sendRate <= 0) return;
+        tickNanos = TimeUnit.SECONDS.toNanos(1) / (double) tickRate;
+        delayTicks = 2.0 * tickRate / sendRate + JITTER_TICKS;
+    }
+    
+    /**
+     * Пришел снимок тика tick в момент now (System.nanoTime)
+     */
+    public void onSample(long tick, long now) {
+        double sampleOffset = now - tick * tickNanos;
+        if (!synced || tick < latestTick - delayTicks || sampleOffset - offset > RESET_GAP_NANOS) {
+            // Новая шкала: игра перезапущена, закончилась пауза или пакеты долго не приходили
+            boolean restarted = synced && tick < latestTick;
+            synced = true;
+            offset = sampleOffset;
+            latestTick = tick;
+            if (restarted) {
+                lastRenderTick = Double.NEGATIVE_INFINITY;
+            }
+            return;
+        }
+        if (sampleOffset < offset) {
+            offset = sampleOffset;
+        } else {
+            offset += (sampleOffset - offset) * OFFSET_ADAPT;
+        }
+        latestTick = Math.max(latestTick, tick);
+    }
+    
+    public boolean isSynced() {
+        return synced;
+    }
+    
+    /**
+     * Оценка тика, который сервер считает сейчас; для событий без тика (выстрел, попадание)
+     */
+    public double serverTick(long now) {
+        return synced ? Math.max(latestTick, (now - offset) / tickNanos) : latestTick;
+    }
+    
+    /**
+     * Тик, который рисуется в момент now. Не уходит дальше последнего известного тика
+     * (на паузе все замирает) и не идет назад, пока шкала не построена заново.
+     */
+    public double renderTick(long now) {
+        double tick = Math.min((now - offset) / tickNanos - delayTicks, latestTick);
+        if (tick < lastRenderTick) {
+            tick = lastRenderTick;
+        }
+        lastRenderTick = tick;
+        return tick;
+    }
+    
+    public void reset() {
+        synced = false;
+        lastRenderTick = Double.NEGATIVE_INFINITY;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,71 @@
+package org.example.javafx_example.client;
+
+import org.example.javafx_example.protocol.TargetMotion;
+
+/**
+ * Недавние поправки одной мишени (тик, y, скорость). Между поправками мишень движется по тому же закону,
+ * что и на сервере ({@link TargetMotion}), поэтому позицию можно получить для любого тика отрисовки:
+ * берется последняя поправка не позже этого тика, от нее мишень ведется с отражениями от концов дорожки.
+ * Используется только из потока JavaFX.
+ */
+public class TargetTrack {
+    private static final int CAPACITY = 8;
+    
+    private final long[] ticks = new long[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private final double[] velocities = new double[CAPACITY];
+    private int start = 0;
+    private int count = 0;
+    
+    /**
+     * Добавляет поправку; поправка к тому же тику заменяет прежнюю
+     */
+    public void add(long tick, double y, double velocity) {
+        if (count > 0 && ticks[index(count - 1)] >= tick) {
+            int last = index(count - 1);
+            if (ticks[last] == tick) {
+                ys[last] = y;
+                velocities[last] = velocity;
+                return;
+            }
+            // Шкала сервера началась заново (новая игра): старые поправки больше не нужны
+            count = 0;
+        }
+        if (count == CAPACITY) {
+            start = (start + 1) % CAPACITY;
+            count--;
+        }
+        int i = index(count);
+        ticks[i] = tick;
+        ys[i] = y;
+        velocities[i] = velocity;
+        count++;
+    }
+    
+    public void clear() {
+        count = 0;
+    }
+    
+    /**
+     * Y мишени в тике tick на дорожке [minY, maxY]; без известной дорожки - без отражений
+     */
+    public double positionAt(double tick, double minY, double maxY) {
+        if (count == 0) return Double.NaN;
+        int segment = index(0);
+        for (int k = count - 1; k >= 0; k--) {
+            if (ticks[index(k)] <= tick) {
+                segment = index(k);
+                break;
+            }
+        }
+        double time = tick - ticks[segment];
+        if (maxY <= minY) {
+            return ys[segment] + velocities[segment] * time;
+        }
+        return TargetMotion.positionAt(ys[segment], velocities[segment], minY, maxY, time);
+    }
+    
+    private int index(int i) {
+        return (start + i) % CAPACITY;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,140 @@
+package org.example.javafx_example.client;
+
+import org.example.javafx_example.protocol.DatagramProtocol;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UDP-канал состояния игры (см. {@link DatagramProtocol}).
+ * Повторяет HELLO с токеном, пока сервер не подтвердит канал по TCP, затем принимает датаграммы STATE
+ * и отдает их сообщения общему с TCP декодеру. После подтверждения HELLO уходит раз в несколько секунд:
+ * между матчами сервер ничего не шлет, и без исходящих датаграмм NAT забыл бы отображение порта,
+ * а движение мишеней идет этому клиенту только по UDP. Датаграмма, пришедшая позже более новой, отбрасывается:
+ * в ней нет ничего, что не устарело бы.
+ */
+public class UdpStateChannel {
+    private static final int HELLO_INTERVAL_MS = 200;
+    // Сколько раз повторять HELLO, прежде чем остаться только на TCP
+    private static final int MAX_HELLOS = 25;
+    // HELLO подтвержденного канала: заметно реже, чем NAT забывает отображение (обычно 30 секунд и больше)
+    private static final long KEEPALIVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final DatagramSocket socket;
+    private final long token;
+    private final BinaryMessageDecoder decoder;
+    private final BinaryMessageDecoder.Handler handler;
+    private volatile boolean ready = false;
+    private volatile boolean closed = false;
+    
+    private boolean hasSequence = false;
+    private int lastSequence;
+    private volatile long received = 0;
+    private volatile long dropped = 0;
+    
+    public UdpStateChannel(String host, int port, long token, BinaryMessageDecoder decoder,
+                           BinaryMessageDecoder.Handler handler) throws SocketException {
+        this.socket = new DatagramSocket();
+        this.socket.connect(new InetSocketAddress(host, port));
+        this.socket.setSoTimeout(HELLO_INTERVAL_MS);
+        this.token = token;
+        this.decoder = decoder;
+        this.handler = handler;
+    }
+    
+    public void start() {
+        Thread thread = new Thread(this::run, "udp-state");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Сервер подтвердил канал (UDP_READY): дальше HELLO только поддерживает отображение NAT
+     */
+    public void markReady() {
+        ready = true;
+    }
+    
+    private void run() {
+        byte[] buffer = new byte[65536];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        int hellos = 0;
+        long lastHello = 0;
+        while (!closed) {
+            long now = System.nanoTime();
+            if (ready ? now - lastHello >= KEEPALIVE_INTERVAL_NANOS : hellos < MAX_HELLOS) {
+                sendHello();
+                hellos++;
+                lastHello = now;
+            }
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+            } catch (SocketTimeoutException e) {
+                continue;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("UDP-канал закрыт: " + e.getMessage());
+                }
+                break;
+            }
+            onDatagram(ByteBuffer.wrap(buffer, 0, packet.getLength()));
+        }
+    }
+    
+    private void sendHello() {
+        ByteBuffer hello = ByteBuffer.allocate(DatagramProtocol.HELLO_SIZE);
+        hello.put((byte) DatagramProtocol.TYPE_HELLO).putLong(token);
+        try {
+            socket.send(new DatagramPacket(hello.array(), hello.capacity()));
+        } catch (IOException e) {
+            System.err.println("Не удалось отправить HELLO: " + e.getMessage());
+        }
+    }
+    
+    private void onDatagram(ByteBuffer datagram) {
+        if (datagram.remaining() < DatagramProtocol.STATE_HEADER_SIZE
+                || datagram.get() != DatagramProtocol.TYPE_STATE) {
+            return;
+        }
+        int sequence = datagram.getInt();
+        if (hasSequence && !DatagramProtocol.isNewer(sequence, lastSequence)) {
+            dropped++;
+            return;
+        }
+        hasSequence = true;
+        lastSequence = sequence;
+        received++;
+        try {
+            decoder.readDatagram(datagram, handler);
+        } catch (RuntimeException e) {
+            // Поврежденная датаграмма: следующая все равно заменит ее содержимое
+            dropped++;
+        }
+    }
+    
+    /**
+     * Принятые датаграммы
+     */
+    public long getReceived() {
+        return received;
+    }
+    
+    /**
+     * Отброшенные датаграммы: опоздавшие или поврежденные
+     */
+    public long getDropped() {
+        return dropped;
+    }
+    
+    public void close() {
+        closed = true;
+        socket.close();
+    }
+} 
\ No newline at end of file
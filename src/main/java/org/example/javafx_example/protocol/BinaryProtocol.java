@@ -0,0 +1,87 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Двоичный протокол сервер -> клиент (версия BIN1).
+ * Клиент выбирает его при входе: NAME:имя:BIN1. Сервер отвечает текстовой строкой
+ * NAME_ACCEPTED:BIN1, после которой все сообщения сервера идут в двоичном виде.
+ * Команды клиента (SHOOT, READY и т.д.) остаются текстовыми строками.
+ * Сервер до BIN1 расширения не знает и примет имя вместе с ним, поэтому клиенту BIN1 нужен новый сервер.
+ *
+ * Сообщение: длина (varint, байты опкода и данных), опкод (1 байт), данные.
+ * Числа - big-endian. Игроки обозначаются номером слота в комнате, стрелы - числовым id,
+ * поэтому имя игрока передается только при его появлении. Координаты квантуются
+ * до 1/16 пикселя (u16), скорости мишеней и стрел - до 1/65536 пикселя за тик (s32).
+ * Строки - длина (varint) и байты UTF-8.
+ */
+public final class BinaryProtocol {
+    public static final String VERSION = "BIN1";
+    
+    // Опорный кадр: u32 номер, u32 тик, u8 флаги, u8 слот поставившего паузу,
+    // u16 мишеней x (u16 y, s32 v), u8 игроков x (u8 слот, строка имя, u16 счет, u8 выстрелы)
+    public static final int OP_KEYFRAME = 0x01;
+    // Дельта: u32 номер, u32 тик, u8 маска изменений, [u8 флаги], [u8 слот паузы],
+    // u16 поправок x (u16 индекс, u16 y, s32 v), u8 игроков x (u8 слот | NEW_PLAYER, [строка имя], u16 счет, u8 выстрелы),
+    // u8 ушедших x (u8 слот)
+    public static final int OP_DELTA = 0x02;
+    // Выстрел: u8 слот, u16 y, u32 id стрелы, u16 x, s32 vx, u32 тик выстрела (полет добавлен позже:
+    // старый декодер его пропускает, новый без него ведет стрелу по OP_ARROW_POSITION)
+    public static final int OP_ARROW = 0x10;
+    // Позиция стрелы: u32 id, u16 x, u16 y, u32 тик (тик добавлен позже: старый декодер его пропускает,
+    // новый без него считает позицию текущей). Только клиентам, которые не ведут стрелы сами
+    public static final int OP_ARROW_POSITION = 0x11;
+    // Попадание: u8 слот, u16 номер мишени, u16 x, u16 y, u32 id стрелы, u32 тик
+    public static final int OP_HIT = 0x12;
+    // Промах: u8 слот, u32 id стрелы, u32 тик
+    public static final int OP_MISS = 0x13;
+    // Любое другое сообщение в текстовом виде: байты UTF-8 до конца сообщения
+    public static final int OP_TEXT = 0x7F;
+    
+    // Флаги состояния
+    public static final int FLAG_RUNNING = 0x01;
+    public static final int FLAG_PAUSED = 0x02;
+    
+    // Маска изменений дельты
+    public static final int CHANGED_FLAGS = 0x01;
+    public static final int CHANGED_PAUSE_BY = 0x02;
+    
+    // Старший бит слота в дельте: игрок новый, за слотом следует имя
+    public static final int NEW_PLAYER = 0x80;
+    public static final int NO_SLOT = 0xFF;
+    
+    private static final double POSITION_SCALE = 16.0;
+    private static final double VELOCITY_SCALE = 65536.0;
+    
+    private BinaryProtocol() {
+    }
+    
+    public static int quantizePosition(double value) {
+        long q = Math.round(value * POSITION_SCALE);
+        return (int) Math.max(0, Math.min(0xFFFF, q));
+    }
+    
+    public static double dequantizePosition(int q) {
+        return q / POSITION_SCALE;
+    }
+    
+    public static int quantizeVelocity(double value) {
+        return (int) Math.round(value * VELOCITY_SCALE);
+    }
+    
+    public static double dequantizeVelocity(int q) {
+        return q / VELOCITY_SCALE;
+    }
+    
+    /**
+     * Позиция в том виде, в каком ее увидит клиент после квантования
+     */
+    public static double roundPosition(double value) {
+        return dequantizePosition(quantizePosition(value));
+    }
+    
+    /**
+     * Скорость в том виде, в каком ее увидит клиент после квантования
+     */
+    public static double roundVelocity(double value) {
+        return dequantizeVelocity(quantizeVelocity(value));
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,107 @@
+package org.example.javafx_example.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Команды клиента (текстовые строки) и их опкоды.
+ * Строка - ключевое слово, за ним необязательно ':' и аргументы. Опкод определяется
+ * прямо по байтам строки: таблица по первому байту дает несколько кандидатов,
+ * которые сравниваются по длине и байтам. Строка при этом не создается.
+ */
+public final class ClientCommand {
+    public static final int UNKNOWN = 0;
+    public static final int NAME = 1;
+    public static final int LIST_ROOMS = 2;
+    public static final int CREATE_ROOM = 3;
+    public static final int JOIN_ROOM = 4;
+    public static final int LEAVE_ROOM = 5;
+    public static final int GET_LEADERBOARD = 6;
+    public static final int READY = 7;
+    public static final int PAUSE = 8;
+    public static final int SHOOT = 9;
+    public static final int STATE_RESYNC = 10;
+    public static final int GAME_OVER_ACK = 11;
+    public static final int UDP_REQUEST = 12;
+    public static final int LOCAL_ARROWS = 13;
+    public static final int SPECTATE = 14;
+    public static final int COMPRESS = 15;
+    public static final int GET_RANK = 16;
+    public static final int COUNT = 17;
+    
+    private static final byte[][] KEYWORDS = new byte[COUNT][];
+    // Опкоды по первому байту ключевого слова
+    private static final int[][] BY_FIRST_BYTE = new int[128][];
+    
+    static {
+        register(NAME, "NAME");
+        register(LIST_ROOMS, "LIST_ROOMS");
+        register(CREATE_ROOM, "CREATE_ROOM");
+        register(JOIN_ROOM, "JOIN_ROOM");
+        register(LEAVE_ROOM, "LEAVE_ROOM");
+        register(GET_LEADERBOARD, "GET_LEADERBOARD");
+        register(READY, "READY");
+        register(PAUSE, "PAUSE");
+        register(SHOOT, "SHOOT");
+        register(STATE_RESYNC, "STATE_RESYNC");
+        register(GAME_OVER_ACK, "GAME_OVER_ACK");
+        register(UDP_REQUEST, "UDP_REQUEST");
+        register(LOCAL_ARROWS, "LOCAL_ARROWS");
+        register(SPECTATE, "SPECTATE");
+        register(COMPRESS, "COMPRESS");
+        register(GET_RANK, "GET_RANK");
+    }
+    
+    private ClientCommand() {
+    }
+    
+    private static void register(int opcode, String keyword) {
+        byte[] bytes = keyword.getBytes(StandardCharsets.US_ASCII);
+        KEYWORDS[opcode] = bytes;
+        int[] list = BY_FIRST_BYTE[bytes[0]];
+        if (list == null) {
+            list = new int[0];
+        }
+        int[] extended = new int[list.length + 1];
+        System.arraycopy(list, 0, extended, 0, list.length);
+        extended[list.length] = opcode;
+        BY_FIRST_BYTE[bytes[0]] = extended;
+    }
+    
+    /**
+     * Опкод команды в строке line[offset, offset + length) или UNKNOWN
+     */
+    public static int opcode(byte[] line, int offset, int length) {
+        if (length == 0 || line[offset] < 0) return UNKNOWN;
+        int[] candidates = BY_FIRST_BYTE[line[offset]];
+        if (candidates == null) return UNKNOWN;
+        for (int opcode : candidates) {
+            byte[] keyword = KEYWORDS[opcode];
+            int size = keyword.length;
+            // Ключевое слово занимает всю строку или за ним идет ':'
+            if (length < size || (length > size && line[offset + size] != ':')) continue;
+            if (matches(keyword, line, offset)) {
+                return opcode;
+            }
+        }
+        return UNKNOWN;
+    }
+    
+    private static boolean matches(byte[] keyword, byte[] line, int offset) {
+        for (int i = 1; i < keyword.length; i++) {
+            if (line[offset + i] != keyword[i]) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Длина префикса команды до аргументов (ключевое слово и ':'), не больше длины строки
+     */
+    public static int prefixLength(int opcode, int length) {
+        if (opcode == UNKNOWN) return 0;
+        return Math.min(KEYWORDS[opcode].length + 1, length);
+    }
+    
+    public static String keyword(int opcode) {
+        return opcode == UNKNOWN ? "?" : new String(KEYWORDS[opcode], StandardCharsets.US_ASCII);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,52 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Необязательный UDP-канал для часто устаревающих сообщений (состояние игры, позиции стрел).
+ * Доступен только клиентам двоичного протокола {@link BinaryProtocol}; TCP остается надежным
+ * каналом для команд, событий (выстрелы, попадания, конец игры) и изменений счета.
+ *
+ * Согласование по TCP после входа:
+ * клиент шлет UDP_REQUEST, сервер отвечает UDP_TOKEN:порт:токен (или UDP_UNAVAILABLE);
+ * клиент с UDP-сокета повторяет датаграмму HELLO с токеном, пока по TCP не придет UDP_READY.
+ * С этого момента состояние и позиции стрел идут клиенту только датаграммами STATE.
+ *
+ * Датаграмма HELLO (клиент -> сервер): u8 тип, u64 токен.
+ * Датаграмма STATE (сервер -> клиент): u8 тип, u32 номер, затем сообщения BIN1 (длина varint, опкод, данные):
+ * опорные кадры OP_KEYFRAME и позиции стрел OP_ARROW_POSITION. Номер растет на всем сервере,
+ * поэтому клиент просто отбрасывает датаграмму, номер которой не больше последнего принятого.
+ * Дельт в датаграммах нет: каждое состояние самодостаточно, потеря датаграммы ничего не ломает.
+ */
+public final class DatagramProtocol {
+    public static final int TYPE_HELLO = 0x01;
+    public static final int TYPE_STATE = 0x02;
+    
+    public static final int HELLO_SIZE = 9;
+    public static final int STATE_HEADER_SIZE = 5;
+    // Датаграмма не больше этого размера уходит без IP-фрагментации на обычных сетях;
+    // состояние и позиции стрел, не влезающие вместе, отправляются двумя датаграммами
+    public static final int MAX_PAYLOAD = 1200;
+    
+    private DatagramProtocol() {
+    }
+    
+    /**
+     * Датаграмма STATE с уже закодированными сообщениями BIN1
+     */
+    public static byte[] stateDatagram(int sequence, byte[] messages) {
+        byte[] datagram = new byte[STATE_HEADER_SIZE + messages.length];
+        datagram[0] = (byte) TYPE_STATE;
+        datagram[1] = (byte) (sequence >>> 24);
+        datagram[2] = (byte) (sequence >>> 16);
+        datagram[3] = (byte) (sequence >>> 8);
+        datagram[4] = (byte) sequence;
+        System.arraycopy(messages, 0, datagram, STATE_HEADER_SIZE, messages.length);
+        return datagram;
+    }
+    
+    /**
+     * Номер a новее номера b с учетом переполнения u32
+     */
+    public static boolean isNewer(int a, int b) {
+        return a - b > 0;
+    }
+} 
\ No newline at end of file
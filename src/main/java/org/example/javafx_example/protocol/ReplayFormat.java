@@ -0,0 +1,36 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Файл записи матча (.replay): все, что комната разослала клиентам двоичного протокола {@link BinaryProtocol},
+ * от старта игры до GAME_OVER. Числа - big-endian.
+ *
+ * Заголовок, 32 байта: u32 MAGIC, u16 версия, u16 резерв, u32 тиков в секунду, u32 состояний в секунду,
+ * u64 время старта (мс от эпохи), u64 смещение индекса (0 - запись не завершена, индекс строится просмотром).
+ * Затем записи: u8 вид, u32 тик, u32 длина, сообщения BIN1 в том виде, в каком они ушли клиентам
+ * (длина varint, опкод, данные). Первая запись - раскладка арены (ARENA текстом). Вид END (нулевой байт)
+ * заканчивает записи: файл растет кусками, заполненными нулями.
+ * Индекс: u32 число опорных кадров, затем для каждого u32 тик и u64 смещение его записи.
+ * С записи опорного кадра воспроизведение можно начать, не читая предыдущие.
+ */
+public final class ReplayFormat {
+    public static final int MAGIC = 0x53535250; // "SSRP"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".replay";
+    
+    public static final int HEADER_SIZE = 32;
+    public static final int INDEX_OFFSET_POSITION = 24;
+    public static final int RECORD_HEADER_SIZE = 9;
+    public static final int INDEX_ENTRY_SIZE = 12;
+    
+    // Виды записей
+    public static final int KIND_END = 0;
+    // События тика: выстрелы, попадания, промахи, текстовые сообщения (пауза, конец игры)
+    public static final int KIND_EVENTS = 1;
+    // Дельта состояния
+    public static final int KIND_STATE = 2;
+    // Опорный кадр состояния: точка входа индекса
+    public static final int KIND_KEYFRAME = 3;
+    
+    private ReplayFormat() {
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Необязательное сжатие потока сервер -> клиент для клиентов за медленными каналами.
+ * Клиент просит его до входа, первой командой: COMPRESS:deflate. Сервер отвечает
+ * COMPRESSION:deflate, и все байты после этой строки (текстовые строки или сообщения BIN1) идут
+ * одним потоком zlib (RFC 1950). После каждой пачки отправки сервер делает SYNC_FLUSH, так что
+ * клиент может разжать все полученное, не дожидаясь следующих данных. Если сервер сжатие не включил,
+ * ответ COMPRESSION:none и поток остается как был. Команды клиента не сжимаются.
+ *
+ * Словарь у потока общий на все соединение: имена игроков и названия полей, повторяющиеся
+ * в каждом кадре, после первого раза кодируются ссылками назад.
+ */
+public final class StreamCompression {
+    public static final String DEFLATE = "deflate";
+    public static final String NONE = "none";
+    
+    private StreamCompression() {
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Закон движения мишени в замкнутой форме.
+ * Мишень ходит по дорожке [minY, maxY] с постоянной скоростью и отражается от концов,
+ * то есть ее координата - треугольная волна от времени. Позицию можно получить для любого
+ * момента без пошагового моделирования. Время измеряется в тиках игрового цикла,
+ * скорость - в пикселях за тик (знак задает начальное направление, плюс - вниз).
+ * Тот же закон использует клиент, когда рисует мишень между состояниями от последней поправки.
+ */
+public final class TargetMotion {
+    
+    private TargetMotion() {
+    }
+    
+    /**
+     * Координата Y мишени в момент time (в тиках от начала движения)
+     */
+    public static double positionAt(double startY, double velocity, double minY, double maxY, double time) {
+        double length = maxY - minY;
+        if (length <= 0 || velocity == 0) {
+            return startY;
+        }
+        
+        // Разворачиваем отражения: движение по окружности длиной 2 * length
+        double period = 2 * length;
+        double offset = startY - minY;
+        double unfolded = velocity > 0 ? offset : period - offset;
+        double phase = wrap(unfolded + Math.abs(velocity) * time, period);
+        
+        return minY + (phase <= length ? phase : period - phase);
+    }
+    
+    /**
+     * Скорость мишени (со знаком) в момент time
+     */
+    public static double velocityAt(double startY, double velocity, double minY, double maxY, double time) {
+        double length = maxY - minY;
+        if (length <= 0 || velocity == 0) {
+            return 0;
+        }
+        
+        double period = 2 * length;
+        double offset = startY - minY;
+        double unfolded = velocity > 0 ? offset : period - offset;
+        double phase = wrap(unfolded + Math.abs(velocity) * time, period);
+        
+        return phase < length ? Math.abs(velocity) : -Math.abs(velocity);
+    }
+    
+    // Остаток от деления в [0, period); через floor заметно быстрее, чем оператор % для double
+    private static double wrap(double value, double period) {
+        return value - period * Math.floor(value / period);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.example.javafx_example.protocol;
+
+/**
+ * Расширения текстового протокола, которые клиент включает при входе.
+ * NAME:имя:DELTA1 - клиент понимает STATE_DELTA и присылает STATE_RESYNC при пропуске номера:
+ * ему состояние идет опорными кадрами GAME_STATE и дельтами между ними. Сервер отвечает NAME_ACCEPTED:DELTA1.
+ * Клиенту без расширения (прежнему) каждое состояние идет полным GAME_STATE.
+ * Клиентам BIN1 и зрителям (SPECTATE появился вместе с дельтами) дельты идут всегда. Старый сервер расширения не знает:
+ * он ответит обычным NAME_ACCEPTED, но зарегистрирует игрока под именем вместе с расширением ("имя:DELTA1").
+ */
+public final class TextProtocol {
+    public static final String DELTAS = "DELTA1";
+    
+    private TextProtocol() {
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,448 @@
+package org.example.javafx_example.relay;
+
+import org.example.javafx_example.protocol.BinaryProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Трансляция одной комнаты в одном протоколе. Ретранслятор подписан на источник (игровой сервер
+ * или другой ретранслятор) как один зритель и пересылает его поток своим зрителям без перекодирования:
+ * поток только режется на сообщения, чтобы отличить события (доставляются всегда) от позиций стрел
+ * и состояния (вытесняются следующими в очереди отстающего зрителя).
+ *
+ * Новый зритель входит посреди партии: он сразу получает частоту рассылки и раскладку арены,
+ * события идут ему как всем, а состояние - только начиная с опорного кадра. Опорный кадр ретранслятор
+ * просит у источника командой STATE_RESYNC; источник отвечает им только этому ретранслятору,
+ * поэтому вход зрителя не стоит ничего ни игровому циклу, ни остальным зрителям.
+ */
+public class RelayFeed {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    // Вид сообщения источника
+    private static final int KIND_EVENT = 0;
+    private static final int KIND_LATEST = 1;
+    private static final int KIND_KEYFRAME = 2;
+    
+    /**
+     * Зритель ленты
+     */
+    private static class Viewer {
+        final RelaySession session;
+        // Состояние зрителю не отправляется, пока не придет опорный кадр
+        volatile boolean pending = true;
+        
+        Viewer(RelaySession session) {
+            this.session = session;
+        }
+    }
+    
+    private final RelayServer server;
+    private final String roomId;
+    private final boolean binary;
+    private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+    // Зрители, ждущие подключения к источнику, и признак ожидания BIN1 у каждого
+    private final List<RelaySession> waiting = new ArrayList<>();
+    private final List<Boolean> waitingSwitch = new ArrayList<>();
+    private final AtomicBoolean resyncRequested = new AtomicBoolean();
+    // Через ленту уже прошел опорный кадр; до него новым зрителям хватит первого
+    private volatile boolean keyframeSeen = false;
+    private volatile Socket socket;
+    private volatile OutputStream out;
+    private boolean connected = false;
+    private boolean closed = false;
+    private String roomName;
+    // Сообщения, которые источник отправляет один раз при входе, в протоколе ленты
+    private volatile byte[] snapshotRate;
+    private volatile byte[] arena;
+    
+    // Статистика для метрик
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesRelayed = new AtomicLong();
+    
+    public RelayFeed(RelayServer server, String roomId, boolean binary) {
+        this.server = server;
+        this.roomId = roomId;
+        this.binary = binary;
+    }
+    
+    /**
+     * Подключается к источнику в отдельном потоке; зрители до подключения ждут подтверждения
+     */
+    public void start() {
+        Thread reader = new Thread(this::run, "relay-" + roomId + (binary ? "-bin" : "-text"));
+        reader.setDaemon(true);
+        reader.start();
+    }
+    
+    /**
+     * Добавляет зрителя. Возвращает false, если лента уже закрыта и нужна новая.
+     */
+    public synchronized boolean addViewer(RelaySession session, boolean switchToBinary) {
+        if (closed) return false;
+        session.attach(this);
+        if (connected) {
+            welcome(session, switchToBinary);
+        } else {
+            waiting.add(session);
+            waitingSwitch.add(switchToBinary);
+        }
+        return true;
+    }
+    
+    private void welcome(RelaySession session, boolean switchToBinary) {
+        session.onWelcome(roomId, roomName, switchToBinary);
+        byte[] rate = snapshotRate;
+        if (rate != null) {
+            session.send(rate);
+        }
+        byte[] layout = arena;
+        if (layout != null) {
+            session.send(layout);
+        }
+        viewers.add(new Viewer(session));
+        // Пока опорного кадра не было, он придет от источника сам; после - его нужно попросить
+        if (keyframeSeen) {
+            requestResync();
+        }
+    }
+    
+    /**
+     * Убирает зрителя. Возвращает true, если зрителей больше нет и ленту можно закрыть.
+     */
+    public synchronized boolean removeViewer(RelaySession session) {
+        viewers.removeIf(viewer -> viewer.session == session);
+        int index = waiting.indexOf(session);
+        if (index >= 0) {
+            waiting.remove(index);
+            waitingSwitch.remove(index);
+        }
+        return viewers.isEmpty() && waiting.isEmpty();
+    }
+    
+    /**
+     * Зритель просит опорный кадр (STATE_RESYNC)
+     */
+    public void requestResync(RelaySession session) {
+        for (Viewer viewer : viewers) {
+            if (viewer.session == session) {
+                viewer.pending = true;
+            }
+        }
+        requestResync();
+    }
+    
+    private void requestResync() {
+        if (!resyncRequested.compareAndSet(false, true)) return;
+        sendUpstream("STATE_RESYNC");
+    }
+    
+    private void sendUpstream(String command) {
+        OutputStream stream = out;
+        if (stream == null) return;
+        try {
+            synchronized (stream) {
+                stream.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+                stream.flush();
+            }
+        } catch (IOException e) {
+            // Чтение заметит обрыв и закроет ленту
+        }
+    }
+    
+    private void run() {
+        String closeMessage = "ROOM_CLOSED";
+        try {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(server.getUpstreamHost(), server.getUpstreamPort()), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            sendUpstream("SPECTATE:" + roomId + (binary ? ":" + BinaryProtocol.VERSION : ""));
+            
+            String reply = readLine(in);
+            if (reply == null || !reply.startsWith("SPECTATING:")) {
+                closeMessage = reply != null && reply.startsWith("ERROR:") ? reply : "ERROR:Источник трансляции недоступен";
+                return;
+            }
+            // SPECTATING:комната:название[:BIN1]
+            String[] parts = reply.split(":");
+            boolean upstreamBinary = parts[parts.length - 1].equals(BinaryProtocol.VERSION);
+            if (upstreamBinary != binary) {
+                closeMessage = "ERROR:Источник трансляции не поддерживает протокол";
+                return;
+            }
+            if (!onConnected(parts.length > 2 ? parts[2] : roomId)) {
+                // Все зрители ушли, пока шло подключение
+                return;
+            }
+            System.out.println("Ретранслятор подписан на комнату " + roomId + (binary ? " (BIN1)" : ""));
+            
+            if (relay(in)) {
+                // ROOM_CLOSED зрители уже получили от источника
+                closeMessage = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Трансляция комнаты " + roomId + " прервана: " + e.getMessage());
+        } finally {
+            close(closeMessage);
+        }
+    }
+    
+    private synchronized boolean onConnected(String name) {
+        if (closed) return false;
+        roomName = name;
+        connected = true;
+        for (int i = 0; i < waiting.size(); i++) {
+            welcome(waiting.get(i), waitingSwitch.get(i));
+        }
+        waiting.clear();
+        waitingSwitch.clear();
+        return true;
+    }
+    
+    /**
+     * Читает поток источника и пересылает его. Подряд идущие сообщения одного вида собираются
+     * в один кадр, пока в буфере чтения есть данные, так что кадр источника уходит зрителям одним кадром.
+     * Возвращает true, если источник закрыл комнату, и false, если поток закончился.
+     */
+    private boolean relay(InputStream in) throws IOException {
+        ByteArrayOutputStream run = new ByteArrayOutputStream(1024);
+        boolean runLatest = false;
+        boolean runFull = false;
+        while (true) {
+            byte[] message = binary ? readBinaryMessage(in) : readTextMessage(in);
+            if (message == null) {
+                return false;
+            }
+            bytesReceived.addAndGet(message.length);
+            int kind = classify(message);
+            boolean latest = kind != KIND_EVENT;
+            if (run.size() > 0 && latest != runLatest) {
+                deliver(run.toByteArray(), runLatest, runFull);
+                run.reset();
+                runFull = false;
+            }
+            runLatest = latest;
+            runFull |= kind == KIND_KEYFRAME;
+            run.write(message);
+            
+            if (kind == KIND_EVENT) {
+                remember(message);
+                if (isRoomClosed(message)) {
+                    deliver(run.toByteArray(), false, false);
+                    return true;
+                }
+            }
+            if (in.available() == 0) {
+                deliver(run.toByteArray(), runLatest, runFull);
+                run.reset();
+                runFull = false;
+            }
+        }
+    }
+    
+    private int classify(byte[] message) {
+        if (binary) {
+            int opcode = message[varintLength(message)] & 0xFF;
+            if (opcode == BinaryProtocol.OP_KEYFRAME) return KIND_KEYFRAME;
+            if (opcode == BinaryProtocol.OP_DELTA || opcode == BinaryProtocol.OP_ARROW_POSITION) return KIND_LATEST;
+            return KIND_EVENT;
+        }
+        if (startsWith(message, 0, "GAME_STATE:")) return KIND_KEYFRAME;
+        if (startsWith(message, 0, "STATE_DELTA:") || startsWith(message, 0, "ARROW_POSITION:")) return KIND_LATEST;
+        return KIND_EVENT;
+    }
+    
+    /**
+     * Запоминает сообщения, которые источник шлет один раз при входе: их получит каждый новый зритель
+     */
+    private void remember(byte[] message) {
+        int text = textOffset(message);
+        if (text < 0) return;
+        if (startsWith(message, text, "SNAPSHOT_RATE:")) {
+            snapshotRate = message;
+        } else if (startsWith(message, text, "ARENA:")) {
+            arena = message;
+        }
+    }
+    
+    private boolean isRoomClosed(byte[] message) {
+        int text = textOffset(message);
+        return text >= 0 && startsWith(message, text, "ROOM_CLOSED");
+    }
+    
+    /**
+     * Начало текста сообщения или -1, если это не текстовое сообщение
+     */
+    private int textOffset(byte[] message) {
+        if (!binary) return 0;
+        int header = varintLength(message);
+        return (message[header] & 0xFF) == BinaryProtocol.OP_TEXT ? header + 1 : -1;
+    }
+    
+    private void deliver(byte[] frame, boolean latest, boolean full) {
+        for (Viewer viewer : viewers) {
+            if (!latest) {
+                viewer.session.send(frame);
+            } else if (!viewer.pending || full) {
+                if (viewer.session.sendLatest(frame, full)) {
+                    // Зритель потерял дельту в очереди: ждет следующего опорного кадра
+                    viewer.pending = true;
+                    requestResync();
+                } else if (full) {
+                    viewer.pending = false;
+                }
+            } else {
+                continue;
+            }
+            bytesRelayed.addAndGet(frame.length);
+        }
+        if (full) {
+            keyframeSeen = true;
+            resyncRequested.set(false);
+        }
+    }
+    
+    /**
+     * Закрывает ленту: зрители получают последнее сообщение и остаются подключенными к ретранслятору.
+     * Сокет закрывается при каждом вызове: лента могла закрыться, пока поток чтения еще подключался.
+     */
+    private void close(String message) {
+        List<RelaySession> sessions = new ArrayList<>();
+        boolean first;
+        synchronized (this) {
+            first = !closed;
+            closed = true;
+            for (Viewer viewer : viewers) {
+                sessions.add(viewer.session);
+            }
+            sessions.addAll(waiting);
+            viewers.clear();
+            waiting.clear();
+            waitingSwitch.clear();
+        }
+        try {
+            Socket current = socket;
+            if (current != null) {
+                current.close();
+            }
+        } catch (IOException e) {
+            // Уже закрыт
+        }
+        if (!first) return;
+        server.onFeedClosed(this);
+        for (RelaySession session : sessions) {
+            session.onFeedClosed(this, message);
+        }
+    }
+    
+    /**
+     * Последний зритель ушел: отписываемся от источника
+     */
+    public void shutdown() {
+        close(null);
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        byte[] line = readTextMessage(in);
+        if (line == null) return null;
+        int length = line.length - 1;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Строка вместе с '\n' или null, если поток закончился
+     */
+    private static byte[] readTextMessage(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            line.write(b);
+            if (b == '\n') {
+                return line.toByteArray();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Сообщение BIN1 вместе с длиной или null, если поток закончился
+     */
+    private static byte[] readBinaryMessage(InputStream in) throws IOException {
+        byte[] header = new byte[5];
+        int headerLength = 0;
+        int length = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b == -1) {
+                if (headerLength == 0) return null;
+                throw new EOFException();
+            }
+            header[headerLength++] = (byte) b;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        byte[] message = new byte[headerLength + length];
+        System.arraycopy(header, 0, message, 0, headerLength);
+        int read = headerLength;
+        while (read < message.length) {
+            int n = in.read(message, read, message.length - read);
+            if (n == -1) throw new EOFException();
+            read += n;
+        }
+        return message;
+    }
+    
+    private static int varintLength(byte[] message) {
+        int i = 0;
+        while ((message[i] & 0x80) != 0) {
+            i++;
+        }
+        return i + 1;
+    }
+    
+    private static boolean startsWith(byte[] message, int offset, String prefix) {
+        if (message.length - offset < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (message[offset + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    public String getRoomId() {
+        return roomId;
+    }
+    
+    public boolean isBinary() {
+        return binary;
+    }
+    
+    public int getViewerCount() {
+        return viewers.size();
+    }
+    
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+    
+    public long getBytesRelayed() {
+        return bytesRelayed.get();
+    }
+} 
\ No newline at end of file
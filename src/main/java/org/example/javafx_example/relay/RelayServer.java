@@ -0,0 +1,151 @@
+package org.example.javafx_example.relay;
+
+import org.example.javafx_example.server.net.Connection;
+import org.example.javafx_example.server.net.NioServer;
+import org.example.javafx_example.server.net.Transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ретранслятор трансляций для зрителей: отдельный процесс, который подписывается на комнаты игрового
+ * сервера как один зритель и раздает поток своим зрителям. Источником может быть и другой ретранслятор,
+ * так что ретрансляторы выстраиваются в дерево, а игровой сервер видит только верхний уровень.
+ *
+ * Запуск: java ... org.example.javafx_example.relay.RelayServer
+ * -Drelay.port=5565 -Drelay.upstreamHost=localhost -Drelay.upstreamPort=5555
+ */
+public class RelayServer {
+    private static final int PORT = Integer.getInteger("relay.port", 5565);
+    private static final String UPSTREAM_HOST = System.getProperty("relay.upstreamHost", "localhost");
+    private static final int UPSTREAM_PORT = Integer.getInteger("relay.upstreamPort", 5555);
+    private static final int IO_THREADS = Integer.getInteger("relay.ioThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    // Как часто печатать сводку по лентам, секунд (0 - не печатать)
+    private static final int STATUS_INTERVAL_SECONDS = Integer.getInteger("relay.statusInterval", 60);
+    
+    private final Transport transport = new NioServer(PORT, IO_THREADS, this::createSession);
+    private final Set<RelaySession> sessions = ConcurrentHashMap.newKeySet();
+    // Ленты по комнате и протоколу; меняются под блокировкой карты
+    private final Map<String, RelayFeed> feeds = new HashMap<>();
+    
+    public void start() throws IOException {
+        transport.start();
+        System.out.println("Ретранслятор запущен на порту " + PORT + ", источник " + UPSTREAM_HOST + ":" + UPSTREAM_PORT);
+        if (STATUS_INTERVAL_SECONDS > 0) {
+            Thread status = new Thread(this::statusLoop, "relay-status");
+            status.setDaemon(true);
+            status.start();
+        }
+    }
+    
+    private RelaySession createSession(Connection connection) {
+        RelaySession session = new RelaySession(connection, this);
+        sessions.add(session);
+        return session;
+    }
+    
+    void removeSession(RelaySession session) {
+        sessions.remove(session);
+    }
+    
+    /**
+     * Подключает зрителя к ленте комнаты; первая лента комнаты подписывается на источник
+     */
+    void join(RelaySession session, String roomId, boolean binary, boolean switchToBinary) {
+        String key = key(roomId, binary);
+        synchronized (feeds) {
+            RelayFeed feed = feeds.get(key);
+            if (feed == null || !feed.addViewer(session, switchToBinary)) {
+                feed = new RelayFeed(this, roomId, binary);
+                feeds.put(key, feed);
+                feed.addViewer(session, switchToBinary);
+                feed.start();
+            }
+        }
+    }
+    
+    /**
+     * Отключает зрителя; лента без зрителей отписывается от источника
+     */
+    void leave(RelaySession session, RelayFeed feed) {
+        synchronized (feeds) {
+            if (feed.removeViewer(session)) {
+                feeds.remove(key(feed.getRoomId(), feed.isBinary()), feed);
+                feed.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Лента закрылась сама (комната закрыта, источник недоступен)
+     */
+    void onFeedClosed(RelayFeed feed) {
+        synchronized (feeds) {
+            feeds.remove(key(feed.getRoomId(), feed.isBinary()), feed);
+        }
+    }
+    
+    private static String key(String roomId, boolean binary) {
+        return roomId + (binary ? ":bin" : ":text");
+    }
+    
+    private void statusLoop() {
+        while (true) {
+            try {
+                Thread.sleep(STATUS_INTERVAL_SECONDS * 1000L);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<RelayFeed> current;
+            synchronized (feeds) {
+                current = new ArrayList<>(feeds.values());
+            }
+            if (current.isEmpty()) continue;
+            int viewers = 0;
+            long received = 0;
+            long relayed = 0;
+            for (RelayFeed feed : current) {
+                viewers += feed.getViewerCount();
+                received += feed.getBytesReceived();
+                relayed += feed.getBytesRelayed();
+            }
+            System.out.println("Ретранслятор: соединений " + sessions.size() + ", лент " + current.size()
+                    + ", зрителей " + viewers + ", получено " + received + " Б, разослано " + relayed + " Б");
+        }
+    }
+    
+    public String getUpstreamHost() {
+        return UPSTREAM_HOST;
+    }
+    
+    public int getUpstreamPort() {
+        return UPSTREAM_PORT;
+    }
+    
+    public void shutdown() {
+        transport.stop();
+        List<RelayFeed> current;
+        synchronized (feeds) {
+            current = new ArrayList<>(feeds.values());
+        }
+        for (RelayFeed feed : current) {
+            feed.shutdown();
+        }
+    }
+    
+    public static void main(String[] args) {
+        RelayServer relay = new RelayServer();
+        try {
+            relay.start();
+        } catch (IOException e) {
+            System.err.println("Ошибка ретранслятора: " + e.getMessage());
+            relay.shutdown();
+        }
+    }
+} 
\ No newline at end of file
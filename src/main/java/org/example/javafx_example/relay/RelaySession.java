@@ -0,0 +1,158 @@
+package org.example.javafx_example.relay;
+
+import org.example.javafx_example.protocol.BinaryProtocol;
+import org.example.javafx_example.protocol.ClientCommand;
+import org.example.javafx_example.protocol.StreamCompression;
+import org.example.javafx_example.server.BinaryFrameEncoder;
+import org.example.javafx_example.server.net.Connection;
+import org.example.javafx_example.server.net.ConnectionHandler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Сессия зрителя ретранслятора. Понимает те же команды зрителя, что и игровой сервер:
+ * SPECTATE:комната[:BIN1], STATE_RESYNC и LEAVE_ROOM, поэтому к ретранслятору можно подключить
+ * и клиента, и следующий ретранслятор. Играть через ретранслятор нельзя.
+ */
+public class RelaySession implements ConnectionHandler {
+    // Сжатие потока к зрителям, как на игровом сервере: -Drelay.compression, -Drelay.compressionLevel
+    private static final boolean COMPRESSION_ENABLED = Boolean.parseBoolean(System.getProperty("relay.compression", "true"));
+    private static final int COMPRESSION_LEVEL = Integer.getInteger("relay.compressionLevel", 6);
+    
+    private final Connection connection;
+    private final RelayServer server;
+    // Протокол выбирается первой командой SPECTATE и дальше не меняется
+    private volatile boolean binaryProtocol = false;
+    private volatile RelayFeed feed;
+    
+    public RelaySession(Connection connection, RelayServer server) {
+        this.connection = connection;
+        this.server = server;
+    }
+    
+    @Override
+    public void onMessage(byte[] line, int offset, int length) {
+        int opcode = ClientCommand.opcode(line, offset, length);
+        int prefix = ClientCommand.prefixLength(opcode, length);
+        switch (opcode) {
+            case ClientCommand.SPECTATE:
+                onSpectate(new String(line, offset + prefix, length - prefix, StandardCharsets.UTF_8));
+                break;
+            case ClientCommand.STATE_RESYNC: {
+                RelayFeed current = feed;
+                if (current != null) {
+                    current.requestResync(this);
+                }
+                break;
+            }
+            case ClientCommand.LEAVE_ROOM:
+                leaveFeed();
+                sendMessage("ROOM_LEFT");
+                break;
+            case ClientCommand.COMPRESS:
+                onCompress(new String(line, offset + prefix, length - prefix, StandardCharsets.UTF_8));
+                break;
+            case ClientCommand.LOCAL_ARROWS:
+                // Ретранслятор пересылает поток как есть, позиции стрел клиент просто пропустит
+                break;
+            default:
+                // Игровые команды зрителя пропускаются, как и на сервере
+                if (feed == null) {
+                    sendMessage("ERROR:Ретранслятор принимает только зрителей (SPECTATE)");
+                }
+                break;
+        }
+    }
+    
+    /**
+     * COMPRESS:deflate до SPECTATE ({@link StreamCompression})
+     */
+    private void onCompress(String method) {
+        if (feed != null || binaryProtocol) {
+            sendMessage("ERROR:Сжатие включается до входа");
+            return;
+        }
+        byte[] reply = ("COMPRESSION:" + StreamCompression.DEFLATE + "\n").getBytes(StandardCharsets.UTF_8);
+        if (!COMPRESSION_ENABLED || !StreamCompression.DEFLATE.equals(method)
+                || !connection.enableCompression(reply, COMPRESSION_LEVEL)) {
+            sendMessage("COMPRESSION:" + StreamCompression.NONE);
+        }
+    }
+    
+    private void onSpectate(String roomId) {
+        boolean wantsBinary = roomId.endsWith(":" + BinaryProtocol.VERSION);
+        if (wantsBinary) {
+            roomId = roomId.substring(0, roomId.length() - BinaryProtocol.VERSION.length() - 1);
+        }
+        leaveFeed();
+        // Протокол меняется только у нового зрителя: подтверждение придет еще текстом
+        boolean switchToBinary = wantsBinary && !binaryProtocol;
+        server.join(this, roomId, binaryProtocol || wantsBinary, switchToBinary);
+    }
+    
+    /**
+     * Зритель добавлен в ленту; вызывается лентой под ее блокировкой
+     */
+    void attach(RelayFeed joined) {
+        feed = joined;
+    }
+    
+    /**
+     * Лента подключилась к источнику: подтверждение входа зрителю.
+     * Если зритель просил BIN1, подтверждение еще текстом, дальше - двоичный протокол.
+     */
+    void onWelcome(String roomId, String roomName, boolean switchToBinary) {
+        if (switchToBinary) {
+            sendMessage("SPECTATING:" + roomId + ":" + roomName + ":" + BinaryProtocol.VERSION);
+            binaryProtocol = true;
+        } else {
+            sendMessage("SPECTATING:" + roomId + ":" + roomName);
+        }
+    }
+    
+    /**
+     * Лента закрылась (комната закрыта, источник недоступен); message - последнее сообщение зрителю или null
+     */
+    void onFeedClosed(RelayFeed closed, String message) {
+        if (feed == closed) {
+            feed = null;
+            if (message != null) {
+                sendMessage(message);
+            }
+        }
+    }
+    
+    private void leaveFeed() {
+        RelayFeed current = feed;
+        if (current != null) {
+            feed = null;
+            server.leave(this, current);
+        }
+    }
+    
+    public void sendMessage(String message) {
+        if (binaryProtocol) {
+            send(BinaryFrameEncoder.encodeText(message));
+        } else {
+            send((message + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    void send(byte[] bytes) {
+        connection.send(bytes);
+    }
+    
+    boolean sendLatest(byte[] bytes, boolean full) {
+        return connection.sendLatest(bytes, full);
+    }
+    
+    boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+    
+    @Override
+    public void onClose() {
+        leaveFeed();
+        server.removeSession(this);
+    }
+} 
\ No newline at end of file
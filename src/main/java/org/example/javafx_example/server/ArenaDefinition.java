@@ -0,0 +1,176 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Описание арены: набор движущихся мишеней (дорожка, радиус, скорость, очки).
+ * Арена задается при создании комнаты и не меняется во время игры.
+ */
+public class ArenaDefinition {
+    public static final String CLASSIC = "classic";
+    public static final String GALLERY = "gallery";
+    
+    private static final double FIELD_WIDTH = 800.0;
+    private static final double FIELD_HEIGHT = 600.0;
+    // Зона, где могут стоять мишени: правее базы стрелков и выше панели кнопок
+    private static final double LANES_MIN_X = 150.0;
+    private static final double LANES_MAX_X = 780.0;
+    private static final double LANES_MIN_Y = 40.0;
+    private static final double LANES_MAX_Y = 530.0;
+    
+    private final String name;
+    private final List<TargetSpec> targets;
+    
+    public ArenaDefinition(String name, List<TargetSpec> targets) {
+        this.name = name;
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+    }
+    
+    /**
+     * Классическое поле: две мишени на дорожках 100..500
+     */
+    public static ArenaDefinition classic() {
+        List<TargetSpec> targets = new ArrayList<>();
+        targets.add(new TargetSpec(400.0, 300.0, 30.0, 100.0, 500.0, 1.0, 1));
+        targets.add(new TargetSpec(600.0, 300.0, 15.0, 100.0, 500.0, 2.0, 2));
+        return new ArenaDefinition(CLASSIC, targets);
+    }
+    
+    /**
+     * Тир из count мишеней: дорожки разбиты на ряды и колонки, скорости и радиусы
+     * выбираются детерминированно по seed, чтобы у всех клиентов и в бенчмарке арена была одинаковой
+     */
+    public static ArenaDefinition gallery(int count, long seed) {
+        Random random = new Random(seed);
+        int rows = Math.max(1, (int) Math.round(Math.sqrt(count / 4.0)));
+        int columns = (count + rows - 1) / rows;
+        double rowHeight = (LANES_MAX_Y - LANES_MIN_Y) / rows;
+        double columnWidth = (LANES_MAX_X - LANES_MIN_X) / columns;
+        
+        List<TargetSpec> targets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = i % rows;
+            int column = i / rows;
+            double radius = Math.max(3.0, Math.min(30.0, Math.min(columnWidth, rowHeight) / 2 - 1)) * (0.5 + random.nextDouble() * 0.5);
+            double minY = LANES_MIN_Y + row * rowHeight + radius;
+            double maxY = LANES_MIN_Y + (row + 1) * rowHeight - radius;
+            if (maxY < minY) {
+                maxY = minY;
+            }
+            double x = LANES_MIN_X + (column + 0.5) * columnWidth;
+            double startY = minY + random.nextDouble() * (maxY - minY);
+            double speed = (0.5 + random.nextDouble() * 2.5) * (random.nextBoolean() ? 1 : -1);
+            int points = radius < 10 ? 3 : radius < 20 ? 2 : 1;
+            targets.add(new TargetSpec(x, startY, radius, minY, maxY, speed, points));
+        }
+        return new ArenaDefinition(GALLERY + "-" + count, targets);
+    }
+    
+    /**
+     * Арена по имени из протокола: "classic" или "gallery-N" (N мишеней). Неизвестное имя - классика.
+     */
+    public static ArenaDefinition byName(String name) {
+        if (name != null && name.startsWith(GALLERY)) {
+            int count = 8;
+            if (name.length() > GALLERY.length() + 1) {
+                try {
+                    count = Integer.parseInt(name.substring(GALLERY.length() + 1));
+                } catch (NumberFormatException e) {
+                    count = 8;
+                }
+            }
+            return gallery(Math.max(1, Math.min(count, 1000)), 42);
+        }
+        return classic();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public List<TargetSpec> getTargets() {
+        return targets;
+    }
+    
+    public double getFieldWidth() {
+        return FIELD_WIDTH;
+    }
+    
+    public double getFieldHeight() {
+        return FIELD_HEIGHT;
+    }
+    
+    /**
+     * Раскладка арены для клиентов: ARENA:имя:x,радиус,minY,maxY;...
+     */
+    public String toMessage() {
+        StringBuilder sb = new StringBuilder("ARENA:");
+        sb.append(name).append(":");
+        for (TargetSpec target : targets) {
+            sb.append(format(target.getX())).append(",")
+              .append(format(target.getRadius())).append(",")
+              .append(format(target.getMinY())).append(",")
+              .append(format(target.getMaxY())).append(";");
+        }
+        return sb.toString();
+    }
+    
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+    
+    /**
+     * Параметры одной мишени. Скорость в пикселях за тик, знак задает начальное направление (плюс - вниз).
+     */
+    public static class TargetSpec {
+        private final double x;
+        private final double startY;
+        private final double radius;
+        private final double minY;
+        private final double maxY;
+        private final double speed;
+        private final int points;
+        
+        public TargetSpec(double x, double startY, double radius, double minY, double maxY, double speed, int points) {
+            this.x = x;
+            this.startY = startY;
+            this.radius = radius;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.speed = speed;
+            this.points = points;
+        }
+        
+        public double getX() {
+            return x;
+        }
+        
+        public double getStartY() {
+            return startY;
+        }
+        
+        public double getRadius() {
+            return radius;
+        }
+        
+        public double getMinY() {
+            return minY;
+        }
+        
+        public double getMaxY() {
+            return maxY;
+        }
+        
+        public double getSpeed() {
+            return speed;
+        }
+        
+        public int getPoints() {
+            return points;
+        }
+    }
+} 
\ No newline at end of file
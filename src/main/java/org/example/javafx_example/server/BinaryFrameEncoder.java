@@ -0,0 +1,222 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.protocol.BinaryProtocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Кадр рассылки в двоичном протоколе {@link BinaryProtocol}.
+ * Тело каждого сообщения пишется во временный буфер, затем в кадр добавляются его длина и само тело.
+ */
+public class BinaryFrameEncoder implements FrameEncoder {
+    private final Buffer frame = new Buffer(1024);
+    private final Buffer body = new Buffer(256);
+    private int messageCount = 0;
+    
+    /**
+     * Одиночное текстовое сообщение в двоичной обертке (ответы конкретному клиенту)
+     */
+    public static byte[] encodeText(String message) {
+        BinaryFrameEncoder encoder = new BinaryFrameEncoder();
+        encoder.text(message);
+        return encoder.drain();
+    }
+    
+    @Override
+    public void state(StateUpdate update) {
+        body.u8(update.isKeyframe() ? BinaryProtocol.OP_KEYFRAME : BinaryProtocol.OP_DELTA);
+        body.u32(update.getSequence());
+        body.u32(update.getTick());
+        
+        int flags = (update.isRunning() ? BinaryProtocol.FLAG_RUNNING : 0)
+                | (update.isPaused() ? BinaryProtocol.FLAG_PAUSED : 0);
+        int pauseSlot = update.getPauseBySlot() < 0 ? BinaryProtocol.NO_SLOT : update.getPauseBySlot();
+        
+        if (update.isKeyframe()) {
+            body.u8(flags);
+            body.u8(pauseSlot);
+            body.u16(update.getTargetUpdateCount());
+            for (int i = 0; i < update.getTargetUpdateCount(); i++) {
+                body.u16(BinaryProtocol.quantizePosition(update.getTargetY(i)));
+                body.u32(BinaryProtocol.quantizeVelocity(update.getTargetVelocity(i)));
+            }
+            body.u8(update.getPlayers().size());
+            for (GameSnapshot.PlayerState player : update.getPlayers()) {
+                body.u8(player.getSlot());
+                body.string(player.getName());
+                body.u16(player.getScore());
+                body.u8(player.getShots());
+            }
+        } else {
+            int mask = (update.isFlagsChanged() ? BinaryProtocol.CHANGED_FLAGS : 0)
+                    | (update.isPauseByChanged() ? BinaryProtocol.CHANGED_PAUSE_BY : 0);
+            body.u8(mask);
+            if (update.isFlagsChanged()) {
+                body.u8(flags);
+            }
+            if (update.isPauseByChanged()) {
+                body.u8(pauseSlot);
+            }
+            body.u16(update.getTargetUpdateCount());
+            for (int i = 0; i < update.getTargetUpdateCount(); i++) {
+                body.u16(update.getTargetIndex(i));
+                body.u16(BinaryProtocol.quantizePosition(update.getTargetY(i)));
+                body.u32(BinaryProtocol.quantizeVelocity(update.getTargetVelocity(i)));
+            }
+            body.u8(update.getPlayers().size());
+            for (GameSnapshot.PlayerState player : update.getPlayers()) {
+                if (update.isJoined(player)) {
+                    body.u8(player.getSlot() | BinaryProtocol.NEW_PLAYER);
+                    body.string(player.getName());
+                } else {
+                    body.u8(player.getSlot());
+                }
+                body.u16(player.getScore());
+                body.u8(player.getShots());
+            }
+            body.u8(update.getRemovedPlayers().size());
+            for (GameSnapshot.PlayerState player : update.getRemovedPlayers()) {
+                body.u8(player.getSlot());
+            }
+        }
+        endMessage();
+    }
+    
+    @Override
+    public void arrow(int slot, String playerName, double x, double y, double vx, int arrowId, long tick) {
+        body.u8(BinaryProtocol.OP_ARROW);
+        body.u8(slot);
+        body.u16(BinaryProtocol.quantizePosition(y));
+        body.u32(arrowId);
+        body.u16(BinaryProtocol.quantizePosition(x));
+        body.u32(BinaryProtocol.quantizeVelocity(vx));
+        body.u32(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void arrowPosition(int slot, String playerName, double x, double y, int arrowId, long tick) {
+        body.u8(BinaryProtocol.OP_ARROW_POSITION);
+        body.u32(arrowId);
+        body.u16(BinaryProtocol.quantizePosition(x));
+        body.u16(BinaryProtocol.quantizePosition(y));
+        body.u32(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void hit(int slot, String playerName, int targetNum, double x, double y, int arrowId, long tick) {
+        body.u8(BinaryProtocol.OP_HIT);
+        body.u8(slot);
+        body.u16(targetNum);
+        body.u16(BinaryProtocol.quantizePosition(x));
+        body.u16(BinaryProtocol.quantizePosition(y));
+        body.u32(arrowId);
+        body.u32(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void miss(int slot, String playerName, int arrowId, long tick) {
+        body.u8(BinaryProtocol.OP_MISS);
+        body.u8(slot);
+        body.u32(arrowId);
+        body.u32(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void text(String message) {
+        body.u8(BinaryProtocol.OP_TEXT);
+        body.bytes(message.getBytes(StandardCharsets.UTF_8));
+        endMessage();
+    }
+    
+    private void endMessage() {
+        frame.varint(body.size);
+        frame.bytes(body.data, 0, body.size);
+        body.size = 0;
+        messageCount++;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return messageCount == 0;
+    }
+    
+    @Override
+    public int getMessageCount() {
+        return messageCount;
+    }
+    
+    @Override
+    public byte[] drain() {
+        byte[] bytes = Arrays.copyOf(frame.data, frame.size);
+        frame.size = 0;
+        messageCount = 0;
+        return bytes;
+    }
+    
+    /**
+     * Растущий массив байтов с записью чисел в big-endian
+     */
+    private static class Buffer {
+        byte[] data;
+        int size;
+        
+        Buffer(int capacity) {
+            data = new byte[capacity];
+        }
+        
+        void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+        
+        void u8(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+        
+        void u16(int value) {
+            ensure(2);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+        
+        void u32(long value) {
+            ensure(4);
+            data[size++] = (byte) (value >>> 24);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+        
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+        
+        void bytes(byte[] src) {
+            bytes(src, 0, src.length);
+        }
+        
+        void bytes(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, data, size, length);
+            size += length;
+        }
+        
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+    }
+} 
\ No newline at end of file
@@ -1,81 +1,449 @@
 package org.example.javafx_example.server;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
+import org.example.javafx_example.protocol.BinaryProtocol;
+import org.example.javafx_example.protocol.ClientCommand;
+import org.example.javafx_example.protocol.StreamCompression;
+import org.example.javafx_example.protocol.TextProtocol;
+import org.example.javafx_example.server.net.Connection;
+import org.example.javafx_example.server.net.ConnectionHandler;
+import org.example.javafx_example.server.net.StreamCompressor;
+import org.example.javafx_example.server.net.UdpChannel;
 
-public class ClientHandler implements Runnable {
-    private Socket clientSocket;
-    private GameServer server;
-    private ServerGame game;
-    private PrintWriter out;
-    private BufferedReader in;
-    private String playerName;
-    private boolean isReady = false;
-    
-    public ClientHandler(Socket socket, GameServer server, ServerGame game) {
-        this.clientSocket = socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Протокольная сессия игрока: разбирает его команды и отправляет ответы.
+ * От транспорта не зависит: строки приходят из потока соединения или потока селектора,
+ * поэтому блокирующие операции (запросы к базе) сессия отдает пулу сервера.
+ */
+public class ClientHandler implements ConnectionHandler {
+    // Сжатие потока по просьбе клиента (COMPRESS:deflate); -Dserver.compression=false отвечает COMPRESSION:none
+    private static final boolean COMPRESSION_ENABLED = Boolean.parseBoolean(System.getProperty("server.compression", "true"));
+    // Уровень deflate: 1 - быстрее, 9 - плотнее; кадры маленькие, выше 6 выигрыша почти нет
+    private static final int COMPRESSION_LEVEL = Integer.getInteger("server.compressionLevel", 6);
+    // Имя игрока длиннее не принимается: оно хранится в базе и в журнале побед
+    private static final int MAX_NAME_LENGTH = 32;
+    
+    private final Connection connection;
+    private final GameServer server;
+    private final Lobby lobby;
+    private volatile String playerName;
+    private volatile boolean isReady = false;
+    // Протокол выбирается при входе (NAME:имя:BIN1) и дальше не меняется
+    private volatile boolean binaryProtocol = false;
+    // Понимает ли клиент STATE_DELTA (BIN1 или NAME:имя:DELTA1); прежним клиентам состояние идет целиком
+    private volatile boolean stateDeltas = false;
+    // UDP-канал (UDP_REQUEST): токен выдан, адрес известен после датаграммы HELLO
+    private volatile long udpToken = 0;
+    private volatile SocketAddress udpAddress;
+    // Клиент сам ведет стрелы по выстрелу (LOCAL_ARROWS), позиции стрел ему не нужны
+    private volatile boolean localArrows = false;
+    // Комната, которую клиент смотрит зрителем (SPECTATE), или null
+    private volatile GameRoom spectatedRoom;
+    
+    public ClientHandler(Connection connection, GameServer server, Lobby lobby) {
+        this.connection = connection;
         this.server = server;
-        this.game = game;
+        this.lobby = lobby;
+    }
+    
+    /**
+     * Обработчик команды; аргументы - срез строки после "КОМАНДА:"
+     */
+    @FunctionalInterface
+    private interface Command {
+        void execute(ClientHandler client, byte[] line, int offset, int length);
+    }
+    
+    // Обработчики по опкоду команды, общие для всех соединений
+    private static final Command[] COMMANDS = new Command[ClientCommand.COUNT];
+    // Команды, доступные без имени: вход и то, что нужно зрителю
+    private static final boolean[] ANONYMOUS = new boolean[ClientCommand.COUNT];
+    
+    static {
+        COMMANDS[ClientCommand.NAME] = ClientHandler::onName;
+        COMMANDS[ClientCommand.LIST_ROOMS] = (client, line, offset, length) -> client.onListRooms();
+        COMMANDS[ClientCommand.CREATE_ROOM] = ClientHandler::onCreateRoom;
+        COMMANDS[ClientCommand.JOIN_ROOM] = ClientHandler::onJoinRoom;
+        COMMANDS[ClientCommand.LEAVE_ROOM] = (client, line, offset, length) -> client.onLeaveRoom();
+        COMMANDS[ClientCommand.GET_LEADERBOARD] = ClientHandler::onGetLeaderboard;
+        COMMANDS[ClientCommand.READY] = (client, line, offset, length) -> client.onReady();
+        COMMANDS[ClientCommand.PAUSE] = (client, line, offset, length) -> client.onPause();
+        COMMANDS[ClientCommand.SHOOT] = (client, line, offset, length) -> client.onShoot();
+        COMMANDS[ClientCommand.STATE_RESYNC] = (client, line, offset, length) -> client.onStateResync();
+        COMMANDS[ClientCommand.GAME_OVER_ACK] = (client, line, offset, length) -> client.onGameOverAck();
+        COMMANDS[ClientCommand.UDP_REQUEST] = (client, line, offset, length) -> client.onUdpRequest();
+        COMMANDS[ClientCommand.LOCAL_ARROWS] = (client, line, offset, length) -> client.localArrows = true;
+        COMMANDS[ClientCommand.SPECTATE] = ClientHandler::onSpectate;
+        COMMANDS[ClientCommand.COMPRESS] = ClientHandler::onCompress;
+        COMMANDS[ClientCommand.GET_RANK] = ClientHandler::onGetRank;
         
-        try {
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        ANONYMOUS[ClientCommand.NAME] = true;
+        ANONYMOUS[ClientCommand.SPECTATE] = true;
+        ANONYMOUS[ClientCommand.STATE_RESYNC] = true;
+        ANONYMOUS[ClientCommand.LEAVE_ROOM] = true;
+        ANONYMOUS[ClientCommand.LOCAL_ARROWS] = true;
+        ANONYMOUS[ClientCommand.COMPRESS] = true;
     }
     
+    /**
+     * Одна строка от клиента. Первое сообщение должно быть именем игрока.
+     * Команда определяется по байтам строки, строка создается только для команд с текстовыми аргументами,
+     * поэтому частые SHOOT и READY обрабатываются без выделения памяти.
+     */
     @Override
-    public void run() {
-        try {
-            // Первое сообщение должно быть именем игрока
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                processMessage(inputLine);
+    public void onMessage(byte[] line, int offset, int length) {
+        int opcode = ClientCommand.opcode(line, offset, length);
+        // Все остальные команды доступны только после выбора имени; зритель без имени
+        // смотрит, но не играет, и его игровые команды просто пропускаются
+        if (playerName == null && !ANONYMOUS[opcode]) {
+            if (spectatedRoom == null) {
+                sendMessage("ERROR:Сначала укажите имя");
             }
-        } catch (IOException e) {
-            System.err.println("Ошибка при работе с клиентом: " + e.getMessage());
-        } finally {
-            closeConnection();
+            return;
         }
+        Command command = COMMANDS[opcode];
+        if (command == null) return;
+        int prefix = ClientCommand.prefixLength(opcode, length);
+        command.execute(this, line, offset + prefix, length - prefix);
     }
     
-    private void processMessage(String message) {
-        if (message.startsWith("NAME:")) {
-            String name = message.substring(5);
-            if (server.isNameTaken(name)) {
-                sendMessage("ERROR:Имя уже занято");
+    private void onName(byte[] line, int offset, int length) {
+        String name = new String(line, offset, length, StandardCharsets.UTF_8);
+        // Новые клиенты перечисляют расширения после имени: NAME:имя:BIN1 или NAME:имя:DELTA1
+        boolean wantsBinary = false;
+        boolean wantsDeltas = false;
+        int colon;
+        while ((colon = name.lastIndexOf(':')) >= 0) {
+            String extension = name.substring(colon + 1);
+            if (extension.equals(BinaryProtocol.VERSION)) {
+                wantsBinary = true;
+            } else if (extension.equals(TextProtocol.DELTAS)) {
+                wantsDeltas = true;
             } else {
-                this.playerName = name;
-                game.addPlayer(name);
-                sendMessage("NAME_ACCEPTED");
-                server.broadcastGameState();
+                break;
             }
-        } else if (message.equals("READY")) {
-            if (game.isPaused() && playerName.equals(game.getPauseRequestedBy())) {
-                game.resumeGame(playerName);
+            name = name.substring(0, colon);
+        }
+        if (playerName != null) {
+            sendMessage("ERROR:Имя уже выбрано");
+        } else if (name.isEmpty()) {
+            sendMessage("ERROR:Имя не может быть пустым");
+        } else if (name.length() > MAX_NAME_LENGTH) {
+            sendMessage("ERROR:Имя длиннее " + MAX_NAME_LENGTH + " символов");
+        } else if (name.indexOf(':') >= 0 || name.indexOf(',') >= 0 || name.indexOf(';') >= 0) {
+            // Разделители протокола в имени сломали бы PLAYERS и таблицу лидеров, как и в названии комнаты
+            sendMessage("ERROR:Имя не может содержать символы : , ;");
+        } else if (!server.claimName(name, this)) {
+            sendMessage("ERROR:Имя уже занято");
+        } else {
+            this.playerName = name;
+            stopSpectating();
+            if (wantsBinary) {
+                // Подтверждение еще текстом, все следующие сообщения - в двоичном виде
+                sendMessage("NAME_ACCEPTED:" + BinaryProtocol.VERSION);
+                binaryProtocol = true;
+                stateDeltas = true;
+            } else if (wantsDeltas) {
+                sendMessage("NAME_ACCEPTED:" + TextProtocol.DELTAS);
+                stateDeltas = true;
             } else {
-                isReady = true;
-                server.checkAllPlayersReady();
+                sendMessage("NAME_ACCEPTED");
             }
-        } else if (message.equals("PAUSE")) {
-            game.pauseGame(playerName);
-        } else if (message.startsWith("SHOOT")) {
-            game.handlePlayerShoot(playerName);
-        } else if (message.equals("GAME_OVER_ACK")) {
-            // Клиент подтвердил получение сообщения о конце игры
-            server.setGameEnded();
-        } else if (message.equals("GET_LEADERBOARD")) {
-            // Клиент запросил таблицу лидеров
+            // Частота тиков и рассылки состояния: по ним клиент выбирает задержку интерполяции
+            sendMessage("SNAPSHOT_RATE:" + GameLoop.TICKS_PER_SECOND + ":" + GameRoom.SEND_RATE);
+            // Старые клиенты не знают о комнатах: сразу сажаем игрока в свободную комнату
+            GameRoom room = lobby.quickJoin(this);
+            sendMessage("ROOM_JOINED:" + room.getId() + ":" + room.getName());
+        }
+    }
+    
+    /**
+     * COMPRESS:deflate - сжатие потока к клиенту ({@link StreamCompression}). Только до входа:
+     * ответ COMPRESSION:deflate уходит последним несжатым сообщением
+     */
+    private void onCompress(byte[] line, int offset, int length) {
+        String method = new String(line, offset, length, StandardCharsets.UTF_8);
+        if (playerName != null || spectatedRoom != null) {
+            sendMessage("ERROR:Сжатие включается до входа");
+            return;
+        }
+        if (!COMPRESSION_ENABLED || !StreamCompression.DEFLATE.equals(method)
+                || !connection.enableCompression(encodeMessage("COMPRESSION:" + StreamCompression.DEFLATE), COMPRESSION_LEVEL)) {
+            sendMessage("COMPRESSION:" + StreamCompression.NONE);
+        }
+    }
+    
+    private void onListRooms() {
+        sendMessage(lobby.getRoomListMessage());
+    }
+    
+    private void onCreateRoom(byte[] line, int offset, int length) {
+        // CREATE_ROOM[:название[:арена]]
+        String roomName = null;
+        String arenaName = null;
+        if (length > 0) {
+            String[] parts = new String(line, offset, length, StandardCharsets.UTF_8).split(":", 2);
+            roomName = parts[0];
+            arenaName = parts.length > 1 ? parts[1] : null;
+        }
+        stopSpectating();
+        GameRoom room = lobby.createAndJoin(this, roomName, arenaName);
+        sendMessage("ROOM_JOINED:" + room.getId() + ":" + room.getName());
+    }
+    
+    private void onJoinRoom(byte[] line, int offset, int length) {
+        stopSpectating();
+        GameRoom room = lobby.joinRoom(this, new String(line, offset, length, StandardCharsets.UTF_8));
+        if (room == null) {
+            sendMessage("ERROR:Нельзя войти в комнату");
+        } else {
+            sendMessage("ROOM_JOINED:" + room.getId() + ":" + room.getName());
+        }
+    }
+    
+    private void onLeaveRoom() {
+        stopSpectating();
+        lobby.leaveRoom(this);
+        sendMessage("ROOM_LEFT");
+    }
+    
+    /**
+     * GET_LEADERBOARD - верх таблицы лидеров; GET_LEADERBOARD:offset:limit - страница
+     */
+    private void onGetLeaderboard(byte[] line, int offset, int length) {
+        if (length == 0) {
             server.sendLeaderboardToClient(this);
+            return;
+        }
+        String[] parts = new String(line, offset, length, StandardCharsets.UTF_8).split(":");
+        try {
+            int pageOffset = Integer.parseInt(parts[0]);
+            int limit = parts.length > 1 ? Integer.parseInt(parts[1]) : GameServer.MAX_LEADERBOARD_PAGE;
+            if (parts.length > 2 || pageOffset < 0 || limit < 1 || limit > GameServer.MAX_LEADERBOARD_PAGE) {
+                throw new NumberFormatException();
+            }
+            server.sendLeaderboardPage(this, pageOffset, limit);
+        } catch (NumberFormatException e) {
+            sendMessage("ERROR:Страница таблицы лидеров: GET_LEADERBOARD:offset:limit, limit до "
+                    + GameServer.MAX_LEADERBOARD_PAGE);
+        }
+    }
+    
+    /**
+     * GET_RANK - свое место и соседи; GET_RANK:N - N соседей с каждой стороны; GET_RANK:N:имя - место другого игрока
+     */
+    private void onGetRank(byte[] line, int offset, int length) {
+        String[] parts = length == 0 ? new String[0] : new String(line, offset, length, StandardCharsets.UTF_8).split(":", 2);
+        try {
+            int neighbours = parts.length > 0 ? Integer.parseInt(parts[0]) : GameServer.DEFAULT_RANK_NEIGHBOURS;
+            if (neighbours < 0 || neighbours > GameServer.MAX_RANK_NEIGHBOURS) {
+                throw new NumberFormatException();
+            }
+            server.sendRank(this, parts.length > 1 ? parts[1] : playerName, neighbours);
+        } catch (NumberFormatException e) {
+            sendMessage("ERROR:Место в таблице: GET_RANK:соседей:имя, соседей до " + GameServer.MAX_RANK_NEIGHBOURS);
+        }
+    }
+    
+    // Игровые команды, относящиеся к комнате игрока
+    
+    private void onReady() {
+        GameRoom room = lobby.getRoomOf(playerName);
+        if (room == null) return;
+        ServerGame game = room.getGame();
+        GameSnapshot state = game.getSnapshot();
+        if (state.isPaused() && playerName.equals(state.getPauseRequestedBy())) {
+            game.resumeGame(playerName);
+        } else {
+            room.setPlayerReady(this, true);
+            room.checkAllPlayersReady();
+        }
+    }
+    
+    private void onPause() {
+        GameRoom room = lobby.getRoomOf(playerName);
+        if (room == null) return;
+        room.getGame().pauseGame(playerName);
+    }
+    
+    private void onShoot() {
+        GameRoom room = lobby.getRoomOf(playerName);
+        if (room == null) return;
+        room.getGame().handlePlayerShoot(playerName);
+    }
+    
+    private void onStateResync() {
+        GameRoom spectated = spectatedRoom;
+        if (spectated != null) {
+            // Зрителю опорный кадр уходит отдельно, остальным он не нужен
+            spectated.requestSpectatorResync(this);
+            return;
+        }
+        GameRoom room = lobby.getRoomOf(playerName);
+        if (room == null) return;
+        // Клиент не может применить дельту и просит полный кадр
+        room.requestKeyframe();
+    }
+    
+    private void onGameOverAck() {
+        GameRoom room = lobby.getRoomOf(playerName);
+        if (room == null) return;
+        // Клиент подтвердил получение сообщения о конце игры
+        room.setGameEnded();
+    }
+    
+    private void onSpectate(byte[] line, int offset, int length) {
+        // SPECTATE:комната[:BIN1]; протокол выбирается здесь, только если клиент еще не назвался
+        String roomId = new String(line, offset, length, StandardCharsets.UTF_8);
+        boolean wantsBinary = roomId.endsWith(":" + BinaryProtocol.VERSION);
+        if (wantsBinary) {
+            roomId = roomId.substring(0, roomId.length() - BinaryProtocol.VERSION.length() - 1);
+        }
+        GameRoom room = lobby.getRoom(roomId);
+        if (room == null || room.isClosed()) {
+            sendMessage("ERROR:Нет такой комнаты");
+            return;
+        }
+        // Игрок перестает играть в своей комнате, зритель - смотреть прежнюю
+        lobby.leaveRoom(this);
+        stopSpectating();
+        
+        if (wantsBinary && playerName == null && !binaryProtocol) {
+            // Подтверждение еще текстом, все следующие сообщения - в двоичном виде
+            sendMessage("SPECTATING:" + room.getId() + ":" + room.getName() + ":" + BinaryProtocol.VERSION);
+            binaryProtocol = true;
+        } else {
+            sendMessage("SPECTATING:" + room.getId() + ":" + room.getName());
+        }
+        sendMessage("SNAPSHOT_RATE:" + GameLoop.TICKS_PER_SECOND + ":" + GameRoom.SEND_RATE);
+        spectatedRoom = room;
+        if (!room.addSpectator(this)) {
+            spectatedRoom = null;
+            sendMessage("ROOM_CLOSED");
+        }
+    }
+    
+    private void stopSpectating() {
+        GameRoom room = spectatedRoom;
+        if (room != null) {
+            spectatedRoom = null;
+            room.removeSpectator(this);
+        }
+    }
+    
+    /**
+     * Комната, которую смотрел клиент, закрылась (из нее вышел последний игрок)
+     */
+    void onSpectatedRoomClosed(GameRoom room) {
+        if (spectatedRoom == room) {
+            spectatedRoom = null;
+            sendMessage("ROOM_CLOSED");
+        }
+    }
+    
+    private void onUdpRequest() {
+        UdpChannel udp = server.getUdpChannel();
+        // Датаграммы несут сообщения BIN1, текстовому клиенту канал не нужен
+        if (udp == null || !binaryProtocol) {
+            sendMessage("UDP_UNAVAILABLE");
+            return;
+        }
+        synchronized (this) {
+            if (udpToken == 0) {
+                udpToken = udp.register(this::onUdpBound);
+            }
+        }
+        sendMessage("UDP_TOKEN:" + udp.getPort() + ":" + udpToken);
+    }
+    
+    /**
+     * Клиент прислал токен датаграммой: с этого адреса он ждет состояние игры
+     */
+    private void onUdpBound(SocketAddress address) {
+        boolean first = udpAddress == null;
+        udpAddress = address;
+        if (first) {
+            System.out.println("Игрок " + playerName + " получает состояние по UDP: " + address);
+            sendMessage("UDP_READY");
         }
     }
     
     public void sendMessage(String message) {
-        out.println(message);
+        sendFrame(encodeMessage(message));
+    }
+    
+    private byte[] encodeMessage(String message) {
+        if (binaryProtocol) {
+            return BinaryFrameEncoder.encodeText(message);
+        }
+        return (message + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Сжатие потока клиента или null, если клиент его не просил
+     */
+    public StreamCompressor getCompressor() {
+        return connection.getCompressor();
+    }
+    
+    public String getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+    
+    /**
+     * Отправляет уже закодированный кадр (одно или несколько сообщений)
+     */
+    public void sendFrame(byte[] frame) {
+        connection.send(frame);
+    }
+    
+    /**
+     * Отправляет кадр устаревающих сообщений (позиции стрел, состояние); неотправленный предыдущий вытесняется.
+     * Возвращает true, если клиент потерял дельту и ему нужен опорный кадр.
+     */
+    public boolean sendLatestFrame(byte[] frame, boolean keyframe) {
+        return connection.sendLatest(frame, keyframe);
+    }
+    
+    /**
+     * Отправляет датаграмму STATE, если клиент подключил UDP-канал
+     */
+    public void sendDatagram(byte[] datagram) {
+        SocketAddress address = udpAddress;
+        if (address != null) {
+            server.getUdpChannel().send(datagram, address);
+        }
+    }
+    
+    /**
+     * Состояние и позиции стрел идут клиенту по UDP, а не по TCP
+     */
+    public boolean isUdpReady() {
+        return udpAddress != null;
+    }
+    
+    /**
+     * Клиент рисует полет стрелы сам по сообщению о выстреле и ждет только попадания или промаха
+     */
+    public boolean isLocalArrows() {
+        return localArrows;
+    }
+    
+    public int getQueuedBytes() {
+        return connection.getQueuedBytes();
+    }
+    
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+    
+    /**
+     * Клиент применяет дельты состояния; иначе ему каждый раз нужен полный GAME_STATE
+     */
+    public boolean isStateDeltas() {
+        return stateDeltas;
     }
     
     public String getPlayerName() {
@@ -86,18 +454,24 @@ public class ClientHandler implements Runnable {
         return isReady;
     }
     
-    public void setReady(boolean ready) {
+    /**
+     * Меняет только флаг; счетчик готовых ведет комната ({@link GameRoom#setPlayerReady})
+     */
+    void setReady(boolean ready) {
         this.isReady = ready;
     }
     
-    private void closeConnection() {
-        try {
-            server.removeClient(this);
-            if (in != null) in.close();
-            if (out != null) out.close();
-            if (clientSocket != null) clientSocket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    @Override
+    public void onClose() {
+        StreamCompressor compressor = connection.getCompressor();
+        if (compressor != null) {
+            System.out.println("Сжатие потока " + (playerName != null ? playerName : "?") + " ("
+                    + connection.getRemoteAddress() + "): " + compressor.describe());
+        }
+        stopSpectating();
+        if (udpToken != 0) {
+            server.getUdpChannel().unregister(udpToken);
         }
+        server.removeClient(this);
     }
 } 
\ No newline at end of file
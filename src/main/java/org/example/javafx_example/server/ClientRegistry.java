@@ -0,0 +1,74 @@
+package org.example.javafx_example.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр подключенных клиентов сервера.
+ * Имена занимаются атомарно (два клиента не получат одно имя, даже если представились одновременно),
+ * поиск по имени - по хеш-индексу. Для обхода всех клиентов реестр отдает снимок-массив:
+ * он пересобирается только при первом обходе после подключения или отключения, а не на каждый обход,
+ * поэтому тысячи подключений не копируют список друг за другом.
+ */
+public class ClientRegistry {
+    private final Set<ClientHandler> clients = ConcurrentHashMap.newKeySet();
+    private final Map<String, ClientHandler> byName = new ConcurrentHashMap<>();
+    private volatile ClientHandler[] snapshot = new ClientHandler[0];
+    private volatile boolean snapshotStale = false;
+    
+    public void add(ClientHandler client) {
+        clients.add(client);
+        snapshotStale = true;
+    }
+    
+    /**
+     * Убирает клиента и освобождает его имя
+     */
+    public void remove(ClientHandler client) {
+        if (!clients.remove(client)) return;
+        String name = client.getPlayerName();
+        if (name != null) {
+            byName.remove(name, client);
+        }
+        snapshotStale = true;
+    }
+    
+    /**
+     * Занимает имя за клиентом. Возвращает false, если имя уже занято.
+     */
+    public boolean claimName(String name, ClientHandler client) {
+        return byName.putIfAbsent(name, client) == null;
+    }
+    
+    public boolean isNameTaken(String name) {
+        return byName.containsKey(name);
+    }
+    
+    public ClientHandler get(String name) {
+        return byName.get(name);
+    }
+    
+    public int size() {
+        return clients.size();
+    }
+    
+    /**
+     * Все клиенты на момент вызова. Список нельзя менять; подключения после вызова в него не попадут.
+     */
+    public List<ClientHandler> snapshot() {
+        if (snapshotStale) {
+            synchronized (this) {
+                if (snapshotStale) {
+                    // Сбрасываем флаг до копирования: изменение во время копирования снова его поднимет
+                    snapshotStale = false;
+                    snapshot = clients.toArray(new ClientHandler[0]);
+                }
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(snapshot));
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,267 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.protocol.TargetMotion;
+
+import java.util.Arrays;
+
+/**
+ * Хранилище игровых сущностей в виде структуры массивов.
+ * Стрелы и мишени лежат в примитивных массивах, слоты стрел переиспользуются через стек свободных индексов,
+ * поэтому во время игры ни выстрел, ни тик ничего не выделяют в куче (массивы растут только при новом максимуме).
+ * Движение задано в замкнутой форме: стрела хранит точку и тик вылета, мишень - параметры треугольной волны
+ * ({@link TargetMotion}), так что позицию любой сущности можно получить для произвольного тика.
+ * Все методы вызываются из потока игрового цикла.
+ */
+public class EntityStore {
+    private static final int INITIAL_ARROW_CAPACITY = 64;
+    private static final int INITIAL_TARGET_CAPACITY = 4;
+    
+    // Стрелы
+    private double[] arrowX0;
+    private double[] arrowY;
+    private double[] arrowVx;
+    private long[] arrowSpawnTick;
+    private long[] arrowResolveTick;
+    private int[] arrowHitTarget;
+    private int[] arrowOwner;
+    private int[] arrowId;
+    private boolean[] arrowAlive;
+    private int[] freeArrowSlots;
+    private int freeArrowCount = 0;
+    private int arrowSlotsUsed = 0;
+    private int liveArrowCount = 0;
+    private int nextArrowId = 1;
+    
+    // Мишени
+    private double[] targetX;
+    private double[] targetRadius;
+    private double[] targetMinY;
+    private double[] targetMaxY;
+    private double[] targetStartY;
+    private double[] targetVelocity;
+    private int[] targetPoints;
+    private boolean[] targetAlive;
+    private int targetCount = 0;
+    
+    public EntityStore() {
+        allocateArrows(INITIAL_ARROW_CAPACITY);
+        allocateTargets(INITIAL_TARGET_CAPACITY);
+    }
+    
+    // ---- Стрелы ----
+    
+    /**
+     * Занимает слот под новую стрелу, вылетающую из точки (x, y) на тике spawnTick, и возвращает его индекс
+     */
+    public int spawnArrow(int owner, double x, double y, double vx, long spawnTick) {
+        int slot;
+        if (freeArrowCount > 0) {
+            slot = freeArrowSlots[--freeArrowCount];
+        } else {
+            if (arrowSlotsUsed == arrowX0.length) {
+                allocateArrows(arrowX0.length * 2);
+            }
+            slot = arrowSlotsUsed++;
+        }
+        
+        arrowX0[slot] = x;
+        arrowY[slot] = y;
+        arrowVx[slot] = vx;
+        arrowSpawnTick[slot] = spawnTick;
+        arrowResolveTick[slot] = Long.MAX_VALUE;
+        arrowHitTarget[slot] = -1;
+        arrowOwner[slot] = owner;
+        arrowId[slot] = nextArrowId++;
+        arrowAlive[slot] = true;
+        liveArrowCount++;
+        return slot;
+    }
+    
+    /**
+     * Освобождает слот стрелы для повторного использования
+     */
+    public void releaseArrow(int slot) {
+        if (!arrowAlive[slot]) return;
+        arrowAlive[slot] = false;
+        freeArrowSlots[freeArrowCount++] = slot;
+        liveArrowCount--;
+    }
+    
+    public void clearArrows() {
+        Arrays.fill(arrowAlive, 0, arrowSlotsUsed, false);
+        freeArrowCount = 0;
+        arrowSlotsUsed = 0;
+        liveArrowCount = 0;
+    }
+    
+    /**
+     * Запоминает исход полета: тик попадания или промаха и индекс мишени (-1 для промаха)
+     */
+    public void setArrowResolution(int slot, long tick, int target) {
+        arrowResolveTick[slot] = tick;
+        arrowHitTarget[slot] = target;
+    }
+    
+    /**
+     * Верхняя граница индексов слотов стрел: живые стрелы ищутся в диапазоне [0, arrowSlotsUsed)
+     */
+    public int getArrowSlotsUsed() {
+        return arrowSlotsUsed;
+    }
+    
+    public int getLiveArrowCount() {
+        return liveArrowCount;
+    }
+    
+    public boolean isArrowAlive(int slot) {
+        return arrowAlive[slot];
+    }
+    
+    /**
+     * Координата X стрелы на тике tick
+     */
+    public double getArrowXAt(int slot, long tick) {
+        return arrowX0[slot] + arrowVx[slot] * (tick - arrowSpawnTick[slot]);
+    }
+    
+    public double getArrowX0(int slot) {
+        return arrowX0[slot];
+    }
+    
+    public double getArrowY(int slot) {
+        return arrowY[slot];
+    }
+    
+    public double getArrowVx(int slot) {
+        return arrowVx[slot];
+    }
+    
+    public long getArrowSpawnTick(int slot) {
+        return arrowSpawnTick[slot];
+    }
+    
+    public long getArrowResolveTick(int slot) {
+        return arrowResolveTick[slot];
+    }
+    
+    public int getArrowHitTarget(int slot) {
+        return arrowHitTarget[slot];
+    }
+    
+    public int getArrowOwner(int slot) {
+        return arrowOwner[slot];
+    }
+    
+    public int getArrowId(int slot) {
+        return arrowId[slot];
+    }
+    
+    // ---- Мишени ----
+    
+    /**
+     * Добавляет мишень, движущуюся вертикально между minY и maxY, и возвращает ее индекс.
+     * Знак speed задает начальное направление (плюс - вниз).
+     */
+    public int addTarget(double x, double startY, double radius, double minY, double maxY, double speed, int points) {
+        if (targetCount == targetX.length) {
+            allocateTargets(targetX.length * 2);
+        }
+        int index = targetCount++;
+        targetX[index] = x;
+        targetRadius[index] = radius;
+        targetMinY[index] = minY;
+        targetMaxY[index] = maxY;
+        targetStartY[index] = startY;
+        targetVelocity[index] = speed;
+        targetPoints[index] = points;
+        targetAlive[index] = true;
+        return index;
+    }
+    
+    /**
+     * Возвращает все мишени в игру (позиции считаются от нулевого тика, сбрасывать их не нужно)
+     */
+    public void resetTargets() {
+        Arrays.fill(targetAlive, 0, targetCount, true);
+    }
+    
+    public int getTargetCount() {
+        return targetCount;
+    }
+    
+    public boolean isTargetAlive(int index) {
+        return targetAlive[index];
+    }
+    
+    public double getTargetX(int index) {
+        return targetX[index];
+    }
+    
+    /**
+     * Координата Y мишени на тике tick
+     */
+    public double getTargetYAt(int index, double tick) {
+        return TargetMotion.positionAt(targetStartY[index], targetVelocity[index],
+                targetMinY[index], targetMaxY[index], tick);
+    }
+    
+    /**
+     * Скорость мишени (со знаком) на тике tick
+     */
+    public double getTargetVelocityAt(int index, double tick) {
+        return TargetMotion.velocityAt(targetStartY[index], targetVelocity[index],
+                targetMinY[index], targetMaxY[index], tick);
+    }
+    
+    public double getTargetStartY(int index) {
+        return targetStartY[index];
+    }
+    
+    public double getTargetVelocity(int index) {
+        return targetVelocity[index];
+    }
+    
+    public double getTargetMinY(int index) {
+        return targetMinY[index];
+    }
+    
+    public double getTargetMaxY(int index) {
+        return targetMaxY[index];
+    }
+    
+    public double getTargetRadius(int index) {
+        return targetRadius[index];
+    }
+    
+    public int getTargetPoints(int index) {
+        return targetPoints[index];
+    }
+    
+    private void allocateArrows(int capacity) {
+        arrowX0 = grow(arrowX0, capacity);
+        arrowY = grow(arrowY, capacity);
+        arrowVx = grow(arrowVx, capacity);
+        arrowSpawnTick = arrowSpawnTick == null ? new long[capacity] : Arrays.copyOf(arrowSpawnTick, capacity);
+        arrowResolveTick = arrowResolveTick == null ? new long[capacity] : Arrays.copyOf(arrowResolveTick, capacity);
+        arrowHitTarget = arrowHitTarget == null ? new int[capacity] : Arrays.copyOf(arrowHitTarget, capacity);
+        arrowOwner = arrowOwner == null ? new int[capacity] : Arrays.copyOf(arrowOwner, capacity);
+        arrowId = arrowId == null ? new int[capacity] : Arrays.copyOf(arrowId, capacity);
+        arrowAlive = arrowAlive == null ? new boolean[capacity] : Arrays.copyOf(arrowAlive, capacity);
+        freeArrowSlots = freeArrowSlots == null ? new int[capacity] : Arrays.copyOf(freeArrowSlots, capacity);
+    }
+    
+    private void allocateTargets(int capacity) {
+        targetX = grow(targetX, capacity);
+        targetRadius = grow(targetRadius, capacity);
+        targetMinY = grow(targetMinY, capacity);
+        targetMaxY = grow(targetMaxY, capacity);
+        targetStartY = grow(targetStartY, capacity);
+        targetVelocity = grow(targetVelocity, capacity);
+        targetPoints = targetPoints == null ? new int[capacity] : Arrays.copyOf(targetPoints, capacity);
+        targetAlive = targetAlive == null ? new boolean[capacity] : Arrays.copyOf(targetAlive, capacity);
+    }
+    
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,104 @@
+package org.example.javafx_example.server;
+
+import java.util.Arrays;
+
+/**
+ * Очередь отложенных событий по номеру тика (двоичная куча на примитивных массивах).
+ * Событие - это пара (слот стрелы, ID стрелы): ID нужен, чтобы отбросить событие,
+ * если слот уже освобожден и занят другой стрелой. Вставка и извлечение не выделяют памяти.
+ */
+public class EventQueue {
+    private long[] ticks;
+    private int[] slots;
+    private int[] ids;
+    private int size = 0;
+    
+    public EventQueue(int initialCapacity) {
+        ticks = new long[initialCapacity];
+        slots = new int[initialCapacity];
+        ids = new int[initialCapacity];
+    }
+    
+    public void schedule(long tick, int slot, int id) {
+        if (size == ticks.length) {
+            int capacity = ticks.length * 2;
+            ticks = Arrays.copyOf(ticks, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        
+        // Просеиваем новый элемент вверх
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (ticks[parent] <= tick) break;
+            move(parent, i);
+            i = parent;
+        }
+        ticks[i] = tick;
+        slots[i] = slot;
+        ids[i] = id;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Тик ближайшего события (Long.MAX_VALUE, если очередь пуста)
+     */
+    public long peekTick() {
+        return size == 0 ? Long.MAX_VALUE : ticks[0];
+    }
+    
+    public int peekSlot() {
+        return slots[0];
+    }
+    
+    public int peekId() {
+        return ids[0];
+    }
+    
+    /**
+     * Удаляет ближайшее событие
+     */
+    public void pop() {
+        if (size == 0) return;
+        size--;
+        if (size == 0) return;
+        
+        long tick = ticks[size];
+        int slot = slots[size];
+        int id = ids[size];
+        
+        // Просеиваем последний элемент вниз от корня
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && ticks[child + 1] < ticks[child]) {
+                child++;
+            }
+            if (ticks[child] >= tick) break;
+            move(child, i);
+            i = child;
+        }
+        ticks[i] = tick;
+        slots[i] = slot;
+        ids[i] = id;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    private void move(int from, int to) {
+        ticks[to] = ticks[from];
+        slots[to] = slots[from];
+        ids[to] = ids[from];
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,51 @@
+package org.example.javafx_example.server;
+
+/**
+ * Кодировщик кадра рассылки комнаты для одного протокола (текстового или двоичного).
+ * Игра передает события типизированными вызовами, кодировщик копит их в буфере,
+ * а в конце тика кадр один раз превращается в байты и пишется всем клиентам этого протокола.
+ * Используется только из потока игрового цикла комнаты.
+ */
+public interface FrameEncoder {
+    
+    /**
+     * Опорный кадр или дельта состояния игры
+     */
+    void state(StateUpdate update);
+    
+    /**
+     * Игрок выстрелил: в тике tick стрела появилась в точке x, y и летит со скоростью vx пикселей за тик.
+     * По этим данным клиент сам ведет стрелу до попадания или промаха
+     */
+    void arrow(int slot, String playerName, double x, double y, double vx, int arrowId, long tick);
+    
+    /**
+     * Позиция стрелы в тике tick: по тикам клиент расставляет позиции на своей шкале времени.
+     * Нужна только клиентам, которые не ведут стрелы сами
+     */
+    void arrowPosition(int slot, String playerName, double x, double y, int arrowId, long tick);
+    
+    /**
+     * Стрела попала в мишень targetNum (нумерация с 1) в точке x, y в тике tick
+     */
+    void hit(int slot, String playerName, int targetNum, double x, double y, int arrowId, long tick);
+    
+    /**
+     * Стрела улетела за поле в тике tick
+     */
+    void miss(int slot, String playerName, int arrowId, long tick);
+    
+    /**
+     * Любое другое сообщение протокола в текстовом виде
+     */
+    void text(String message);
+    
+    boolean isEmpty();
+    
+    int getMessageCount();
+    
+    /**
+     * Кодирует накопленные сообщения в байты и очищает кадр
+     */
+    byte[] drain();
+} 
\ No newline at end of file
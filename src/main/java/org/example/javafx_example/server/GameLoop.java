@@ -0,0 +1,203 @@
+package org.example.javafx_example.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Игровой цикл с фиксированным шагом для одной игры.
+ * Все мишени и стрелы продвигаются за один проход в одном потоке,
+ * время следующего тика отсчитывается от расписания, а не от конца предыдущего sleep,
+ * поэтому погрешности не накапливаются. Пока цикл неактивен (игра не идет или на паузе),
+ * поток полностью спит и не просыпается до вызова {@link #setActive(boolean)} или новой команды.
+ * Команды ({@link #submit(Runnable)}) выполняются в потоке цикла перед очередным тиком,
+ * поэтому состояние игры меняет только этот поток.
+ */
+public class GameLoop {
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+    
+    // Если отстали больше чем на столько тиков, не догоняем, а начинаем расписание заново
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Runnable tickAction;
+    private final String name;
+    private final Object lock = new Object();
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private Thread thread;
+    private volatile boolean active = false;
+    private volatile boolean stopped = false;
+    
+    // Статистика цикла
+    private volatile long tickCount = 0;
+    private volatile long overrunCount = 0;
+    private volatile double measuredTickRate = 0.0;
+    private long rateWindowStart;
+    private long rateWindowTicks;
+    
+    public GameLoop(String name, Runnable tickAction) {
+        this.name = name;
+        this.tickAction = tickAction;
+    }
+    
+    /**
+     * Запускает поток цикла (если он еще не запущен). Сам по себе не активирует тики.
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Включает или выключает выполнение тиков. Выключенный цикл спит без таймаута.
+     */
+    public void setActive(boolean active) {
+        synchronized (lock) {
+            this.active = active;
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Ставит команду в очередь потока цикла. Спящий цикл просыпается, выполняет команды и снова засыпает.
+     */
+    public void submit(Runnable command) {
+        commands.add(command);
+        if (!active) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Выполняется ли текущий код в потоке этого цикла
+     */
+    public boolean isLoopThread() {
+        return Thread.currentThread() == thread;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void stop() {
+        stopped = true;
+        setActive(false);
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+    
+    private void run() {
+        long nextTick = System.nanoTime();
+        resetRateWindow(nextTick);
+        
+        while (!stopped) {
+            runCommands();
+            
+            if (!active) {
+                measuredTickRate = 0.0;
+                if (!awaitWork()) break;
+                // После простоя начинаем расписание с текущего момента, без догоняющих тиков
+                nextTick = System.nanoTime();
+                resetRateWindow(nextTick);
+                continue;
+            }
+            
+            try {
+                tickAction.run();
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка в игровом цикле " + name + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+            tickCount++;
+            rateWindowTicks++;
+            
+            nextTick += TICK_NANOS;
+            long now = System.nanoTime();
+            long lag = now - nextTick;
+            if (lag > 0) {
+                // Тик не уложился в свой интервал
+                overrunCount++;
+                if (lag > MAX_CATCH_UP_TICKS * TICK_NANOS) {
+                    nextTick = now;
+                }
+            } else {
+                sleepUntil(nextTick);
+            }
+            
+            updateTickRate(System.nanoTime());
+        }
+    }
+    
+    private void runCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка при выполнении команды в игровом цикле " + name + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    private boolean awaitWork() {
+        synchronized (lock) {
+            while (!active && commands.isEmpty() && !stopped) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    if (stopped) return false;
+                }
+            }
+        }
+        return !stopped;
+    }
+    
+    private void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !stopped) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+    
+    private void resetRateWindow(long now) {
+        rateWindowStart = now;
+        rateWindowTicks = 0;
+    }
+    
+    private void updateTickRate(long now) {
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            measuredTickRate = rateWindowTicks * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            resetRateWindow(now);
+        }
+    }
+    
+    public long getTickCount() {
+        return tickCount;
+    }
+    
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+    
+    /**
+     * Фактическая частота тиков за последнюю секунду работы (0, если цикл спит)
+     */
+    public double getMeasuredTickRate() {
+        return measuredTickRate;
+    }
+    
+    public String getStatsAsString() {
+        return String.format("тиков: %d, частота: %.1f/с, перегрузок: %d",
+                tickCount, measuredTickRate, overrunCount);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,636 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.protocol.DatagramProtocol;
+import org.example.javafx_example.server.net.UdpChannel;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Игровая комната: одна партия на 2-4 игрока со своим экземпляром ServerGame.
+ * Все рассылки игры ограничены участниками комнаты.
+ */
+public class GameRoom {
+    // Сколько раз в секунду клиентам уходят состояние и позиции стрел; симуляция при этом идет
+    // с частотой игрового цикла, а клиент плавно рисует движение между состояниями.
+    // События (выстрелы, попадания, текст) уходят в ближайшем тике независимо от этой частоты
+    public static final int SEND_RATE = Math.max(1, Math.min(GameLoop.TICKS_PER_SECOND,
+            Integer.getInteger("server.sendRate", 20)));
+    public static final int SNAPSHOT_INTERVAL_TICKS = Math.max(1, Math.round((float) GameLoop.TICKS_PER_SECOND / SEND_RATE));
+    // Опорный кадр по UDP не реже чем раз в столько состояний (полсекунды игры): замена потерянному
+    private static final int UDP_REFRESH_STATES = Math.max(1, SEND_RATE / 2);
+    // Каталог записей матчей (см. ReplayRecorder); пустая строка - матчи не записываются
+    private static final String REPLAY_DIR = System.getProperty("server.replayDir", "replays");
+    
+    private final String id;
+    private final String name;
+    private final GameServer server;
+    private final ServerGame game;
+    // Поток состояний комнаты: опорные кадры и дельты
+    private final StateDeltaEncoder stateEncoder = new StateDeltaEncoder();
+    // Сообщения текущего тика для каждого протокола; принадлежат потоку игрового цикла.
+    // События (выстрелы, попадания, текст) доставляются всегда, позиции стрел и состояние
+    // идут отдельным кадром, который у отстающего клиента вытесняется следующим
+    private final TextFrameEncoder textFrame = new TextFrameEncoder();
+    private final BinaryFrameEncoder binaryFrame = new BinaryFrameEncoder();
+    private final TextFrameEncoder textLatest = new TextFrameEncoder();
+    private final BinaryFrameEncoder binaryLatest = new BinaryFrameEncoder();
+    // Текстовым клиентам без дельт (прежним): позиции стрел и каждое состояние полным GAME_STATE
+    private final TextFrameEncoder textFullLatest = new TextFrameEncoder();
+    // Клиентам с UDP-каналом состояние идет опорными кадрами (дельты по UDP терялись бы),
+    // позиции стрел - датаграммами вместе с ними
+    private final BinaryFrameEncoder udpState = new BinaryFrameEncoder();
+    private final BinaryFrameEncoder udpArrows = new BinaryFrameEncoder();
+    private int udpMembers = 0;
+    private int fullTextMembers = 0;
+    // Сколько участников и зрителей каждого канала ждут позиции стрел (не прислали LOCAL_ARROWS);
+    // пересчитываются в начале кадра вместе с udpMembers
+    private int textArrowMembers = 0;
+    private int fullTextArrowMembers = 0;
+    private int binaryArrowMembers = 0;
+    private int udpArrowMembers = 0;
+    private int statesSinceUdpKeyframe = 0;
+    private boolean stateDirty = false;
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong frameMessages = new AtomicLong();
+    private final AtomicLong textFrameBytes = new AtomicLong();
+    private final AtomicLong binaryFrameBytes = new AtomicLong();
+    private final AtomicLong udpBytes = new AtomicLong();
+    private final AtomicLong stateResyncs = new AtomicLong();
+    private final List<ClientHandler> members = new CopyOnWriteArrayList<>();
+    // Сколько участников на каждом протоколе: кадр протокола без получателей не кодируется
+    private volatile int textMembers = 0;
+    private volatile int binaryMembers = 0;
+    // Зрители: кадры им раздает лента в потоке пула. Зрители и счетчики ниже принадлежат потоку игрового цикла:
+    // для каждого зрителя - нужны ли ему позиции стрел (не прислал LOCAL_ARROWS до входа)
+    private final SpectatorFeed spectators;
+    private final Map<ClientHandler, Boolean> spectatorPositions = new HashMap<>();
+    private int textSpectators = 0;
+    private int binarySpectators = 0;
+    private int textArrowSpectators = 0;
+    private int binaryArrowSpectators = 0;
+    // Запись текущего матча; получает кадры BIN1, как еще один двоичный получатель.
+    // Меняется в потоке игрового цикла, close() завершает запись из любого потока
+    private volatile ReplayRecorder recorder;
+    private boolean recordingEnds = false;
+    private final AtomicLong replaysRecorded = new AtomicLong();
+    private final AtomicLong replayBytes = new AtomicLong();
+    // Сколько участников отметили готовность; меняется под блокировкой комнаты вместе с флагами клиентов
+    private int readyCount = 0;
+    private volatile boolean gameEnded = false;
+    private volatile boolean closed = false;
+    
+    public GameRoom(String id, String name, GameServer server, ArenaDefinition arena) {
+        this.id = id;
+        this.name = name;
+        this.server = server;
+        this.game = new ServerGame(this, arena);
+        this.spectators = new SpectatorFeed(this, server.getTaskPool());
+    }
+    
+    /**
+     * Добавляет клиента в комнату. Возвращает false, если мест нет или комната уже закрыта.
+     */
+    public synchronized boolean join(ClientHandler client) {
+        if (closed || members.size() >= ServerGame.MAX_PLAYERS) {
+            return false;
+        }
+        client.setReady(false);
+        members.add(client);
+        if (client.isBinaryProtocol()) {
+            binaryMembers++;
+        } else {
+            textMembers++;
+        }
+        // Новому игроку нужна раскладка мишеней до первого состояния игры
+        client.sendMessage(game.getArena().toMessage());
+        // Новому игроку нужен полный кадр, дельты к чужой базе ему не подходят
+        stateEncoder.requestKeyframe();
+        // Игра добавит игрока в своем цикле и сама разошлет новое состояние
+        game.addPlayer(client.getPlayerName());
+        return true;
+    }
+    
+    /**
+     * Убирает клиента из комнаты. Возвращает true, если комната после этого опустела.
+     */
+    public synchronized boolean leave(ClientHandler client) {
+        if (!members.remove(client)) {
+            return members.isEmpty();
+        }
+        if (client.isBinaryProtocol()) {
+            binaryMembers--;
+        } else {
+            textMembers--;
+        }
+        if (client.isReady()) {
+            client.setReady(false);
+            readyCount--;
+        }
+        game.removePlayer(client.getPlayerName());
+        
+        if (members.isEmpty()) {
+            return true;
+        }
+        
+        // Если игра закончилась и все оставшиеся игроки отметили готовность, начинаем новую игру
+        if (gameEnded) {
+            checkAllPlayersReady();
+        }
+        return false;
+    }
+    
+    /**
+     * Останавливает игровой цикл комнаты. После закрытия в комнату нельзя войти.
+     */
+    public synchronized void close() {
+        closed = true;
+        game.getLoop().stop();
+        spectators.close();
+        ReplayRecorder current = recorder;
+        if (current != null) {
+            recorder = null;
+            current.finish();
+        }
+    }
+    
+    /**
+     * Начинает запись матча: ее первым состоянием будет опорный кадр. Вызывается из потока игрового цикла при старте игры.
+     */
+    public void startRecording() {
+        if (REPLAY_DIR.isEmpty() || closed) return;
+        ReplayRecorder previous = recorder;
+        if (previous != null) {
+            previous.finish();
+        }
+        ReplayRecorder current = new ReplayRecorder(new File(REPLAY_DIR), id, server.getTaskPool(), replayBytes);
+        current.start(game.getArena().toMessage(), GameLoop.TICKS_PER_SECOND, SEND_RATE);
+        recorder = current;
+        recordingEnds = false;
+        replaysRecorded.incrementAndGet();
+        stateEncoder.requestKeyframe();
+    }
+    
+    /**
+     * Заканчивает запись матча после кадра текущего тика (в нем GAME_OVER). Вызывается из потока игрового цикла.
+     */
+    public void stopRecording() {
+        if (recorder != null) {
+            recordingEnds = true;
+        }
+    }
+    
+    /**
+     * Подключает зрителя: он получает кадры комнаты с опорного кадра текущей базы, но в игре не участвует.
+     * Возвращает false, если комната уже закрыта.
+     */
+    public boolean addSpectator(ClientHandler client) {
+        if (closed) return false;
+        game.submit(() -> {
+            if (closed || spectatorPositions.containsKey(client)) return;
+            boolean positions = !client.isLocalArrows();
+            spectatorPositions.put(client, positions);
+            countSpectator(client.isBinaryProtocol(), positions, 1);
+            spectators.add(client, game.getArena().toMessage(), stateEncoder.hasBase() ? encodeResync() : null);
+        });
+        return true;
+    }
+    
+    public void removeSpectator(ClientHandler client) {
+        game.submit(() -> {
+            Boolean positions = spectatorPositions.remove(client);
+            if (positions == null) return;
+            countSpectator(client.isBinaryProtocol(), positions, -1);
+            spectators.remove(client);
+        });
+    }
+    
+    private void countSpectator(boolean binary, boolean positions, int delta) {
+        if (binary) {
+            binarySpectators += delta;
+            if (positions) binaryArrowSpectators += delta;
+        } else {
+            textSpectators += delta;
+            if (positions) textArrowSpectators += delta;
+        }
+    }
+    
+    /**
+     * Зритель просит опорный кадр (STATE_RESYNC)
+     */
+    public void requestSpectatorResync(ClientHandler client) {
+        spectators.requestResync(client);
+    }
+    
+    /**
+     * Готовит опорный кадр текущей базы для зрителя, потерявшего дельту или попросившего его
+     */
+    void resyncSpectator(ClientHandler client) {
+        game.submit(() -> {
+            if (!spectatorPositions.containsKey(client)) return;
+            spectators.sendKeyframe(client, stateEncoder.hasBase() ? encodeResync() : null);
+        });
+    }
+    
+    /**
+     * Добавляет текстовое сообщение в кадр рассылки текущего тика. Из других потоков сообщение
+     * передается игровому циклу, который отправит его ближайшим кадром.
+     */
+    public void broadcast(String message) {
+        if (game.getLoop().isLoopThread()) {
+            if (hasTextRecipients()) textFrame.text(message);
+            if (hasBinaryRecipients()) binaryFrame.text(message);
+        } else {
+            game.submit(() -> broadcast(message));
+        }
+    }
+    
+    // Игровые события: только из потока игрового цикла, каждый протокол кодирует их по-своему
+    
+    private boolean hasTextRecipients() {
+        return textMembers + textSpectators > 0;
+    }
+    
+    private boolean hasBinaryRecipients() {
+        return binaryMembers + binarySpectators > 0 || recorder != null;
+    }
+    
+    public void broadcastArrow(int slot, String playerName, double x, double y, double vx, int arrowId, long tick) {
+        if (hasTextRecipients()) textFrame.arrow(slot, playerName, x, y, vx, arrowId, tick);
+        if (hasBinaryRecipients()) binaryFrame.arrow(slot, playerName, x, y, vx, arrowId, tick);
+    }
+    
+    /**
+     * Есть ли в комнате клиенты, которые рисуют стрелы по их позициям, а не ведут сами
+     */
+    public boolean needsArrowPositions() {
+        return textArrowMembers + fullTextArrowMembers + binaryArrowMembers + udpArrowMembers > 0;
+    }
+    
+    public void broadcastArrowPosition(int slot, String playerName, double x, double y, int arrowId, long tick) {
+        if (textArrowMembers > 0) textLatest.arrowPosition(slot, playerName, x, y, arrowId, tick);
+        if (fullTextArrowMembers > 0) textFullLatest.arrowPosition(slot, playerName, x, y, arrowId, tick);
+        if (binaryArrowMembers > 0) binaryLatest.arrowPosition(slot, playerName, x, y, arrowId, tick);
+        if (udpArrowMembers > 0) udpArrows.arrowPosition(slot, playerName, x, y, arrowId, tick);
+    }
+    
+    public void broadcastHit(int slot, String playerName, int targetNum, double x, double y, int arrowId, long tick) {
+        if (hasTextRecipients()) textFrame.hit(slot, playerName, targetNum, x, y, arrowId, tick);
+        if (hasBinaryRecipients()) binaryFrame.hit(slot, playerName, targetNum, x, y, arrowId, tick);
+    }
+    
+    public void broadcastMiss(int slot, String playerName, int arrowId, long tick) {
+        if (hasTextRecipients()) textFrame.miss(slot, playerName, arrowId, tick);
+        if (hasBinaryRecipients()) binaryFrame.miss(slot, playerName, arrowId, tick);
+    }
+    
+    /**
+     * Уходят ли в этом тике состояние и позиции стрел (раз в {@link #SNAPSHOT_INTERVAL_TICKS} тиков)
+     */
+    public static boolean isSnapshotTick(long tick) {
+        return tick % SNAPSHOT_INTERVAL_TICKS == 0;
+    }
+    
+    /**
+     * Отмечает, что в кадр нужно добавить состояние игры. Сколько бы раз между рассылками состояние
+     * ни менялось, клиентам уйдет один опорный кадр или дельта с последним снимком.
+     * Вызывается только из потока игрового цикла комнаты.
+     */
+    public void broadcastGameState() {
+        stateDirty = true;
+    }
+    
+    /**
+     * Кодирует кадры каждого протокола один раз и ставит их в очереди участников этого протокола:
+     * сначала события тика, затем позиции стрел и состояние. Участникам с UDP-каналом события идут по TCP,
+     * а состояние и позиции стрел - датаграммами. Состояние добавляется, только если snapshot:
+     * в остальные тики уходят одни события. Вызывается только из потока игрового цикла комнаты.
+     */
+    public void flushFrame(boolean snapshot) {
+        countMembers();
+        
+        boolean keyframe = false;
+        StateUpdate update = null;
+        if (stateDirty && snapshot) {
+            stateDirty = false;
+            update = stateEncoder.encode(game.getSnapshot());
+            keyframe = update.isKeyframe();
+            if (textMembers - fullTextMembers + textSpectators > 0) textLatest.state(update);
+            if (binaryMembers + binarySpectators > udpMembers || recorder != null) binaryLatest.state(update);
+            // Только что отправленное состояние целиком: база кодировщика теперь равна ему
+            if (fullTextMembers > 0) textFullLatest.state(stateEncoder.baseKeyframe());
+        }
+        
+        byte[] textBytes = drain(textFrame, textFrameBytes);
+        byte[] binaryBytes = drain(binaryFrame, binaryFrameBytes);
+        byte[] textLatestBytes = drain(textLatest, textFrameBytes);
+        byte[] binaryLatestBytes = drain(binaryLatest, binaryFrameBytes);
+        byte[] textFullBytes = drain(textFullLatest, textFrameBytes);
+        
+        // Клиентам UDP-канала: изменения игры и счета - опорным кадром по TCP, движение мишеней - по UDP
+        byte[] udpReliable = null;
+        byte[] udpStateBytes = null;
+        if (udpMembers > 0 && update != null) {
+            if (update.hasControlChanges()) {
+                udpReliable = encodeUdpKeyframe(binaryFrameBytes);
+            } else if (update.getTargetUpdateCount() > 0 || ++statesSinceUdpKeyframe >= UDP_REFRESH_STATES) {
+                udpStateBytes = encodeUdpKeyframe(udpBytes);
+            }
+        }
+        byte[][] datagrams = buildDatagrams(udpStateBytes, drain(udpArrows, udpBytes));
+        
+        ReplayRecorder current = recorder;
+        if (current != null) {
+            if (binaryBytes != null || update != null) {
+                current.record(game.getGameTick(), binaryBytes, update != null ? binaryLatestBytes : null, keyframe);
+            }
+            if (recordingEnds) {
+                recorder = null;
+                recordingEnds = false;
+                current.finish();
+            }
+        }
+        
+        if (textBytes == null && binaryBytes == null && textLatestBytes == null && binaryLatestBytes == null
+                && textFullBytes == null && udpReliable == null && datagrams == null) return;
+        
+        if (!spectatorPositions.isEmpty()) {
+            spectators.publish(textBytes, binaryBytes, textLatestBytes, binaryLatestBytes, keyframe);
+        }
+        
+        byte[][] resync = null;
+        for (ClientHandler client : members) {
+            boolean binary = client.isBinaryProtocol();
+            byte[] events = binary ? binaryBytes : textBytes;
+            if (events != null) {
+                client.sendFrame(events);
+            }
+            if (client.isUdpReady()) {
+                if (udpReliable != null) {
+                    client.sendLatestFrame(udpReliable, true);
+                }
+                if (datagrams != null) {
+                    for (byte[] datagram : datagrams) {
+                        client.sendDatagram(datagram);
+                    }
+                }
+                continue;
+            }
+            if (!client.isStateDeltas()) {
+                // Каждое состояние полное: вытесненному кадру замена не нужна
+                if (textFullBytes != null) {
+                    client.sendLatestFrame(textFullBytes, update != null);
+                }
+                continue;
+            }
+            byte[] latest = binary ? binaryLatestBytes : textLatestBytes;
+            if (latest != null && client.sendLatestFrame(latest, keyframe)) {
+                // В очереди отстающего клиента вытеснили дельту: вместо только что поставленной дельты
+                // он получит опорный кадр с той же базой, остальным участникам ничего не меняется
+                if (resync == null) {
+                    resync = encodeResync();
+                }
+                client.sendLatestFrame(resync[binary ? 1 : 0], true);
+                stateResyncs.incrementAndGet();
+            }
+        }
+        framesSent.incrementAndGet();
+    }
+    
+    /**
+     * Пересчитывает участников UDP-канала и получателей позиций стрел по каналам (зрители - по счетчикам)
+     */
+    private void countMembers() {
+        int udpReady = 0;
+        int fullText = 0;
+        int fullTextArrows = 0;
+        int textArrows = 0;
+        int binaryArrows = 0;
+        int udpArrows = 0;
+        for (ClientHandler client : members) {
+            boolean positions = !client.isLocalArrows();
+            if (client.isUdpReady()) {
+                udpReady++;
+                if (positions) udpArrows++;
+            } else if (!client.isStateDeltas()) {
+                fullText++;
+                if (positions) fullTextArrows++;
+            } else if (positions) {
+                if (client.isBinaryProtocol()) {
+                    binaryArrows++;
+                } else {
+                    textArrows++;
+                }
+            }
+        }
+        if (udpReady > udpMembers) {
+            // Новый клиент UDP-канала: первое состояние по UDP не ждет обновления
+            statesSinceUdpKeyframe = UDP_REFRESH_STATES;
+        }
+        udpMembers = udpReady;
+        fullTextMembers = fullText;
+        fullTextArrowMembers = fullTextArrows;
+        textArrowMembers = textArrows + textArrowSpectators;
+        binaryArrowMembers = binaryArrows + binaryArrowSpectators;
+        udpArrowMembers = udpArrows;
+    }
+    
+    /**
+     * Текущее состояние опорным кадром BIN1 для клиентов UDP-канала
+     */
+    private byte[] encodeUdpKeyframe(AtomicLong bytesCounter) {
+        statesSinceUdpKeyframe = 0;
+        udpState.state(stateEncoder.baseKeyframe());
+        return drain(udpState, bytesCounter);
+    }
+    
+    /**
+     * Датаграммы STATE: состояние и позиции стрел вместе, если помещаются, иначе по отдельности
+     */
+    private byte[][] buildDatagrams(byte[] state, byte[] arrows) {
+        if (state == null && arrows == null) return null;
+        UdpChannel udp = server.getUdpChannel();
+        if (udp == null) return null;
+        if (state == null || arrows == null) {
+            return new byte[][] {DatagramProtocol.stateDatagram(udp.nextSequence(), state != null ? state : arrows)};
+        }
+        if (state.length + arrows.length <= DatagramProtocol.MAX_PAYLOAD) {
+            byte[] both = new byte[state.length + arrows.length];
+            System.arraycopy(state, 0, both, 0, state.length);
+            System.arraycopy(arrows, 0, both, state.length, arrows.length);
+            return new byte[][] {DatagramProtocol.stateDatagram(udp.nextSequence(), both)};
+        }
+        return new byte[][] {
+                DatagramProtocol.stateDatagram(udp.nextSequence(), state),
+                DatagramProtocol.stateDatagram(udp.nextSequence(), arrows)
+        };
+    }
+    
+    /**
+     * Опорный кадр текущей базы в текстовом и двоичном виде
+     */
+    private byte[][] encodeResync() {
+        StateUpdate update = stateEncoder.baseKeyframe();
+        TextFrameEncoder text = new TextFrameEncoder();
+        BinaryFrameEncoder binary = new BinaryFrameEncoder();
+        text.state(update);
+        binary.state(update);
+        return new byte[][] {text.drain(), binary.drain()};
+    }
+    
+    private byte[] drain(FrameEncoder frame, AtomicLong bytesCounter) {
+        if (frame.isEmpty()) return null;
+        frameMessages.addAndGet(frame.getMessageCount());
+        byte[] bytes = frame.drain();
+        bytesCounter.addAndGet(bytes.length);
+        return bytes;
+    }
+    
+    /**
+     * Клиент потерял базу для дельт: следующее состояние уйдет всем опорным кадром
+     */
+    public void requestKeyframe() {
+        stateEncoder.requestKeyframe();
+    }
+    
+    /**
+     * Отмечает готовность участника; счетчик меняется, только если флаг действительно изменился
+     */
+    public synchronized void setPlayerReady(ClientHandler client, boolean ready) {
+        if (client.isReady() == ready || !members.contains(client)) return;
+        client.setReady(ready);
+        readyCount += ready ? 1 : -1;
+    }
+    
+    public void resetAllPlayersReady() {
+        synchronized (this) {
+            for (ClientHandler client : members) {
+                client.setReady(false);
+            }
+            readyCount = 0;
+        }
+        // Сообщаем клиентам, что их статус готовности сброшен
+        broadcast("RESET_READY");
+    }
+    
+    public synchronized void checkAllPlayersReady() {
+        if (members.isEmpty()) return;
+        
+        boolean allReady = readyCount == members.size();
+        
+        // Если все готовы и игра была окончена, начинаем новую игру
+        if (allReady) {
+            gameEnded = false;
+            game.startGame();
+        } else if (gameEnded) {
+            // Если не все готовы, но игра окончена, отправляем статус ожидания
+            broadcast("WAITING_PLAYERS");
+        }
+    }
+    
+    public void setGameEnded() {
+        gameEnded = true;
+    }
+    
+    public void incrementPlayerWins(String playerName) {
+        server.incrementPlayerWins(playerName);
+    }
+    
+    /**
+     * Отправляет таблицу лидеров всем игрокам комнаты
+     */
+    public void broadcastLeaderboard() {
+        broadcast(server.getLeaderboardMessage());
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public ServerGame getGame() {
+        return game;
+    }
+    
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+    
+    public long getFrameMessages() {
+        return frameMessages.get();
+    }
+    
+    public long getTextFrameBytes() {
+        return textFrameBytes.get();
+    }
+    
+    public long getBinaryFrameBytes() {
+        return binaryFrameBytes.get();
+    }
+    
+    /**
+     * Байты сообщений, отправленных клиентам UDP-канала датаграммами (без заголовков)
+     */
+    public long getUdpBytes() {
+        return udpBytes.get();
+    }
+    
+    /**
+     * Сколько опорных кадров отправлено отдельным клиентам, потерявшим дельту в очереди отправки
+     */
+    public long getStateResyncs() {
+        return stateResyncs.get();
+    }
+    
+    public int getSpectatorCount() {
+        return spectators.getSpectatorCount();
+    }
+    
+    /**
+     * Сколько опорных кадров отправлено зрителям отдельно от общего потока
+     */
+    public long getSpectatorResyncs() {
+        return spectators.getResyncs();
+    }
+    
+    /**
+     * Сколько матчей комнаты начали записываться
+     */
+    public long getReplaysRecorded() {
+        return replaysRecorded.get();
+    }
+    
+    /**
+     * Байты, записанные в файлы матчей комнаты
+     */
+    public long getReplayBytes() {
+        return replayBytes.get();
+    }
+    
+    public StateDeltaEncoder getStateEncoder() {
+        return stateEncoder;
+    }
+    
+    public int getPlayerCount() {
+        return members.size();
+    }
+    
+    public boolean isFull() {
+        return members.size() >= ServerGame.MAX_PLAYERS;
+    }
+    
+    public boolean isGameRunning() {
+        return game.isGameRunning();
+    }
+    
+    public boolean isClosed() {
+        return closed;
+    }
+} 
\ No newline at end of file
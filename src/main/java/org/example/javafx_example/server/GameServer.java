@@ -3,253 +3,413 @@ package org.example.javafx_example.server;
 import org.example.javafx_example.server.database.HibernateUtil;
 import org.example.javafx_example.server.database.UserEntity;
 import org.example.javafx_example.server.database.UserRepository;
+import org.example.javafx_example.server.database.WinJournal;
+import org.example.javafx_example.server.http.HttpRequest;
+import org.example.javafx_example.server.http.HttpResponse;
+import org.example.javafx_example.server.http.HttpServer;
+import org.example.javafx_example.server.http.JsonWriter;
+import org.example.javafx_example.server.net.BlockingServer;
+import org.example.javafx_example.server.net.Connection;
+import org.example.javafx_example.server.net.NioServer;
+import org.example.javafx_example.server.net.StreamCompressor;
+import org.example.javafx_example.server.net.Transport;
+import org.example.javafx_example.server.net.UdpChannel;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class GameServer {
     private static final int PORT = 5555;
     private static final int HTTP_PORT = 8080;
-    private static final int MAX_PLAYERS = 4;
+    // Необязательный UDP-канал состояния (UDP_REQUEST); -Dserver.udp=false отключает его
+    private static final boolean UDP_ENABLED = Boolean.parseBoolean(System.getProperty("server.udp", "true"));
+    private static final int UDP_PORT = Integer.getInteger("server.udpPort", 5556);
+    // Транспорт игрового порта: nio (селекторы, по умолчанию) или blocking (поток на соединение)
+    private static final String IO_MODE = System.getProperty("server.io", "nio");
+    private static final int IO_THREADS = Integer.getInteger("server.ioThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    // Потоки блокирующих задач: auto/virtual (виртуальные, если JVM умеет) или platform (ограниченный пул)
+    private static final String THREAD_MODE = System.getProperty("server.threads", ServerExecutors.MODE_AUTO);
+    private static final int MAX_THREADS = Integer.getInteger("server.maxThreads", 256);
+    // Предел открытых соединений блокирующего режима, когда они работают в виртуальных потоках
+    private static final int MAX_CONNECTIONS = Integer.getInteger("server.maxConnections", 10000);
+    // Фоновые задачи (рассылка зрителям, запись повторов, запросы к базе) - отдельно от соединений
+    private static final int MAX_TASK_THREADS = Integer.getInteger("server.maxTaskThreads", 16);
+    private static final int MAX_HTTP_THREADS = Integer.getInteger("server.maxHttpThreads", 32);
+    // Предел открытых HTTP-соединений, когда они работают в виртуальных потоках
+    private static final int MAX_HTTP_CONNECTIONS = Integer.getInteger("server.maxHttpConnections", 1024);
+    // Сколько первых игроков таблицы лидеров держать в памяти и отдавать без страницы
+    private static final int LEADERBOARD_SIZE = Integer.getInteger("server.leaderboardSize", 100);
+    // Наибольшая страница GET_LEADERBOARD:offset:limit и /leaderboard?limit=
+    static final int MAX_LEADERBOARD_PAGE = Integer.getInteger("server.leaderboardMaxPage", 500);
+    // Соседей с каждой стороны в ответе GET_RANK и /rank: по умолчанию и наибольшее
+    static final int DEFAULT_RANK_NEIGHBOURS = 5;
+    static final int MAX_RANK_NEIGHBOURS = 50;
+    // Журнал побед, еще не внесенных в базу
+    private static final String WIN_JOURNAL = System.getProperty("server.winJournal", "wins.journal");
     
-    private ServerSocket serverSocket;
-    private ServerSocket httpServerSocket;
-    private List<ClientHandler> clients = new ArrayList<>();
-    private ExecutorService pool = Executors.newFixedThreadPool(MAX_PLAYERS);
-    private ServerGame game;
-    private boolean isRunning = true;
-    private boolean gameEnded = false;
+    private Transport transport;
+    private volatile UdpChannel udpChannel;
+    private HttpServer httpServer;
+    private final ClientRegistry clients = new ClientRegistry();
+    // Потоки соединений в блокирующем режиме
+    private final ExecutorService pool = ServerExecutors.create(THREAD_MODE, "client", MAX_THREADS);
+    // Фоновые задачи: соединения, занявшие все потоки pool, не останавливают зрителей, повторы и базу
+    private final ExecutorService taskPool = ServerExecutors.create(THREAD_MODE, "task", MAX_TASK_THREADS);
+    // HTTP-запросы отдельно, чтобы поток запросов не отнимал потоки у игроков
+    private final ExecutorService httpPool = ServerExecutors.create(THREAD_MODE, "http", MAX_HTTP_THREADS);
+    private Lobby lobby;
     
     // Репозиторий для работы с пользователями
     private UserRepository userRepository;
+    // Таблица лидеров в памяти: чтения не ходят в базу
+    private final LeaderboardCache leaderboard;
+    // Места всех игроков в памяти: GET_RANK и глубокие страницы без базы
+    private final RankIndex ranks = new RankIndex();
+    // Победы попадают в базу через журнал, конец игры базу не ждет
+    private final WinJournal winJournal;
     
     public GameServer() {
-        this.game = new ServerGame(this);
+        this.lobby = new Lobby(this);
         this.userRepository = new UserRepository();
         // Инициализируем Hibernate при запуске сервера
         HibernateUtil.getSessionFactory();
+        // До загрузки таблицы: победы, не дошедшие до базы до падения, вносятся сейчас
+        try {
+            this.winJournal = WinJournal.open(Paths.get(WIN_JOURNAL), userRepository);
+        } catch (IOException e) {
+            // Без журнала победы либо потеряются, либо будут посчитаны дважды
+            throw new UncheckedIOException("Журнал побед " + WIN_JOURNAL + " недоступен", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(winJournal::close, "win-journal-close"));
+        this.leaderboard = new LeaderboardCache(userRepository, LEADERBOARD_SIZE);
+        leaderboard.load();
+        System.out.println("Таблица лидеров загружена: " + leaderboard.size() + " игроков");
+        ranks.load(userRepository);
+        System.out.println("Индекс мест загружен: " + ranks.size() + " игроков");
     }
     
     public void start() {
         try {
             // Запускаем основной игровой сервер
-            serverSocket = new ServerSocket(PORT);
-            System.out.println("Игровой сервер запущен на порту " + PORT);
+            if ("blocking".equals(IO_MODE)) {
+                ExecutorService writers = ServerExecutors.create(THREAD_MODE, "writer", MAX_THREADS);
+                // Соединение в пуле обычных потоков занимает поток, пока открыто: соединений не больше, чем потоков
+                int maxConnections = ServerExecutors.isVirtual(pool) ? MAX_CONNECTIONS : MAX_THREADS;
+                transport = new BlockingServer(PORT, pool, writers, maxConnections, this::createClient);
+                System.out.println("Игровой сервер запущен на порту " + PORT + " (поток на соединение)");
+            } else {
+                transport = new NioServer(PORT, IO_THREADS, this::createClient);
+                System.out.println("Игровой сервер запущен на порту " + PORT + " (NIO, потоков ввода-вывода: " + IO_THREADS + ")");
+            }
+            transport.start();
+            if (UDP_ENABLED) {
+                startUdpChannel();
+            }
+            System.out.println(ServerExecutors.isVirtual(pool)
+                    ? "Блокирующие задачи выполняются в виртуальных потоках"
+                    : "Блокирующие задачи выполняются в пуле до " + MAX_THREADS + " потоков");
             
             // Запускаем HTTP-сервер для Android-клиентов
             startHttpServer();
             
-            while (isRunning && clients.size() < MAX_PLAYERS) {
-                System.out.println("Ожидание подключения игроков... (" + clients.size() + "/" + MAX_PLAYERS + ")");
-                Socket clientSocket = serverSocket.accept();
-                
-                ClientHandler clientHandler = new ClientHandler(clientSocket, this, game);
-                clients.add(clientHandler);
-                pool.execute(clientHandler);
-                
-                System.out.println("Новый игрок подключен! Всего игроков: " + clients.size());
-            }
-            
+            System.out.println("Ожидание подключения игроков...");
         } catch (IOException e) {
             System.err.println("Ошибка сервера: " + e.getMessage());
             shutdown();
         }
     }
     
+    private void startUdpChannel() {
+        UdpChannel udp = new UdpChannel(UDP_PORT);
+        try {
+            udp.start();
+            udpChannel = udp;
+            System.out.println("UDP-канал состояния на порту " + UDP_PORT);
+        } catch (IOException e) {
+            // Без UDP игра идет как раньше, только по TCP
+            System.err.println("UDP-канал недоступен: " + e.getMessage());
+            udp.stop();
+        }
+    }
+    
     private void startHttpServer() {
-        new Thread(() -> {
-            try {
-                httpServerSocket = new ServerSocket(HTTP_PORT);
-                System.out.println("HTTP-сервер запущен на порту " + HTTP_PORT);
-                
-                while (isRunning) {
-                    Socket clientSocket = httpServerSocket.accept();
-                    handleHttpRequest(clientSocket);
-                }
-            } catch (IOException e) {
-                System.err.println("Ошибка HTTP-сервера: " + e.getMessage());
-            }
-        }).start();
+        // Соединение в пуле обычных потоков занимает поток, пока открыто: соединений не больше, чем потоков
+        int maxConnections = ServerExecutors.isVirtual(httpPool) ? MAX_HTTP_CONNECTIONS : MAX_HTTP_THREADS;
+        httpServer = new HttpServer(HTTP_PORT, httpPool, maxConnections);
+        httpServer.route("/leaderboard", this::writeLeaderboardJson);
+        httpServer.route("/rank", this::writeRankJson);
+        httpServer.route("/metrics", (request, response) -> response.text(getMetricsAsString()));
+        try {
+            httpServer.start();
+            System.out.println("HTTP-сервер запущен на порту " + HTTP_PORT + " (соединений до " + maxConnections + ")");
+        } catch (IOException e) {
+            // Игровой сервер работает и без HTTP
+            System.err.println("Ошибка HTTP-сервера: " + e.getMessage());
+        }
     }
     
-    private void handleHttpRequest(Socket clientSocket) {
-        new Thread(() -> {
-            try {
-                BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-                
-                String request = in.readLine();
-                if (request != null && request.startsWith("GET /leaderboard")) {
-                    // Отправляем заголовки HTTP-ответа
-                    out.println("HTTP/1.1 200 OK");
-                    out.println("Content-Type: application/json");
-                    out.println("Access-Control-Allow-Origin: *");
-                    out.println();
-                    
-                    // Получаем и отправляем таблицу лидеров
-                    List<UserEntity> leaderboard = getLeaderboard();
-                    StringBuilder json = new StringBuilder("[");
-                    for (int i = 0; i < leaderboard.size(); i++) {
-                        UserEntity user = leaderboard.get(i);
-                        json.append("{\"username\":\"").append(user.getUsername())
-                            .append("\",\"wins\":").append(user.getWins()).append("}");
-                        if (i < leaderboard.size() - 1) {
-                            json.append(",");
-                        }
-                    }
-                    json.append("]");
-                    out.println(json.toString());
-                } else {
-                    // Отправляем ошибку 404
-                    out.println("HTTP/1.1 404 Not Found");
-                    out.println();
+    /**
+     * GET /leaderboard: [{"username":"...","wins":N},...] - верх таблицы.
+     * ?offset=N&limit=M - страница по позиции; ?afterWins=W&afterName=имя&limit=M - страница после
+     * последней строки предыдущей (по ключу). Обе страницы берутся из памяти, без базы.
+     */
+    private void writeLeaderboardJson(HttpRequest request, HttpResponse response) throws IOException {
+        String offsetParam = request.getParameter("offset");
+        String limitParam = request.getParameter("limit");
+        String afterWins = request.getParameter("afterWins");
+        response.contentType("application/json; charset=utf-8");
+        if (offsetParam == null && limitParam == null && afterWins == null) {
+            response.body().write(leaderboard.getJson());
+            return;
+        }
+        List<UserEntity> page;
+        try {
+            int limit = limitParam == null ? LEADERBOARD_SIZE : Integer.parseInt(limitParam);
+            if (limit < 1 || limit > MAX_LEADERBOARD_PAGE) {
+                throw new NumberFormatException("limit " + limit);
+            }
+            if (afterWins != null) {
+                String afterName = request.getParameter("afterName");
+                page = ranks.getPageAfter(Integer.parseInt(afterWins), afterName != null ? afterName : "", limit);
+            } else {
+                int offset = offsetParam == null ? 0 : Integer.parseInt(offsetParam);
+                if (offset < 0) {
+                    throw new NumberFormatException("offset " + offset);
                 }
-                
-                clientSocket.close();
-            } catch (IOException e) {
-                System.err.println("Ошибка при обработке HTTP-запроса: " + e.getMessage());
+                page = getLeaderboardPage(offset, limit);
             }
-        }).start();
+        } catch (NumberFormatException e) {
+            response.status(400, "Bad Request").contentType("text/plain; charset=utf-8")
+                    .text("offset >= 0, 1 <= limit <= " + MAX_LEADERBOARD_PAGE + ", afterWins - число\n");
+            return;
+        }
+        LeaderboardCache.writePageJson(page, new JsonWriter(response.body()));
     }
     
-    public void broadcast(String message) {
-        for (ClientHandler client : clients) {
-            client.sendMessage(message);
+    /**
+     * GET /rank?name=имя&neighbours=N: место игрока и N соседей с каждой стороны, 404 - игрок еще не побеждал
+     */
+    private void writeRankJson(HttpRequest request, HttpResponse response) throws IOException {
+        String name = request.getParameter("name");
+        String neighboursParam = request.getParameter("neighbours");
+        int neighbours;
+        try {
+            neighbours = neighboursParam == null ? DEFAULT_RANK_NEIGHBOURS : Integer.parseInt(neighboursParam);
+        } catch (NumberFormatException e) {
+            neighbours = -1;
         }
+        if (name == null || name.isEmpty() || neighbours < 0 || neighbours > MAX_RANK_NEIGHBOURS) {
+            response.status(400, "Bad Request").contentType("text/plain; charset=utf-8")
+                    .text("name - имя игрока, 0 <= neighbours <= " + MAX_RANK_NEIGHBOURS + "\n");
+            return;
+        }
+        RankIndex.Rank rank = ranks.getRank(name, neighbours);
+        if (rank.getRank() == 0) {
+            response.status(404, "Not Found");
+        }
+        response.contentType("application/json; charset=utf-8");
+        RankIndex.writeRankJson(rank, new JsonWriter(response.body()));
     }
     
-    public void broadcastGameState() {
-        String gameState = game.getGameStateAsString();
-        broadcast(gameState);
+    /**
+     * Создает сессию для нового соединения; вызывается транспортом
+     */
+    private ClientHandler createClient(Connection connection) {
+        ClientHandler clientHandler = new ClientHandler(connection, this, lobby);
+        clients.add(clientHandler);
+        System.out.println("Новый игрок подключен! Всего игроков: " + clients.size());
+        return clientHandler;
     }
     
     public void removeClient(ClientHandler client) {
+        // Сначала из комнаты, потом освобождаем имя: комнаты лобби привязаны к имени игрока
+        lobby.leaveRoom(client);
         clients.remove(client);
-        game.removePlayer(client.getPlayerName());
         System.out.println("Игрок отключен. Осталось игроков: " + clients.size());
-        
-        // Если игра закончилась и все игроки отметили готовность, начинаем новую игру
-        if (gameEnded) {
-            checkAllPlayersReady();
-        }
     }
     
-    public boolean isNameTaken(String name) {
-        for (ClientHandler client : clients) {
-            if (client.getPlayerName() != null && client.getPlayerName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Занимает имя за клиентом; false - имя уже занято
+     */
+    public boolean claimName(String name, ClientHandler client) {
+        return clients.claimName(name, client);
     }
     
-    public void resetAllPlayersReady() {
-        for (ClientHandler client : clients) {
-            client.setReady(false);
-        }
-        // Сообщаем клиентам, что их статус готовности сброшен
-        broadcast("RESET_READY");
+    public boolean isNameTaken(String name) {
+        return clients.isNameTaken(name);
     }
     
-    public void checkAllPlayersReady() {
-        if (clients.isEmpty()) return;
-        
-        boolean allReady = true;
-        
-        // Проверяем, все ли игроки готовы
-        for (ClientHandler client : clients) {
-            if (!client.isReady()) {
-                allReady = false;
-                break;
-            }
-        }
-        
-        // Если все готовы и игра была окончена, начинаем новую игру
-        if (allReady) {
-            gameEnded = false;
-            game.startGame();
-        } else if (gameEnded) {
-            // Если не все готовы, но игра окончена, отправляем статус ожидания
-            broadcast("WAITING_PLAYERS");
-        }
+    /**
+     * Пул фоновых задач: запросы к базе, раздача кадров зрителям, запись повторов
+     */
+    public ExecutorService getTaskPool() {
+        return taskPool;
     }
     
-    public void setGameEnded() {
-        gameEnded = true;
+    /**
+     * UDP-канал состояния или null, если он отключен или не открылся
+     */
+    public UdpChannel getUdpChannel() {
+        return udpChannel;
     }
     
     /**
-     * Увеличивает количество побед для указанного игрока
+     * Увеличивает количество побед для указанного игрока. Не блокирует: победа сразу видна
+     * в таблице лидеров и индексе мест, а в базу попадает через журнал побед.
      */
     public void incrementPlayerWins(String playerName) {
-        try {
-            userRepository.incrementUserWins(playerName);
-            System.out.println("Игрок " + playerName + " получил победу в базе данных");
-        } catch (Exception e) {
-            System.err.println("Ошибка при обновлении побед игрока: " + e.getMessage());
-            e.printStackTrace();
-        }
+        winJournal.append(playerName);
+        int wins = ranks.addWin(playerName);
+        leaderboard.recordWin(playerName, wins);
+        System.out.println("Игрок " + playerName + " получил победу (всего " + wins + ")");
     }
     
     /**
-     * Получает таблицу лидеров из базы данных
+     * Отправляет таблицу лидеров указанному клиенту
      */
-    public List<UserEntity> getLeaderboard() {
-        return userRepository.getLeaderboard();
+    public void sendLeaderboardToClient(ClientHandler client) {
+        // Готовый кадр из памяти: база не нужна, можно прямо в потоке селектора
+        client.sendFrame(leaderboard.getFrame(client.isBinaryProtocol()));
     }
     
     /**
-     * Отправляет таблицу лидеров указанному клиенту
+     * Отправляет клиенту страницу таблицы лидеров (LEADERBOARD_PAGE:offset:имя,победы;...)
      */
-    public void sendLeaderboardToClient(ClientHandler client) {
-        List<UserEntity> leaderboard = getLeaderboard();
-        StringBuilder sb = new StringBuilder("LEADERBOARD:");
-        
-        for (UserEntity user : leaderboard) {
-            sb.append(user.getUsername()).append(",")
-              .append(user.getWins()).append(";");
+    public void sendLeaderboardPage(ClientHandler client, int offset, int limit) {
+        client.sendMessage(LeaderboardCache.pageMessage(offset, getLeaderboardPage(offset, limit)));
+    }
+    
+    /**
+     * Страница таблицы лидеров: из верха таблицы или из индекса мест, база не нужна
+     */
+    public List<UserEntity> getLeaderboardPage(int offset, int limit) {
+        List<UserEntity> page = leaderboard.getPage(offset, limit);
+        return page != null ? page : ranks.getPage(offset, limit);
+    }
+    
+    /**
+     * Отправляет клиенту место игрока name и его соседей (RANK:...)
+     */
+    public void sendRank(ClientHandler client, String name, int neighbours) {
+        client.sendMessage(RankIndex.rankMessage(ranks.getRank(name, neighbours)));
+    }
+    
+    /**
+     * Таблица лидеров в формате протокола: LEADERBOARD:имя,победы;...
+     */
+    public String getLeaderboardMessage() {
+        return leaderboard.getMessage();
+    }
+    
+    /**
+     * Сжатие по соединениям: по адресу видно регион клиента, по отношению и CPU - стоит ли сжатие включать там
+     */
+    private void appendCompressionMetrics(StringBuilder sb) {
+        for (ClientHandler client : clients.snapshot()) {
+            StreamCompressor compressor = client.getCompressor();
+            if (compressor == null) continue;
+            String label = "{client=\"" + escapeLabel(client.getPlayerName() != null ? client.getPlayerName() : "")
+                    + "\",remote=\"" + escapeLabel(String.valueOf(client.getRemoteAddress())) + "\"}";
+            sb.append("client_compression_raw_bytes_total").append(label).append(" ").append(compressor.getRawBytes()).append("\n");
+            sb.append("client_compression_bytes_total").append(label).append(" ").append(compressor.getCompressedBytes()).append("\n");
+            sb.append("client_compression_ratio").append(label).append(" ")
+              .append(String.format(Locale.ROOT, "%.2f", compressor.getRatio())).append("\n");
+            sb.append("client_compression_cpu_seconds_total").append(label).append(" ")
+              .append(String.format(Locale.ROOT, "%.6f", compressor.getCpuNanos() / 1e9)).append("\n");
         }
-        
-        client.sendMessage(sb.toString());
     }
     
     /**
-     * Отправляет таблицу лидеров всем подключенным клиентам
+     * Значение метки Prometheus: имя игрока задает клиент, и кавычка или перевод строки в нем сломали бы разбор
      */
-    public void broadcastLeaderboard() {
-        List<UserEntity> leaderboard = getLeaderboard();
-        StringBuilder sb = new StringBuilder("LEADERBOARD:");
-        
-        for (UserEntity user : leaderboard) {
-            sb.append(user.getUsername()).append(",")
-              .append(user.getWins()).append(";");
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    /**
+     * Метрики сервера в текстовом виде (по одной метрике на строку)
+     */
+    public String getMetricsAsString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("server_connections ").append(clients.size()).append("\n");
+        if (transport != null) {
+            transport.appendMetrics(sb);
         }
-        
-        broadcast(sb.toString());
+        if (udpChannel != null) {
+            udpChannel.appendMetrics(sb);
+        }
+        // Глубина очередей отправки: сумма и самая длинная
+        long queuedBytes = 0;
+        int maxQueuedBytes = 0;
+        for (ClientHandler client : clients.snapshot()) {
+            int queued = client.getQueuedBytes();
+            queuedBytes += queued;
+            maxQueuedBytes = Math.max(maxQueuedBytes, queued);
+        }
+        sb.append("net_outbound_queued_bytes ").append(queuedBytes).append("\n");
+        sb.append("net_outbound_queued_bytes_max ").append(maxQueuedBytes).append("\n");
+        appendCompressionMetrics(sb);
+        if (httpServer != null) {
+            httpServer.appendMetrics(sb);
+        }
+        leaderboard.appendMetrics(sb);
+        ranks.appendMetrics(sb);
+        winJournal.appendMetrics(sb);
+        sb.append("server_virtual_threads ").append(ServerExecutors.isVirtual(pool) ? 1 : 0).append("\n");
+        sb.append("lobby_rooms ").append(lobby.getRoomCount()).append("\n");
+        for (GameRoom room : lobby.getRooms()) {
+            GameLoop loop = room.getGame().getLoop();
+            GameSnapshot snapshot = room.getGame().getSnapshot();
+            String label = "{room=\"" + room.getId() + "\"}";
+            sb.append("game_players").append(label).append(" ").append(room.getPlayerCount()).append("\n");
+            sb.append("game_spectators").append(label).append(" ").append(room.getSpectatorCount()).append("\n");
+            sb.append("game_running").append(label).append(" ").append(snapshot.isRunning() ? 1 : 0).append("\n");
+            sb.append("game_tick").append(label).append(" ").append(snapshot.getTick()).append("\n");
+            sb.append("broadcast_frames_total").append(label).append(" ").append(room.getFramesSent()).append("\n");
+            sb.append("broadcast_messages_total").append(label).append(" ").append(room.getFrameMessages()).append("\n");
+            sb.append("broadcast_bytes_total{room=\"").append(room.getId()).append("\",proto=\"text\"} ")
+              .append(room.getTextFrameBytes()).append("\n");
+            sb.append("broadcast_bytes_total{room=\"").append(room.getId()).append("\",proto=\"binary\"} ")
+              .append(room.getBinaryFrameBytes()).append("\n");
+            sb.append("broadcast_bytes_total{room=\"").append(room.getId()).append("\",proto=\"udp\"} ")
+              .append(room.getUdpBytes()).append("\n");
+            StateDeltaEncoder encoder = room.getStateEncoder();
+            sb.append("state_keyframes_total").append(label).append(" ").append(encoder.getKeyframeCount()).append("\n");
+            sb.append("state_deltas_total").append(label).append(" ").append(encoder.getDeltaCount()).append("\n");
+            sb.append("state_resyncs_total").append(label).append(" ").append(room.getStateResyncs()).append("\n");
+            sb.append("spectator_resyncs_total").append(label).append(" ").append(room.getSpectatorResyncs()).append("\n");
+            sb.append("replays_recorded_total").append(label).append(" ").append(room.getReplaysRecorded()).append("\n");
+            sb.append("replay_bytes_total").append(label).append(" ").append(room.getReplayBytes()).append("\n");
+            sb.append("game_tick_rate").append(label).append(" ")
+              .append(String.format(Locale.ROOT, "%.1f", loop.getMeasuredTickRate())).append("\n");
+            sb.append("game_ticks_total").append(label).append(" ").append(loop.getTickCount()).append("\n");
+            sb.append("game_tick_overruns_total").append(label).append(" ").append(loop.getOverrunCount()).append("\n");
+        }
+        return sb.toString();
     }
     
     public void shutdown() {
-        isRunning = false;
+        lobby.closeAll();
         pool.shutdown();
-        try {
-            if (serverSocket != null) {
-                serverSocket.close();
-            }
-            if (httpServerSocket != null) {
-                httpServerSocket.close();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        taskPool.shutdown();
+        httpPool.shutdown();
+        if (transport != null) {
+            transport.stop();
+        }
+        if (udpChannel != null) {
+            udpChannel.stop();
+        }
+        if (httpServer != null) {
+            httpServer.stop();
         }
         
+        // Сначала журнал: он дописывает в базу принятые победы
+        winJournal.close();
         // Останавливаем Hibernate при выключении сервера
         HibernateUtil.shutdown();
     }
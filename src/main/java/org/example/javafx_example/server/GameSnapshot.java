@@ -0,0 +1,160 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок состояния игры на конец тика.
+ * Снимок создает только поток игрового цикла и публикует через volatile-ссылку,
+ * поэтому рассылки, HTTP и метрики читают его из любых потоков без блокировок
+ * и всегда видят согласованные позиции, счет и выстрелы одного тика.
+ */
+public class GameSnapshot {
+    public static final GameSnapshot EMPTY = new GameSnapshot(0, false, false, null, new double[0], new double[0], new ArrayList<>());
+    
+    private final long tick;
+    private final boolean running;
+    private final boolean paused;
+    private final String pauseRequestedBy;
+    private final double[] targetYs;
+    private final double[] targetVelocities;
+    private final List<PlayerState> players;
+    // Сообщение GAME_STATE собирается один раз на снимок, а не на каждого получателя
+    private final String stateMessage;
+    
+    public GameSnapshot(long tick, boolean running, boolean paused, String pauseRequestedBy,
+                        double[] targetYs, double[] targetVelocities, List<PlayerState> players) {
+        this.tick = tick;
+        this.running = running;
+        this.paused = paused;
+        this.pauseRequestedBy = pauseRequestedBy;
+        this.targetYs = targetYs.clone();
+        this.targetVelocities = targetVelocities.clone();
+        this.players = Collections.unmodifiableList(new ArrayList<>(players));
+        this.stateMessage = buildStateMessage();
+    }
+    
+    /**
+     * Состояние игры для протокола в формате опорного кадра {@link TextFrameEncoder}:
+     * GAME_STATE:идет:пауза:y1:y2:кто_на_паузе:игроков:имя,счет,выстрелы;...:-1:тик:v1,...,vN:y3,...,yN.
+     * Номера кадра у снимка нет, поэтому -1.
+     */
+    private String buildStateMessage() {
+        StringBuilder state = new StringBuilder("GAME_STATE:");
+        state.append(running).append(":");
+        state.append(paused).append(":");
+        state.append(targetYs.length > 0 ? targetYs[0] : 0.0).append(":");
+        state.append(targetYs.length > 1 ? targetYs[1] : 0.0).append(":");
+        state.append(pauseRequestedBy == null ? "null" : pauseRequestedBy).append(":");
+        
+        state.append(players.size()).append(":");
+        for (PlayerState player : players) {
+            state.append(player.getName()).append(",");
+            state.append(player.getScore()).append(",");
+            state.append(player.getShots()).append(";");
+        }
+        
+        state.append(":-1:").append(tick).append(":");
+        for (int target = 0; target < targetVelocities.length; target++) {
+            if (target > 0) {
+                state.append(",");
+            }
+            state.append(targetVelocities[target]);
+        }
+        state.append(":");
+        for (int target = 2; target < targetYs.length; target++) {
+            if (target > 2) {
+                state.append(",");
+            }
+            state.append(targetYs[target]);
+        }
+        
+        return state.toString();
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    public String getPauseRequestedBy() {
+        return pauseRequestedBy;
+    }
+    
+    public int getTargetCount() {
+        return targetYs.length;
+    }
+    
+    public double getTargetY(int target) {
+        return targetYs[target];
+    }
+    
+    /**
+     * Скорость мишени на тике снимка (пикселей за тик, плюс - вниз)
+     */
+    public double getTargetVelocity(int target) {
+        return targetVelocities[target];
+    }
+    
+    public List<PlayerState> getPlayers() {
+        return players;
+    }
+    
+    /**
+     * Слот игрока или -1, если его нет в снимке
+     */
+    public int getSlot(String playerName) {
+        for (int i = 0; i < players.size(); i++) {
+            PlayerState player = players.get(i);
+            if (player.getName().equals(playerName)) {
+                return player.getSlot();
+            }
+        }
+        return -1;
+    }
+    
+    public String getStateMessage() {
+        return stateMessage;
+    }
+    
+    /**
+     * Счет и оставшиеся выстрелы игрока на момент снимка
+     */
+    public static class PlayerState {
+        private final String name;
+        private final int slot;
+        private final int score;
+        private final int shots;
+        
+        public PlayerState(String name, int slot, int score, int shots) {
+            this.name = name;
+            this.slot = slot;
+            this.score = score;
+            this.shots = shots;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public int getSlot() {
+            return slot;
+        }
+        
+        public int getScore() {
+            return score;
+        }
+        
+        public int getShots() {
+            return shots;
+        }
+    }
+} 
\ No newline at end of file
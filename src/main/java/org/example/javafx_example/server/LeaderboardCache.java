@@ -0,0 +1,263 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.server.database.UserEntity;
+import org.example.javafx_example.server.database.UserRepository;
+import org.example.javafx_example.server.http.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Верх таблицы лидеров в памяти: первые size игроков. База читается один раз при запуске, дальше победы
+ * вносятся сюда же на месте: игрок сдвигается вверх на столько позиций, сколько обогнал,
+ * а игрок снаружи, обогнавший последнего, занимает его место. Страницы глубже верха отдает {@link RankIndex}.
+ * Для чтения верх держит готовые к отправке сообщения: LEADERBOARD: текстом и кадром BIN1, и JSON для HTTP.
+ * Они собираются заново только при первом чтении после изменения, так что чтения не трогают базу
+ * и почти всегда сводятся к одной volatile-ссылке.
+ */
+public class LeaderboardCache {
+    
+    /**
+     * Готовые сообщения одного состояния таблицы. Массивы общие для всех получателей и не меняются.
+     */
+    private static final class Payloads {
+        final String message;
+        final byte[] textFrame;
+        final byte[] binaryFrame;
+        final byte[] json;
+        
+        Payloads(String message, byte[] json) {
+            this.message = message;
+            this.textFrame = (message + "\n").getBytes(StandardCharsets.UTF_8);
+            this.binaryFrame = BinaryFrameEncoder.encodeText(message);
+            this.json = json;
+        }
+    }
+    
+    private static final class Entry {
+        final String username;
+        int wins;
+        
+        Entry(String username, int wins) {
+            this.username = username;
+            this.wins = wins;
+        }
+    }
+    
+    private final UserRepository repository;
+    private final int size;
+    // Верх таблицы под блокировкой this: по убыванию побед, при равенстве - по имени, как индекс в базе
+    private final List<Entry> ranking = new ArrayList<>();
+    private final Map<String, Entry> byName = new HashMap<>();
+    // Игроков в базе не больше, чем в верхе: новый игрок попадает в верх в любом случае
+    private boolean complete = true;
+    // null - таблица изменилась, сообщения собираются при следующем чтении
+    private volatile Payloads payloads;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    
+    /**
+     * size - сколько первых игроков держать в памяти и отдавать по умолчанию
+     */
+    public LeaderboardCache(UserRepository repository, int size) {
+        this.repository = repository;
+        this.size = Math.max(1, size);
+    }
+    
+    /**
+     * Загружает верх таблицы из базы. Вызывается при запуске сервера.
+     */
+    public void load() {
+        List<UserEntity> users = repository.getLeaderboardPage(0, size);
+        synchronized (this) {
+            ranking.clear();
+            byName.clear();
+            for (UserEntity user : users) {
+                Entry entry = new Entry(user.getUsername(), user.getWins());
+                ranking.add(entry);
+                byName.put(entry.username, entry);
+            }
+            complete = users.size() < size;
+            payloads = null;
+        }
+        loads.incrementAndGet();
+    }
+    
+    /**
+     * Записывает новое число побед игрока.
+     */
+    public synchronized void recordWin(String username, int wins) {
+        Entry entry = byName.get(username);
+        int index;
+        if (entry != null) {
+            index = ranking.indexOf(entry);
+            entry.wins = wins;
+        } else {
+            entry = new Entry(username, wins);
+            // Игрок снаружи верха попадает в него, только если обошел последнего
+            if (!complete && compare(entry, ranking.get(ranking.size() - 1)) > 0) {
+                return;
+            }
+            ranking.add(entry);
+            byName.put(username, entry);
+            index = ranking.size() - 1;
+        }
+        // Поднимаем игрока над теми, кого он теперь обходит
+        while (index > 0 && compare(entry, ranking.get(index - 1)) < 0) {
+            ranking.set(index, ranking.get(index - 1));
+            index--;
+        }
+        ranking.set(index, entry);
+        if (ranking.size() > size) {
+            byName.remove(ranking.remove(ranking.size() - 1).username);
+            complete = false;
+        }
+        payloads = null;
+    }
+    
+    /**
+     * Страница из памяти или null, если она выходит за верх таблицы
+     */
+    public synchronized List<UserEntity> getPage(int offset, int limit) {
+        if (!complete && (long) offset + limit > ranking.size()) {
+            return null;
+        }
+        List<UserEntity> page = new ArrayList<>(Math.max(0, Math.min(limit, ranking.size() - offset)));
+        for (int i = offset; i < ranking.size() && i < offset + limit; i++) {
+            Entry entry = ranking.get(i);
+            UserEntity user = new UserEntity(entry.username);
+            user.setWins(entry.wins);
+            page.add(user);
+        }
+        return page;
+    }
+    
+    /**
+     * LEADERBOARD:имя,победы;... для рассылки строкой
+     */
+    public String getMessage() {
+        return current().message;
+    }
+    
+    /**
+     * Готовый кадр LEADERBOARD: для текстового протокола или BIN1
+     */
+    public byte[] getFrame(boolean binaryProtocol) {
+        Payloads current = current();
+        return binaryProtocol ? current.binaryFrame : current.textFrame;
+    }
+    
+    /**
+     * [{"username":"...","wins":N},...] в UTF-8
+     */
+    public byte[] getJson() {
+        return current().json;
+    }
+    
+    private Payloads current() {
+        Payloads current = payloads;
+        if (current != null) {
+            hits.incrementAndGet();
+            return current;
+        }
+        synchronized (this) {
+            // Пока ждали блокировку, сообщения мог собрать другой поток
+            if (payloads == null) {
+                payloads = build();
+                rebuilds.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return payloads;
+        }
+    }
+    
+    private Payloads build() {
+        StringBuilder message = new StringBuilder(16 + ranking.size() * 16).append("LEADERBOARD:");
+        ByteArrayOutputStream json = new ByteArrayOutputStream(16 + ranking.size() * 32);
+        JsonWriter writer = new JsonWriter(json);
+        try {
+            writer.beginArray();
+            for (Entry entry : ranking) {
+                appendEntry(message, entry.username, entry.wins);
+                writeEntry(writer, entry.username, entry.wins);
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (IOException e) {
+            // Запись в память не бросает
+            throw new UncheckedIOException(e);
+        }
+        return new Payloads(message.toString(), json.toByteArray());
+    }
+    
+    /**
+     * LEADERBOARD_PAGE:offset:имя,победы;... - ответ на GET_LEADERBOARD:offset:limit
+     */
+    public static String pageMessage(int offset, List<UserEntity> page) {
+        StringBuilder message = new StringBuilder(32 + page.size() * 16)
+                .append("LEADERBOARD_PAGE:").append(offset).append(":");
+        for (UserEntity user : page) {
+            appendEntry(message, user.getUsername(), user.getWins());
+        }
+        return message.toString();
+    }
+    
+    /**
+     * Страница в том же JSON, что и верх таблицы
+     */
+    public static void writePageJson(List<UserEntity> page, JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (UserEntity user : page) {
+            writeEntry(writer, user.getUsername(), user.getWins());
+        }
+        writer.endArray();
+        writer.flush();
+    }
+    
+    private static void appendEntry(StringBuilder message, String username, int wins) {
+        message.append(username).append(",").append(wins).append(";");
+    }
+    
+    private static void writeEntry(JsonWriter writer, String username, int wins) throws IOException {
+        writer.beginObject()
+              .name("username").value(username)
+              .name("wins").value(wins)
+              .endObject();
+    }
+    
+    private static int compare(Entry a, Entry b) {
+        if (a.wins != b.wins) {
+            return Integer.compare(b.wins, a.wins);
+        }
+        return a.username.compareTo(b.username);
+    }
+    
+    public synchronized int size() {
+        return ranking.size();
+    }
+    
+    public int getCapacity() {
+        return size;
+    }
+    
+    /**
+     * Дописывает метрики таблицы лидеров в текстовом виде
+     */
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("leaderboard_entries ").append(size()).append("\n");
+        sb.append("leaderboard_cache_hits_total ").append(hits.get()).append("\n");
+        sb.append("leaderboard_cache_misses_total ").append(misses.get()).append("\n");
+        sb.append("leaderboard_cache_rebuilds_total ").append(rebuilds.get()).append("\n");
+        sb.append("leaderboard_cache_loads_total ").append(loads.get()).append("\n");
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,142 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Лобби: реестр комнат и привязка игроков к комнатам.
+ * Комната создается по запросу (или автоматически для быстрой игры) и удаляется, когда из нее выходит последний игрок.
+ */
+public class Lobby {
+    private final GameServer server;
+    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final Map<String, GameRoom> roomByPlayer = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoomId = new AtomicInteger(1);
+    
+    public Lobby(GameServer server) {
+        this.server = server;
+    }
+    
+    /**
+     * Создает новую пустую комнату с указанной ареной (null - классическая)
+     */
+    public GameRoom createRoom(String name, String arenaName) {
+        String id = Integer.toString(nextRoomId.getAndIncrement());
+        // Разделители протокола в названии недопустимы
+        String roomName = name == null || name.isBlank() ? "Комната " + id : name.replaceAll("[,;:]", " ").trim();
+        GameRoom room = new GameRoom(id, roomName, server, ArenaDefinition.byName(arenaName));
+        rooms.put(id, room);
+        System.out.println("Создана комната " + id + " (" + roomName + ", арена " + room.getGame().getArena().getName()
+                + "). Всего комнат: " + rooms.size());
+        return room;
+    }
+    
+    /**
+     * Переводит игрока в указанную комнату. Возвращает комнату или null, если войти нельзя.
+     */
+    public synchronized GameRoom joinRoom(ClientHandler client, String roomId) {
+        GameRoom room = rooms.get(roomId);
+        if (room == null || room.isFull()) {
+            return null;
+        }
+        if (room == roomByPlayer.get(client.getPlayerName())) {
+            return room;
+        }
+        
+        leaveRoom(client);
+        if (!room.join(client)) {
+            return null;
+        }
+        roomByPlayer.put(client.getPlayerName(), room);
+        return room;
+    }
+    
+    /**
+     * Создает комнату и сразу переводит в нее игрока
+     */
+    public synchronized GameRoom createAndJoin(ClientHandler client, String name, String arenaName) {
+        leaveRoom(client);
+        GameRoom room = createRoom(name, arenaName);
+        room.join(client);
+        roomByPlayer.put(client.getPlayerName(), room);
+        return room;
+    }
+    
+    /**
+     * Быстрая игра: первая комната, где есть места и партия не идет, либо новая комната
+     */
+    public synchronized GameRoom quickJoin(ClientHandler client) {
+        for (GameRoom room : rooms.values()) {
+            if (!room.isFull() && !room.isGameRunning() && !room.isClosed()) {
+                GameRoom joined = joinRoom(client, room.getId());
+                if (joined != null) {
+                    return joined;
+                }
+            }
+        }
+        return createAndJoin(client, null, null);
+    }
+    
+    /**
+     * Убирает игрока из его комнаты; опустевшая комната удаляется
+     */
+    public synchronized void leaveRoom(ClientHandler client) {
+        String playerName = client.getPlayerName();
+        if (playerName == null) return;
+        
+        GameRoom room = roomByPlayer.remove(playerName);
+        if (room == null) return;
+        
+        if (room.leave(client)) {
+            rooms.remove(room.getId());
+            room.close();
+            System.out.println("Комната " + room.getId() + " пуста и удалена. Всего комнат: " + rooms.size());
+        }
+    }
+    
+    public GameRoom getRoomOf(String playerName) {
+        return playerName == null ? null : roomByPlayer.get(playerName);
+    }
+    
+    public GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+    
+    public List<GameRoom> getRooms() {
+        return new ArrayList<>(rooms.values());
+    }
+    
+    public int getRoomCount() {
+        return rooms.size();
+    }
+    
+    /**
+     * Список комнат для протокола: ROOMS:id,название,игроков,мест,состояние,арена;...
+     */
+    public String getRoomListMessage() {
+        StringBuilder sb = new StringBuilder("ROOMS:");
+        for (GameRoom room : rooms.values()) {
+            sb.append(room.getId()).append(",")
+              .append(room.getName()).append(",")
+              .append(room.getPlayerCount()).append(",")
+              .append(ServerGame.MAX_PLAYERS).append(",")
+              .append(room.isGameRunning() ? "PLAYING" : "WAITING").append(",")
+              .append(room.getGame().getArena().getName()).append(";");
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Останавливает игровые циклы всех комнат
+     */
+    public void closeAll() {
+        for (GameRoom room : rooms.values()) {
+            room.close();
+        }
+        rooms.clear();
+        roomByPlayer.clear();
+    }
+} 
\ No newline at end of file
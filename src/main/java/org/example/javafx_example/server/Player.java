@@ -1,12 +1,18 @@
 package org.example.javafx_example.server;
 
+/**
+ * Игрок в партии. Счет и выстрелы меняет только поток игрового цикла,
+ * остальные потоки видят их через снимок состояния игры.
+ */
 public class Player {
     private String name;
+    private final int slot;
     private int score;
     private int shots;
     
-    public Player(String name) {
+    public Player(String name, int slot) {
         this.name = name;
+        this.slot = slot;
         this.score = 0;
         this.shots = 15;
     }
@@ -15,6 +21,13 @@ public class Player {
         return name;
     }
     
+    /**
+     * Индекс слота игрока в игре (владелец стрел в хранилище сущностей)
+     */
+    public int getSlot() {
+        return slot;
+    }
+    
     public int getScore() {
         return score;
     }
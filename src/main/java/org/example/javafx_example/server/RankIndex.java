@@ -0,0 +1,368 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.server.database.UserEntity;
+import org.example.javafx_example.server.database.UserRepository;
+import org.example.javafx_example.server.http.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Место каждого игрока в таблице лидеров за O(log n). Все игроки лежат в памяти в списке с пропусками,
+ * упорядоченном как таблица (по убыванию побед, при равенстве - по имени). Каждая ссылка списка помнит,
+ * сколько игроков она перепрыгивает, поэтому место игрока - сумма длин ссылок на пути поиска,
+ * а игрок на месте N находится спуском по тем же длинам. Победа переставляет одного игрока
+ * (удаление и вставка), ничего не пересчитывая целиком.
+ * Около 180 байт на игрока вместе с именем: миллион игроков - порядка 180 МБ.
+ */
+public class RankIndex {
+    private static final int MAX_LEVEL = 32;
+    // Вероятность подняться на уровень выше: 1/4, как в отсортированных множествах Redis
+    private static final int LEVEL_ODDS = 4;
+    private static final int LOAD_PAGE = 10_000;
+    
+    /**
+     * Место игрока и его соседи по таблице
+     */
+    public static final class Rank {
+        private final String username;
+        private final int rank;
+        private final int wins;
+        private final int total;
+        private final int firstRank;
+        private final List<UserEntity> neighbours;
+        
+        Rank(String username, int rank, int wins, int total, int firstRank, List<UserEntity> neighbours) {
+            this.username = username;
+            this.rank = rank;
+            this.wins = wins;
+            this.total = total;
+            this.firstRank = firstRank;
+            this.neighbours = neighbours;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        /**
+         * Место с единицы; 0 - игрока нет в таблице (еще не побеждал)
+         */
+        public int getRank() {
+            return rank;
+        }
+        
+        public int getWins() {
+            return wins;
+        }
+        
+        public int getTotal() {
+            return total;
+        }
+        
+        /**
+         * Место первого из соседей
+         */
+        public int getFirstRank() {
+            return firstRank;
+        }
+        
+        /**
+         * Игроки с места firstRank подряд, сам игрок среди них
+         */
+        public List<UserEntity> getNeighbours() {
+            return neighbours;
+        }
+    }
+    
+    private static final class Node {
+        final String username;
+        final int wins;
+        final Node[] next;
+        // span[i] - на сколько мест вперед ведет next[i]
+        final int[] span;
+        
+        Node(String username, int wins, int level) {
+            this.username = username;
+            this.wins = wins;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+    
+    // Все поля ниже под блокировкой this
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<String, Node> byName = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private int level = 1;
+    private int size = 0;
+    
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private volatile long loadNanos = 0;
+    
+    /**
+     * Загружает всех игроков из базы страницами по индексу побед. Вызывается при запуске сервера.
+     */
+    public void load(UserRepository repository) {
+        long start = System.nanoTime();
+        List<UserEntity> page = repository.getLeaderboardPage(0, LOAD_PAGE);
+        while (!page.isEmpty()) {
+            synchronized (this) {
+                for (UserEntity user : page) {
+                    put(user.getUsername(), user.getWins());
+                }
+            }
+            if (page.size() < LOAD_PAGE) break;
+            UserEntity last = page.get(page.size() - 1);
+            page = repository.getLeaderboardAfter(last.getWins(), last.getUsername(), LOAD_PAGE);
+        }
+        loadNanos = System.nanoTime() - start;
+    }
+    
+    /**
+     * Добавляет игроку победу и возвращает новое число побед. Индекс хранит победы всех игроков,
+     * поэтому новое число известно без чтения базы.
+     */
+    public synchronized int addWin(String username) {
+        Node node = byName.get(username);
+        int wins = 1;
+        if (node != null) {
+            wins = node.wins + 1;
+            remove(node);
+        }
+        put(username, wins);
+        updates.incrementAndGet();
+        return wins;
+    }
+    
+    /**
+     * Место игрока и до neighbours соседей с каждой стороны
+     */
+    public synchronized Rank getRank(String username, int neighbours) {
+        lookups.incrementAndGet();
+        Node node = byName.get(username);
+        if (node == null) {
+            return new Rank(username, 0, 0, size, 0, List.of());
+        }
+        int rank = rankOf(node);
+        int firstRank = Math.max(1, rank - neighbours);
+        int lastRank = Math.min(size, rank + neighbours);
+        return new Rank(username, rank, node.wins, size, firstRank, collect(firstRank, lastRank - firstRank + 1));
+    }
+    
+    /**
+     * Страница таблицы по позиции с нуля: спуск к offset и шаги по нижнему уровню, без сканирования всех до нее
+     */
+    public synchronized List<UserEntity> getPage(int offset, int limit) {
+        lookups.incrementAndGet();
+        if (offset >= size) {
+            return List.of();
+        }
+        return collect(offset + 1, (int) Math.min(limit, (long) size - offset));
+    }
+    
+    /**
+     * Страница после ключа (победы, имя) последней строки предыдущей страницы, как
+     * {@link UserRepository#getLeaderboardAfter}: место ключа находится спуском, дальше - как getPage.
+     * Игрока с таким ключом может уже не быть (он с тех пор побеждал) - страница начнется со следующего за ключом.
+     */
+    public synchronized List<UserEntity> getPageAfter(int wins, String username, int limit) {
+        return getPage(countUpTo(wins, username), limit);
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    private void put(String username, int wins) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], wins, username) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+        Node node = new Node(username, wins, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        // Ссылки выше нового узла стали длиннее на одно место
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        byName.put(username, node);
+        size++;
+    }
+    
+    private void remove(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.wins, node.username) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        byName.remove(node.username);
+        size--;
+    }
+    
+    private List<UserEntity> collect(int firstRank, int count) {
+        List<UserEntity> users = new ArrayList<>(count);
+        Node current = nodeAt(firstRank);
+        for (int i = 0; i < count; i++) {
+            UserEntity user = new UserEntity(current.username);
+            user.setWins(current.wins);
+            users.add(user);
+            current = current.next[0];
+        }
+        return users;
+    }
+    
+    /**
+     * Место узла с единицы: сумма длин ссылок на пути к нему
+     */
+    private int rankOf(Node node) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.wins, node.username) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return rank;
+    }
+    
+    /**
+     * Сколько игроков стоит в таблице не ниже ключа (победы, имя); сам ключ в индексе может отсутствовать
+     */
+    private int countUpTo(int wins, String username) {
+        int count = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], wins, username) <= 0) {
+                count += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Узел на месте rank (с единицы): спуск, пока сумма длин ссылок не дойдет до rank
+     */
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return x;
+    }
+    
+    private int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && random.nextInt(LEVEL_ODDS) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+    
+    /**
+     * Порядок таблицы: меньше - выше. Больше побед выше, при равенстве выше имя, что раньше по алфавиту.
+     */
+    private static int compare(Node node, int wins, String username) {
+        if (node.wins != wins) {
+            return Integer.compare(wins, node.wins);
+        }
+        return node.username.compareTo(username);
+    }
+    
+    /**
+     * RANK:имя:место:победы:всего:место_первого_соседа:имя,победы;... - ответ на GET_RANK
+     */
+    public static String rankMessage(Rank rank) {
+        StringBuilder message = new StringBuilder(64 + rank.neighbours.size() * 16)
+                .append("RANK:").append(rank.username).append(":").append(rank.rank).append(":")
+                .append(rank.wins).append(":").append(rank.total).append(":").append(rank.firstRank).append(":");
+        for (UserEntity user : rank.neighbours) {
+            message.append(user.getUsername()).append(",").append(user.getWins()).append(";");
+        }
+        return message.toString();
+    }
+    
+    /**
+     * {"username":"...","rank":N,"wins":N,"total":N,"neighbours":[{"rank":N,"username":"...","wins":N},...]}
+     */
+    public static void writeRankJson(Rank rank, JsonWriter writer) throws IOException {
+        writer.beginObject()
+              .name("username").value(rank.username)
+              .name("rank").value(rank.rank)
+              .name("wins").value(rank.wins)
+              .name("total").value(rank.total)
+              .name("neighbours").beginArray();
+        int position = rank.firstRank;
+        for (UserEntity user : rank.neighbours) {
+            writer.beginObject()
+                  .name("rank").value(position++)
+                  .name("username").value(user.getUsername())
+                  .name("wins").value(user.getWins())
+                  .endObject();
+        }
+        writer.endArray().endObject();
+        writer.flush();
+    }
+    
+    /**
+     * Дописывает метрики индекса мест в текстовом виде
+     */
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("rank_index_entries ").append(size()).append("\n");
+        sb.append("rank_index_lookups_total ").append(lookups.get()).append("\n");
+        sb.append("rank_index_updates_total ").append(updates.get()).append("\n");
+        sb.append("rank_index_load_seconds ").append(loadNanos / 1e9).append("\n");
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,198 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.protocol.ReplayFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запись одного матча в файл {@link ReplayFormat}. Игровой цикл только передает уже закодированные
+ * для рассылки кадры BIN1, а открывает файл и пишет их отдельная очередь задач пула, поэтому запись
+ * не добавляет тику ни кодирования, ни обращений к диску. Файл растет кусками, отображенными в память:
+ * запись кадра - копирование в отображение, без системного вызова. Индекс опорных кадров
+ * копится в памяти и дописывается в конец файла при завершении матча.
+ */
+public class ReplayRecorder {
+    // Размер куска, на который файл растет при заполнении отображения
+    private static final int CHUNK_SIZE = 256 * 1024;
+    
+    private final File file;
+    private final SerialExecutor tasks;
+    private final AtomicLong bytesCounter;
+    
+    // Все поля ниже принадлежат очереди задач записи
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;
+    private int keyframeCount = 0;
+    private long[] keyframeTicks = new long[64];
+    private long[] keyframeOffsets = new long[64];
+    
+    /**
+     * bytesCounter - общий счетчик записанных байт для метрик
+     */
+    public ReplayRecorder(File directory, String roomId, Executor executor, AtomicLong bytesCounter) {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        this.file = new File(directory, "room" + roomId + "-" + stamp + ReplayFormat.EXTENSION);
+        this.tasks = new SerialExecutor(executor, "записи матча " + file.getName());
+        this.bytesCounter = bytesCounter;
+    }
+    
+    /**
+     * Открывает файл и пишет заголовок и раскладку арены. Вызывается из потока игрового цикла.
+     */
+    public void start(String arenaMessage, int tickRate, int sendRate) {
+        long startedAt = System.currentTimeMillis();
+        tasks.execute(() -> {
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                ByteBuffer header = reserve(ReplayFormat.HEADER_SIZE);
+                header.putInt(ReplayFormat.MAGIC);
+                header.putShort((short) ReplayFormat.VERSION);
+                header.putShort((short) 0);
+                header.putInt(tickRate);
+                header.putInt(sendRate);
+                header.putLong(startedAt);
+                header.putLong(0);
+                appendRecord(ReplayFormat.KIND_EVENTS, 0, BinaryFrameEncoder.encodeText(arenaMessage));
+                System.out.println("Запись матча: " + file.getPath());
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+    
+    /**
+     * Кадры тика в том виде, в каком они ушли клиентам BIN1 (null - кадра нет): события и состояние.
+     * keyframe - состояние отправлено опорным кадром. Вызывается из потока игрового цикла.
+     */
+    public void record(long tick, byte[] events, byte[] state, boolean keyframe) {
+        tasks.execute(() -> {
+            if (channel == null) return;
+            try {
+                if (events != null) {
+                    appendRecord(ReplayFormat.KIND_EVENTS, tick, events);
+                }
+                if (state != null) {
+                    if (keyframe) {
+                        addKeyframe(tick, position);
+                    }
+                    appendRecord(keyframe ? ReplayFormat.KIND_KEYFRAME : ReplayFormat.KIND_STATE, tick, state);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+    
+    /**
+     * Дописывает индекс опорных кадров и закрывает файл. Повторный вызов ничего не делает.
+     */
+    public void finish() {
+        tasks.execute(() -> {
+            if (channel == null) return;
+            try {
+                ByteBuffer index = ByteBuffer.allocate(4 + keyframeCount * ReplayFormat.INDEX_ENTRY_SIZE);
+                index.putInt(keyframeCount);
+                for (int i = 0; i < keyframeCount; i++) {
+                    index.putInt((int) keyframeTicks[i]);
+                    index.putLong(keyframeOffsets[i]);
+                }
+                index.flip();
+                long indexOffset = position;
+                region.force();
+                writeFully(index, indexOffset);
+                writeFully(ByteBuffer.allocate(8).putLong(0, indexOffset), ReplayFormat.INDEX_OFFSET_POSITION);
+                bytesCounter.addAndGet(index.limit());
+                try {
+                    // Хвост последнего куска не нужен; там, где отображенный файл нельзя укоротить, он остается нулями
+                    channel.truncate(indexOffset + index.limit());
+                } catch (IOException e) {
+                    // Индекс найдется по смещению из заголовка
+                }
+                channel.force(true);
+                System.out.println("Запись матча завершена: " + file.getPath() + ", " + (indexOffset + index.limit())
+                        + " Б, опорных кадров " + keyframeCount);
+            } catch (IOException e) {
+                System.err.println("Не удалось завершить запись матча " + file.getPath() + ": " + e.getMessage());
+            } finally {
+                close();
+            }
+        });
+    }
+    
+    private void appendRecord(int kind, long tick, byte[] payload) throws IOException {
+        ByteBuffer out = reserve(ReplayFormat.RECORD_HEADER_SIZE + payload.length);
+        out.put((byte) kind);
+        out.putInt((int) tick);
+        out.putInt(payload.length);
+        out.put(payload);
+        bytesCounter.addAndGet(ReplayFormat.RECORD_HEADER_SIZE + payload.length);
+    }
+    
+    /**
+     * Участок файла длиной length с текущей позиции; если отображение кончилось, отображает следующий кусок
+     */
+    private ByteBuffer reserve(int length) throws IOException {
+        if (region == null || position + length > regionStart + region.capacity()) {
+            if (region != null) {
+                region.force();
+            }
+            regionStart = position;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(CHUNK_SIZE, length));
+        }
+        ByteBuffer slice = region.slice((int) (position - regionStart), length);
+        position += length;
+        return slice;
+    }
+    
+    private void addKeyframe(long tick, long offset) {
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+    
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+    
+    private void fail(IOException e) {
+        System.err.println("Запись матча " + file.getPath() + " остановлена: " + e.getMessage());
+        close();
+    }
+    
+    private void close() {
+        region = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Файл уже не нужен
+            }
+            channel = null;
+        }
+    }
+    
+    public File getFile() {
+        return file;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.example.javafx_example.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Очередь задач поверх общего пула: задачи выполняются строго по одной в порядке постановки,
+ * но поток пула занимают только пока очередь не пуста. Постановка задачи не блокирует вызывающего,
+ * поэтому игровой цикл отдает сюда работу с сетью и диском, не дожидаясь ее.
+ */
+public class SerialExecutor implements Executor {
+    private final Executor executor;
+    private final String name;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    
+    /**
+     * name - для сообщений об ошибках задач
+     */
+    public SerialExecutor(Executor executor, String name) {
+        this.executor = executor;
+        this.name = name;
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+    
+    /**
+     * Выполняет задачи по одной; одновременно работает не больше одной такой задачи пула
+     */
+    private void drain() {
+        while (true) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Ошибка задачи " + name + ": " + e.getMessage());
+                }
+            }
+            scheduled.set(false);
+            // Задача могла прийти между последним poll и сбросом флага
+            if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+} 
\ No newline at end of file
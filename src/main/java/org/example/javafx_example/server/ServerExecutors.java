@@ -0,0 +1,74 @@
+package org.example.javafx_example.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнители блокирующих задач сервера (соединения, HTTP-запросы, запросы к базе).
+ * Если JVM поддерживает виртуальные потоки (Java 21+), каждая задача получает свой виртуальный поток,
+ * и блокирующее чтение или запрос к базе не занимает поток ОС. Иначе - ограниченный пул обычных потоков.
+ * Проект собирается под Java 17, поэтому виртуальные потоки подключаются через рефлексию.
+ */
+public final class ServerExecutors {
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final String MODE_PLATFORM = "platform";
+    
+    private static final long IDLE_SECONDS = 60;
+    
+    private ServerExecutors() {
+    }
+    
+    /**
+     * Создает исполнитель в выбранном режиме. auto и virtual берут виртуальные потоки, если они есть;
+     * platform и JVM без виртуальных потоков - пул не больше maxThreads потоков с именами name-N.
+     */
+    public static ExecutorService create(String mode, String name, int maxThreads) {
+        if (!MODE_PLATFORM.equals(mode)) {
+            ExecutorService virtual = newVirtualExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            if (MODE_VIRTUAL.equals(mode)) {
+                System.err.println("Виртуальные потоки недоступны в этой JVM, используется пул потоков " + name);
+            }
+        }
+        return newBoundedPool(name, maxThreads);
+    }
+    
+    /**
+     * Работает ли исполнитель на виртуальных потоках
+     */
+    public static boolean isVirtual(ExecutorService executor) {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() или null, если метода нет
+     * или виртуальные потоки в этой JVM еще в preview и не включены
+     */
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static ExecutorService newBoundedPool(String name, int maxThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = task -> new Thread(task, name + "-" + counter.incrementAndGet());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        // Простаивающие потоки завершаются, как в прежнем кэширующем пуле
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+} 
\ No newline at end of file
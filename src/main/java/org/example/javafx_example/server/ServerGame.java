@@ -3,110 +3,157 @@ package org.example.javafx_example.server;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+/**
+ * Одна партия в комнате. Все изменения состояния (игроки, счет, выстрелы, пауза, стрелы)
+ * выполняет только поток игрового цикла: команды клиентов ставятся в его очередь,
+ * а наружу состояние отдается неизменяемым снимком {@link GameSnapshot}, который публикуется раз в тик.
+ */
 public class ServerGame {
-    private GameServer server;
+    private final GameRoom room;
+    // Структуру меняет только поток цикла; потоки клиентов лишь ищут в ней слот игрока
     private ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<>();
     private boolean isGameRunning = false;
     private boolean isPaused = false;
     
-    private double target1Y = 300.0;
-    private double target2Y = 300.0;
-    private boolean target1MovingDown = true;
-    private boolean target2MovingDown = true;
-    private Thread target1Thread;
-    private Thread target2Thread;
+    private final GameLoop loop;
+    // Последний опубликованный снимок: единственное, что читают другие потоки
+    private volatile GameSnapshot snapshot = GameSnapshot.EMPTY;
     
-    // Размеры и позиции мишеней 
-    private static final double TARGET1_RADIUS = 30.0;
-    private static final double TARGET2_RADIUS = 15.0;
-    private static final double TARGET1_X = 400.0;
-    private static final double TARGET2_X = 600.0;
+    // Мишени и стрелы в полете; принадлежат потоку игрового цикла
+    private final EntityStore entities = new EntityStore();
+    private final ArenaDefinition arena;
+    // Широкая фаза проверки попаданий по дорожкам мишеней
+    private final TargetGrid targetGrid;
+    // Исходы выстрелов (попадание или промах), запланированные на момент выстрела
+    private final EventQueue arrowEvents = new EventQueue(64);
+    // Игровое время в тиках: идет только пока игра запущена и не на паузе
+    private long gameTick = 0;
+    
+    // Слоты игроков: индекс слота используется как владелец стрелы в хранилище сущностей
+    public static final int MAX_PLAYERS = 4;
+    private final Player[] playerSlots = new Player[MAX_PLAYERS];
+    // Выстрелы, запрошенные с прошлого тика, по слотам игроков
+    private final AtomicIntegerArray pendingShots = new AtomicIntegerArray(MAX_PLAYERS);
     
     // Размеры игрового поля
-    private static final double FIELD_WIDTH = 800.0;
-    private static final double FIELD_HEIGHT = 600.0;
+    private final double fieldWidth;
     private static final double SHOOTER_BASE_WIDTH = 72.0;
+    private static final double ARROW_SPEED = 10.0;
     
     private String pauseRequestedBy = null;
     
-    public ServerGame(GameServer server) {
-        this.server = server;
-        setupTargetThreads();
+    public ServerGame(GameRoom room, ArenaDefinition arena) {
+        this.room = room;
+        this.arena = arena;
+        this.fieldWidth = arena.getFieldWidth();
+        this.loop = new GameLoop("game-loop-" + room.getId(), this::tick);
+        
+        for (ArenaDefinition.TargetSpec target : arena.getTargets()) {
+            entities.addTarget(target.getX(), target.getStartY(), target.getRadius(),
+                    target.getMinY(), target.getMaxY(), target.getSpeed(), target.getPoints());
+        }
+        this.targetGrid = new TargetGrid(entities, arena.getFieldHeight(), TargetGrid.DEFAULT_CELL_HEIGHT);
+        this.snapshot = buildSnapshot();
+        
+        // Поток цикла нужен сразу: он выполняет команды и пока игра не идет
+        loop.start();
     }
     
-    private void setupTargetThreads() {
-        target1Thread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                if (isGameRunning && !isPaused) {
-                    moveTarget1();
-                    server.broadcastGameState();
-                }
-                try {
-                    Thread.sleep(16);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    /**
+     * Выполняет команду в потоке игрового цикла. Если цикл спит (игра не идет или на паузе),
+     * после команды публикуется новый снимок и отправляется кадр рассылки; во время игры это делает ближайший тик.
+     */
+    public void submit(Runnable command) {
+        loop.submit(() -> {
+            command.run();
+            if (!loop.isActive()) {
+                publishState();
+                room.flushFrame(true);
             }
         });
-        target1Thread.setDaemon(true);
-        
-        target2Thread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                if (isGameRunning && !isPaused) {
-                    moveTarget2();
-                    server.broadcastGameState();
-                }
-                try {
-                    Thread.sleep(16);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        target2Thread.setDaemon(true);
     }
     
-    private void moveTarget1() {
-        double speed = 1.0;
-        double minY = 100.0;
-        double maxY = 500.0;
+    /**
+     * Один тик симуляции: выпускаем новые стрелы, обрабатываем наступившие
+     * попадания и промахи и рассылаем состояние игры один раз за тик.
+     * Мишени и стрелы движутся по формулам, поэтому пошагово их не двигаем.
+     */
+    private void tick() {
+        long tick = ++gameTick;
         
-        if (target1MovingDown) {
-            target1Y += speed;
-            if (target1Y >= maxY) {
-                target1MovingDown = false;
+        // Выпускаем стрелы, запрошенные с прошлого тика
+        for (int slot = 0; slot < MAX_PLAYERS; slot++) {
+            int shots = pendingShots.getAndSet(slot, 0);
+            for (int i = 0; i < shots && isGameRunning; i++) {
+                spawnArrow(slot, tick);
             }
-        } else {
-            target1Y -= speed;
-            if (target1Y <= minY) {
-                target1MovingDown = true;
+        }
+        
+        // Позиции стрел в полете: только в тики рассылки, между ними клиент их интерполирует,
+        // и только если в комнате есть клиенты, которые не ведут стрелы сами по выстрелу
+        boolean snapshotTick = GameRoom.isSnapshotTick(tick);
+        int slotsUsed = snapshotTick && room.needsArrowPositions() ? entities.getArrowSlotsUsed() : 0;
+        for (int slot = 0; slot < slotsUsed; slot++) {
+            if (!entities.isArrowAlive(slot) || entities.getArrowSpawnTick(slot) == tick) continue;
+            
+            Player player = playerSlots[entities.getArrowOwner(slot)];
+            if (player != null) {
+                room.broadcastArrowPosition(player.getSlot(), player.getName(), entities.getArrowXAt(slot, tick),
+                        entities.getArrowY(slot), entities.getArrowId(slot), tick);
+            }
+        }
+        
+        // Наступившие попадания и промахи
+        while (isGameRunning && arrowEvents.peekTick() <= tick) {
+            int slot = arrowEvents.peekSlot();
+            int arrowId = arrowEvents.peekId();
+            arrowEvents.pop();
+            if (entities.isArrowAlive(slot) && entities.getArrowId(slot) == arrowId) {
+                resolveArrow(slot);
             }
         }
+        
+        publishState();
+        // Все сообщения тика уходят клиентам одним кадром
+        room.flushFrame(snapshotTick);
+    }
+    
+    /**
+     * Публикует снимок текущего состояния; в ближайший кадр рассылки попадет только последний снимок
+     */
+    private void publishState() {
+        snapshot = buildSnapshot();
+        room.broadcastGameState();
     }
     
-    private void moveTarget2() {
-        double speed = 2.0;
-        double minY = 100.0;
-        double maxY = 500.0;
+    private GameSnapshot buildSnapshot() {
+        int targetCount = entities.getTargetCount();
+        double[] targetYs = new double[targetCount];
+        double[] targetVelocities = new double[targetCount];
+        for (int target = 0; target < targetCount; target++) {
+            targetYs[target] = entities.getTargetYAt(target, gameTick);
+            targetVelocities[target] = entities.getTargetVelocityAt(target, gameTick);
+        }
         
-        if (target2MovingDown) {
-            target2Y += speed;
-            if (target2Y >= maxY) {
-                target2MovingDown = false;
-            }
-        } else {
-            target2Y -= speed;
-            if (target2Y <= minY) {
-                target2MovingDown = true;
-            }
+        List<GameSnapshot.PlayerState> playerStates = new ArrayList<>(players.size());
+        for (Player player : playerSlots) {
+            if (player == null) continue;
+            playerStates.add(new GameSnapshot.PlayerState(player.getName(), player.getSlot(),
+                    player.getScore(), player.getShots()));
         }
+        
+        return new GameSnapshot(gameTick, isGameRunning, isPaused, pauseRequestedBy, targetYs, targetVelocities, playerStates);
     }
     
     public void startGame() {
-        if (players.isEmpty()) return;
+        submit(this::doStartGame);
+    }
+    
+    private void doStartGame() {
+        // Повторная команда старта (например, два READY почти одновременно) игру не перезапускает
+        if (isGameRunning || players.isEmpty()) return;
         
         // Сбрасываем счет и выстрелы для всех игроков
         for (Player player : players.values()) {
@@ -114,152 +161,167 @@ public class ServerGame {
             player.setShots(15);
         }
         
-        // Сбрасываем позиции мишеней
-        target1Y = 300.0;
-        target2Y = 300.0;
-        target1MovingDown = true;
-        target2MovingDown = true;
+        // Сбрасываем позиции мишеней и убираем стрелы
+        gameTick = 0;
+        entities.resetTargets();
+        entities.clearArrows();
+        arrowEvents.clear();
+        for (int slot = 0; slot < MAX_PLAYERS; slot++) {
+            pendingShots.set(slot, 0);
+        }
         
         isGameRunning = true;
         isPaused = false;
+        pauseRequestedBy = null;
         
-        // Запускаем потоки мишеней, если они еще не запущены
-        if (!target1Thread.isAlive()) {
-            target1Thread.start();
-        }
-        if (!target2Thread.isAlive()) {
-            target2Thread.start();
-        }
+        // Будим игровой цикл: первый тик опубликует состояние новой игры
+        loop.setActive(true);
         
-        server.broadcast("GAME_STARTED");
-        server.broadcastGameState();
+        // Запись матча начинается с GAME_STARTED и первого состояния новой игры
+        room.startRecording();
+        room.broadcast("GAME_STARTED");
     }
     
     public void pauseGame(String playerName) {
-        isPaused = true;
-        pauseRequestedBy = playerName;
-        server.broadcast("GAME_PAUSED:" + playerName);
-        server.broadcastGameState();
+        submit(() -> {
+            if (!isGameRunning || isPaused) return;
+            isPaused = true;
+            pauseRequestedBy = playerName;
+            loop.setActive(false);
+            room.broadcast("GAME_PAUSED:" + playerName);
+        });
     }
     
     public void resumeGame(String playerName) {
-        // Только игрок, запросивший паузу, может возобновить игру
-        if (playerName.equals(pauseRequestedBy)) {
-            isPaused = false;
-            pauseRequestedBy = null;
-            server.broadcast("GAME_RESUMED");
-            server.broadcastGameState();
-        }
+        submit(() -> {
+            // Только игрок, запросивший паузу, может возобновить игру
+            if (isPaused && playerName.equals(pauseRequestedBy)) {
+                isPaused = false;
+                pauseRequestedBy = null;
+                loop.setActive(isGameRunning);
+                room.broadcast("GAME_RESUMED");
+            }
+        });
     }
     
     public void addPlayer(String name) {
-        players.put(name, new Player(name));
+        submit(() -> {
+            if (players.containsKey(name)) return;
+            for (int slot = 0; slot < MAX_PLAYERS; slot++) {
+                if (playerSlots[slot] == null) {
+                    Player player = new Player(name, slot);
+                    playerSlots[slot] = player;
+                    players.put(name, player);
+                    return;
+                }
+            }
+        });
     }
     
     public void removePlayer(String name) {
-        players.remove(name);
+        if (name == null) return;
+        submit(() -> {
+            Player player = players.remove(name);
+            if (player != null) {
+                playerSlots[player.getSlot()] = null;
+                pendingShots.set(player.getSlot(), 0);
+            }
+        });
     }
     
+    /**
+     * Запрос выстрела из потока клиента. Выстрел только учитывается в счетчике слота,
+     * списание стрелы и сам выстрел выполняет игровой цикл на следующем тике.
+     */
     public void handlePlayerShoot(String playerName) {
-        if (!isGameRunning || isPaused) return;
+        GameSnapshot state = snapshot;
+        if (!state.isRunning() || state.isPaused()) return;
         
-        Player player = players.get(playerName);
-        if (player == null || player.getShots() <= 0) return;
+        // Слот берем из снимка: карту игроков меняет только поток цикла
+        int slot = state.getSlot(playerName);
+        if (slot < 0) return;
         
+        pendingShots.incrementAndGet(slot);
+    }
+    
+    /**
+     * Выпускает стрелу и сразу вычисляет ее исход, планируя его как одно событие
+     */
+    private void spawnArrow(int ownerSlot, long tick) {
+        Player player = playerSlots[ownerSlot];
+        if (player == null || player.getShots() <= 0) return;
         player.decrementShots();
         
         // Расчет Y-позиции игрока для выстрела
-        double arrowY = calculatePlayerPosition(playerName, players.size());
+        double arrowY = calculatePlayerPosition(ownerSlot);
+        int slot = entities.spawnArrow(ownerSlot, SHOOTER_BASE_WIDTH, arrowY, ARROW_SPEED, tick);
+        int arrowId = entities.getArrowId(slot);
         
-        // Генерируем уникальный ID для стрелы
-        String arrowId = playerName + "_" + System.currentTimeMillis();
+        targetGrid.predictArrow(entities, slot, fieldWidth);
+        arrowEvents.schedule(entities.getArrowResolveTick(slot), slot, arrowId);
         
-        // Сначала отправляем информацию о выстреле клиентам с ID стрелы
-        server.broadcast("ARROW:" + playerName + ":" + arrowY + ":" + arrowId);
-        server.broadcastGameState();
+        // Отправляем клиентам выстрел с ID стрелы и ее полетом: дальше клиент ведет стрелу сам
+        room.broadcastArrow(ownerSlot, player.getName(), SHOOTER_BASE_WIDTH, arrowY, ARROW_SPEED, arrowId, tick);
+    }
+    
+    /**
+     * Применяет заранее вычисленный исход полета стрелы
+     */
+    private void resolveArrow(int slot) {
+        int owner = entities.getArrowOwner(slot);
+        int arrowId = entities.getArrowId(slot);
+        int target = entities.getArrowHitTarget(slot);
+        long tick = entities.getArrowResolveTick(slot);
+        entities.releaseArrow(slot);
         
-        // Создаем объект стрелы с начальной позицией
-        Arrow arrow = new Arrow(playerName, SHOOTER_BASE_WIDTH, arrowY, arrowId);
+        Player player = playerSlots[owner];
+        if (player == null) {
+            // Игрок вышел, пока стрела летела
+            checkGameEnd(null);
+            return;
+        }
+        String playerName = player.getName();
         
-        // Создаем поток для симуляции движения стрелы
-        Thread arrowThread = new Thread(() -> {
-            double arrowSpeed = 10.0;
-            boolean hitTarget = false;
-            
-            while (!hitTarget && arrow.getX() < FIELD_WIDTH) {
-                // Продвигаем стрелу вперед
-                arrow.setX(arrow.getX() + arrowSpeed);
-                
-                // Точно так же уведомляем клиентов о новой позиции стрелы, добавляя ID стрелы
-                server.broadcast("ARROW_POSITION:" + playerName + ":" + arrow.getX() + ":" + arrow.getY() + ":" + arrow.getId());
-                
-                // Проверяем попадание в первую мишень
-                if (Math.abs(arrow.getX() - TARGET1_X) < arrowSpeed && 
-                    checkHitTarget(TARGET1_X, target1Y, TARGET1_RADIUS, arrow.getY())) {
-                    hitTarget = true;
-                    player.addScore(1);
-                    System.out.println("Игрок " + playerName + " попал в мишень 1! Счет: " + player.getScore());
-                    
-                    // Отправляем информацию о попадании с ID стрелы
-                    server.broadcast("HIT:" + playerName + ":1:" + TARGET1_X + ":" + target1Y + ":" + arrow.getId());
-                    
-                    // Немедленно обновляем состояние игры
-                    server.broadcastGameState();
-                }
-                
-                // Проверяем попадание во вторую мишень
-                else if (Math.abs(arrow.getX() - TARGET2_X) < arrowSpeed && 
-                        checkHitTarget(TARGET2_X, target2Y, TARGET2_RADIUS, arrow.getY())) {
-                    hitTarget = true;
-                    player.addScore(2);
-                    System.out.println("Игрок " + playerName + " попал в мишень 2! Счет: " + player.getScore());
-                    
-                    // Отправляем информацию о попадании с ID стрелы
-                    server.broadcast("HIT:" + playerName + ":2:" + TARGET2_X + ":" + target2Y + ":" + arrow.getId());
-                    
-                    // Немедленно обновляем состояние игры
-                    server.broadcastGameState();
-                }
-                
-                try {
-                    Thread.sleep(16); // ~60 fps
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-            
-            // Если стрела не попала, уведомляем клиентов с ID стрелы
-            if (!hitTarget) {
-                server.broadcast("MISS:" + playerName + ":" + arrow.getId());
-            }
+        if (target >= 0) {
+            int targetNum = target + 1;
+            player.addScore(entities.getTargetPoints(target));
+            System.out.println("Игрок " + playerName + " попал в мишень " + targetNum + "! Счет: " + player.getScore());
             
-            // Проверка на победителя
-            if (player.getScore() >= 6) {
-                endGame(player.getName());
-            }
-            // Проверка на 0 выстрелов у всех
-            int sum = 0;
-            for (Player p : players.values()) {
-                sum += p.getShots();
-            }
-            if (sum==0) {
-                endGame("None");
-            }
-        });
+            // Отправляем информацию о попадании с ID стрелы
+            room.broadcastHit(owner, playerName, targetNum, entities.getTargetX(target),
+                    entities.getTargetYAt(target, tick), arrowId, tick);
+        } else {
+            // Стрела улетела за поле, уведомляем клиентов о промахе с ID стрелы
+            room.broadcastMiss(owner, playerName, arrowId, tick);
+        }
         
-        arrowThread.setDaemon(true);
-        arrowThread.start();
+        checkGameEnd(player);
     }
     
-    private double calculatePlayerPosition(String playerName, int totalPlayers) {
-        // Находим индекс игрока
+    private void checkGameEnd(Player player) {
+        // Проверка на победителя
+        if (player != null && player.getScore() >= 6) {
+            endGame(player.getName());
+            return;
+        }
+        // Проверка на 0 выстрелов у всех
+        int sum = 0;
+        for (Player p : players.values()) {
+            sum += p.getShots();
+        }
+        if (sum == 0 && entities.getLiveArrowCount() == 0) {
+            endGame("None");
+        }
+    }
+    
+    private double calculatePlayerPosition(int slot) {
+        // Дорожка игрока - номер его слота среди занятых, в том же порядке игроки идут в состоянии
         int playerIndex = 0;
-        List<String> playerNames = new ArrayList<>(players.keySet());
-        for (int i = 0; i < playerNames.size(); i++) {
-            if (playerNames.get(i).equals(playerName)) {
-                playerIndex = i;
-                break;
-            }
+        int totalPlayers = 0;
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            if (playerSlots[i] == null) continue;
+            if (i < slot) playerIndex++;
+            totalPlayers++;
         }
         
         // Рассчитываем позицию Y для игрока
@@ -267,82 +329,60 @@ public class ServerGame {
         return yStep * (playerIndex + 1);
     }
     
-    private boolean checkHitTarget(double targetX, double targetY, double targetRadius, double arrowY) {
-        // Точная проверка попадания
-        return Math.abs(targetY - arrowY) <= targetRadius;
-    }
-    
     private void endGame(String winnerName) {
         isGameRunning = false;
         isPaused = false;
+        loop.setActive(false);
+        entities.clearArrows();
+        arrowEvents.clear();
+        System.out.println("Игра окончена, игровой цикл: " + loop.getStatsAsString());
         
-        // Сохраняем победу игрока в базе данных
-        server.incrementPlayerWins(winnerName);
+        // Сохраняем победу игрока: сразу в таблице лидеров, в базе - через журнал побед
+        room.incrementPlayerWins(winnerName);
         
         // Обновляем таблицу лидеров для всех клиентов
-        server.broadcastLeaderboard();
+        room.broadcastLeaderboard();
         
         // Сбрасываем статус готовности всех игроков
-        server.resetAllPlayersReady();
+        room.resetAllPlayersReady();
         
-        server.setGameEnded();
-        server.broadcast("GAME_OVER:" + winnerName);
+        room.setGameEnded();
+        room.broadcast("GAME_OVER:" + winnerName);
+        room.stopRecording();
+    }
+    
+    /**
+     * Последний опубликованный снимок состояния. Безопасен для чтения из любого потока.
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
     }
     
     public String getGameStateAsString() {
-        StringBuilder state = new StringBuilder("GAME_STATE:");
-        state.append(isGameRunning).append(":");
-        state.append(isPaused).append(":");
-        state.append(target1Y).append(":");
-        state.append(target2Y).append(":");
-        state.append(pauseRequestedBy == null ? "null" : pauseRequestedBy).append(":");
-        
-        state.append(players.size()).append(":");
-        for (Player player : players.values()) {
-            state.append(player.getName()).append(",");
-            state.append(player.getScore()).append(",");
-            state.append(player.getShots()).append(";");
-        }
-        
-        return state.toString();
+        return snapshot.getStateMessage();
+    }
+    
+    public boolean isGameRunning() {
+        return snapshot.isRunning();
     }
     
     public boolean isPaused() {
-        return isPaused;
+        return snapshot.isPaused();
     }
     
     public String getPauseRequestedBy() {
-        return pauseRequestedBy;
+        return snapshot.getPauseRequestedBy();
     }
     
-    // Внутренний класс для представления стрелы
-    private static class Arrow {
-        private String playerName;
-        private double x;
-        private double y;
-        private String id;
-        
-        public Arrow(String playerName, double startX, double startY, String id) {
-            this.playerName = playerName;
-            this.x = startX;
-            this.y = startY;
-            this.id = id;
-        }
-        
-        public double getX() {
-            return x;
-        }
-        
-        public void setX(double x) {
-            this.x = x;
-        }
-        
-        public double getY() {
-            return y;
-        }
-        
-        public String getId() {
-            return id;
-        }
+    public long getGameTick() {
+        return snapshot.getTick();
+    }
+    
+    public ArenaDefinition getArena() {
+        return arena;
+    }
+    
+    public GameLoop getLoop() {
+        return loop;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,153 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Зрители комнаты. Игровой цикл только публикует уже закодированные кадры рассылки,
+ * а раздает их зрителям отдельная задача пула, поэтому число зрителей не добавляет работы циклу.
+ * Задачи ленты выполняются строго по очереди в порядке публикации: вход зрителя, кадры, выход.
+ * Вход и выход ставит в очередь поток игрового цикла, поэтому первый кадр после входа
+ * продолжает опорный кадр, с которым зритель вошел.
+ */
+public class SpectatorFeed {
+    
+    /**
+     * Зритель и его протокол; принадлежит задаче ленты
+     */
+    private static class Spectator {
+        final ClientHandler client;
+        final boolean binary;
+        // Опорный кадр уже запрошен у игрового цикла, повторно не просим
+        boolean resyncPending;
+        
+        Spectator(ClientHandler client) {
+            this.client = client;
+            this.binary = client.isBinaryProtocol();
+        }
+    }
+    
+    private final GameRoom room;
+    private final SerialExecutor tasks;
+    private final List<Spectator> spectators = new ArrayList<>();
+    private volatile int spectatorCount = 0;
+    private final AtomicLong resyncs = new AtomicLong();
+    
+    public SpectatorFeed(GameRoom room, Executor executor) {
+        this.room = room;
+        this.tasks = new SerialExecutor(executor, "рассылки зрителям комнаты " + room.getId());
+    }
+    
+    /**
+     * Добавляет зрителя: сначала раскладка арены и опорный кадр текущей базы (null - состояния еще не было),
+     * затем все следующие кадры комнаты. Вызывается из потока игрового цикла.
+     */
+    public void add(ClientHandler client, String arenaMessage, byte[][] keyframe) {
+        enqueue(() -> {
+            Spectator spectator = new Spectator(client);
+            client.sendMessage(arenaMessage);
+            if (keyframe != null) {
+                client.sendLatestFrame(keyframe[spectator.binary ? 1 : 0], true);
+            }
+            spectators.add(spectator);
+            spectatorCount = spectators.size();
+        });
+    }
+    
+    /**
+     * Убирает зрителя; вызывается из потока игрового цикла
+     */
+    public void remove(ClientHandler client) {
+        enqueue(() -> {
+            spectators.removeIf(spectator -> spectator.client == client);
+            spectatorCount = spectators.size();
+        });
+    }
+    
+    /**
+     * Кадры тика для каждого протокола (null - кадра нет): события доставляются всегда,
+     * позиции стрел и состояние вытесняются следующими. Вызывается из потока игрового цикла.
+     */
+    public void publish(byte[] textEvents, byte[] binaryEvents, byte[] textLatest, byte[] binaryLatest, boolean keyframe) {
+        enqueue(() -> {
+            for (Spectator spectator : spectators) {
+                byte[] events = spectator.binary ? binaryEvents : textEvents;
+                if (events != null) {
+                    spectator.client.sendFrame(events);
+                }
+                byte[] latest = spectator.binary ? binaryLatest : textLatest;
+                if (latest != null && spectator.client.sendLatestFrame(latest, keyframe)) {
+                    // Зритель потерял дельту: опорный кадр с той же базой подготовит игровой цикл
+                    requestResync(spectator);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Зритель просит опорный кадр (STATE_RESYNC)
+     */
+    public void requestResync(ClientHandler client) {
+        enqueue(() -> {
+            for (Spectator spectator : spectators) {
+                if (spectator.client == client) {
+                    requestResync(spectator);
+                }
+            }
+        });
+    }
+    
+    private void requestResync(Spectator spectator) {
+        if (spectator.resyncPending) return;
+        spectator.resyncPending = true;
+        room.resyncSpectator(spectator.client);
+    }
+    
+    /**
+     * Опорный кадр текущей базы для одного зрителя (null - состояния еще не было, первым придет опорный кадр).
+     * Вызывается из потока игрового цикла
+     */
+    public void sendKeyframe(ClientHandler client, byte[][] keyframe) {
+        enqueue(() -> {
+            for (Spectator spectator : spectators) {
+                if (spectator.client == client) {
+                    spectator.resyncPending = false;
+                    if (keyframe != null) {
+                        client.sendLatestFrame(keyframe[spectator.binary ? 1 : 0], true);
+                        resyncs.incrementAndGet();
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Комната закрыта: зрители получают ROOM_CLOSED и отключаются от комнаты, но не от сервера
+     */
+    public void close() {
+        enqueue(() -> {
+            for (Spectator spectator : spectators) {
+                spectator.client.onSpectatedRoomClosed(room);
+            }
+            spectators.clear();
+            spectatorCount = 0;
+        });
+    }
+    
+    private void enqueue(Runnable task) {
+        tasks.execute(task);
+    }
+    
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+    
+    /**
+     * Сколько опорных кадров отправлено зрителям, потерявшим дельту или попросившим его
+     */
+    public long getResyncs() {
+        return resyncs.get();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,209 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.protocol.BinaryProtocol;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Превращает поток снимков комнаты в опорные кадры и дельты ({@link StateUpdate}).
+ * Опорный кадр содержит все состояние, дельта - только то, что изменилось относительно
+ * предыдущего отправленного состояния: флаги, кто поставил паузу, поправки мишеней,
+ * счет и выстрелы игроков, ушедшие игроки.
+ *
+ * Мишени клиент ведет сам: между поправками Y = y + v * (тик - тик_поправки).
+ * Сервер считает ту же экстраполяцию по тем же округленным до точности протокола значениям
+ * и присылает мишень, только если она разошлась с фактической позицией (обычно это отражение
+ * от края дорожки), поэтому при обычном движении дельта почти пустая. TCP доставляет сообщения
+ * по порядку, так что отправленное состояние и есть подтвержденное: база для дельт одна на всю комнату.
+ * Клиент, у которого сбился номер, просит STATE_RESYNC и получает опорный кадр.
+ *
+ * encode() вызывается только из потока игрового цикла комнаты.
+ */
+public class StateDeltaEncoder {
+    // Опорный кадр не реже чем раз в столько состояний (6 секунд при рассылке 20 раз в секунду)
+    public static final int KEYFRAME_INTERVAL = 120;
+    // Расхождение экстраполяции с фактической позицией, при котором мишень попадает в дельту;
+    // больше шага квантования координат, иначе поправки шли бы каждый тик
+    private static final double TARGET_EPSILON = 0.25;
+    
+    private volatile boolean keyframeRequested = true;
+    private long sequence = 0;
+    private int statesSinceKeyframe = 0;
+    
+    // Состояние, которое сейчас у клиентов
+    private long baseTick = 0;
+    private boolean baseRunning;
+    private boolean basePaused;
+    private String basePauseBy;
+    private double[] baseTargetY = new double[0];
+    private double[] baseTargetV = new double[0];
+    private long[] baseTargetTick = new long[0];
+    private final Map<String, GameSnapshot.PlayerState> basePlayers = new LinkedHashMap<>();
+    
+    // Статистика для метрик
+    private final AtomicLong keyframeCount = new AtomicLong();
+    private final AtomicLong deltaCount = new AtomicLong();
+    
+    /**
+     * Следующее состояние будет отправлено опорным кадром (вход игрока, запрос клиента)
+     */
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+    
+    /**
+     * Обновление для рассылки снимка: опорный кадр или дельта к предыдущему отправленному состоянию
+     */
+    public StateUpdate encode(GameSnapshot snapshot) {
+        sequence++;
+        
+        boolean keyframe = keyframeRequested
+                || statesSinceKeyframe >= KEYFRAME_INTERVAL
+                || snapshot.getTick() < baseTick
+                || snapshot.getTargetCount() != baseTargetY.length;
+        
+        return keyframe ? encodeKeyframe(snapshot) : encodeDelta(snapshot);
+    }
+    
+    private StateUpdate encodeKeyframe(GameSnapshot snapshot) {
+        keyframeRequested = false;
+        statesSinceKeyframe = 0;
+        keyframeCount.incrementAndGet();
+        
+        int targetCount = snapshot.getTargetCount();
+        long tick = snapshot.getTick();
+        StateUpdate update = new StateUpdate(true, sequence, tick, targetCount);
+        
+        baseTargetY = new double[targetCount];
+        baseTargetV = new double[targetCount];
+        baseTargetTick = new long[targetCount];
+        for (int target = 0; target < targetCount; target++) {
+            double y = BinaryProtocol.roundPosition(snapshot.getTargetY(target));
+            double v = BinaryProtocol.roundVelocity(snapshot.getTargetVelocity(target));
+            baseTargetY[target] = y;
+            baseTargetV[target] = v;
+            baseTargetTick[target] = tick;
+            update.addTarget(target, y, v);
+        }
+        
+        baseTick = tick;
+        baseRunning = snapshot.isRunning();
+        basePaused = snapshot.isPaused();
+        basePauseBy = snapshot.getPauseRequestedBy();
+        update.running = baseRunning;
+        update.paused = basePaused;
+        update.pauseBy = basePauseBy;
+        update.pauseBySlot = slotOf(snapshot, basePauseBy);
+        
+        basePlayers.clear();
+        for (GameSnapshot.PlayerState player : snapshot.getPlayers()) {
+            basePlayers.put(player.getName(), player);
+            update.players.add(player);
+        }
+        return update;
+    }
+    
+    private StateUpdate encodeDelta(GameSnapshot snapshot) {
+        statesSinceKeyframe++;
+        deltaCount.incrementAndGet();
+        long tick = snapshot.getTick();
+        StateUpdate update = new StateUpdate(false, sequence, tick, baseTargetY.length);
+        
+        if (snapshot.isRunning() != baseRunning || snapshot.isPaused() != basePaused) {
+            baseRunning = snapshot.isRunning();
+            basePaused = snapshot.isPaused();
+            update.flagsChanged = true;
+        }
+        update.running = baseRunning;
+        update.paused = basePaused;
+        
+        String pauseBy = snapshot.getPauseRequestedBy();
+        if (pauseBy == null ? basePauseBy != null : !pauseBy.equals(basePauseBy)) {
+            basePauseBy = pauseBy;
+            update.pauseByChanged = true;
+        }
+        update.pauseBy = basePauseBy;
+        update.pauseBySlot = slotOf(snapshot, basePauseBy);
+        
+        for (int target = 0; target < baseTargetY.length; target++) {
+            double y = snapshot.getTargetY(target);
+            double predicted = baseTargetY[target] + baseTargetV[target] * (tick - baseTargetTick[target]);
+            double v = BinaryProtocol.roundVelocity(snapshot.getTargetVelocity(target));
+            if (Math.abs(predicted - y) > TARGET_EPSILON || v != baseTargetV[target]) {
+                baseTargetY[target] = BinaryProtocol.roundPosition(y);
+                baseTargetV[target] = v;
+                baseTargetTick[target] = tick;
+                update.addTarget(target, baseTargetY[target], v);
+            }
+        }
+        
+        for (GameSnapshot.PlayerState player : snapshot.getPlayers()) {
+            GameSnapshot.PlayerState known = basePlayers.get(player.getName());
+            if (known == null) {
+                update.players.add(player);
+                update.joinedPlayers.add(player);
+            } else if (known.getScore() != player.getScore() || known.getShots() != player.getShots()) {
+                update.players.add(player);
+            }
+            basePlayers.put(player.getName(), player);
+        }
+        // Кто-то из известных клиентам игроков ушел
+        if (basePlayers.size() != snapshot.getPlayers().size()) {
+            Iterator<GameSnapshot.PlayerState> known = basePlayers.values().iterator();
+            while (known.hasNext()) {
+                GameSnapshot.PlayerState player = known.next();
+                if (slotOf(snapshot, player.getName()) < 0) {
+                    known.remove();
+                    update.removedPlayers.add(player);
+                }
+            }
+        }
+        
+        baseTick = tick;
+        return update;
+    }
+    
+    /**
+     * Опорный кадр с текущей базой под номером последнего обновления. Нужен клиенту, у которого
+     * в очереди отправки вытеснили дельту: после него клиент применяет следующие дельты, как все.
+     * Мишени экстраполируются от их поправок к тику базы, поэтому прогноз клиента совпадает с серверным.
+     * Состояние кодировщика не меняет.
+     */
+    public StateUpdate baseKeyframe() {
+        int targetCount = baseTargetY.length;
+        StateUpdate update = new StateUpdate(true, sequence, baseTick, targetCount);
+        for (int target = 0; target < targetCount; target++) {
+            update.addTarget(target, baseTargetY[target] + baseTargetV[target] * (baseTick - baseTargetTick[target]),
+                    baseTargetV[target]);
+        }
+        update.running = baseRunning;
+        update.paused = basePaused;
+        update.pauseBy = basePauseBy;
+        GameSnapshot.PlayerState pausedBy = basePauseBy == null ? null : basePlayers.get(basePauseBy);
+        update.pauseBySlot = pausedBy == null ? -1 : pausedBy.getSlot();
+        update.players.addAll(basePlayers.values());
+        return update;
+    }
+    
+    /**
+     * Клиентам уже отправлялось хотя бы одно состояние, и {@link #baseKeyframe()} его повторит
+     */
+    public boolean hasBase() {
+        return sequence > 0;
+    }
+    
+    private static int slotOf(GameSnapshot snapshot, String name) {
+        return name == null ? -1 : snapshot.getSlot(name);
+    }
+    
+    public long getKeyframeCount() {
+        return keyframeCount.get();
+    }
+    
+    public long getDeltaCount() {
+        return deltaCount.get();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,126 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Одно обновление состояния для рассылки: опорный кадр или дельта.
+ * Готовит {@link StateDeltaEncoder}, а текстовый и двоичный кодировщики кадров
+ * только сериализуют его, поэтому решение "что изменилось" принимается один раз на комнату.
+ * Позиции и скорости мишеней уже округлены до точности протокола.
+ */
+public class StateUpdate {
+    private final boolean keyframe;
+    private final long sequence;
+    private final long tick;
+    
+    boolean flagsChanged;
+    boolean pauseByChanged;
+    boolean running;
+    boolean paused;
+    String pauseBy;
+    int pauseBySlot = -1;
+    
+    // Опорный кадр: все мишени по порядку; дельта: только поправки
+    int targetUpdateCount;
+    int[] targetIndex;
+    double[] targetY;
+    double[] targetVelocity;
+    
+    // Опорный кадр: все игроки; дельта: изменившиеся
+    final List<GameSnapshot.PlayerState> players = new ArrayList<>();
+    // Только для дельты: игроки, которых клиенты еще не видели (входят и в players)
+    final List<GameSnapshot.PlayerState> joinedPlayers = new ArrayList<>();
+    final List<GameSnapshot.PlayerState> removedPlayers = new ArrayList<>();
+    
+    StateUpdate(boolean keyframe, long sequence, long tick, int targetCapacity) {
+        this.keyframe = keyframe;
+        this.sequence = sequence;
+        this.tick = tick;
+        this.targetIndex = new int[targetCapacity];
+        this.targetY = new double[targetCapacity];
+        this.targetVelocity = new double[targetCapacity];
+    }
+    
+    void addTarget(int index, double y, double velocity) {
+        targetIndex[targetUpdateCount] = index;
+        targetY[targetUpdateCount] = y;
+        targetVelocity[targetUpdateCount] = velocity;
+        targetUpdateCount++;
+    }
+    
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    public boolean isFlagsChanged() {
+        return flagsChanged;
+    }
+    
+    public boolean isPauseByChanged() {
+        return pauseByChanged;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    public String getPauseBy() {
+        return pauseBy;
+    }
+    
+    /**
+     * Слот игрока, поставившего паузу, или -1
+     */
+    public int getPauseBySlot() {
+        return pauseBySlot;
+    }
+    
+    public int getTargetUpdateCount() {
+        return targetUpdateCount;
+    }
+    
+    public int getTargetIndex(int i) {
+        return targetIndex[i];
+    }
+    
+    public double getTargetY(int i) {
+        return targetY[i];
+    }
+    
+    public double getTargetVelocity(int i) {
+        return targetVelocity[i];
+    }
+    
+    public List<GameSnapshot.PlayerState> getPlayers() {
+        return players;
+    }
+    
+    public boolean isJoined(GameSnapshot.PlayerState player) {
+        return joinedPlayers.contains(player);
+    }
+    
+    public List<GameSnapshot.PlayerState> getRemovedPlayers() {
+        return removedPlayers;
+    }
+    
+    /**
+     * Обновление меняет не только движение мишеней: начало или конец игры, паузу, счет, состав игроков.
+     * Такое состояние клиент UDP-канала получает по TCP.
+     */
+    public boolean hasControlChanges() {
+        return keyframe || flagsChanged || pauseByChanged || !players.isEmpty() || !removedPlayers.isEmpty();
+    }
+} 
\ No newline at end of file
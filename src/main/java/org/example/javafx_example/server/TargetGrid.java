@@ -0,0 +1,171 @@
+package org.example.javafx_example.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Широкая фаза проверки попаданий: равномерная сетка по оси Y.
+ * Стрела летит горизонтально, поэтому попасть в нее может только мишень, чья дорожка
+ * (с учетом радиуса) перекрывает Y стрелы. Каждая ячейка хранит индексы таких мишеней,
+ * отсортированные по X, так что выстрел проверяет только мишени своей полосы и прекращает
+ * перебор, как только следующая мишень заведомо дальше уже найденного попадания.
+ * Дорожки мишеней не меняются во время игры, поэтому сетка строится один раз на арену.
+ */
+public class TargetGrid {
+    public static final double DEFAULT_CELL_HEIGHT = 20.0;
+    
+    private final double originY;
+    private final double cellHeight;
+    private final int rows;
+    private final int[][] cells;
+    private final double[][] cellX;
+    
+    public TargetGrid(EntityStore store, double fieldHeight, double cellHeight) {
+        this.originY = 0.0;
+        this.cellHeight = cellHeight;
+        this.rows = Math.max(1, (int) Math.ceil(fieldHeight / cellHeight));
+        this.cells = new int[rows][];
+        this.cellX = new double[rows][];
+        
+        List<List<Integer>> buckets = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            buckets.add(new ArrayList<>());
+        }
+        
+        for (int target = 0; target < store.getTargetCount(); target++) {
+            double radius = store.getTargetRadius(target);
+            int fromRow = rowOf(store.getTargetMinY(target) - radius);
+            int toRow = rowOf(store.getTargetMaxY(target) + radius);
+            for (int row = fromRow; row <= toRow; row++) {
+                buckets.get(row).add(target);
+            }
+        }
+        
+        for (int row = 0; row < rows; row++) {
+            List<Integer> bucket = buckets.get(row);
+            bucket.sort((a, b) -> Double.compare(store.getTargetX(a), store.getTargetX(b)));
+            cells[row] = new int[bucket.size()];
+            cellX[row] = new double[bucket.size()];
+            for (int i = 0; i < bucket.size(); i++) {
+                cells[row][i] = bucket.get(i);
+                cellX[row][i] = store.getTargetX(bucket.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Находит тик, на котором стрела попадет в мишень или вылетит за поле, и записывает исход в хранилище.
+     * Проверки те же, что при пошаговом полете: на каждом тике стрела сдвигается на vx,
+     * попадание засчитывается, если она в пределах шага от оси мишени и мишень в этот тик
+     * перекрывает ее по Y. При совпадении тиков выигрывает мишень с меньшим индексом, попадание важнее промаха.
+     */
+    public void predictArrow(EntityStore store, int slot, double fieldWidth) {
+        long spawnTick = store.getArrowSpawnTick(slot);
+        double x0 = store.getArrowX0(slot);
+        double vx = store.getArrowVx(slot);
+        
+        long bestTick = missTick(spawnTick, x0, vx, fieldWidth);
+        int bestTarget = -1;
+        
+        int row = rowOf(store.getArrowY(slot));
+        int[] candidates = cells[row];
+        double[] xs = cellX[row];
+        
+        // Мишени левее точки вылета (с учетом шага) стреле не достать
+        int start = Arrays.binarySearch(xs, x0 - vx);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        while (start > 0 && xs[start - 1] > x0 - vx) {
+            start--;
+        }
+        
+        for (int i = start; i < candidates.length; i++) {
+            long first = firstTick(spawnTick, x0, vx, xs[i]);
+            // Дальше по X мишени только позже
+            if (first > bestTick) break;
+            
+            int target = candidates[i];
+            long hit = hitTick(store, slot, target, first, bestTick);
+            if (hit >= 0 && (hit < bestTick || (hit == bestTick && (bestTarget < 0 || target < bestTarget)))) {
+                bestTick = hit;
+                bestTarget = target;
+            }
+        }
+        
+        store.setArrowResolution(slot, bestTick, bestTarget);
+    }
+    
+    /**
+     * То же без широкой фазы: перебор всех мишеней. Эталон для сравнения в бенчмарке.
+     */
+    public static void predictArrowBruteForce(EntityStore store, int slot, double fieldWidth) {
+        long spawnTick = store.getArrowSpawnTick(slot);
+        double x0 = store.getArrowX0(slot);
+        double vx = store.getArrowVx(slot);
+        
+        long bestTick = missTick(spawnTick, x0, vx, fieldWidth);
+        int bestTarget = -1;
+        
+        int targetCount = store.getTargetCount();
+        for (int target = 0; target < targetCount; target++) {
+            long first = firstTick(spawnTick, x0, vx, store.getTargetX(target));
+            long hit = hitTick(store, slot, target, first, bestTick);
+            if (hit >= 0 && (hit < bestTick || (hit == bestTick && bestTarget < 0))) {
+                bestTick = hit;
+                bestTarget = target;
+            }
+        }
+        
+        store.setArrowResolution(slot, bestTick, bestTarget);
+    }
+    
+    /**
+     * Число мишеней-кандидатов для стрелы на высоте y
+     */
+    public int candidateCount(double y) {
+        return cells[rowOf(y)].length;
+    }
+    
+    public int getRows() {
+        return rows;
+    }
+    
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - originY) / cellHeight);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+    
+    private static long missTick(long spawnTick, double x0, double vx, double fieldWidth) {
+        return spawnTick + Math.max(1, (long) Math.ceil((fieldWidth - x0) / vx));
+    }
+    
+    private static long firstTick(long spawnTick, double x0, double vx, double targetX) {
+        return spawnTick + Math.max(1, (long) Math.floor((targetX - vx - x0) / vx));
+    }
+    
+    /**
+     * Первый тик из [first, limit], на котором стрела попадает в мишень, или -1
+     */
+    private static long hitTick(EntityStore store, int slot, int target, long first, long limit) {
+        if (!store.isTargetAlive(target)) return -1;
+        
+        long spawnTick = store.getArrowSpawnTick(slot);
+        double x0 = store.getArrowX0(slot);
+        double y = store.getArrowY(slot);
+        double vx = store.getArrowVx(slot);
+        double targetX = store.getTargetX(target);
+        double radius = store.getTargetRadius(target);
+        
+        // Тики, на которых стрела находится ближе шага к оси мишени
+        long last = spawnTick + (long) Math.ceil((targetX + vx - x0) / vx);
+        for (long t = first; t <= last && t <= limit; t++) {
+            if (Math.abs(store.getArrowXAt(slot, t) - targetX) < vx
+                    && Math.abs(store.getTargetYAt(target, t) - y) <= radius) {
+                return t;
+            }
+        }
+        return -1;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,131 @@
+package org.example.javafx_example.server;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Кадр рассылки в текстовом протоколе: сообщения через двоеточие, по одному на строку, UTF-8.
+ * Форматы сообщений те же, что понимают старые клиенты.
+ */
+public class TextFrameEncoder implements FrameEncoder {
+    private final StringBuilder pending = new StringBuilder(1024);
+    private int messageCount = 0;
+    
+    @Override
+    public void state(StateUpdate update) {
+        if (update.isKeyframe()) {
+            // GAME_STATE:идет:пауза:y1:y2:кто_на_паузе:игроков:имя,счет,выстрелы;...:номер:тик:v1,...,vN:y3,...,yN
+            // Первые восемь полей - прежний формат, их читают старые клиенты; остальное дописано в конец
+            int targets = update.getTargetUpdateCount();
+            pending.append("GAME_STATE:");
+            pending.append(update.isRunning()).append(":");
+            pending.append(update.isPaused()).append(":");
+            pending.append(targets > 0 ? update.getTargetY(0) : 0.0).append(":");
+            pending.append(targets > 1 ? update.getTargetY(1) : 0.0).append(":");
+            pending.append(update.getPauseBy() == null ? "null" : update.getPauseBy()).append(":");
+            pending.append(update.getPlayers().size()).append(":");
+            for (GameSnapshot.PlayerState player : update.getPlayers()) {
+                pending.append(player.getName()).append(",")
+                       .append(player.getScore()).append(",")
+                       .append(player.getShots()).append(";");
+            }
+            pending.append(":").append(update.getSequence()).append(":").append(update.getTick()).append(":");
+            for (int i = 0; i < targets; i++) {
+                if (i > 0) {
+                    pending.append(",");
+                }
+                pending.append(update.getTargetVelocity(i));
+            }
+            pending.append(":");
+            for (int i = 2; i < targets; i++) {
+                if (i > 2) {
+                    pending.append(",");
+                }
+                pending.append(update.getTargetY(i));
+            }
+        } else {
+            // STATE_DELTA:номер:тик:изменение;изменение;...
+            pending.append("STATE_DELTA:").append(update.getSequence()).append(":").append(update.getTick()).append(":");
+            if (update.isFlagsChanged()) {
+                pending.append("run=").append(update.isRunning()).append(";");
+                pending.append("pause=").append(update.isPaused()).append(";");
+            }
+            if (update.isPauseByChanged()) {
+                pending.append("by=").append(update.getPauseBy() == null ? "null" : update.getPauseBy()).append(";");
+            }
+            for (int i = 0; i < update.getTargetUpdateCount(); i++) {
+                pending.append("t=").append(update.getTargetIndex(i)).append(",")
+                       .append(update.getTargetY(i)).append(",")
+                       .append(update.getTargetVelocity(i)).append(";");
+            }
+            for (GameSnapshot.PlayerState player : update.getPlayers()) {
+                pending.append("p=").append(player.getName()).append(",")
+                       .append(player.getScore()).append(",")
+                       .append(player.getShots()).append(";");
+            }
+            for (GameSnapshot.PlayerState player : update.getRemovedPlayers()) {
+                pending.append("x=").append(player.getName()).append(";");
+            }
+        }
+        endMessage();
+    }
+    
+    @Override
+    public void arrow(int slot, String playerName, double x, double y, double vx, int arrowId, long tick) {
+        // ARROW:имя:y:id:x:vx:тик; старые клиенты читают первые четыре поля
+        pending.append("ARROW:").append(playerName).append(":").append(y).append(":").append(arrowId).append(":")
+               .append(x).append(":").append(vx).append(":").append(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void arrowPosition(int slot, String playerName, double x, double y, int arrowId, long tick) {
+        // ARROW_POSITION:имя:x:y:id:тик; старые клиенты читают первые пять полей
+        pending.append("ARROW_POSITION:").append(playerName).append(":").append(x).append(":")
+               .append(y).append(":").append(arrowId).append(":").append(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void hit(int slot, String playerName, int targetNum, double x, double y, int arrowId, long tick) {
+        // HIT:имя:мишень:x:y:id:тик
+        pending.append("HIT:").append(playerName).append(":").append(targetNum).append(":")
+               .append(x).append(":").append(y).append(":").append(arrowId).append(":").append(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void miss(int slot, String playerName, int arrowId, long tick) {
+        // MISS:имя:id:тик
+        pending.append("MISS:").append(playerName).append(":").append(arrowId).append(":").append(tick);
+        endMessage();
+    }
+    
+    @Override
+    public void text(String message) {
+        pending.append(message);
+        endMessage();
+    }
+    
+    private void endMessage() {
+        pending.append('\n');
+        messageCount++;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return messageCount == 0;
+    }
+    
+    @Override
+    public int getMessageCount() {
+        return messageCount;
+    }
+    
+    @Override
+    public byte[] drain() {
+        byte[] bytes = pending.toString().getBytes(StandardCharsets.UTF_8);
+        pending.setLength(0);
+        messageCount = 0;
+        return bytes;
+    }
+} 
\ No newline at end of file
@@ -14,9 +14,19 @@ public class HibernateUtil {
                 // Создаем конфигурацию из hibernate.cfg.xml
                 Configuration configuration = new Configuration();
                 configuration.configure("hibernate.cfg.xml");
+                // Другая база вместо ./gamedb (например, для замеров): -Ddb.url=jdbc:h2:./benchdb
+                String url = System.getProperty("db.url");
+                if (url != null) {
+                    configuration.setProperty("hibernate.connection.url", url);
+                }
+                String showSql = System.getProperty("db.showSql");
+                if (showSql != null) {
+                    configuration.setProperty("hibernate.show_sql", showSql);
+                }
                 
                 // Добавляем наши сущности
                 configuration.addAnnotatedClass(UserEntity.class);
+                configuration.addAnnotatedClass(JournalPosition.class);
                 
                 // Создаем service registry
                 ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
@@ -0,0 +1,38 @@
+package org.example.javafx_example.server.database;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// Номер последней записи журнала побед, уже внесенной в базу. Одна строка; меняется в той же транзакции, что и победы
+@Entity
+@Table(name = "win_journal")
+public class JournalPosition {
+    static final int ID = 1;
+    
+    @Id
+    private int id;
+    
+    private long appliedSeq;
+    
+    // Конструктор по умолчанию для Hibernate
+    public JournalPosition() {
+    }
+    
+    JournalPosition(long appliedSeq) {
+        this.id = ID;
+        this.appliedSeq = appliedSeq;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+    
+    public void setAppliedSeq(long appliedSeq) {
+        this.appliedSeq = appliedSeq;
+    }
+} 
\ No newline at end of file
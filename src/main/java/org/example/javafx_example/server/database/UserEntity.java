@@ -2,10 +2,12 @@ package org.example.javafx_example.server.database;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
+// Индекс в порядке таблицы лидеров: первые страницы и страницы "после" читаются из индекса без сортировки
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_wins", columnList = "wins DESC, username ASC"))
 public class UserEntity {
     
     @Id
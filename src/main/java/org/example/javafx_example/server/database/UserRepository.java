@@ -4,7 +4,9 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class UserRepository {
     
@@ -38,9 +40,9 @@ public class UserRepository {
     }
     
     /**
-     * Добавить победу пользователю
+     * Добавить победу пользователю; возвращает новое число побед или -1, если записать не удалось
      */
-    public void incrementUserWins(String username) {
+    public int incrementUserWins(String username) {
         Transaction transaction = null;
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
             transaction = session.beginTransaction();
@@ -54,11 +56,62 @@ public class UserRepository {
             session.saveOrUpdate(user);
             
             transaction.commit();
+            return user.getWins();
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
             }
             e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Добавить победы нескольким пользователям одной транзакцией и запомнить номер последней записи
+     * журнала побед, вошедшей в нее. false - транзакция откатилась, ничего не записано.
+     */
+    public boolean addWins(Map<String, Integer> wins, long journalSeq) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            // UPDATE без чтения строки; новой строки нет - игрок побеждает впервые
+            Query<?> increment = session.createQuery(
+                    "UPDATE UserEntity u SET u.wins = u.wins + :count WHERE u.username = :username");
+            for (Map.Entry<String, Integer> entry : wins.entrySet()) {
+                increment.setParameter("count", entry.getValue());
+                increment.setParameter("username", entry.getKey());
+                if (increment.executeUpdate() == 0) {
+                    UserEntity user = new UserEntity(entry.getKey());
+                    user.setWins(entry.getValue());
+                    session.save(user);
+                }
+            }
+            JournalPosition position = session.get(JournalPosition.class, JournalPosition.ID);
+            if (position == null) {
+                session.save(new JournalPosition(journalSeq));
+            } else if (journalSeq > position.getAppliedSeq()) {
+                // Позиция только растет: иначе при следующем запуске журнал применился бы повторно
+                position.setAppliedSeq(journalSeq);
+            }
+            transaction.commit();
+            return true;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Номер последней записи журнала побед, внесенной в базу; 0 - журнал еще не применялся.
+     * Ошибку чтения не глотает: без этого номера журнал нельзя применить, не посчитав победы дважды.
+     */
+    public long getAppliedJournalSeq() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            JournalPosition position = session.get(JournalPosition.class, JournalPosition.ID);
+            return position == null ? 0 : position.getAppliedSeq();
         }
     }
     
@@ -75,4 +128,64 @@ public class UserRepository {
             return List.of(); // Возвращаем пустой список
         }
     }
+    
+    /**
+     * Страница таблицы лидеров: limit игроков начиная с позиции offset (с нуля).
+     * При равных победах порядок по имени, чтобы страницы не пересекались.
+     */
+    public List<UserEntity> getLeaderboardPage(int offset, int limit) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Query<UserEntity> query = session.createQuery(
+                    "FROM UserEntity u ORDER BY u.wins DESC, u.username ASC", UserEntity.class);
+            query.setFirstResult(offset);
+            query.setMaxResults(limit);
+            return query.list();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+    
+    /**
+     * Страница таблицы лидеров после игрока с wins победами и именем username (ключ последней строки
+     * предыдущей страницы). В отличие от offset, не пропускает строки: глубокие страницы так же быстры, как первая.
+     */
+    public List<UserEntity> getLeaderboardAfter(int wins, String username, int limit) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // Два поиска по индексу вместо одного условия с OR: у большинства игроков поровну побед,
+            // и OR заставил бы H2 перебрать всю их группу. ORDER BY повторяет индекс целиком,
+            // иначе H2 сортирует найденное вместо чтения по порядку. Сначала остаток группы с теми же победами...
+            Query<UserEntity> sameWins = session.createQuery(
+                    "FROM UserEntity u WHERE u.wins = :wins AND u.username > :username"
+                            + " ORDER BY u.wins DESC, u.username ASC", UserEntity.class);
+            sameWins.setParameter("wins", wins);
+            sameWins.setParameter("username", username);
+            sameWins.setMaxResults(limit);
+            List<UserEntity> page = new ArrayList<>(sameWins.list());
+            if (page.size() < limit) {
+                // ...затем игроки с меньшим числом побед
+                Query<UserEntity> fewerWins = session.createQuery(
+                        "FROM UserEntity u WHERE u.wins < :wins ORDER BY u.wins DESC, u.username ASC", UserEntity.class);
+                fewerWins.setParameter("wins", wins);
+                fewerWins.setMaxResults(limit - page.size());
+                page.addAll(fewerWins.list());
+            }
+            return page;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+    
+    /**
+     * Число игроков в таблице
+     */
+    public long countUsers() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT COUNT(u) FROM UserEntity u", Long.class).uniqueResult();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,345 @@
+package org.example.javafx_example.server.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал побед с отложенной записью в базу. append() только ставит победу в очередь и сразу возвращается,
+ * так что конец игры не ждет ни диска, ни базы. Поток журнала дописывает в файл все, что накопилось,
+ * и делает один fsync на всю пачку: пока идет fsync, следующие победы копятся для следующей пачки.
+ * Поток записи вносит сохраненные на диск победы в базу пачками, одной транзакцией вместе с номером
+ * последней записи (таблица win_journal). При запуске записи с номером больше внесенного применяются
+ * заново - так победы не теряются при падении сервера и не считаются дважды.
+ * Без fsync могут пропасть только победы последней пачки, еще не дошедшей до диска.
+ * Номер получают только записи, уже лежащие в файле, и только они уходят в базу: если запись пачки
+ * не удалась, пачка пишется снова, а номер внесенной позиции никогда не уменьшается.
+ *
+ * Запись: длина (int), номер (long) и имя в UTF-8, CRC32 номера и имени (int). Оборванная при падении
+ * запись в конце файла отбрасывается. Когда все записи внесены в базу, файл обнуляется.
+ */
+public class WinJournal {
+    public static final int MAX_NAME_BYTES = 1024;
+    // Больше побед одной транзакцией не вносится
+    private static final int APPLY_BATCH = 1000;
+    private static final long RETRY_MILLIS = 1000;
+    private static final long POLL_MILLIS = 100;
+    // Файл обнуляется, когда все его записи в базе и он вырос больше этого
+    private static final long COMPACT_BYTES = 1024 * 1024;
+    
+    private static final class Win {
+        final String username;
+        final byte[] name;
+        final long appendedNanos;
+        // Присваивается потоком журнала, когда запись уже в файле
+        long seq;
+        
+        Win(String username, byte[] name, long appendedNanos) {
+            this.username = username;
+            this.name = name;
+            this.appendedNanos = appendedNanos;
+        }
+    }
+    
+    private final Path path;
+    private final UserRepository repository;
+    private final FileChannel channel;
+    // Ждут записи в файл
+    private final LinkedBlockingQueue<Win> appended = new LinkedBlockingQueue<>();
+    // В файле, ждут базы
+    private final LinkedBlockingQueue<Win> durable = new LinkedBlockingQueue<>();
+    // Все еще не внесенные в базу в порядке append(): голова - самая старая, по ней считается отставание
+    private final ConcurrentLinkedQueue<Win> unapplied = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread journalThread;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    
+    // Только поток журнала
+    private long nextSeq;
+    private long writtenSeq;
+    // Пишет поток записи, читает поток журнала
+    private volatile long appliedSeq;
+    
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final long replayed;
+    
+    private WinJournal(Path path, UserRepository repository, FileChannel channel, long appliedSeq, long replayed) {
+        this.path = path;
+        this.repository = repository;
+        this.channel = channel;
+        this.appliedSeq = appliedSeq;
+        this.writtenSeq = appliedSeq;
+        this.nextSeq = appliedSeq + 1;
+        this.replayed = replayed;
+        this.journalThread = new Thread(this::runJournal, "win-journal");
+        this.writerThread = new Thread(this::runWriter, "win-writer");
+        journalThread.setDaemon(true);
+        writerThread.setDaemon(true);
+    }
+    
+    /**
+     * Открывает журнал, вносит в базу победы, не дошедшие до нее до остановки или падения, и запускает потоки.
+     * Вызывается до загрузки таблицы лидеров из базы, чтобы та уже учитывала эти победы.
+     */
+    public static WinJournal open(Path path, UserRepository repository) throws IOException {
+        long appliedSeq;
+        try {
+            appliedSeq = repository.getAppliedJournalSeq();
+        } catch (RuntimeException e) {
+            throw new IOException("Не удалось прочитать позицию журнала побед из базы", e);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Map<String, Integer> wins = new LinkedHashMap<>();
+            long replayed = 0;
+            long lastSeq = appliedSeq;
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+            long validEnd = 0;
+            while (data.remaining() >= 4) {
+                int length = data.getInt();
+                if (length < 8 || length > 8 + MAX_NAME_BYTES || data.remaining() < length + 4) break;
+                byte[] payload = new byte[length];
+                data.get(payload);
+                if (crc(payload) != data.getInt()) break;
+                ByteBuffer record = ByteBuffer.wrap(payload);
+                long seq = record.getLong();
+                if (seq > appliedSeq) {
+                    wins.merge(new String(payload, 8, length - 8, StandardCharsets.UTF_8), 1, Integer::sum);
+                    replayed++;
+                }
+                lastSeq = Math.max(lastSeq, seq);
+                validEnd = data.position();
+            }
+            if (!wins.isEmpty() && !repository.addWins(wins, lastSeq)) {
+                throw new IOException("Не удалось внести в базу победы из журнала " + path);
+            }
+            if (validEnd < channel.size()) {
+                System.err.println("Журнал побед: отброшен оборванный хвост " + (channel.size() - validEnd) + " байт");
+            }
+            // Все записи в базе: журнал можно начать заново
+            channel.truncate(0);
+            channel.force(true);
+            if (replayed > 0) {
+                System.out.println("Журнал побед: внесено в базу после перезапуска " + replayed + " побед");
+            }
+            WinJournal journal = new WinJournal(path, repository, channel, lastSeq, replayed);
+            journal.journalThread.start();
+            journal.writerThread.start();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Записывает победу; не блокирует. В базе она появится после fsync и следующей пачки записи.
+     * Имя длиннее MAX_NAME_BYTES в UTF-8 не принимается (IllegalArgumentException).
+     */
+    public void append(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Слишком длинное имя игрока: " + name.length + " байт");
+        }
+        Win win = new Win(username, name, System.nanoTime());
+        // Порядок в обеих очередях должен совпадать: поток записи снимает из unapplied столько, сколько внес
+        synchronized (this) {
+            unapplied.add(win);
+            appended.add(win);
+        }
+        pending.incrementAndGet();
+        appendedCount.incrementAndGet();
+    }
+    
+    private void runJournal() {
+        List<Win> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (running || !appended.isEmpty()) {
+            try {
+                compactIfApplied();
+                Win first = appended.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // Все, что пришло, пока шел прошлый fsync, уходит одним fsync
+                appended.drainTo(batch);
+                // Диск недоступен: пачка остается в памяти и пишется снова вместе с новыми победами
+                while (!write(batch, buffer)) {
+                    if (!running) {
+                        System.err.println("Журнал побед: не записано и не внесено в базу " + batch.size() + " побед");
+                        return;
+                    }
+                    Thread.sleep(RETRY_MILLIS);
+                    appended.drainTo(batch);
+                }
+                durable.addAll(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Пишет пачку и делает fsync. Номера записям присваиваются, только если вся пачка легла на диск;
+     * иначе файл обрезается до начала пачки и возвращается false.
+     */
+    private boolean write(List<Win> batch, ByteBuffer buffer) {
+        long start = -1;
+        try {
+            start = channel.position();
+            long seq = nextSeq;
+            for (Win win : batch) {
+                byte[] payload = ByteBuffer.allocate(8 + win.name.length).putLong(seq++).put(win.name).array();
+                if (buffer.remaining() < payload.length + 8) {
+                    flush(buffer);
+                }
+                buffer.putInt(payload.length).put(payload).putInt(crc(payload));
+            }
+            flush(buffer);
+            channel.force(false);
+            fsyncs.incrementAndGet();
+            for (Win win : batch) {
+                win.seq = nextSeq++;
+            }
+            writtenSeq = nextSeq - 1;
+            return true;
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            buffer.clear();
+            System.err.println("Ошибка записи журнала побед " + path + ": " + e.getMessage());
+            // Недописанная пачка испортила бы разбор записей после нее
+            try {
+                if (start >= 0) {
+                    channel.truncate(start);
+                    channel.position(start);
+                }
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+    }
+    
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Обнуляет файл, если все его записи уже в базе. Только поток журнала: он же единственный пишет в файл.
+     */
+    private void compactIfApplied() {
+        try {
+            if (appliedSeq == writtenSeq && channel.size() > COMPACT_BYTES) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            System.err.println("Ошибка сжатия журнала побед " + path + ": " + e.getMessage());
+        }
+    }
+    
+    private void runWriter() {
+        List<Win> batch = new ArrayList<>();
+        // При остановке поток журнала еще может передать последнюю пачку
+        while (running || journalThread.isAlive() || !durable.isEmpty()) {
+            try {
+                Win first = durable.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                durable.drainTo(batch, APPLY_BATCH - 1);
+                Map<String, Integer> wins = new LinkedHashMap<>();
+                for (Win win : batch) {
+                    wins.merge(win.username, 1, Integer::sum);
+                }
+                long lastSeq = batch.get(batch.size() - 1).seq;
+                // База недоступна: победы остаются в журнале, пробуем снова, пока сервер работает
+                while (!repository.addWins(wins, lastSeq)) {
+                    errors.incrementAndGet();
+                    if (!running) return;
+                    Thread.sleep(RETRY_MILLIS);
+                }
+                appliedSeq = lastSeq;
+                for (int i = 0; i < batch.size(); i++) {
+                    unapplied.poll();
+                }
+                pending.addAndGet(-batch.size());
+                appliedCount.addAndGet(batch.size());
+                batches.incrementAndGet();
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Дописывает в журнал и базу все принятые победы и закрывает файл
+     */
+    public void close() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+        try {
+            journalThread.join();
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка закрытия журнала побед: " + e.getMessage());
+        }
+        System.out.println("Журнал побед закрыт, не внесено в базу: " + pending.get());
+    }
+    
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Дописывает метрики журнала побед в текстовом виде. Отставание - возраст самой старой победы,
+     * еще не внесенной в базу.
+     */
+    public void appendMetrics(StringBuilder sb) {
+        Win oldest = unapplied.peek();
+        double lag = oldest == null ? 0 : (System.nanoTime() - oldest.appendedNanos) / 1e9;
+        sb.append("win_journal_appended_total ").append(appendedCount.get()).append("\n");
+        sb.append("win_journal_fsyncs_total ").append(fsyncs.get()).append("\n");
+        sb.append("win_journal_applied_total ").append(appliedCount.get()).append("\n");
+        sb.append("win_journal_batches_total ").append(batches.get()).append("\n");
+        sb.append("win_journal_errors_total ").append(errors.get()).append("\n");
+        sb.append("win_journal_replayed_total ").append(replayed).append("\n");
+        sb.append("win_journal_pending ").append(pending.get()).append("\n");
+        sb.append("win_journal_lag_seconds ").append(lag).append("\n");
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,238 @@
+package org.example.javafx_example.server.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Одно HTTP-соединение: читает запросы один за другим и отвечает на них в том же порядке.
+ * Конвейерные запросы, уже лежащие в буфере, получают ответы одной записью в сокет.
+ */
+class HttpConnection implements Runnable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_LINE_LENGTH = 8 * 1024;
+    private static final int MAX_HEADERS = 64;
+    // Тело у GET не нужно, но небольшое читаем и пропускаем, чтобы не рвать соединение
+    private static final int MAX_IGNORED_BODY = 64 * 1024;
+    // После стольких запросов соединение закрывается, чтобы клиенты со временем перераспределялись
+    private static final int MAX_REQUESTS_PER_CONNECTION = 10_000;
+    
+    /**
+     * Запрос не разобран: ответ с этим статусом, и соединение закрывается
+     */
+    private static class BadRequest extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        final int status;
+        final String reason;
+        
+        BadRequest(int status, String reason) {
+            super(reason, null, false, false);
+            this.status = status;
+            this.reason = reason;
+        }
+    }
+    
+    private final HttpServer server;
+    private final Socket socket;
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+    
+    HttpConnection(HttpServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+    
+    @Override
+    public void run() {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream(), BUFFER_SIZE);
+            OutputStream out = new BufferedOutputStream(s.getOutputStream(), BUFFER_SIZE);
+            HttpResponse response = new HttpResponse();
+            int served = 0;
+            while (server.isRunning()) {
+                // Первый запрос ждем как весь запрос, следующие - не дольше таймаута простоя
+                s.setSoTimeout(served == 0 ? HttpServer.REQUEST_TIMEOUT_MS : HttpServer.IDLE_TIMEOUT_MS);
+                int first;
+                try {
+                    first = in.read();
+                } catch (SocketTimeoutException e) {
+                    if (served == 0) {
+                        server.countTimeout();
+                    }
+                    return;
+                }
+                if (first == -1) {
+                    return;
+                }
+                long deadline = System.nanoTime() + HttpServer.REQUEST_TIMEOUT_MS * 1_000_000L;
+                HttpRequest request;
+                try {
+                    request = readRequest(first, in, deadline);
+                } catch (SocketTimeoutException e) {
+                    server.countTimeout();
+                    writeError(out, 408, "Request Timeout");
+                    return;
+                } catch (BadRequest e) {
+                    server.countBadRequest();
+                    writeError(out, e.status, e.reason);
+                    return;
+                }
+                if (served > 0) {
+                    server.countKeepAliveRequest();
+                }
+                served++;
+                boolean keepAlive = request.wantsKeepAlive() && served < MAX_REQUESTS_PER_CONNECTION
+                        && !server.isSaturated();
+                response.reset();
+                server.dispatch(request, response);
+                writeResponse(out, request, response, keepAlive);
+                if (!keepAlive) {
+                    out.flush();
+                    return;
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Клиент закрыл соединение или сеть оборвалась: отвечать уже некому
+        } finally {
+            server.onConnectionClosed();
+        }
+    }
+    
+    private HttpRequest readRequest(int first, InputStream in, long deadline) throws IOException, BadRequest {
+        int length = readLine(first, in, deadline);
+        // Перед строкой запроса допускаются пустые строки
+        while (length == 0) {
+            length = readLine(in.read(), in, deadline);
+        }
+        String requestLine = new String(line, 0, length, StandardCharsets.ISO_8859_1);
+        int firstSpace = requestLine.indexOf(' ');
+        int lastSpace = requestLine.lastIndexOf(' ');
+        if (firstSpace <= 0 || lastSpace == firstSpace) {
+            throw new BadRequest(400, "Bad Request");
+        }
+        String method = requestLine.substring(0, firstSpace);
+        String target = requestLine.substring(firstSpace + 1, lastSpace);
+        String version = requestLine.substring(lastSpace + 1);
+        if (!version.startsWith("HTTP/1.")) {
+            throw new BadRequest(505, "HTTP Version Not Supported");
+        }
+        Map<String, String> headers = new HashMap<>();
+        while ((length = readLine(in.read(), in, deadline)) > 0) {
+            if (headers.size() == MAX_HEADERS) {
+                throw new BadRequest(431, "Request Header Fields Too Large");
+            }
+            String header = new String(line, 0, length, StandardCharsets.ISO_8859_1);
+            int colon = header.indexOf(':');
+            if (colon <= 0) {
+                throw new BadRequest(400, "Bad Request");
+            }
+            headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT), header.substring(colon + 1).trim());
+        }
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            throw new BadRequest(405, "Method Not Allowed");
+        }
+        if (headers.containsKey("transfer-encoding")) {
+            throw new BadRequest(411, "Length Required");
+        }
+        skipBody(headers.get("content-length"), in, deadline);
+        return new HttpRequest(method, target, version, headers);
+    }
+    
+    /**
+     * Читает строку до \n (без \r) в line, начиная с уже прочитанного байта first; возвращает длину
+     */
+    private int readLine(int first, InputStream in, long deadline) throws IOException, BadRequest {
+        setRemainingTimeout(deadline);
+        int length = 0;
+        int b = first;
+        while (b != '\n') {
+            if (b == -1) {
+                throw new BadRequest(400, "Bad Request");
+            }
+            if (b != '\r') {
+                if (length == MAX_LINE_LENGTH) {
+                    throw new BadRequest(431, "Request Header Fields Too Large");
+                }
+                line[length++] = (byte) b;
+            }
+            b = in.read();
+        }
+        return length;
+    }
+    
+    private void skipBody(String contentLength, InputStream in, long deadline) throws IOException, BadRequest {
+        if (contentLength == null) return;
+        long length;
+        try {
+            length = Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            throw new BadRequest(400, "Bad Request");
+        }
+        if (length < 0) {
+            throw new BadRequest(400, "Bad Request");
+        }
+        if (length > MAX_IGNORED_BODY) {
+            throw new BadRequest(413, "Payload Too Large");
+        }
+        setRemainingTimeout(deadline);
+        in.skipNBytes(length);
+    }
+    
+    /**
+     * Таймаут чтения - сколько осталось до срока всего запроса
+     */
+    private void setRemainingTimeout(long deadline) throws IOException {
+        long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Запрос не получен целиком");
+        }
+        socket.setSoTimeout((int) remaining);
+    }
+    
+    private void writeResponse(OutputStream out, HttpRequest request, HttpResponse response, boolean keepAlive)
+            throws IOException {
+        StringBuilder head = new StringBuilder(160);
+        head.append("HTTP/1.1 ").append(response.getStatus()).append(' ').append(response.getReason()).append("\r\n");
+        head.append("Content-Type: ").append(response.getContentType()).append("\r\n");
+        head.append("Content-Length: ").append(response.getBodyLength()).append("\r\n");
+        head.append("Access-Control-Allow-Origin: *\r\n");
+        if (keepAlive) {
+            head.append("Connection: keep-alive\r\n");
+            head.append("Keep-Alive: timeout=").append(HttpServer.IDLE_TIMEOUT_MS / 1000).append("\r\n");
+        } else {
+            head.append("Connection: close\r\n");
+        }
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (!request.getMethod().equals("HEAD")) {
+            response.writeBodyTo(out);
+        }
+    }
+    
+    private void writeError(OutputStream out, int status, String reason) {
+        StringBuilder head = new StringBuilder(128);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        if (status == 405) {
+            head.append("Allow: GET, HEAD\r\n");
+        }
+        head.append("Content-Length: 0\r\nConnection: close\r\n\r\n");
+        try {
+            out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        } catch (IOException e) {
+            // Соединение все равно закрывается
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,12 @@
+package org.example.javafx_example.server.http;
+
+import java.io.IOException;
+
+/**
+ * Обработчик одного пути HTTP-сервера. Вызывается в потоке соединения, поэтому может блокировать
+ * (например, на запросе к базе), но не дольше, чем клиент готов ждать ответа.
+ */
+public interface HttpHandler {
+    
+    void handle(HttpRequest request, HttpResponse response) throws IOException;
+} 
\ No newline at end of file
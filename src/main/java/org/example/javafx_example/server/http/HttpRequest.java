@@ -0,0 +1,78 @@
+package org.example.javafx_example.server.http;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разобранный запрос: метод, путь без строки запроса, параметры и заголовки (имена в нижнем регистре)
+ */
+public class HttpRequest {
+    private final String method;
+    private final String path;
+    private final String query;
+    private final String version;
+    private final Map<String, String> headers;
+    private Map<String, String> parameters;
+    
+    HttpRequest(String method, String target, String version, Map<String, String> headers) {
+        this.method = method;
+        int question = target.indexOf('?');
+        this.path = question < 0 ? target : target.substring(0, question);
+        this.query = question < 0 ? "" : target.substring(question + 1);
+        this.version = version;
+        this.headers = headers;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    /**
+     * Значение заголовка или null; name - в нижнем регистре
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+    
+    /**
+     * Параметр строки запроса (?name=value) или null
+     */
+    public String getParameter(String name) {
+        if (parameters == null) {
+            parameters = new HashMap<>();
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                try {
+                    String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                    String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                    parameters.putIfAbsent(key, value);
+                } catch (IllegalArgumentException e) {
+                    // Битая %-последовательность: параметр пропускаем
+                }
+            }
+        }
+        return parameters.get(name);
+    }
+    
+    /**
+     * Оставить ли соединение открытым после ответа: в HTTP/1.1 по умолчанию да, в HTTP/1.0 - только по просьбе
+     */
+    boolean wantsKeepAlive() {
+        String connection = headers.get("connection");
+        if ("HTTP/1.1".equals(version)) {
+            return connection == null || !connection.equalsIgnoreCase("close");
+        }
+        return connection != null && connection.equalsIgnoreCase("keep-alive");
+    }
+} 
\ No newline at end of file
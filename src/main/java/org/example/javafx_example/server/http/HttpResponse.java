@@ -0,0 +1,80 @@
+package org.example.javafx_example.server.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ответ на один запрос. Обработчик пишет тело в {@link #body()}; заголовки, в том числе
+ * Content-Length, соединение отправляет уже после обработчика, когда длина тела известна.
+ * Один объект служит всем запросам соединения, буфер тела переиспользуется.
+ */
+public class HttpResponse {
+    // Буфер больше этого после ответа не держим: один большой ответ не должен занимать память навсегда
+    private static final int MAX_RETAINED_BODY = 64 * 1024;
+    
+    private int status;
+    private String reason;
+    private String contentType;
+    private ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+    
+    HttpResponse() {
+        reset();
+    }
+    
+    public HttpResponse status(int status, String reason) {
+        this.status = status;
+        this.reason = reason;
+        return this;
+    }
+    
+    public HttpResponse contentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+    
+    /**
+     * Тело ответа; пишется целиком до возврата из обработчика
+     */
+    public OutputStream body() {
+        return body;
+    }
+    
+    public HttpResponse text(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        body.write(bytes, 0, bytes.length);
+        return this;
+    }
+    
+    int getStatus() {
+        return status;
+    }
+    
+    String getReason() {
+        return reason;
+    }
+    
+    String getContentType() {
+        return contentType;
+    }
+    
+    int getBodyLength() {
+        return body.size();
+    }
+    
+    void writeBodyTo(OutputStream out) throws IOException {
+        body.writeTo(out);
+    }
+    
+    void reset() {
+        status = 200;
+        reason = "OK";
+        contentType = "text/plain; charset=utf-8";
+        if (body.size() > MAX_RETAINED_BODY) {
+            body = new ByteArrayOutputStream(1024);
+        } else {
+            body.reset();
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,201 @@
+package org.example.javafx_example.server.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/1.1-сервер для Android-клиентов и метрик. Соединения живут между запросами (keep-alive),
+ * поэтому клиент, опрашивающий таблицу лидеров, не платит за TCP-рукопожатие и поток на каждый запрос.
+ * Соединение обслуживает задача общего пула; число одновременных соединений ограничено,
+ * и когда все места заняты, новое соединение ждет недолго, а затем получает 503.
+ * Пока кто-то ждет места, соединения закрываются после текущего ответа, а не держат место простаивая.
+ */
+public class HttpServer {
+    // Сколько открытое соединение ждет следующего запроса
+    static final int IDLE_TIMEOUT_MS = Integer.getInteger("server.httpIdleTimeout", 5000);
+    // За сколько клиент должен прислать запрос целиком (защита от медленной отправки заголовков)
+    static final int REQUEST_TIMEOUT_MS = Integer.getInteger("server.httpRequestTimeout", 10000);
+    // Сколько новое соединение ждет свободного места, прежде чем получить 503
+    private static final int ACCEPT_WAIT_MS = 1000;
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final byte[] SERVICE_UNAVAILABLE = ("HTTP/1.1 503 Service Unavailable\r\n"
+            + "Retry-After: 1\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    
+    private final int port;
+    private final ExecutorService executor;
+    private final int maxConnections;
+    private final Semaphore slots;
+    private final Map<String, HttpHandler> routes = new ConcurrentHashMap<>();
+    private final AtomicLong connectionsTotal = new AtomicLong();
+    private final AtomicLong requestsTotal = new AtomicLong();
+    private final AtomicLong keepAliveRequests = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong badRequestCount = new AtomicLong();
+    private final AtomicLong handlerNanos = new AtomicLong();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+    
+    /**
+     * executor - пул, в котором работают соединения; maxConnections - сколько их может быть открыто сразу
+     */
+    public HttpServer(int port, ExecutorService executor, int maxConnections) {
+        this.port = port;
+        this.executor = executor;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.slots = new Semaphore(this.maxConnections);
+    }
+    
+    /**
+     * Обработчик GET и HEAD для пути (без строки запроса)
+     */
+    public void route(String path, HttpHandler handler) {
+        routes.put(path, handler);
+    }
+    
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        running = true;
+        new Thread(this::acceptLoop, "http-accept").start();
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                // Сокет закрыт при остановке
+                break;
+            } catch (IOException e) {
+                System.err.println("Ошибка HTTP-сервера: " + e.getMessage());
+                continue;
+            }
+            try {
+                if (!slots.tryAcquire(ACCEPT_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    reject(socket);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closeQuietly(socket);
+                break;
+            }
+            connectionsTotal.incrementAndGet();
+            try {
+                executor.execute(new HttpConnection(this, socket));
+            } catch (RejectedExecutionException e) {
+                // Пул остановлен
+                slots.release();
+                closeQuietly(socket);
+            }
+        }
+    }
+    
+    private void reject(Socket socket) {
+        rejectedCount.incrementAndGet();
+        try (Socket s = socket) {
+            OutputStream out = s.getOutputStream();
+            out.write(SERVICE_UNAVAILABLE);
+            out.flush();
+        } catch (IOException e) {
+            // Клиент уже ушел
+        }
+    }
+    
+    /**
+     * Передает запрос обработчику пути; неизвестный путь - 404, исключение обработчика - 500
+     */
+    void dispatch(HttpRequest request, HttpResponse response) {
+        requestsTotal.incrementAndGet();
+        HttpHandler handler = routes.get(request.getPath());
+        if (handler == null) {
+            response.status(404, "Not Found").text("Not Found\n");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            handler.handle(request, response);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при обработке HTTP-запроса " + request.getPath() + ": " + e.getMessage());
+            response.reset();
+            response.status(500, "Internal Server Error").text("Internal Server Error\n");
+        } finally {
+            handlerNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Ждет ли новое соединение свободного места: тогда открытые не остаются жить после ответа
+     */
+    boolean isSaturated() {
+        return slots.hasQueuedThreads();
+    }
+    
+    boolean isRunning() {
+        return running;
+    }
+    
+    void onConnectionClosed() {
+        slots.release();
+    }
+    
+    void countKeepAliveRequest() {
+        keepAliveRequests.incrementAndGet();
+    }
+    
+    void countTimeout() {
+        timeoutCount.incrementAndGet();
+    }
+    
+    void countBadRequest() {
+        badRequestCount.incrementAndGet();
+    }
+    
+    static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Закрываем в любом случае
+        }
+    }
+    
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Дописывает метрики HTTP-сервера в текстовом виде (по одной на строку)
+     */
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("http_connections ").append(maxConnections - slots.availablePermits()).append("\n");
+        sb.append("http_connections_max ").append(maxConnections).append("\n");
+        sb.append("http_connections_total ").append(connectionsTotal.get()).append("\n");
+        sb.append("http_requests_total ").append(requestsTotal.get()).append("\n");
+        sb.append("http_keepalive_requests_total ").append(keepAliveRequests.get()).append("\n");
+        sb.append("http_rejected_total ").append(rejectedCount.get()).append("\n");
+        sb.append("http_timeouts_total ").append(timeoutCount.get()).append("\n");
+        sb.append("http_bad_requests_total ").append(badRequestCount.get()).append("\n");
+        sb.append("http_handler_seconds_total ").append(handlerNanos.get() / 1e9).append("\n");
+    }
+} 
\ No newline at end of file
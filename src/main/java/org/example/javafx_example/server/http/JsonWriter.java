@@ -0,0 +1,186 @@
+package org.example.javafx_example.server.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Потоковая запись JSON в UTF-8 без промежуточных строк и деревьев объектов.
+ * Запятые и вложенность отслеживает сам: вызывающий только открывает и закрывает массивы и объекты.
+ * Строки экранируются по RFC 8259; управляющие символы, U+2028/U+2029 и одиночные суррогаты
+ * записываются шестнадцатеричными escape-последовательностями, так что имя игрока не может сломать разбор ответа.
+ */
+public class JsonWriter {
+    private static final int MAX_DEPTH = 32;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1024];
+    private int count = 0;
+    // Для каждого уровня вложенности: был ли уже элемент (нужна ли запятая перед следующим)
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth = 0;
+    // Только что записано имя поля: значение идет без запятой
+    private boolean afterName = false;
+    
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+    
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+    
+    /**
+     * Имя поля объекта; следующим должно идти его значение
+     */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        string(name);
+        put(':');
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            ascii("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+    
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        ascii(Long.toString(value));
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        ascii(value ? "true" : "false");
+        return this;
+    }
+    
+    /**
+     * Дописывает накопленное в поток
+     */
+    public void flush() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+    
+    private JsonWriter open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Слишком глубокая вложенность JSON");
+        }
+        separator();
+        put(bracket);
+        hasElements[depth++] = false;
+        return this;
+    }
+    
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Нет открытого массива или объекта");
+        }
+        depth--;
+        put(bracket);
+        return this;
+    }
+    
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                put(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+    
+    private void string(String s) throws IOException {
+        put('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"': put('\\'); put('"'); break;
+                    case '\\': put('\\'); put('\\'); break;
+                    case '\n': put('\\'); put('n'); break;
+                    case '\r': put('\\'); put('r'); break;
+                    case '\t': put('\\'); put('t'); break;
+                    case '\b': put('\\'); put('b'); break;
+                    case '\f': put('\\'); put('f'); break;
+                    default:
+                        if (c < 0x20 || c == 0x7f) {
+                            unicodeEscape(c);
+                        } else {
+                            put(c);
+                        }
+                }
+            } else if (c < 0x800) {
+                put(0xc0 | (c >> 6));
+                put(0x80 | (c & 0x3f));
+            } else if (c == '\u2028' || c == '\u2029') {
+                // Допустимы в JSON, но не в строках JavaScript
+                unicodeEscape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                put(0xf0 | (codePoint >> 18));
+                put(0x80 | ((codePoint >> 12) & 0x3f));
+                put(0x80 | ((codePoint >> 6) & 0x3f));
+                put(0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Одиночный суррогат в UTF-8 не кодируется
+                unicodeEscape(c);
+            } else {
+                put(0xe0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3f));
+                put(0x80 | (c & 0x3f));
+            }
+        }
+        put('"');
+    }
+    
+    private void unicodeEscape(char c) throws IOException {
+        put('\\');
+        put('u');
+        put(HEX[(c >> 12) & 0xf]);
+        put(HEX[(c >> 8) & 0xf]);
+        put(HEX[(c >> 4) & 0xf]);
+        put(HEX[c & 0xf]);
+    }
+    
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+    
+    private void put(int b) throws IOException {
+        if (count == buffer.length) {
+            flush();
+        }
+        buffer[count++] = (byte) b;
+    }
+} 
\ No newline at end of file
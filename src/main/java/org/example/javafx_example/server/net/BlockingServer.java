@@ -0,0 +1,123 @@
+package org.example.javafx_example.server.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Прежний транспорт "поток на соединение" на блокирующих сокетах.
+ * Оставлен как запасной режим и для сравнения с {@link NioServer}.
+ * Соединение занимает поток, пока открыто, поэтому соединений не больше maxConnections:
+ * лишнее получает ERROR и закрывается сразу, а не ждет в очереди пула, пока кто-то уйдет.
+ */
+public class BlockingServer implements Transport {
+    private static final byte[] SERVER_FULL = "ERROR:Сервер переполнен\n".getBytes(StandardCharsets.UTF_8);
+    
+    private final int port;
+    private final ExecutorService executor;
+    private final ExecutorService writers;
+    private final Function<Connection, ConnectionHandler> handlerFactory;
+    private final int maxConnections;
+    private final Semaphore slots;
+    private final OutboundQueue.Stats outboundStats = new OutboundQueue.Stats();
+    private final StreamCompressor.Stats compressionStats = new StreamCompressor.Stats();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+    
+    /**
+     * executor - потоки чтения (по задаче на соединение), writers - короткие задачи записи очередей,
+     * maxConnections - сколько соединений может быть открыто сразу
+     */
+    public BlockingServer(int port, ExecutorService executor, ExecutorService writers, int maxConnections,
+                          Function<Connection, ConnectionHandler> handlerFactory) {
+        this.port = port;
+        this.executor = executor;
+        this.writers = writers;
+        this.handlerFactory = handlerFactory;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.slots = new Semaphore(this.maxConnections);
+    }
+    
+    @Override
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+        new Thread(this::acceptLoop, "blocking-accept").start();
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (!slots.tryAcquire()) {
+                    reject(socket);
+                    continue;
+                }
+                SocketConnection connection = new SocketConnection(socket, writers, outboundStats, compressionStats);
+                connection.setHandler(handlerFactory.apply(connection));
+                acceptedCount.incrementAndGet();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            connection.run();
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Пул остановлен
+                    slots.release();
+                    connection.close();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Ошибка сервера: " + e.getMessage());
+                }
+                break;
+            }
+        }
+    }
+    
+    private void reject(Socket socket) {
+        rejectedCount.incrementAndGet();
+        try (Socket s = socket) {
+            OutputStream out = s.getOutputStream();
+            out.write(SERVER_FULL);
+            out.flush();
+        } catch (IOException e) {
+            // Клиент уже ушел
+        }
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writers.shutdown();
+    }
+    
+    @Override
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("net_accepted_total ").append(acceptedCount.get()).append("\n");
+        sb.append("net_connections ").append(maxConnections - slots.availablePermits()).append("\n");
+        sb.append("net_rejected_total ").append(rejectedCount.get()).append("\n");
+        sb.append("net_outbound_dropped_total ").append(outboundStats.getDropped()).append("\n");
+        sb.append("net_slow_disconnects_total ").append(outboundStats.getSlowDisconnects()).append("\n");
+        compressionStats.appendMetrics(sb);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.example.javafx_example.server.net;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул direct-буферов одного размера для исходящих данных.
+ * Буфер берется, только когда соединению есть что отправить, и возвращается после записи,
+ * поэтому простаивающие соединения памяти под отправку не держат.
+ */
+public class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicLong allocated = new AtomicLong();
+    
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+    
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            pooled.decrementAndGet();
+            return buffer;
+        }
+        allocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+    
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        // Лишние буферы отдаем сборщику мусора, чтобы пик нагрузки не держал память навсегда
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    public int getPooledCount() {
+        return pooled.get();
+    }
+    
+    public long getAllocatedCount() {
+        return allocated.get();
+    }
+} 
\ No newline at end of file
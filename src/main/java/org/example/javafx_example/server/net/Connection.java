@@ -0,0 +1,45 @@
+package org.example.javafx_example.server.net;
+
+/**
+ * Соединение с клиентом, не зависящее от транспорта (селектор NIO или поток на сокет).
+ * Отправка только ставит сообщение в ограниченную очередь соединения ({@link OutboundQueue})
+ * и не ждет сокета; клиента, который не успевает читать, соединение отключает само.
+ */
+public interface Connection {
+    
+    /**
+     * Отправляет уже закодированные байты (одно или несколько сообщений); они не выбрасываются
+     */
+    void send(byte[] bytes);
+    
+    /**
+     * Отправляет сообщения, которые устаревают со следующими такими же (позиции, состояние):
+     * еще не отправленные предыдущие вытесняются. full - полное состояние, его вытесняет только полное.
+     * Возвращает true, если вытеснено неполное состояние и клиенту теперь нужно полное.
+     */
+    boolean sendLatest(byte[] bytes, boolean full);
+    
+    /**
+     * Включает сжатие исходящего потока ({@link StreamCompressor}): reply уходит последним несжатым
+     * сообщением, все следующие - сжатыми. Включается при входе, до рассылок: возвращает false,
+     * если сжатие уже включено или в очереди есть вытесняемые сообщения.
+     */
+    boolean enableCompression(byte[] reply, int level);
+    
+    /**
+     * Сжатие соединения (счетчики для метрик) или null, если оно не включено
+     */
+    StreamCompressor getCompressor();
+    
+    /**
+     * Сколько байт ждет отправки
+     */
+    int getQueuedBytes();
+    
+    /**
+     * Закрывает соединение; обработчик получит {@link ConnectionHandler#onClose()} один раз
+     */
+    void close();
+    
+    String getRemoteAddress();
+} 
\ No newline at end of file
@@ -0,0 +1,17 @@
+package org.example.javafx_example.server.net;
+
+/**
+ * Протокольная сторона соединения: получает входящие строки и событие закрытия.
+ * Строки приходят из одного потока за раз и в порядке поступления данных;
+ * закрыть соединение может и другой поток (например, отключая медленного клиента).
+ */
+public interface ConnectionHandler {
+    
+    /**
+     * Одна строка без '\n' и '\r' в line[offset, offset + length). Массив принадлежит транспорту
+     * и переиспользуется: байты действительны только во время вызова.
+     */
+    void onMessage(byte[] line, int offset, int length);
+    
+    void onClose();
+} 
\ No newline at end of file
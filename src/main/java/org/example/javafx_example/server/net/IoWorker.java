@@ -0,0 +1,169 @@
+package org.example.javafx_example.server.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Поток ввода-вывода с собственным селектором. Обслуживает свою долю соединений:
+ * регистрирует новые каналы, читает и разбирает строки, сбрасывает очереди отправки.
+ * Буфер чтения один на поток, поэтому простаивающее соединение памяти под чтение не держит.
+ */
+class IoWorker implements Runnable {
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    
+    private final String name;
+    private final Selector selector;
+    private final BufferPool pool;
+    private final OutboundQueue.Stats stats;
+    private final StreamCompressor.Stats compressionStats;
+    private final Function<Connection, ConnectionHandler> handlerFactory;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    
+    // Работа, которую другие потоки передают этому потоку
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+    // Будим селектор один раз, сколько бы задач ни пришло до его пробуждения
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile boolean running = true;
+    
+    IoWorker(String name, BufferPool pool, OutboundQueue.Stats stats, StreamCompressor.Stats compressionStats,
+             Function<Connection, ConnectionHandler> handlerFactory) throws IOException {
+        this.name = name;
+        this.selector = Selector.open();
+        this.pool = pool;
+        this.stats = stats;
+        this.compressionStats = compressionStats;
+        this.handlerFactory = handlerFactory;
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    void register(SocketChannel channel) {
+        pendingChannels.offer(channel);
+        wakeup();
+    }
+    
+    void scheduleFlush(NioConnection connection) {
+        pendingFlushes.offer(connection);
+        wakeup();
+    }
+    
+    void connectionClosed() {
+        connectionCount.decrementAndGet();
+    }
+    
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+    
+    private void wakeup() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+    
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+    
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(this::processKey);
+                // Сбрасываем флаг до разбора очередей, чтобы не потерять задачу, пришедшую во время разбора
+                wakeupPending.set(false);
+                registerPending();
+                flushPending();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("Ошибка потока " + name + ": " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+    
+    private void processKey(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        if (key.isValid() && key.isReadable()) {
+            read(connection);
+        }
+        if (key.isValid() && key.isWritable()) {
+            connection.flush();
+        }
+    }
+    
+    private void read(NioConnection connection) {
+        readBuffer.clear();
+        int count;
+        try {
+            count = connection.getChannel().read(readBuffer);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            connection.close();
+            return;
+        }
+        readBuffer.flip();
+        try {
+            if (!connection.decode(readBuffer)) {
+                System.err.println("Слишком длинное сообщение от " + connection.getRemoteAddress() + ", соединение закрыто");
+                connection.close();
+            }
+        } catch (RuntimeException e) {
+            // Ошибка в обработке команды закрывает только это соединение, а не весь поток
+            System.err.println("Ошибка при работе с клиентом: " + e);
+            connection.close();
+        }
+    }
+    
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            NioConnection connection = new NioConnection(channel, this, pool, stats, compressionStats);
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connectionCount.incrementAndGet();
+                connection.attach(key, handlerFactory.apply(connection));
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Канал уже закрыт
+                }
+            }
+        }
+    }
+    
+    private void flushPending() {
+        NioConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            connection.flush();
+        }
+    }
+    
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Селектор уже закрыт
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,93 @@
+package org.example.javafx_example.server.net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Разбирает входящий поток байтов на строки, разделенные '\n' ('\r' перед ним отбрасывается).
+ * Строка передается обработчику как срез массива, без создания String, поэтому разбор ничего не выделяет.
+ * Строка, целиком пришедшая в одном чтении, отдается прямо из прочитанных байтов; собственный массив
+ * нужен только строке, разрезанной между чтениями, и создается при первой такой строке.
+ */
+public class LineDecoder {
+    // Команды клиента короткие; длиннее - ошибка или злоупотребление
+    public static final int MAX_LINE_LENGTH = 4096;
+    // Direct-буфер селектора копируется целиком в массив потока, чтобы искать '\n' без проверок на каждый байт
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[MAX_LINE_LENGTH]);
+    
+    private byte[] line;
+    private int length = 0;
+    
+    /**
+     * Принимает прочитанные байты и передает обработчику каждую законченную строку.
+     * Возвращает false, если строка превысила допустимую длину.
+     */
+    public boolean decode(ByteBuffer in, ConnectionHandler handler) {
+        if (in.hasArray()) {
+            int from = in.arrayOffset() + in.position();
+            int to = in.arrayOffset() + in.limit();
+            in.position(in.limit());
+            return decode(in.array(), from, to, handler);
+        }
+        byte[] scratch = SCRATCH.get();
+        while (in.hasRemaining()) {
+            int count = Math.min(scratch.length, in.remaining());
+            in.get(scratch, 0, count);
+            if (!decode(scratch, 0, count, handler)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean decode(byte[] data, int from, int to, ConnectionHandler handler) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (data[i] != '\n') continue;
+            if (length == 0) {
+                // Строка целиком в прочитанных байтах
+                int end = i > start && data[i - 1] == '\r' ? i - 1 : i;
+                if (end - start > MAX_LINE_LENGTH) {
+                    return false;
+                }
+                handler.onMessage(data, start, end - start);
+            } else {
+                if (!append(data, start, i - start)) {
+                    return false;
+                }
+                int end = line[length - 1] == '\r' ? length - 1 : length;
+                length = 0;
+                handler.onMessage(line, 0, end);
+            }
+            start = i + 1;
+        }
+        return append(data, start, to - start);
+    }
+    
+    private boolean append(byte[] data, int offset, int count) {
+        if (count == 0) {
+            return true;
+        }
+        if (!ensureCapacity(length + count)) {
+            return false;
+        }
+        System.arraycopy(data, offset, line, length, count);
+        length += count;
+        return true;
+    }
+    
+    private boolean ensureCapacity(int capacity) {
+        if (capacity > MAX_LINE_LENGTH) {
+            return false;
+        }
+        if (line != null && capacity <= line.length) {
+            return true;
+        }
+        int size = line == null ? 128 : line.length;
+        while (size < capacity) {
+            size *= 2;
+        }
+        line = line == null ? new byte[size] : Arrays.copyOf(line, Math.min(size, MAX_LINE_LENGTH));
+        return true;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,219 @@
+package org.example.javafx_example.server.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Соединение на неблокирующем канале. Читает и пишет в сокет только поток {@link IoWorker},
+ * которому оно принадлежит; другие потоки лишь ставят сообщения в очередь отправки
+ * ({@link OutboundQueue}) и просят этот поток ее сбросить. Запись идет через direct-буфер пула,
+ * который соединение держит, только пока ему есть что отправить.
+ */
+class NioConnection implements Connection {
+    private final SocketChannel channel;
+    private final IoWorker worker;
+    private final BufferPool pool;
+    private final String remoteAddress;
+    private final LineDecoder decoder = new LineDecoder();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private ConnectionHandler handler;
+    private SelectionKey key;
+    
+    private final OutboundQueue outbound;
+    // Буфер пула с данными, уже снятыми с очереди: position - следующий байт для сокета, limit - конец данных
+    private ByteBuffer writeBuffer;
+    private boolean flushScheduled = false;
+    // Сжатие потока (COMPRESS): первые plainBytes байт очереди еще уходят как есть
+    private final StreamCompressor.Stats compressionStats;
+    private volatile StreamCompressor compressor;
+    private int plainBytes = 0;
+    
+    NioConnection(SocketChannel channel, IoWorker worker, BufferPool pool, OutboundQueue.Stats stats,
+                  StreamCompressor.Stats compressionStats) {
+        this.channel = channel;
+        this.worker = worker;
+        this.pool = pool;
+        String address;
+        try {
+            address = String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            address = "?";
+        }
+        this.remoteAddress = address;
+        this.outbound = new OutboundQueue(stats);
+        this.compressionStats = compressionStats;
+    }
+    
+    void attach(SelectionKey key, ConnectionHandler handler) {
+        this.key = key;
+        this.handler = handler;
+    }
+    
+    SocketChannel getChannel() {
+        return channel;
+    }
+    
+    /**
+     * Разбирает прочитанные байты на строки. Возвращает false, если строка слишком длинная.
+     */
+    boolean decode(ByteBuffer in) {
+        return decoder.decode(in, handler);
+    }
+    
+    @Override
+    public void send(byte[] bytes) {
+        synchronized (this) {
+            if (closed.get()) return;
+            outbound.add(bytes);
+        }
+        afterEnqueue();
+    }
+    
+    @Override
+    public boolean sendLatest(byte[] bytes, boolean full) {
+        boolean droppedPartial;
+        synchronized (this) {
+            if (closed.get()) return false;
+            droppedPartial = outbound.addLatest(bytes, full);
+        }
+        afterEnqueue();
+        return droppedPartial;
+    }
+    
+    @Override
+    public boolean enableCompression(byte[] reply, int level) {
+        synchronized (this) {
+            if (closed.get() || compressor != null || outbound.hasLatest()) return false;
+            outbound.add(reply);
+            // Все, что уже стоит в очереди, вместе с ответом уходит несжатым
+            plainBytes = outbound.getQueuedBytes();
+            compressor = new StreamCompressor(level, compressionStats);
+        }
+        afterEnqueue();
+        return true;
+    }
+    
+    @Override
+    public StreamCompressor getCompressor() {
+        return compressor;
+    }
+    
+    private void afterEnqueue() {
+        boolean schedule;
+        boolean tooSlow;
+        synchronized (this) {
+            tooSlow = outbound.shouldDisconnect(System.nanoTime());
+            schedule = !flushScheduled && !tooSlow;
+            flushScheduled |= schedule;
+        }
+        if (tooSlow) {
+            System.err.println("Клиент " + remoteAddress + " не успевает принимать данные, соединение закрыто");
+            close();
+        } else if (schedule) {
+            worker.scheduleFlush(this);
+        }
+    }
+    
+    /**
+     * Пишет в сокет сколько он примет. Если данные остались, ждем готовности сокета к записи.
+     * Вызывается только из потока IoWorker.
+     */
+    void flush() {
+        boolean failed = false;
+        synchronized (this) {
+            flushScheduled = false;
+            if (closed.get()) return;
+            try {
+                while (true) {
+                    if (writeBuffer == null || !writeBuffer.hasRemaining()) {
+                        if (outbound.isEmpty() && (compressor == null || !compressor.hasOutput())) break;
+                        if (writeBuffer == null) {
+                            writeBuffer = pool.acquire();
+                        }
+                        writeBuffer.clear();
+                        fillWriteBuffer();
+                        writeBuffer.flip();
+                    }
+                    channel.write(writeBuffer);
+                    if (writeBuffer.hasRemaining()) break;
+                }
+                boolean pending = writeBuffer != null && writeBuffer.hasRemaining();
+                if (!pending && writeBuffer != null) {
+                    pool.release(writeBuffer);
+                    writeBuffer = null;
+                }
+                key.interestOps(pending
+                        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                        : SelectionKey.OP_READ);
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+        if (failed) {
+            close();
+        }
+    }
+    
+    /**
+     * Переносит в буфер записи очередные байты: как есть или, после включения сжатия, сжатой пачкой
+     */
+    private void fillWriteBuffer() {
+        StreamCompressor current = compressor;
+        if (current == null) {
+            outbound.drainTo(writeBuffer);
+            return;
+        }
+        if (plainBytes > 0) {
+            int limit = writeBuffer.limit();
+            int start = writeBuffer.position();
+            writeBuffer.limit(Math.min(limit, start + plainBytes));
+            outbound.drainTo(writeBuffer);
+            plainBytes -= writeBuffer.position() - start;
+            writeBuffer.limit(limit);
+            if (plainBytes > 0) return;
+        }
+        if (!current.hasOutput()) {
+            current.compress(outbound);
+        }
+        current.drainTo(writeBuffer);
+    }
+    
+    @Override
+    public int getQueuedBytes() {
+        synchronized (this) {
+            return outbound.getQueuedBytes();
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Сокет уже закрыт
+        }
+        synchronized (this) {
+            if (writeBuffer != null) {
+                pool.release(writeBuffer);
+                writeBuffer = null;
+            }
+            outbound.clear();
+            if (compressor != null) {
+                compressor.end();
+            }
+        }
+        worker.connectionClosed();
+        if (handler != null) {
+            handler.onClose();
+        }
+    }
+    
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,118 @@
+package org.example.javafx_example.server.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Неблокирующий транспорт на селекторах: один поток принимает соединения и раздает их
+ * по кругу нескольким потокам ввода-вывода. Поток на сокет не нужен, поэтому тысячи
+ * простаивающих в лобби соединений стоят только памяти под их объекты.
+ */
+public class NioServer implements Transport {
+    private static final int ACCEPT_BACKLOG = 1024;
+    // Размер буфера отправки: кадр тика обычно целиком помещается в один буфер
+    private static final int SEND_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4096;
+    
+    private final int port;
+    private final int ioThreads;
+    private final Function<Connection, ConnectionHandler> handlerFactory;
+    private final BufferPool pool = new BufferPool(SEND_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final OutboundQueue.Stats outboundStats = new OutboundQueue.Stats();
+    private final StreamCompressor.Stats compressionStats = new StreamCompressor.Stats();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private IoWorker[] workers;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running = false;
+    
+    public NioServer(int port, int ioThreads, Function<Connection, ConnectionHandler> handlerFactory) {
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        this.handlerFactory = handlerFactory;
+    }
+    
+    @Override
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        
+        workers = new IoWorker[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            workers[i] = new IoWorker("nio-io-" + i, pool, outboundStats, compressionStats, handlerFactory);
+        }
+        running = true;
+        for (IoWorker worker : workers) {
+            new Thread(worker, worker.getName()).start();
+        }
+        new Thread(this::acceptLoop, "nio-accept").start();
+    }
+    
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                // Кадры уже собраны по тикам, ждать склейки пакетов ядром незачем
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                acceptedCount.incrementAndGet();
+                workers[next].register(channel);
+                next = (next + 1) % workers.length;
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                // Например, кончились дескрипторы: не роняем сервер, а ждем освобождения
+                System.err.println("Ошибка при приеме соединения: " + e.getMessage());
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (workers != null) {
+            for (IoWorker worker : workers) {
+                worker.stop();
+            }
+        }
+    }
+    
+    public int getConnectionCount() {
+        int count = 0;
+        for (IoWorker worker : workers) {
+            count += worker.getConnectionCount();
+        }
+        return count;
+    }
+    
+    @Override
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("net_io_threads ").append(ioThreads).append("\n");
+        sb.append("net_connections ").append(getConnectionCount()).append("\n");
+        sb.append("net_accepted_total ").append(acceptedCount.get()).append("\n");
+        sb.append("net_send_buffers_allocated_total ").append(pool.getAllocatedCount()).append("\n");
+        sb.append("net_send_buffers_pooled ").append(pool.getPooledCount()).append("\n");
+        sb.append("net_outbound_dropped_total ").append(outboundStats.getDropped()).append("\n");
+        sb.append("net_slow_disconnects_total ").append(outboundStats.getSlowDisconnects()).append("\n");
+        compressionStats.appendMetrics(sb);
+    }
+} 
\ No newline at end of file
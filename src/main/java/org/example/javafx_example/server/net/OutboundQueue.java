@@ -0,0 +1,175 @@
+package org.example.javafx_example.server.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченная очередь отправки одного соединения.
+ * Обычные сообщения (события, ответы) доставляются всегда и по порядку.
+ * "Последние" сообщения (позиции стрел, состояние) устаревают со следующим таким же:
+ * пока такое сообщение не начало отправляться, новое вытесняет его, так что отстающий клиент
+ * получает только свежее. Полное состояние вытесняется только полным, иначе клиенту не к чему
+ * было бы применять дельты.
+ * Очередь, которая дольше {@link #OVER_BUDGET_GRACE_NANOS} держится выше бюджета или
+ * превысила жесткий предел, означает, что клиент не успевает читать: соединение закрывается.
+ * Не потокобезопасна: соединение работает с ней под своей блокировкой.
+ */
+public class OutboundQueue {
+    public static final int BUDGET_BYTES = 256 * 1024;
+    // Обычные сообщения выбрасывать нельзя, поэтому у очереди есть жесткий предел
+    public static final int HARD_LIMIT_BYTES = 4 * BUDGET_BYTES;
+    public static final long OVER_BUDGET_GRACE_NANOS = TimeUnit.SECONDS.toNanos(3);
+    
+    /**
+     * Счетчики всех очередей транспорта для метрик
+     */
+    public static class Stats {
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong slowDisconnects = new AtomicLong();
+        
+        public long getDropped() {
+            return dropped.get();
+        }
+        
+        public long getSlowDisconnects() {
+            return slowDisconnects.get();
+        }
+        
+        void slowDisconnect() {
+            slowDisconnects.incrementAndGet();
+        }
+    }
+    
+    private static class Entry {
+        final byte[] bytes;
+        final boolean latest;
+        final boolean full;
+        
+        Entry(byte[] bytes, boolean latest, boolean full) {
+            this.bytes = bytes;
+            this.latest = latest;
+            this.full = full;
+        }
+    }
+    
+    private final Stats stats;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    // Сколько байт первого сообщения уже ушло в буфер записи; начатое сообщение не вытесняется
+    private int headOffset = 0;
+    private int queuedBytes = 0;
+    private int latestCount = 0;
+    private long overBudgetSince = 0;
+    
+    public OutboundQueue(Stats stats) {
+        this.stats = stats;
+    }
+    
+    public void add(byte[] bytes) {
+        entries.addLast(new Entry(bytes, false, false));
+        queuedBytes += bytes.length;
+    }
+    
+    /**
+     * Ставит "последнее" сообщение, вытесняя еще не начатые предыдущие.
+     * Возвращает true, если было вытеснено неполное состояние и клиенту нужно полное.
+     */
+    public boolean addLatest(byte[] bytes, boolean full) {
+        boolean droppedPartial = false;
+        if (latestCount > 0) {
+            Iterator<Entry> it = entries.iterator();
+            boolean first = true;
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                boolean started = first && headOffset > 0;
+                first = false;
+                if (!entry.latest || started || (entry.full && !full)) continue;
+                it.remove();
+                queuedBytes -= entry.bytes.length;
+                latestCount--;
+                stats.dropped.incrementAndGet();
+                droppedPartial |= !entry.full;
+            }
+        }
+        entries.addLast(new Entry(bytes, true, full));
+        queuedBytes += bytes.length;
+        latestCount++;
+        return droppedPartial && !full;
+    }
+    
+    /**
+     * Забирает первое сообщение целиком (для потока записи блокирующего сокета)
+     */
+    public byte[] poll() {
+        Entry entry = entries.pollFirst();
+        if (entry == null) return null;
+        removed(entry);
+        return entry.bytes;
+    }
+    
+    /**
+     * Копирует в буфер сколько поместится; сообщение может разойтись на несколько буферов
+     */
+    public void drainTo(ByteBuffer dst) {
+        while (dst.hasRemaining() && !entries.isEmpty()) {
+            Entry head = entries.peekFirst();
+            int count = Math.min(dst.remaining(), head.bytes.length - headOffset);
+            dst.put(head.bytes, headOffset, count);
+            headOffset += count;
+            if (headOffset == head.bytes.length) {
+                entries.pollFirst();
+                headOffset = 0;
+                removed(head);
+            }
+        }
+    }
+    
+    private void removed(Entry entry) {
+        queuedBytes -= entry.bytes.length;
+        if (entry.latest) {
+            latestCount--;
+        }
+    }
+    
+    /**
+     * Проверка после постановки сообщения: true, если клиента пора отключать
+     */
+    public boolean shouldDisconnect(long now) {
+        if (queuedBytes <= BUDGET_BYTES) {
+            overBudgetSince = 0;
+            return false;
+        }
+        if (overBudgetSince == 0) {
+            overBudgetSince = now;
+        }
+        if (queuedBytes > HARD_LIMIT_BYTES || now - overBudgetSince > OVER_BUDGET_GRACE_NANOS) {
+            stats.slowDisconnect();
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    /**
+     * Есть ли в очереди вытесняемые сообщения
+     */
+    public boolean hasLatest() {
+        return latestCount > 0;
+    }
+    
+    public int getQueuedBytes() {
+        return queuedBytes;
+    }
+    
+    public void clear() {
+        entries.clear();
+        headOffset = 0;
+        queuedBytes = 0;
+        latestCount = 0;
+    }
+} 
\ No newline at end of file
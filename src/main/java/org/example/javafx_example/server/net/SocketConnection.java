@@ -0,0 +1,203 @@
+package org.example.javafx_example.server.net;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Соединение на блокирующем сокете: поток соединения читает строки, а отправку ведет
+ * отдельная задача записи, которая запускается, когда в очереди ({@link OutboundQueue}) появились
+ * сообщения, и завершается, когда очередь опустела. Вызывающий поток в сокет не пишет,
+ * поэтому медленный клиент не задерживает игровой цикл.
+ */
+class SocketConnection implements Connection, Runnable {
+    private static final int READ_BUFFER_SIZE = 4096;
+    
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+    private final LineDecoder decoder = new LineDecoder();
+    private final Executor writers;
+    private final OutboundQueue outbound;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    // Запущена ли задача записи; меняется под блокировкой очереди
+    private boolean writerScheduled = false;
+    private ConnectionHandler handler;
+    // Сжатие потока (COMPRESS): первые plainBytes байт очереди еще уходят как есть; меняется под блокировкой очереди
+    private final StreamCompressor.Stats compressionStats;
+    private volatile StreamCompressor compressor;
+    private int plainBytes = 0;
+    
+    SocketConnection(Socket socket, Executor writers, OutboundQueue.Stats stats,
+                     StreamCompressor.Stats compressionStats) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.in = socket.getInputStream();
+        this.writers = writers;
+        this.outbound = new OutboundQueue(stats);
+        this.compressionStats = compressionStats;
+    }
+    
+    void setHandler(ConnectionHandler handler) {
+        this.handler = handler;
+    }
+    
+    @Override
+    public void run() {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        try {
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                view.clear().limit(count);
+                if (!decoder.decode(view, handler)) {
+                    System.err.println("Слишком длинное сообщение от " + getRemoteAddress() + ", соединение закрыто");
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка при работе с клиентом: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+    
+    @Override
+    public void send(byte[] bytes) {
+        synchronized (outbound) {
+            if (closed.get()) return;
+            outbound.add(bytes);
+        }
+        afterEnqueue();
+    }
+    
+    @Override
+    public boolean sendLatest(byte[] bytes, boolean full) {
+        boolean droppedPartial;
+        synchronized (outbound) {
+            if (closed.get()) return false;
+            droppedPartial = outbound.addLatest(bytes, full);
+        }
+        afterEnqueue();
+        return droppedPartial;
+    }
+    
+    @Override
+    public boolean enableCompression(byte[] reply, int level) {
+        synchronized (outbound) {
+            if (closed.get() || compressor != null || outbound.hasLatest()) return false;
+            outbound.add(reply);
+            // Все, что уже стоит в очереди, вместе с ответом уходит несжатым
+            plainBytes = outbound.getQueuedBytes();
+            compressor = new StreamCompressor(level, compressionStats);
+        }
+        afterEnqueue();
+        return true;
+    }
+    
+    @Override
+    public StreamCompressor getCompressor() {
+        return compressor;
+    }
+    
+    private void afterEnqueue() {
+        boolean schedule;
+        boolean tooSlow;
+        synchronized (outbound) {
+            tooSlow = outbound.shouldDisconnect(System.nanoTime());
+            schedule = !writerScheduled && !tooSlow;
+            writerScheduled |= schedule;
+        }
+        if (tooSlow) {
+            System.err.println("Клиент " + getRemoteAddress() + " не успевает принимать данные, соединение закрыто");
+            close();
+        } else if (schedule) {
+            writers.execute(this::writeQueued);
+        }
+    }
+    
+    /**
+     * Задача записи: пишет сообщения по одному и сбрасывает буфер, когда очередь опустела.
+     * Блокировка очереди на время записи в сокет не держится.
+     */
+    private void writeQueued() {
+        try {
+            while (true) {
+                byte[] bytes;
+                synchronized (outbound) {
+                    bytes = nextChunk();
+                    if (bytes == null) {
+                        writerScheduled = false;
+                    }
+                }
+                if (bytes == null) {
+                    out.flush();
+                    // Пока сбрасывали буфер, могли прийти новые сообщения
+                    synchronized (outbound) {
+                        if (outbound.isEmpty() || writerScheduled) return;
+                        writerScheduled = true;
+                    }
+                    continue;
+                }
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // Соединение закрывается; поток чтения сам уберет клиента с сервера
+            synchronized (outbound) {
+                writerScheduled = false;
+                outbound.clear();
+            }
+        }
+    }
+    
+    /**
+     * Следующие байты для сокета: сообщение как есть или, после включения сжатия, сжатая пачка всей очереди.
+     * Вызывается под блокировкой очереди.
+     */
+    private byte[] nextChunk() {
+        StreamCompressor current = compressor;
+        if (current == null || plainBytes > 0) {
+            byte[] bytes = outbound.poll();
+            if (bytes != null && current != null) {
+                plainBytes -= bytes.length;
+            }
+            return bytes;
+        }
+        if (closed.get()) return null;
+        current.compress(outbound);
+        return current.hasOutput() ? current.takeOutput() : null;
+    }
+    
+    @Override
+    public int getQueuedBytes() {
+        synchronized (outbound) {
+            return outbound.getQueuedBytes();
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        synchronized (outbound) {
+            if (compressor != null) {
+                compressor.end();
+            }
+        }
+        handler.onClose();
+    }
+    
+    @Override
+    public String getRemoteAddress() {
+        return String.valueOf(socket.getRemoteSocketAddress());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,191 @@
+package org.example.javafx_example.server.net;
+
+import org.example.javafx_example.protocol.StreamCompression;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Сжатие исходящего потока одного соединения ({@link StreamCompression}).
+ * Сообщения сжимаются не при постановке в очередь, а когда соединение забирает их для отправки:
+ * вытесненные в очереди кадры в поток так и не попадают, и словарь deflate не расходится с тем,
+ * что получил клиент. Все, что было в очереди, сжимается одной пачкой с SYNC_FLUSH в конце.
+ * У каждого соединения свой Deflater (около 300 КБ памяти вне кучи на уровне 6),
+ * поэтому сжатие включается только по просьбе клиента.
+ * Не потокобезопасен: соединение работает с ним под своей блокировкой.
+ */
+public class StreamCompressor {
+    private static final int INITIAL_OUTPUT = 8 * 1024;
+    
+    /**
+     * Счетчики сжатия всех соединений транспорта для метрик
+     */
+    public static class Stats {
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicLong rawBytes = new AtomicLong();
+        private final AtomicLong compressedBytes = new AtomicLong();
+        private final AtomicLong cpuNanos = new AtomicLong();
+        
+        public int getConnections() {
+            return connections.get();
+        }
+        
+        public long getRawBytes() {
+            return rawBytes.get();
+        }
+        
+        public long getCompressedBytes() {
+            return compressedBytes.get();
+        }
+        
+        public long getCpuNanos() {
+            return cpuNanos.get();
+        }
+        
+        /**
+         * Дописывает метрики сжатия транспорта
+         */
+        public void appendMetrics(StringBuilder sb) {
+            sb.append("net_compressed_connections ").append(getConnections()).append("\n");
+            sb.append("net_compression_raw_bytes_total ").append(getRawBytes()).append("\n");
+            sb.append("net_compression_bytes_total ").append(getCompressedBytes()).append("\n");
+            sb.append("net_compression_cpu_seconds_total ").append(getCpuNanos() / 1e9).append("\n");
+        }
+    }
+    
+    private final Deflater deflater;
+    private final Stats stats;
+    // Сжатые, но еще не отданные в сокет байты: output[outputStart, outputEnd)
+    private byte[] output = new byte[INITIAL_OUTPUT];
+    private int outputStart = 0;
+    private int outputEnd = 0;
+    // Счетчики соединения; пишутся под блокировкой соединения, читаются потоком метрик
+    private volatile long rawBytes = 0;
+    private volatile long compressedBytes = 0;
+    private volatile long cpuNanos = 0;
+    private volatile long batches = 0;
+    
+    public StreamCompressor(int level, Stats stats) {
+        this.deflater = new Deflater(level);
+        this.stats = stats;
+        stats.connections.incrementAndGet();
+    }
+    
+    /**
+     * Есть ли сжатые данные, которые еще не отданы
+     */
+    public boolean hasOutput() {
+        return outputStart < outputEnd;
+    }
+    
+    /**
+     * Забирает из очереди все сообщения и сжимает их одной пачкой с SYNC_FLUSH.
+     * Вызывается, когда прежняя пачка целиком отдана (hasOutput() == false).
+     */
+    public void compress(OutboundQueue queue) {
+        if (queue.isEmpty()) return;
+        long start = System.nanoTime();
+        outputStart = 0;
+        outputEnd = 0;
+        long raw = 0;
+        byte[] message;
+        while ((message = queue.poll()) != null) {
+            raw += message.length;
+            deflater.setInput(message);
+            while (!deflater.needsInput()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+        }
+        // SYNC_FLUSH закончен, когда deflate не заполнил весь свободный буфер
+        while (deflate(Deflater.SYNC_FLUSH)) {
+            // Буфер вырос, сбрасываем остаток
+        }
+        long elapsed = System.nanoTime() - start;
+        rawBytes += raw;
+        compressedBytes += outputEnd;
+        cpuNanos += elapsed;
+        batches++;
+        stats.rawBytes.addAndGet(raw);
+        stats.compressedBytes.addAndGet(outputEnd);
+        stats.cpuNanos.addAndGet(elapsed);
+    }
+    
+    /**
+     * Один вызов deflate в свободную часть буфера; true, если буфер заполнился и вывод мог не кончиться
+     */
+    private boolean deflate(int flush) {
+        if (outputEnd == output.length) {
+            byte[] grown = new byte[output.length * 2];
+            System.arraycopy(output, 0, grown, 0, outputEnd);
+            output = grown;
+        }
+        int free = output.length - outputEnd;
+        int count = deflater.deflate(output, outputEnd, free, flush);
+        outputEnd += count;
+        return count == free;
+    }
+    
+    /**
+     * Копирует сжатые байты в буфер записи сколько поместится
+     */
+    public void drainTo(ByteBuffer dst) {
+        int count = Math.min(dst.remaining(), outputEnd - outputStart);
+        dst.put(output, outputStart, count);
+        outputStart += count;
+    }
+    
+    /**
+     * Забирает всю сжатую пачку (для потока записи блокирующего сокета)
+     */
+    public byte[] takeOutput() {
+        byte[] batch = new byte[outputEnd - outputStart];
+        System.arraycopy(output, outputStart, batch, 0, batch.length);
+        outputStart = outputEnd;
+        return batch;
+    }
+    
+    /**
+     * Освобождает память Deflater; вызывается при закрытии соединения
+     */
+    public void end() {
+        deflater.end();
+        outputStart = 0;
+        outputEnd = 0;
+        stats.connections.decrementAndGet();
+    }
+    
+    public long getRawBytes() {
+        return rawBytes;
+    }
+    
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+    
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+    
+    public long getBatches() {
+        return batches;
+    }
+    
+    /**
+     * Сводка для журнала: сколько байт сжато во сколько и чего это стоило
+     */
+    public String describe() {
+        return String.format(Locale.ROOT, "%d -> %d Б (x%.2f), CPU %.1f мс на %d пачек",
+                rawBytes, compressedBytes, getRatio(), cpuNanos / 1e6, batches);
+    }
+    
+    /**
+     * Во сколько раз поток стал меньше (1 - пока ничего не сжато)
+     */
+    public double getRatio() {
+        long compressed = compressedBytes;
+        return compressed == 0 ? 1 : (double) rawBytes / compressed;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package org.example.javafx_example.server.net;
+
+import java.io.IOException;
+
+/**
+ * Сетевой транспорт игрового сервера: принимает соединения и создает для них обработчики
+ */
+public interface Transport {
+    
+    /**
+     * Открывает порт и запускает потоки транспорта. Возвращает управление сразу после запуска.
+     */
+    void start() throws IOException;
+    
+    void stop();
+    
+    /**
+     * Дописывает метрики транспорта в текстовом виде (по одной на строку)
+     */
+    void appendMetrics(StringBuilder sb);
+} 
\ No newline at end of file
@@ -0,0 +1,173 @@
+package org.example.javafx_example.server.net;
+
+import org.example.javafx_example.protocol.DatagramProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UDP-порт сервера для датаграмм {@link DatagramProtocol}.
+ * Клиент получает по TCP случайный токен и присылает его датаграммой HELLO: так сервер узнает,
+ * на какой адрес слать этому клиенту состояние. Токен нельзя угадать, поэтому чужая датаграмма
+ * не перенаправит поток другого игрока. Повторный HELLO с тем же токеном меняет адрес (смена порта за NAT).
+ *
+ * Канал неблокирующий: отправка из потока игрового цикла никогда не ждет, датаграмма, не влезшая
+ * в буфер сокета, просто теряется, как и в сети. Прием HELLO идет в отдельном потоке на селекторе.
+ */
+public class UdpChannel {
+    
+    /**
+     * Получатель адреса клиента, приславшего свой токен
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onBound(SocketAddress address);
+    }
+    
+    private final int port;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<Long, Listener> tokens = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private DatagramChannel channel;
+    private Selector selector;
+    private volatile boolean running = false;
+    
+    // Статистика для метрик
+    private final AtomicLong datagramsSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong sendDropped = new AtomicLong();
+    private final AtomicLong hellosReceived = new AtomicLong();
+    private final AtomicLong datagramsRejected = new AtomicLong();
+    
+    public UdpChannel(int port) {
+        this.port = port;
+    }
+    
+    public void start() throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+        Thread receiver = new Thread(this::receiveLoop, "udp-receive");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+    
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        try {
+            while (running) {
+                selector.select();
+                selector.selectedKeys().clear();
+                SocketAddress from;
+                while ((from = channel.receive(buffer.clear())) != null) {
+                    buffer.flip();
+                    onDatagram(buffer, from);
+                }
+            }
+        } catch (ClosedChannelException | ClosedSelectorException e) {
+            // Канал закрыт при остановке сервера
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Ошибка UDP-канала: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void onDatagram(ByteBuffer datagram, SocketAddress from) {
+        if (datagram.remaining() != DatagramProtocol.HELLO_SIZE || datagram.get(0) != DatagramProtocol.TYPE_HELLO) {
+            datagramsRejected.incrementAndGet();
+            return;
+        }
+        Listener listener = tokens.get(datagram.getLong(1));
+        if (listener == null) {
+            datagramsRejected.incrementAndGet();
+            return;
+        }
+        hellosReceived.incrementAndGet();
+        listener.onBound(from);
+    }
+    
+    /**
+     * Выдает новый токен; получатель узнает адрес клиента, когда тот пришлет токен датаграммой
+     */
+    public long register(Listener listener) {
+        while (true) {
+            long token = random.nextLong();
+            if (token != 0 && tokens.putIfAbsent(token, listener) == null) {
+                return token;
+            }
+        }
+    }
+    
+    public void unregister(long token) {
+        tokens.remove(token);
+    }
+    
+    /**
+     * Номер следующей датаграммы STATE, общий для всего сервера: при переходе из комнаты в комнату
+     * номера у клиента продолжают расти
+     */
+    public int nextSequence() {
+        return sequence.incrementAndGet();
+    }
+    
+    /**
+     * Отправляет датаграмму без ожидания; не влезшая в буфер сокета теряется
+     */
+    public void send(byte[] datagram, SocketAddress to) {
+        try {
+            int sent = channel.send(ByteBuffer.wrap(datagram), to);
+            if (sent == 0) {
+                sendDropped.incrementAndGet();
+                return;
+            }
+            datagramsSent.incrementAndGet();
+            bytesSent.addAndGet(sent);
+        } catch (IOException e) {
+            // Например, ICMP "порт недоступен" от закрытого клиента
+            sendDropped.incrementAndGet();
+        }
+    }
+    
+    public int getPort() {
+        return port;
+    }
+    
+    public void stop() {
+        running = false;
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void appendMetrics(StringBuilder sb) {
+        sb.append("net_udp_tokens ").append(tokens.size()).append("\n");
+        sb.append("net_udp_datagrams_sent_total ").append(datagramsSent.get()).append("\n");
+        sb.append("net_udp_bytes_sent_total ").append(bytesSent.get()).append("\n");
+        sb.append("net_udp_send_dropped_total ").append(sendDropped.get()).append("\n");
+        sb.append("net_udp_hellos_total ").append(hellosReceived.get()).append("\n");
+        sb.append("net_udp_rejected_total ").append(datagramsRejected.get()).append("\n");
+    }
+} 
\ No newline at end of file
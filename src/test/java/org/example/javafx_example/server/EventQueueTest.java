@@ -0,0 +1,91 @@
+package org.example.javafx_example.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventQueueTest {
+    @Test
+    void emptyQueue() {
+        EventQueue queue = new EventQueue(4);
+        assertTrue(queue.isEmpty());
+        assertEquals(Long.MAX_VALUE, queue.peekTick());
+        queue.pop();
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    void popsInTickOrderAndKeepsSlotWithId() {
+        EventQueue queue = new EventQueue(1);
+        queue.schedule(30, 3, 300);
+        queue.schedule(10, 1, 100);
+        queue.schedule(20, 2, 200);
+        queue.schedule(5, 0, 50);
+        assertEquals(4, queue.size());
+        
+        long[] ticks = {5, 10, 20, 30};
+        for (int i = 0; i < ticks.length; i++) {
+            assertEquals(ticks[i], queue.peekTick());
+            assertEquals(i, queue.peekSlot());
+            assertEquals(i == 0 ? 50 : i * 100, queue.peekId());
+            queue.pop();
+        }
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    void matchesPriorityQueueWhenInterleaved() {
+        EventQueue queue = new EventQueue(2);
+        // ID = -слот: по нему видно, что слот и ID события не разъехались при просеивании
+        PriorityQueue<long[]> reference = new PriorityQueue<>(Comparator.<long[]>comparingLong(e -> e[0])
+                .thenComparingLong(e -> e[1]));
+        Random random = new Random(7);
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            if (random.nextInt(3) > 0) {
+                long tick = now + random.nextInt(50);
+                int slot = random.nextInt(1000);
+                queue.schedule(tick, slot, -slot);
+                reference.add(new long[]{tick, slot});
+            } else if (!reference.isEmpty()) {
+                now = reference.peek()[0];
+                assertEquals(now, queue.peekTick());
+                // Среди событий одного тика порядок не задан: снимаем их все и сравниваем как множества
+                List<Long> expected = new ArrayList<>();
+                List<Long> actual = new ArrayList<>();
+                while (!reference.isEmpty() && reference.peek()[0] == now) {
+                    expected.add(reference.poll()[1]);
+                }
+                while (queue.peekTick() == now) {
+                    assertEquals(-queue.peekSlot(), queue.peekId());
+                    actual.add((long) queue.peekSlot());
+                    queue.pop();
+                }
+                actual.sort(null);
+                assertEquals(expected, actual);
+            }
+            assertEquals(reference.size(), queue.size());
+        }
+    }
+    
+    @Test
+    void clearEmptiesQueue() {
+        EventQueue queue = new EventQueue(2);
+        for (int i = 0; i < 10; i++) {
+            queue.schedule(i, i, i);
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        queue.schedule(7, 1, 2);
+        assertFalse(queue.isEmpty());
+        assertEquals(7, queue.peekTick());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,145 @@
+package org.example.javafx_example.server;
+
+import org.example.javafx_example.server.database.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankIndexTest {
+    private static final Comparator<Map.Entry<String, Integer>> ORDER =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+    
+    private final RankIndex index = new RankIndex();
+    // Победы по игрокам: эталон, который сортируется заново для каждой проверки
+    private final Map<String, Integer> wins = new HashMap<>();
+    
+    @BeforeEach
+    void fill() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // Немного игроков и много побед: длинные группы с равным числом побед
+            String name = "p" + random.nextInt(800);
+            assertEquals((int) wins.merge(name, 1, Integer::sum), index.addWin(name));
+        }
+    }
+    
+    @Test
+    void ranksMatchSortedReference() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        assertEquals(sorted.size(), index.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            RankIndex.Rank rank = index.getRank(sorted.get(i).getKey(), 0);
+            assertEquals(i + 1, rank.getRank());
+            assertEquals((int) sorted.get(i).getValue(), rank.getWins());
+            assertEquals(sorted.size(), rank.getTotal());
+        }
+    }
+    
+    @Test
+    void unknownPlayerHasNoRank() {
+        RankIndex.Rank rank = index.getRank("nobody", 5);
+        assertEquals(0, rank.getRank());
+        assertTrue(rank.getNeighbours().isEmpty());
+    }
+    
+    @Test
+    void pagesMatchSortedReference() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        for (int offset : new int[]{0, 1, 99, 400, sorted.size() - 7, sorted.size() - 1}) {
+            List<UserEntity> page = index.getPage(offset, 25);
+            assertEquals(Math.min(25, sorted.size() - offset), page.size());
+            assertPage(sorted, offset, page);
+        }
+        assertTrue(index.getPage(sorted.size(), 10).isEmpty());
+    }
+    
+    @Test
+    void neighboursAreClippedAtTheEnds() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        RankIndex.Rank first = index.getRank(sorted.get(0).getKey(), 3);
+        assertEquals(1, first.getFirstRank());
+        assertPage(sorted, 0, first.getNeighbours().subList(0, 4));
+        assertEquals(4, first.getNeighbours().size());
+        
+        int last = sorted.size() - 1;
+        RankIndex.Rank end = index.getRank(sorted.get(last).getKey(), 3);
+        assertEquals(last - 2, end.getFirstRank());
+        assertEquals(4, end.getNeighbours().size());
+        assertPage(sorted, last - 3, end.getNeighbours());
+        
+        RankIndex.Rank middle = index.getRank(sorted.get(300).getKey(), 5);
+        assertEquals(296, middle.getFirstRank());
+        assertEquals(11, middle.getNeighbours().size());
+        assertPage(sorted, 295, middle.getNeighbours());
+    }
+    
+    @Test
+    void keysetPagesFollowEachOther() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        int offset = 0;
+        List<UserEntity> page = index.getPage(0, 37);
+        while (!page.isEmpty()) {
+            assertPage(sorted, offset, page);
+            offset += page.size();
+            UserEntity last = page.get(page.size() - 1);
+            page = index.getPageAfter(last.getWins(), last.getUsername(), 37);
+        }
+        assertEquals(sorted.size(), offset);
+    }
+    
+    @Test
+    void keysetPageAfterMissingKey() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        Map.Entry<String, Integer> key = sorted.get(200);
+        // Игрок с этим ключом успел победить: страница все равно начинается сразу за старым ключом
+        index.addWin(key.getKey());
+        wins.merge(key.getKey(), 1, Integer::sum);
+        List<Map.Entry<String, Integer>> after = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : sorted()) {
+            if (ORDER.compare(entry, key) > 0) after.add(entry);
+        }
+        List<UserEntity> page = index.getPageAfter(key.getValue(), key.getKey(), 20);
+        assertEquals(20, page.size());
+        assertPage(after, 0, page);
+        // Пустое имя - вся группа с этими победами
+        int groupStart = 0;
+        while (sorted.get(groupStart).getValue() > key.getValue()) groupStart++;
+        assertEquals(sorted.get(groupStart).getKey(), index.getPageAfter(key.getValue(), "", 1).get(0).getUsername());
+    }
+    
+    @Test
+    void winsMovePlayersUp() {
+        List<Map.Entry<String, Integer>> sorted = sorted();
+        String last = sorted.get(sorted.size() - 1).getKey();
+        int top = sorted.get(0).getValue();
+        for (int i = wins.get(last); i <= top; i++) {
+            wins.merge(last, 1, Integer::sum);
+            index.addWin(last);
+        }
+        assertEquals(1, index.getRank(last, 0).getRank());
+        assertPage(sorted(), 0, index.getPage(0, 50));
+    }
+    
+    private List<Map.Entry<String, Integer>> sorted() {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(Map.copyOf(wins).entrySet());
+        sorted.sort(ORDER);
+        return sorted;
+    }
+    
+    private static void assertPage(List<Map.Entry<String, Integer>> sorted, int offset, List<UserEntity> page) {
+        for (int i = 0; i < page.size(); i++) {
+            Map.Entry<String, Integer> expected = sorted.get(offset + i);
+            assertEquals(expected.getKey(), page.get(i).getUsername(), "место " + (offset + i + 1));
+            assertEquals((int) expected.getValue(), page.get(i).getWins(), "место " + (offset + i + 1));
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,215 @@
+package org.example.javafx_example.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateDeltaEncoderTest {
+    // Порог поправки мишени и половина шага квантования позиции
+    private static final double TOLERANCE = 0.25 + 1 / 32.0;
+    private static final int TARGETS = 4;
+    
+    /**
+     * Состояние клиента, собранное из опорных кадров и дельт так же, как его ведет клиент
+     */
+    private static class ClientState {
+        boolean running;
+        boolean paused;
+        String pauseBy;
+        double[] y = new double[0];
+        double[] v = new double[0];
+        long[] since = new long[0];
+        final Map<String, String> players = new HashMap<>();
+        
+        void apply(StateUpdate update) {
+            if (update.isKeyframe()) {
+                int count = update.getTargetUpdateCount();
+                y = new double[count];
+                v = new double[count];
+                since = new long[count];
+                players.clear();
+            }
+            if (update.isKeyframe() || update.isFlagsChanged()) {
+                running = update.isRunning();
+                paused = update.isPaused();
+            }
+            if (update.isKeyframe() || update.isPauseByChanged()) {
+                pauseBy = update.getPauseBy();
+            }
+            for (int i = 0; i < update.getTargetUpdateCount(); i++) {
+                int target = update.getTargetIndex(i);
+                y[target] = update.getTargetY(i);
+                v[target] = update.getTargetVelocity(i);
+                since[target] = update.getTick();
+            }
+            for (GameSnapshot.PlayerState player : update.getPlayers()) {
+                players.put(player.getName(), describe(player));
+            }
+            for (GameSnapshot.PlayerState player : update.getRemovedPlayers()) {
+                players.remove(player.getName());
+            }
+        }
+        
+        double predictY(int target, long tick) {
+            return y[target] + v[target] * (tick - since[target]);
+        }
+        
+        void assertMatches(GameSnapshot snapshot) {
+            long tick = snapshot.getTick();
+            assertEquals(snapshot.isRunning(), running, "идет, тик " + tick);
+            assertEquals(snapshot.isPaused(), paused, "пауза, тик " + tick);
+            assertEquals(snapshot.getPauseRequestedBy(), pauseBy, "кто на паузе, тик " + tick);
+            assertEquals(snapshot.getTargetCount(), y.length);
+            for (int target = 0; target < y.length; target++) {
+                assertEquals(snapshot.getTargetY(target), predictY(target, tick), TOLERANCE,
+                        "мишень " + target + ", тик " + tick);
+            }
+            Map<String, String> expected = new HashMap<>();
+            for (GameSnapshot.PlayerState player : snapshot.getPlayers()) {
+                expected.put(player.getName(), describe(player));
+            }
+            assertEquals(expected, players, "игроки, тик " + tick);
+        }
+        
+        private static String describe(GameSnapshot.PlayerState player) {
+            return player.getSlot() + ":" + player.getScore() + ":" + player.getShots();
+        }
+    }
+    
+    /**
+     * Игра на дорожках высотой 400: мишени отражаются от краев, игроки входят, стреляют,
+     * ставят паузу и уходят
+     */
+    private static class Simulation {
+        final Random random = new Random(3);
+        final double[] y = new double[TARGETS];
+        final double[] v = new double[TARGETS];
+        final List<String> names = new ArrayList<>(List.of("alice", "bob"));
+        // Слот игрока не меняется, пока он в комнате, как в ServerGame
+        final Map<String, Integer> slots = new HashMap<>(Map.of("alice", 0, "bob", 1, "carol", 2));
+        final Map<String, int[]> scores = new HashMap<>();
+        long tick = 0;
+        boolean running = true;
+        String pauseBy;
+        
+        Simulation() {
+            for (int target = 0; target < TARGETS; target++) {
+                y[target] = 50 + 80 * target;
+                v[target] = (target % 2 == 0 ? 1 : -1) * (1.3 + 0.37 * target);
+            }
+        }
+        
+        GameSnapshot step(int ticks) {
+            for (int i = 0; i < ticks; i++) {
+                tick++;
+                if (pauseBy != null || !running) continue;
+                for (int target = 0; target < TARGETS; target++) {
+                    y[target] += v[target];
+                    if (y[target] < 0 || y[target] > 400) {
+                        v[target] = -v[target];
+                        y[target] = Math.max(0, Math.min(400, y[target]));
+                    }
+                }
+            }
+            if (tick == 300) names.add("carol");
+            if (tick == 600) names.remove("bob");
+            if (tick == 450) pauseBy = "alice";
+            if (tick == 510) pauseBy = null;
+            if (tick == 900) running = false;
+            for (String name : names) {
+                int[] score = scores.computeIfAbsent(name, n -> new int[2]);
+                if (running && pauseBy == null && random.nextInt(4) == 0) {
+                    score[1]++;
+                    if (random.nextBoolean()) score[0]++;
+                }
+            }
+            return snapshot();
+        }
+        
+        GameSnapshot snapshot() {
+            List<GameSnapshot.PlayerState> players = new ArrayList<>();
+            for (String name : names) {
+                int[] score = scores.getOrDefault(name, new int[2]);
+                players.add(new GameSnapshot.PlayerState(name, slots.get(name), score[0], score[1]));
+            }
+            double[] velocities = pauseBy != null || !running ? new double[TARGETS] : v;
+            return new GameSnapshot(tick, running, pauseBy != null, pauseBy, y, velocities, players);
+        }
+    }
+    
+    @Test
+    void clientFollowsGameThroughDeltas() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder();
+        Simulation game = new Simulation();
+        ClientState client = new ClientState();
+        int keyframes = 0;
+        int emptyDeltas = 0;
+        for (int i = 0; i < 1000; i++) {
+            GameSnapshot snapshot = game.step(3);
+            StateUpdate update = encoder.encode(snapshot);
+            assertEquals(i + 1, update.getSequence());
+            assertEquals(snapshot.getTick(), update.getTick());
+            if (update.isKeyframe()) {
+                keyframes++;
+            } else if (!update.hasControlChanges() && update.getTargetUpdateCount() == 0) {
+                emptyDeltas++;
+            }
+            client.apply(update);
+            client.assertMatches(snapshot);
+        }
+        // Первый кадр опорный, дальше - после каждых KEYFRAME_INTERVAL дельт
+        assertEquals(1 + 999 / (StateDeltaEncoder.KEYFRAME_INTERVAL + 1), keyframes);
+        assertEquals(keyframes, encoder.getKeyframeCount());
+        // Мишени клиент ведет сам: большинство дельт без поправок
+        assertTrue(emptyDeltas > 500, "пустых дельт " + emptyDeltas);
+    }
+    
+    @Test
+    void baseKeyframeRestoresClientState() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder();
+        Simulation game = new Simulation();
+        ClientState client = new ClientState();
+        for (int i = 0; i < 400; i++) {
+            GameSnapshot snapshot = game.step(2);
+            client.apply(encoder.encode(snapshot));
+            client.assertMatches(snapshot);
+            if (i % 37 == 0) {
+                // Клиент, у которого вытеснили дельту, получает базу и видит то же, что и остальные
+                long keyframesBefore = encoder.getKeyframeCount();
+                StateUpdate base = encoder.baseKeyframe();
+                assertTrue(base.isKeyframe());
+                assertEquals(i + 1, base.getSequence());
+                ClientState resynced = new ClientState();
+                resynced.apply(base);
+                resynced.assertMatches(snapshot);
+                assertEquals(keyframesBefore, encoder.getKeyframeCount());
+            }
+        }
+    }
+    
+    @Test
+    void keyframeOnRequestAndOnReset() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder();
+        Simulation game = new Simulation();
+        assertFalse(encoder.hasBase());
+        assertTrue(encoder.encode(game.step(1)).isKeyframe());
+        assertTrue(encoder.hasBase());
+        assertFalse(encoder.encode(game.step(1)).isKeyframe());
+        
+        encoder.requestKeyframe();
+        assertTrue(encoder.encode(game.step(1)).isKeyframe());
+        assertFalse(encoder.encode(game.step(1)).isKeyframe());
+        
+        // Новая игра: тик пошел сначала
+        Simulation next = new Simulation();
+        assertTrue(encoder.encode(next.step(1)).isKeyframe());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,152 @@
+package org.example.javafx_example.server.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WinJournalTest {
+    @TempDir
+    Path dir;
+    
+    /**
+     * База в памяти: победы, позиция журнала и все позиции, которые ей передавали
+     */
+    private static class FakeRepository extends UserRepository {
+        volatile boolean available = true;
+        final Map<String, Integer> wins = new HashMap<>();
+        final List<Long> positions = new ArrayList<>();
+        long appliedSeq;
+        
+        @Override
+        public synchronized boolean addWins(Map<String, Integer> added, long journalSeq) {
+            if (!available) return false;
+            added.forEach((name, count) -> wins.merge(name, count, Integer::sum));
+            positions.add(journalSeq);
+            appliedSeq = Math.max(appliedSeq, journalSeq);
+            return true;
+        }
+        
+        @Override
+        public synchronized long getAppliedJournalSeq() {
+            return appliedSeq;
+        }
+        
+        synchronized int winsOf(String name) {
+            return wins.getOrDefault(name, 0);
+        }
+        
+        synchronized long applied() {
+            return appliedSeq;
+        }
+    }
+    
+    @Test
+    void appliesWinsAndKeepsPositionAcrossRestart() throws Exception {
+        Path path = dir.resolve("wins.journal");
+        FakeRepository repository = new FakeRepository();
+        WinJournal journal = WinJournal.open(path, repository);
+        journal.append("alice");
+        journal.append("bob");
+        journal.append("alice");
+        awaitApplied(repository, 3);
+        journal.close();
+        assertEquals(2, repository.winsOf("alice"));
+        assertEquals(1, repository.winsOf("bob"));
+        
+        // Все уже в базе: повторный запуск ничего не применяет, номера продолжаются
+        int applies = repository.positions.size();
+        journal = WinJournal.open(path, repository);
+        assertEquals(applies, repository.positions.size());
+        journal.append("bob");
+        awaitApplied(repository, 4);
+        journal.close();
+        assertEquals(2, repository.winsOf("bob"));
+    }
+    
+    @Test
+    void replaysOnlyRecordsAboveAppliedSeq() throws Exception {
+        Path path = dir.resolve("wins.journal");
+        FakeRepository down = new FakeRepository();
+        down.available = false;
+        WinJournal journal = WinJournal.open(path, down);
+        journal.append("alice");
+        journal.append("bob");
+        journal.append("carol");
+        // База так и не ответила: записи остались только в файле, как после падения
+        journal.close();
+        
+        FakeRepository repository = new FakeRepository();
+        repository.appliedSeq = 1;
+        WinJournal.open(path, repository).close();
+        assertEquals(0, repository.winsOf("alice"));
+        assertEquals(1, repository.winsOf("bob"));
+        assertEquals(1, repository.winsOf("carol"));
+        assertEquals(List.of(3L), repository.positions);
+    }
+    
+    @Test
+    void recoversAfterRejectedWinWithoutCountingTwice() throws Exception {
+        Path path = dir.resolve("wins.journal");
+        FakeRepository down = new FakeRepository();
+        down.available = false;
+        WinJournal journal = WinJournal.open(path, down);
+        journal.append("alice");
+        String longName = "x".repeat(WinJournal.MAX_NAME_BYTES + 1);
+        assertThrows(IllegalArgumentException.class, () -> journal.append(longName));
+        journal.append("bob");
+        journal.close();
+        
+        // Падение посреди записи: в конце файла оборванная запись
+        Files.write(path, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+        
+        FakeRepository repository = new FakeRepository();
+        WinJournal recovered = WinJournal.open(path, repository);
+        assertEquals(1, repository.winsOf("alice"));
+        assertEquals(1, repository.winsOf("bob"));
+        assertEquals(0, repository.winsOf(longName));
+        assertEquals(2, repository.applied());
+        
+        recovered.append("alice");
+        awaitApplied(repository, 3);
+        recovered.close();
+        
+        // Позиция только растет, и ни одна запись не внесена дважды
+        WinJournal.open(path, repository).close();
+        assertEquals(2, repository.winsOf("alice"));
+        assertEquals(1, repository.winsOf("bob"));
+        for (int i = 1; i < repository.positions.size(); i++) {
+            assertTrue(repository.positions.get(i) > repository.positions.get(i - 1), repository.positions.toString());
+        }
+    }
+    
+    @Test
+    void rejectsMissingPositionInsteadOfGuessing() {
+        FakeRepository broken = new FakeRepository() {
+            @Override
+            public synchronized long getAppliedJournalSeq() {
+                throw new IllegalStateException("база недоступна");
+            }
+        };
+        assertThrows(IOException.class, () -> WinJournal.open(dir.resolve("wins.journal"), broken));
+    }
+    
+    private static void awaitApplied(FakeRepository repository, long seq) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (repository.applied() < seq) {
+            assertTrue(System.nanoTime() < deadline, "победы не дошли до базы");
+            Thread.sleep(10);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,110 @@
+package org.example.javafx_example.server.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundQueueTest {
+    private final OutboundQueue.Stats stats = new OutboundQueue.Stats();
+    private final OutboundQueue queue = new OutboundQueue(stats);
+    
+    @Test
+    void latestReplacesOlderLatestButKeepsEvents() {
+        queue.add(bytes("EVENT1"));
+        queue.addLatest(bytes("POS1"), false);
+        queue.add(bytes("EVENT2"));
+        queue.addLatest(bytes("POS2"), false);
+        queue.addLatest(bytes("POS3"), false);
+        
+        assertEquals(List.of("EVENT1", "EVENT2", "POS3"), pollAll());
+        assertEquals(2, stats.getDropped());
+        assertEquals(0, queue.getQueuedBytes());
+        assertFalse(queue.hasLatest());
+    }
+    
+    @Test
+    void fullStateIsReplacedOnlyByFull() {
+        queue.addLatest(bytes("KEY1"), true);
+        queue.addLatest(bytes("DELTA1"), false);
+        // Новая дельта вытесняет старую, но опорный кадр остается: дельты применяются к нему
+        assertTrue(queue.addLatest(bytes("DELTA2"), false));
+        assertEquals(List.of("KEY1", "DELTA2"), pollAll());
+        
+        queue.addLatest(bytes("KEY1"), true);
+        queue.addLatest(bytes("DELTA1"), false);
+        // Полный кадр вытесняет все; повторный опорный кадр уже не нужен
+        assertFalse(queue.addLatest(bytes("KEY2"), true));
+        assertEquals(List.of("KEY2"), pollAll());
+    }
+    
+    @Test
+    void startedMessageIsNotReplaced() {
+        queue.addLatest(bytes("POSITION1"), false);
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        queue.drainTo(buffer);
+        queue.addLatest(bytes("POSITION2"), false);
+        
+        // Начало POSITION1 уже ушло: сообщение дописывается целиком, а новое встает за ним
+        ByteBuffer rest = ByteBuffer.allocate(64);
+        queue.drainTo(rest);
+        rest.flip();
+        assertEquals("TION1POSITION2", StandardCharsets.UTF_8.decode(rest).toString());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, stats.getDropped());
+    }
+    
+    @Test
+    void countsQueuedBytes() {
+        queue.add(new byte[10]);
+        queue.addLatest(new byte[20], false);
+        queue.addLatest(new byte[5], false);
+        assertEquals(15, queue.getQueuedBytes());
+        queue.poll();
+        assertEquals(5, queue.getQueuedBytes());
+    }
+    
+    @Test
+    void disconnectsAfterGraceOrHardLimit() {
+        long now = 1_000_000_000L;
+        queue.add(new byte[OutboundQueue.BUDGET_BYTES + 1]);
+        assertFalse(queue.shouldDisconnect(now));
+        assertFalse(queue.shouldDisconnect(now + OutboundQueue.OVER_BUDGET_GRACE_NANOS));
+        assertTrue(queue.shouldDisconnect(now + OutboundQueue.OVER_BUDGET_GRACE_NANOS + 1));
+        
+        OutboundQueue hard = new OutboundQueue(stats);
+        hard.add(new byte[OutboundQueue.HARD_LIMIT_BYTES + 1]);
+        assertTrue(hard.shouldDisconnect(now));
+        assertEquals(2, stats.getSlowDisconnects());
+    }
+    
+    @Test
+    void backUnderBudgetResetsGrace() {
+        long now = 1_000_000_000L;
+        queue.add(new byte[OutboundQueue.BUDGET_BYTES + 1]);
+        assertFalse(queue.shouldDisconnect(now));
+        queue.poll();
+        assertFalse(queue.shouldDisconnect(now + 1));
+        queue.add(new byte[OutboundQueue.BUDGET_BYTES + 1]);
+        assertFalse(queue.shouldDisconnect(now + OutboundQueue.OVER_BUDGET_GRACE_NANOS + 2));
+    }
+    
+    private List<String> pollAll() {
+        List<String> messages = new ArrayList<>();
+        byte[] bytes;
+        while ((bytes = queue.poll()) != null) {
+            messages.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return messages;
+    }
+    
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+} 
\ No newline at end of file